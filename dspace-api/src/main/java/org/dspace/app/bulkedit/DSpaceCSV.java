@@ -8,6 +8,8 @@
 package org.dspace.app.bulkedit;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Serializable;
@@ -54,9 +56,12 @@ import org.dspace.services.factory.DSpaceServicesFactory;
  * a) be putting this into a user's session?
  * b) holding an entire CSV upload in memory?
  *
+ * A CSV file can also be read one line at a time (see {@link #DSpaceCSV(InputStream, Context, boolean)}), so that
+ * very large files don't have to be held in memory.
+ *
  * @author Stuart Lewis
  */
-public class DSpaceCSV implements Serializable {
+public class DSpaceCSV implements Serializable, Closeable {
     /**
      * The headings of the CSV file
      */
@@ -121,6 +126,11 @@ public class DSpaceCSV implements Serializable {
      */
     protected Map<String, String> ignore;
 
+    /**
+     * The CSV file being read one line at a time, null if the lines have all been read
+     */
+    protected transient BufferedReader reader;
+
 
     /**
      * Create a new instance of a CSV line holder
@@ -143,6 +153,20 @@ public class DSpaceCSV implements Serializable {
      * @throws Exception thrown if there is an error reading or processing the file
      */
     public DSpaceCSV(InputStream inputStream, Context c) throws Exception {
+        this(inputStream, c, false);
+    }
+
+    /**
+     * Create a new instance, reading the headings in from file, and either reading all lines in as well or leaving
+     * them to be read one at a time with {@link #readCSVLine()}.
+     *
+     * @param inputStream the inputstream to read from
+     * @param c           The DSpace Context
+     * @param streaming   whether to read the lines one at a time, in which case the file is kept open until all lines
+     *                    have been read or this instance is closed
+     * @throws Exception thrown if there is an error reading or processing the file
+     */
+    public DSpaceCSV(InputStream inputStream, Context c, boolean streaming) throws Exception {
         // Initialise the class
         init();
 
@@ -152,129 +176,190 @@ public class DSpaceCSV implements Serializable {
             input = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
 
             // Read the heading line
-            String head = input.readLine();
-            String[] headingElements = head.split(escapedFieldSeparator);
-            int columnCounter = 0;
-            for (String element : headingElements) {
-                columnCounter++;
-
-                // Remove surrounding quotes if there are any
-                if ((element.startsWith("\"")) && (element.endsWith("\""))) {
-                    element = element.substring(1, element.length() - 1);
-                }
+            readHeadings(input.readLine(), c);
+
+            if (streaming) {
+                reader = input;
+                input = null;
+                return;
+            }
+
+            // Read each subsequent line
+            String record;
+            while ((record = readRecord(input)) != null) {
+                addItem(record);
+            }
+        } finally {
+            if (input != null) {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Read and verify the headings of the CSV file.
+     *
+     * @param head the heading line
+     * @param c    The DSpace Context
+     * @throws Exception thrown if a heading is not valid
+     */
+    protected void readHeadings(String head, Context c) throws Exception {
+        String[] headingElements = head.split(escapedFieldSeparator);
+        int columnCounter = 0;
+        for (String element : headingElements) {
+            columnCounter++;
+
+            // Remove surrounding quotes if there are any
+            if ((element.startsWith("\"")) && (element.endsWith("\""))) {
+                element = element.substring(1, element.length() - 1);
+            }
 
+            // Store the heading
+            if ("collection".equals(element)) {
+                // Store the heading
+                headings.add(element);
+            }   else if ("rowName".equals(element)) {
+                // Store the heading
+                headings.add(element);
+            } else if ("action".equals(element)) { // Store the action
                 // Store the heading
-                if ("collection".equals(element)) {
-                    // Store the heading
-                    headings.add(element);
-                }   else if ("rowName".equals(element)) {
-                    // Store the heading
-                    headings.add(element);
-                } else if ("action".equals(element)) { // Store the action
-                    // Store the heading
-                    headings.add(element);
-                } else if (!"id".equals(element)) {
-                    String authorityPrefix = "";
-                    if (StringUtils.startsWith(element, "[authority]")) {
-                        element = StringUtils.substringAfter(element, "[authority]");
-                        AuthorityValue authorityValueType = authorityValueService.getAuthorityValueType(element);
-                        if (authorityValueType != null) {
-                            String authorityType = authorityValueType.getAuthorityType();
-                            authorityPrefix = element.substring(0, authorityType.length() + 1);
-                            element = element.substring(authorityPrefix.length());
-                        }
+                headings.add(element);
+            } else if (!"id".equals(element)) {
+                String authorityPrefix = "";
+                if (StringUtils.startsWith(element, "[authority]")) {
+                    element = StringUtils.substringAfter(element, "[authority]");
+                    AuthorityValue authorityValueType = authorityValueService.getAuthorityValueType(element);
+                    if (authorityValueType != null) {
+                        String authorityType = authorityValueType.getAuthorityType();
+                        authorityPrefix = element.substring(0, authorityType.length() + 1);
+                        element = element.substring(authorityPrefix.length());
                     }
+                }
 
-                    // Verify that the heading is valid in the metadata registry
-                    String[] clean = element.split("\\[");
-                    String[] parts = clean[0].split("\\.");
+                // Verify that the heading is valid in the metadata registry
+                String[] clean = element.split("\\[");
+                String[] parts = clean[0].split("\\.");
 
-                    if (parts.length < 2) {
-                        throw new MetadataImportInvalidHeadingException(element,
-                                                                        MetadataImportInvalidHeadingException.ENTRY,
-                                                                        columnCounter);
-                    }
+                if (parts.length < 2) {
+                    throw new MetadataImportInvalidHeadingException(element,
+                                                                    MetadataImportInvalidHeadingException.ENTRY,
+                                                                    columnCounter);
+                }
 
-                    String metadataSchema = parts[0];
-                    String metadataElement = parts[1];
-                    String metadataQualifier = null;
-                    if (parts.length > 2) {
-                        metadataQualifier = parts[2];
-                    }
+                String metadataSchema = parts[0];
+                String metadataElement = parts[1];
+                String metadataQualifier = null;
+                if (parts.length > 2) {
+                    metadataQualifier = parts[2];
+                }
 
-                    // Check that the scheme exists
-                    if (!StringUtils.equals(metadataSchema, MetadataSchemaEnum.RELATION.getName())) {
-                        MetadataSchema foundSchema = metadataSchemaService.find(c, metadataSchema);
-                        if (foundSchema == null) {
-                            throw new MetadataImportInvalidHeadingException(clean[0],
-                                                                            MetadataImportInvalidHeadingException
-                                                                                .SCHEMA,
-                                                                            columnCounter);
-                        }
-
-                        // Check that the metadata element exists in the schema
-                        MetadataField foundField = metadataFieldService
-                            .findByElement(c, foundSchema, metadataElement, metadataQualifier);
-                        if (foundField == null) {
-                            throw new MetadataImportInvalidHeadingException(clean[0],
-                                                                            MetadataImportInvalidHeadingException
-                                                                                .ELEMENT,
-                                                                            columnCounter);
-                        }
+                // Check that the scheme exists
+                if (!StringUtils.equals(metadataSchema, MetadataSchemaEnum.RELATION.getName())) {
+                    MetadataSchema foundSchema = metadataSchemaService.find(c, metadataSchema);
+                    if (foundSchema == null) {
+                        throw new MetadataImportInvalidHeadingException(clean[0],
+                                                                        MetadataImportInvalidHeadingException
+                                                                            .SCHEMA,
+                                                                        columnCounter);
                     }
 
-                    // Store the heading
-                    headings.add(authorityPrefix + element);
+                    // Check that the metadata element exists in the schema
+                    MetadataField foundField = metadataFieldService
+                        .findByElement(c, foundSchema, metadataElement, metadataQualifier);
+                    if (foundField == null) {
+                        throw new MetadataImportInvalidHeadingException(clean[0],
+                                                                        MetadataImportInvalidHeadingException
+                                                                            .ELEMENT,
+                                                                        columnCounter);
+                    }
                 }
+
+                // Store the heading
+                headings.add(authorityPrefix + element);
             }
+        }
+    }
 
-            // Read each subsequent line
-            StringBuilder lineBuilder = new StringBuilder();
-            String lineRead;
-
-            while ((lineRead = input.readLine()) != null) {
-                if (lineBuilder.length() > 0) {
-                    // Already have a previously read value - add this line
-                    lineBuilder.append("\n").append(lineRead);
-
-                    // Count the number of quotes in the buffer
-                    int quoteCount = 0;
-                    for (int pos = 0; pos < lineBuilder.length(); pos++) {
-                        if (lineBuilder.charAt(pos) == '"') {
-                            quoteCount++;
-                        }
+    /**
+     * Read the next record of the CSV file, which spans several lines if a quoted value contains line breaks.
+     *
+     * @param input the CSV file
+     * @return the record, or null at the end of the file
+     * @throws IOException thrown if there is an error reading the file
+     */
+    protected String readRecord(BufferedReader input) throws IOException {
+        StringBuilder lineBuilder = new StringBuilder();
+        String lineRead;
+
+        while ((lineRead = input.readLine()) != null) {
+            if (lineBuilder.length() > 0) {
+                // Already have a previously read value - add this line
+                lineBuilder.append("\n").append(lineRead);
+
+                // Count the number of quotes in the buffer
+                int quoteCount = 0;
+                for (int pos = 0; pos < lineBuilder.length(); pos++) {
+                    if (lineBuilder.charAt(pos) == '"') {
+                        quoteCount++;
                     }
+                }
 
-                    if (quoteCount % 2 == 0) {
-                        // Number of quotes is a multiple of 2, add the item
-                        addItem(lineBuilder.toString());
-                        lineBuilder = new StringBuilder();
-                    }
-                } else if (lineRead.indexOf('"') > -1) {
-                    // Get the number of quotes in the line
-                    int quoteCount = 0;
-                    for (int pos = 0; pos < lineRead.length(); pos++) {
-                        if (lineRead.charAt(pos) == '"') {
-                            quoteCount++;
-                        }
+                if (quoteCount % 2 == 0) {
+                    // Number of quotes is a multiple of 2, the record is complete
+                    return lineBuilder.toString();
+                }
+            } else if (lineRead.indexOf('"') > -1) {
+                // Get the number of quotes in the line
+                int quoteCount = 0;
+                for (int pos = 0; pos < lineRead.length(); pos++) {
+                    if (lineRead.charAt(pos) == '"') {
+                        quoteCount++;
                     }
+                }
 
-                    if (quoteCount % 2 == 0) {
-                        // Number of quotes is a multiple of 2, add the item
-                        addItem(lineRead);
-                    } else {
-                        // Uneven quotes - add to the buffer and leave for later
-                        lineBuilder.append(lineRead);
-                    }
+                if (quoteCount % 2 == 0) {
+                    // Number of quotes is a multiple of 2, the record is complete
+                    return lineRead;
                 } else {
-                    // No previously read line, and no quotes in the line - add item
-                    addItem(lineRead);
+                    // Uneven quotes - add to the buffer and leave for later
+                    lineBuilder.append(lineRead);
                 }
+            } else {
+                // No previously read line, and no quotes in the line - the record is complete
+                return lineRead;
             }
-        } finally {
-            if (input != null) {
-                input.close();
-            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the next line of a CSV file which is read one line at a time. The line is not held by this instance.
+     *
+     * @return the line, or null if all lines have been read
+     * @throws Exception thrown if there is an error reading or processing the file
+     */
+    public DSpaceCSVLine readCSVLine() throws Exception {
+        if (reader == null) {
+            return null;
+        }
+        String record = readRecord(reader);
+        if (record == null) {
+            close();
+            return null;
+        }
+        return parseLine(record);
+    }
+
+    /**
+     * Close the CSV file, if it is read one line at a time.
+     *
+     * @throws IOException thrown if there is an error closing the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
         }
     }
 
@@ -488,6 +573,18 @@ public class DSpaceCSV implements Serializable {
      * @throws Exception Thrown if an error occurs when adding the item
      */
     public final void addItem(String line) throws Exception {
+        lines.add(parseLine(line));
+        counter++;
+    }
+
+    /**
+     * Parse a CSV line of elements
+     *
+     * @param line The line of elements
+     * @return the parsed line
+     * @throws Exception Thrown if the line can't be parsed
+     */
+    protected DSpaceCSVLine parseLine(String line) throws Exception {
         // Check to see if the last character is a field separator, which hides the last empty column
         boolean last = false;
         if (line.endsWith(fieldSeparator)) {
@@ -584,8 +681,7 @@ public class DSpaceCSV implements Serializable {
             }
             i++;
         }
-        lines.add(csvLine);
-        counter++;
+        return csvLine;
     }
 
     /**
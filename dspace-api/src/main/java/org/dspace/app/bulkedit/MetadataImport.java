@@ -7,8 +7,12 @@
  */
 package org.dspace.app.bulkedit;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -20,9 +24,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 import org.dspace.authority.AuthorityValue;
@@ -54,6 +61,7 @@ import org.dspace.content.service.WorkspaceItemService;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.LogManager;
+import org.dspace.core.ReloadableEntity;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.factory.EPersonServiceFactory;
 import org.dspace.handle.factory.HandleServiceFactory;
@@ -70,6 +78,13 @@ import org.dspace.workflow.factory.WorkflowServiceFactory;
 
 /**
  * Metadata importer to allow the batch import of metadata from a file
+ * <p>
+ * With a batch size (-b), the file is streamed rather than read into memory: the lines are read, compared and applied
+ * one at a time, the changes are committed after every batch of lines, and the changes are written to a file rather
+ * than kept in memory. An import which was interrupted can be resumed at the first line which was not committed (-r).
+ * Entity references (rowName) in streaming mode can only refer to lines which are imported in the same run. The file
+ * is read twice in streaming mode: the first pass only collects the entity references, so that the lines which are
+ * not referred to aren't kept in memory.
  *
  * @author Stuart Lewis
  */
@@ -123,6 +138,19 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
      */
     protected HashMap<String, HashMap<String, ArrayList<String>>> entityRelationMap = new HashMap<>();
 
+    /**
+     * The entity references in the relation columns of the file when streaming the file, null when the whole file is
+     * read into memory. Only the lines which can be referred to are added to the maps above when streaming the file.
+     *
+     * @see #findEntityRefs(Context, File)
+     */
+    protected Set<String> streamedEntityRefs = null;
+
+    /**
+     * The entities which were changed since the last commit when streaming the file, these are uncached once their
+     * changes have been committed. May contain null, which is ignored when uncaching.
+     */
+    protected List<ReloadableEntity<?>> uncommittedEntities = new ArrayList<>();
 
     /**
      * Collection of errors generated during relation validation process.
@@ -142,6 +170,16 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
     private boolean help = false;
     protected boolean validateOnly;
 
+    /**
+     * The number of lines to apply between commits when streaming the file, 0 to read the whole file into memory
+     */
+    protected int batchSize = 0;
+
+    /**
+     * The first line to import when streaming the file, to resume an import which was interrupted
+     */
+    protected int resumeRow = 1;
+
     /**
      * Logger
      */
@@ -190,6 +228,11 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
         if (authorityControlled == null) {
             setAuthorizedMetadataFields();
         }
+        if (batchSize > 0) {
+            internalRunStreaming(c);
+            return;
+        }
+
         // Read commandLines from the CSV file
         try {
 
@@ -263,6 +306,80 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
 
     }
 
+    /**
+     * Run the import one line at a time, see {@link #runStreamingImport}.
+     *
+     * @param c The DSpace Context
+     * @throws Exception if the import failed
+     */
+    protected void internalRunStreaming(Context c) throws Exception {
+        // Keep a copy of the file, as it is read twice
+        File csvFile = File.createTempFile("metadata-import", ".csv");
+        File changesFile = File.createTempFile("metadata-import", ".txt");
+        try {
+            Optional<InputStream> optionalFileStream = handler.getFileStream(c, filename);
+            if (optionalFileStream.isPresent()) {
+                FileUtils.copyInputStreamToFile(optionalFileStream.get(), csvFile);
+            } else {
+                throw new IllegalArgumentException("Error reading file, the file couldn't be found for filename: " +
+                                                       filename);
+            }
+
+            if (!commandLine.hasOption('s') || validateOnly) {
+                // See what has changed
+                int changeCounter;
+                try (PrintWriter out = new PrintWriter(changesFile, StandardCharsets.UTF_8.name())) {
+                    changeCounter = runStreamingImport(c, csvFile, false, useWorkflow, workflowNotify, useTemplate,
+                                                       out::println);
+                }
+
+                // If there were changes, ask if we should execute them
+                if (changeCounter > 0) {
+                    String changesFileName = FilenameUtils.getBaseName(filename) + "-preview.txt";
+                    try (InputStream changes = new FileInputStream(changesFile)) {
+                        handler.writeFilestream(c, changesFileName, changes, "preview");
+                    }
+                    handler.logInfo("\n" + changeCounter + " item(s) will be changed, see " + changesFileName +
+                                        " for the changes\n");
+                    if (!validateOnly) {
+                        change = determineChange(handler);
+                    }
+                } else {
+                    handler.logInfo("There were no changes detected");
+                }
+            } else {
+                change = true;
+            }
+
+            if (change && !validateOnly) {
+                int changeCounter;
+                try (PrintWriter out = new PrintWriter(changesFile, StandardCharsets.UTF_8.name())) {
+                    changeCounter = runStreamingImport(c, csvFile, true, useWorkflow, workflowNotify, useTemplate,
+                                                       out::println);
+                }
+                String changesFileName = FilenameUtils.getBaseName(filename) + "-changes.txt";
+                try (InputStream changes = new FileInputStream(changesFile)) {
+                    handler.writeFilestream(c, changesFileName, changes, "changes");
+                }
+                handler.logInfo(changeCounter + " item(s) have been changed, see " + changesFileName +
+                                    " for the changes");
+            }
+
+            // Finsh off and tidy up
+            c.restoreAuthSystemState();
+            c.complete();
+        } catch (MetadataImportException e) {
+            c.abort();
+            throw e;
+        } catch (Exception e) {
+            c.abort();
+            throw new Exception("Error importing the file: " + e.getMessage() + ", aborting most recent changes", e);
+        } finally {
+            csvFile.delete();
+            changesFile.delete();
+        }
+    }
+
     protected void assignCurrentUserInContext(Context context) throws ParseException {
         UUID uuid = getEpersonIdentifier();
         if (uuid != null) {
@@ -328,6 +445,27 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
         }
         validateOnly = commandLine.hasOption('v');
 
+        // Stream the file?
+        batchSize = 0;
+        resumeRow = 1;
+        try {
+            if (commandLine.hasOption('b')) {
+                batchSize = Integer.parseInt(commandLine.getOptionValue('b'));
+            }
+            if (commandLine.hasOption('r')) {
+                resumeRow = Integer.parseInt(commandLine.getOptionValue('r'));
+            }
+        } catch (NumberFormatException e) {
+            throw new ParseException("Invalid number: " + e.getMessage());
+        }
+        if (batchSize < 0 || resumeRow < 1) {
+            throw new ParseException("The batch size and the row to resume at must be positive");
+        }
+        if (resumeRow > 1 && batchSize == 0) {
+            throw new ParseException("Invalid option 'r': (resume) can only be specified with the 'b' (batch-size) " +
+                                         "option.");
+        }
+
         // Is this a silent run?
         change = false;
     }
@@ -358,264 +496,406 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
         // Process each change
         rowCount = 1;
         for (DSpaceCSVLine line : toImport) {
-            // Resolve target references to other items
-            populateRefAndRowMap(line, line.getID());
-            line = resolveEntityRefs(c, line);
-            // Get the DSpace item to compare with
-            UUID id = line.getID();
-
-            // Is there an action column?
-            if (csv.hasActions() && (!"".equals(line.getAction())) && (id == null)) {
-                throw new MetadataImportException("'action' not allowed for new items!");
-            }
-
-            WorkspaceItem wsItem = null;
-            WorkflowItem wfItem = null;
-            Item item = null;
-
-            // Is this an existing item?
-            if (id != null) {
-                // Get the item
-                item = itemService.find(c, id);
-                if (item == null) {
-                    throw new MetadataImportException("Unknown item ID " + id);
+            BulkEditChange whatHasChanged = importLine(c, line, change, useWorkflow, workflowNotify, useTemplate);
+            if (whatHasChanged != null) {
+                changes.add(whatHasChanged);
+            }
+            // keep track of current rows processed
+            rowCount++;
+        }
+
+        c.setMode(originalMode);
+
+
+        // Return the changes
+        if (!change) {
+            validateExpressedRelations(c);
+        }
+        return changes;
+    }
+
+    /**
+     * Run an import, reading the file one line at a time. The import can either be read-only to detect changes, or
+     * can write changes as it goes, committing them after every batch of lines. The changes are not kept, but passed
+     * on as they are found (or made).
+     *
+     * @param c              The DSpace Context
+     * @param csvFile        the CSV file
+     * @param change         Whether or not to write the changes to the database
+     * @param useWorkflow    Whether the workflows should be used when creating new items
+     * @param workflowNotify If the workflows should be used, whether to send notifications or not
+     * @param useTemplate    Use collection template if create new item
+     * @param out            receives the description of the changes
+     * @return the number of items that have changed
+     * @throws Exception if the file can't be read, or if something goes wrong
+     */
+    public int runStreamingImport(Context c, File csvFile, boolean change,
+                                  boolean useWorkflow,
+                                  boolean workflowNotify,
+                                  boolean useTemplate,
+                                  Consumer<String> out) throws Exception {
+        int changeCounter = 0;
+        int committed = resumeRow - 1;
+
+        Context.Mode originalMode = c.getCurrentMode();
+        c.setMode(Context.Mode.BATCH_EDIT);
+
+        streamedEntityRefs = findEntityRefs(c, csvFile);
+        try (DSpaceCSV streamed = new DSpaceCSV(new FileInputStream(csvFile), c, true)) {
+            csv = streamed;
+            rowCount = 1;
+            DSpaceCSVLine line;
+            while ((line = csv.readCSVLine()) != null) {
+                if (rowCount < resumeRow) {
+                    // Already imported, only existing items can still be referred to
+                    if (line.getID() != null) {
+                        populateRefAndRowMap(line, line.getID());
+                    }
+                    rowCount++;
+                    continue;
                 }
 
-                // Record changes
-                BulkEditChange whatHasChanged = new BulkEditChange(item);
+                try {
+                    BulkEditChange whatHasChanged = importLine(c, line, change, useWorkflow, workflowNotify,
+                                                               useTemplate);
+                    if (whatHasChanged != null) {
+                        if (displayChange(whatHasChanged, change, out)) {
+                            changeCounter++;
+                        }
+                        if (!change) {
+                            // Nothing was written, so there are no pending changes
+                            c.uncacheEntity(whatHasChanged.getItem());
+                        }
+                    }
+                    if (change && (rowCount - committed) >= batchSize) {
+                        c.commit();
+                        // The changes have been flushed, the entities can now be uncached
+                        for (ReloadableEntity<?> entity : uncommittedEntities) {
+                            c.uncacheEntity(entity);
+                        }
+                        uncommittedEntities.clear();
+                        // The relations are only validated when the changes are not written
+                        entityRelationMap.clear();
+                        committed = rowCount;
+                        handler.logInfo("Committed the changes up to row " + committed);
+                    }
+                } catch (Exception e) {
+                    if (!change) {
+                        throw e;
+                    }
+                    throw new MetadataImportException(
+                        "Error on CSV row " + rowCount + ": " + e.getMessage() + "\nThe changes up to row " +
+                            committed + " have been committed, use -r " + (committed + 1) +
+                            " to resume the import", e);
+                }
+                rowCount++;
+            }
+        }
+
+        c.setMode(originalMode);
+
+        if (!change) {
+            validateExpressedRelations(c);
+        }
+        return changeCounter;
+    }
 
-                // Has it moved collection?
-                List<String> collections = line.get("collection");
-                if (collections != null) {
-                    // Sanity check we're not orphaning it
-                    if (collections.size() == 0) {
-                        throw new MetadataImportException("Missing collection from item " + item.getHandle());
+    /**
+     * Read the file once to find the entity references in its relation columns, the values of the lines which are not
+     * referred to don't need to be kept when the file is imported.
+     *
+     * @param c       The DSpace Context
+     * @param csvFile the CSV file
+     * @return the entity references, either UUIDs or field:value references
+     * @throws Exception if the file can't be read
+     */
+    protected Set<String> findEntityRefs(Context c, File csvFile) throws Exception {
+        Set<String> refs = new HashSet<>();
+        try (DSpaceCSV streamed = new DSpaceCSV(new FileInputStream(csvFile), c, true)) {
+            DSpaceCSVLine line;
+            while ((line = streamed.readCSVLine()) != null) {
+                for (String key : line.keys()) {
+                    if (key.split("\\.")[0].equalsIgnoreCase("relation")) {
+                        refs.addAll(line.get(key));
                     }
-                    List<Collection> actualCollections = item.getCollections();
-                    compare(c, item, collections, actualCollections, whatHasChanged, change);
                 }
+            }
+        }
+        return refs;
+    }
 
-                // Iterate through each metadata element in the csv line
-                for (String md : line.keys()) {
-                    // Get the values we already have
-                    if (!"id".equals(md)) {
-                        // Get the values from the CSV
-                        String[] fromCSV = line.get(md).toArray(new String[line.get(md).size()]);
-                        // Remove authority unless the md is not authority controlled
-                        if (!isAuthorityControlledField(md)) {
-                            for (int i = 0; i < fromCSV.length; i++) {
-                                int pos = fromCSV[i].indexOf(csv.getAuthoritySeparator());
-                                if (pos > -1) {
-                                    fromCSV[i] = fromCSV[i].substring(0, pos);
-                                }
+    /**
+     * Import a single line of the CSV file. The import can either be read-only to detect changes, or can write
+     * changes.
+     *
+     * @param c              The DSpace Context
+     * @param line           the line
+     * @param change         Whether or not to write the changes to the database
+     * @param useWorkflow    Whether the workflows should be used when creating new items
+     * @param workflowNotify If the workflows should be used, whether to send notifications or not
+     * @param useTemplate    Use collection template if create new item
+     * @return the changes to the item, or null if the item hasn't changed
+     * @throws MetadataImportException  if something goes wrong
+     */
+    protected BulkEditChange importLine(Context c, DSpaceCSVLine line, boolean change,
+                                        boolean useWorkflow,
+                                        boolean workflowNotify,
+                                        boolean useTemplate)
+        throws MetadataImportException, SQLException, AuthorizeException, WorkflowException, IOException {
+        BulkEditChange result = null;
+
+        // Resolve target references to other items
+        populateRefAndRowMap(line, line.getID());
+        line = resolveEntityRefs(c, line);
+        // Get the DSpace item to compare with
+        UUID id = line.getID();
+
+        // Is there an action column?
+        if (csv.hasActions() && (!"".equals(line.getAction())) && (id == null)) {
+            throw new MetadataImportException("'action' not allowed for new items!");
+        }
+
+        WorkspaceItem wsItem = null;
+        WorkflowItem wfItem = null;
+        Item item = null;
+
+        // Is this an existing item?
+        if (id != null) {
+            // Get the item
+            item = itemService.find(c, id);
+            if (item == null) {
+                throw new MetadataImportException("Unknown item ID " + id);
+            }
+
+            // Record changes
+            BulkEditChange whatHasChanged = new BulkEditChange(item);
+
+            // Has it moved collection?
+            List<String> collections = line.get("collection");
+            if (collections != null) {
+                // Sanity check we're not orphaning it
+                if (collections.size() == 0) {
+                    throw new MetadataImportException("Missing collection from item " + item.getHandle());
+                }
+                List<Collection> actualCollections = item.getCollections();
+                compare(c, item, collections, actualCollections, whatHasChanged, change);
+            }
+
+            // Iterate through each metadata element in the csv line
+            for (String md : line.keys()) {
+                // Get the values we already have
+                if (!"id".equals(md)) {
+                    // Get the values from the CSV
+                    String[] fromCSV = line.get(md).toArray(new String[line.get(md).size()]);
+                    // Remove authority unless the md is not authority controlled
+                    if (!isAuthorityControlledField(md)) {
+                        for (int i = 0; i < fromCSV.length; i++) {
+                            int pos = fromCSV[i].indexOf(csv.getAuthoritySeparator());
+                            if (pos > -1) {
+                                fromCSV[i] = fromCSV[i].substring(0, pos);
                             }
                         }
-                        // Compare
-                        compareAndUpdate(c, item, fromCSV, change, md, whatHasChanged, line);
                     }
+                    // Compare
+                    compareAndUpdate(c, item, fromCSV, change, md, whatHasChanged, line);
                 }
+            }
 
-                if (csv.hasActions()) {
-                    // Perform the action
-                    String action = line.getAction();
-                    if ("".equals(action)) {
-                        // Do nothing
-                    } else if ("expunge".equals(action)) {
-                        // Does the configuration allow deletes?
-                        if (!configurationService.getBooleanProperty("bulkedit.allowexpunge", false)) {
-                            throw new MetadataImportException("'expunge' action denied by configuration");
-                        }
+            if (csv.hasActions()) {
+                // Perform the action
+                String action = line.getAction();
+                if ("".equals(action)) {
+                    // Do nothing
+                } else if ("expunge".equals(action)) {
+                    // Does the configuration allow deletes?
+                    if (!configurationService.getBooleanProperty("bulkedit.allowexpunge", false)) {
+                        throw new MetadataImportException("'expunge' action denied by configuration");
+                    }
 
-                        // Remove the item
+                    // Remove the item
 
-                        if (change) {
-                            itemService.delete(c, item);
-                        }
+                    if (change) {
+                        itemService.delete(c, item);
+                    }
 
-                        whatHasChanged.setDeleted();
-                    } else if ("withdraw".equals(action)) {
-                        // Withdraw the item
-                        if (!item.isWithdrawn()) {
-                            if (change) {
-                                itemService.withdraw(c, item);
-                            }
-                            whatHasChanged.setWithdrawn();
+                    whatHasChanged.setDeleted();
+                } else if ("withdraw".equals(action)) {
+                    // Withdraw the item
+                    if (!item.isWithdrawn()) {
+                        if (change) {
+                            itemService.withdraw(c, item);
                         }
-                    } else if ("reinstate".equals(action)) {
-                        // Reinstate the item
-                        if (item.isWithdrawn()) {
-                            if (change) {
-                                itemService.reinstate(c, item);
-                            }
-                            whatHasChanged.setReinstated();
+                        whatHasChanged.setWithdrawn();
+                    }
+                } else if ("reinstate".equals(action)) {
+                    // Reinstate the item
+                    if (item.isWithdrawn()) {
+                        if (change) {
+                            itemService.reinstate(c, item);
                         }
-                    } else {
-                        // Unknown action!
-                        throw new MetadataImportException("Unknown action: " + action);
+                        whatHasChanged.setReinstated();
                     }
+                } else {
+                    // Unknown action!
+                    throw new MetadataImportException("Unknown action: " + action);
                 }
+            }
 
-                // Only record if changes have been made
-                if (whatHasChanged.hasChanges()) {
-                    changes.add(whatHasChanged);
-                }
-            } else {
-                // This is marked as a new item, so no need to compare
+            // Only record if changes have been made
+            if (whatHasChanged.hasChanges()) {
+                result = whatHasChanged;
+            }
+        } else {
+            // This is marked as a new item, so no need to compare
 
-                // First check a user is set, otherwise this can't happen
-                if (c.getCurrentUser() == null) {
-                    throw new MetadataImportException(
-                        "When adding new items, a user must be specified with the -e option");
-                }
+            // First check a user is set, otherwise this can't happen
+            if (c.getCurrentUser() == null) {
+                throw new MetadataImportException(
+                    "When adding new items, a user must be specified with the -e option");
+            }
 
-                // Iterate through each metadata element in the csv line
-                BulkEditChange whatHasChanged = new BulkEditChange();
-                for (String md : line.keys()) {
-                    // Get the values we already have
-                    if (!"id".equals(md) && !"rowName".equals(md)) {
-                        // Get the values from the CSV
-                        String[] fromCSV = line.get(md).toArray(new String[line.get(md).size()]);
-
-                        // Remove authority unless the md is not authority controlled
-                        if (!isAuthorityControlledField(md)) {
-                            for (int i = 0; i < fromCSV.length; i++) {
-                                int pos = fromCSV[i].indexOf(csv.getAuthoritySeparator());
-                                if (pos > -1) {
-                                    fromCSV[i] = fromCSV[i].substring(0, pos);
-                                }
+            // Iterate through each metadata element in the csv line
+            BulkEditChange whatHasChanged = new BulkEditChange();
+            for (String md : line.keys()) {
+                // Get the values we already have
+                if (!"id".equals(md) && !"rowName".equals(md)) {
+                    // Get the values from the CSV
+                    String[] fromCSV = line.get(md).toArray(new String[line.get(md).size()]);
+
+                    // Remove authority unless the md is not authority controlled
+                    if (!isAuthorityControlledField(md)) {
+                        for (int i = 0; i < fromCSV.length; i++) {
+                            int pos = fromCSV[i].indexOf(csv.getAuthoritySeparator());
+                            if (pos > -1) {
+                                fromCSV[i] = fromCSV[i].substring(0, pos);
                             }
                         }
-
-                        // Add all the values from the CSV line
-                        add(c, fromCSV, md, whatHasChanged);
                     }
-                }
 
-                // Check it has an owning collection
-                List<String> collections = line.get("collection");
-                if (collections == null) {
-                    throw new MetadataImportException(
-                        "New items must have a 'collection' assigned in the form of a handle");
+                    // Add all the values from the CSV line
+                    add(c, fromCSV, md, whatHasChanged);
                 }
+            }
 
-                // Check collections are really collections
-                ArrayList<Collection> check = new ArrayList<Collection>();
-                Collection collection;
-                for (String handle : collections) {
-                    try {
-                        // Resolve the handle to the collection
-                        collection = (Collection) handleService.resolveToObject(c, handle);
-
-                        // Check it resolved OK
-                        if (collection == null) {
-                            throw new MetadataImportException(
-                                "'" + handle + "' is not a Collection! You must specify a valid collection for " +
-                                    "new items");
-                        }
+            // Check it has an owning collection
+            List<String> collections = line.get("collection");
+            if (collections == null) {
+                throw new MetadataImportException(
+                    "New items must have a 'collection' assigned in the form of a handle");
+            }
 
-                        // Check for duplicate
-                        if (check.contains(collection)) {
-                            throw new MetadataImportException(
-                                "Duplicate collection assignment detected in new item! " + handle);
-                        } else {
-                            check.add(collection);
-                        }
-                    } catch (Exception ex) {
+            // Check collections are really collections
+            ArrayList<Collection> check = new ArrayList<Collection>();
+            Collection collection;
+            for (String handle : collections) {
+                try {
+                    // Resolve the handle to the collection
+                    collection = (Collection) handleService.resolveToObject(c, handle);
+
+                    // Check it resolved OK
+                    if (collection == null) {
                         throw new MetadataImportException(
-                            "'" + handle + "' is not a Collection! You must specify a valid collection for new " +
-                                "items",
-                            ex);
+                            "'" + handle + "' is not a Collection! You must specify a valid collection for " +
+                                "new items");
                     }
-                }
 
-                // Record the addition to collections
-                boolean first = true;
-                for (String handle : collections) {
-                    Collection extra = (Collection) handleService.resolveToObject(c, handle);
-                    if (first) {
-                        whatHasChanged.setOwningCollection(extra);
+                    // Check for duplicate
+                    if (check.contains(collection)) {
+                        throw new MetadataImportException(
+                            "Duplicate collection assignment detected in new item! " + handle);
                     } else {
-                        whatHasChanged.registerNewMappedCollection(extra);
+                        check.add(collection);
                     }
-                    first = false;
+                } catch (Exception ex) {
+                    throw new MetadataImportException(
+                        "'" + handle + "' is not a Collection! You must specify a valid collection for new " +
+                            "items",
+                        ex);
                 }
+            }
 
-                // Create the new item?
-                if (change) {
-                    // Create the item
-                    String collectionHandle = line.get("collection").get(0);
-                    collection = (Collection) handleService.resolveToObject(c, collectionHandle);
-                    wsItem = workspaceItemService.create(c, collection, useTemplate);
-                    item = wsItem.getItem();
-
-                    // Add the metadata to the item
-                    for (BulkEditMetadataValue dcv : whatHasChanged.getAdds()) {
-                        if (!StringUtils.equals(dcv.getSchema(), MetadataSchemaEnum.RELATION.getName())) {
-                            itemService.addMetadata(c, item, dcv.getSchema(),
-                                                    dcv.getElement(),
-                                                    dcv.getQualifier(),
-                                                    dcv.getLanguage(),
-                                                    dcv.getValue(),
-                                                    dcv.getAuthority(),
-                                                    dcv.getConfidence());
-                        }
+            // Record the addition to collections
+            boolean first = true;
+            for (String handle : collections) {
+                Collection extra = (Collection) handleService.resolveToObject(c, handle);
+                if (first) {
+                    whatHasChanged.setOwningCollection(extra);
+                } else {
+                    whatHasChanged.registerNewMappedCollection(extra);
+                }
+                first = false;
+            }
+
+            // Create the new item?
+            if (change) {
+                // Create the item
+                String collectionHandle = line.get("collection").get(0);
+                collection = (Collection) handleService.resolveToObject(c, collectionHandle);
+                wsItem = workspaceItemService.create(c, collection, useTemplate);
+                item = wsItem.getItem();
+
+                // Add the metadata to the item
+                for (BulkEditMetadataValue dcv : whatHasChanged.getAdds()) {
+                    if (!StringUtils.equals(dcv.getSchema(), MetadataSchemaEnum.RELATION.getName())) {
+                        itemService.addMetadata(c, item, dcv.getSchema(),
+                                                dcv.getElement(),
+                                                dcv.getQualifier(),
+                                                dcv.getLanguage(),
+                                                dcv.getValue(),
+                                                dcv.getAuthority(),
+                                                dcv.getConfidence());
                     }
-                    //Add relations after all metadata has been processed
-                    for (BulkEditMetadataValue dcv : whatHasChanged.getAdds()) {
-                        if (StringUtils.equals(dcv.getSchema(), MetadataSchemaEnum.RELATION.getName())) {
-                            addRelationship(c, item, dcv.getElement(), dcv.getValue());
-                        }
+                }
+                //Add relations after all metadata has been processed
+                for (BulkEditMetadataValue dcv : whatHasChanged.getAdds()) {
+                    if (StringUtils.equals(dcv.getSchema(), MetadataSchemaEnum.RELATION.getName())) {
+                        addRelationship(c, item, dcv.getElement(), dcv.getValue());
                     }
+                }
 
 
-                    // Should the workflow be used?
-                    if (useWorkflow) {
-                        WorkflowService workflowService = WorkflowServiceFactory.getInstance().getWorkflowService();
-                        if (workflowNotify) {
-                            wfItem = workflowService.start(c, wsItem);
-                        } else {
-                            wfItem = workflowService.startWithoutNotify(c, wsItem);
-                        }
+                // Should the workflow be used?
+                if (useWorkflow) {
+                    WorkflowService workflowService = WorkflowServiceFactory.getInstance().getWorkflowService();
+                    if (workflowNotify) {
+                        wfItem = workflowService.start(c, wsItem);
                     } else {
-                        // Install the item
-                        installItemService.installItem(c, wsItem);
+                        wfItem = workflowService.startWithoutNotify(c, wsItem);
                     }
+                } else {
+                    // Install the item
+                    installItemService.installItem(c, wsItem);
+                }
 
-                    // Add to extra collections
-                    if (line.get("collection").size() > 0) {
-                        for (int i = 1; i < collections.size(); i++) {
-                            String handle = collections.get(i);
-                            Collection extra = (Collection) handleService.resolveToObject(c, handle);
-                            collectionService.addItem(c, extra, item);
-                        }
+                // Add to extra collections
+                if (line.get("collection").size() > 0) {
+                    for (int i = 1; i < collections.size(); i++) {
+                        String handle = collections.get(i);
+                        Collection extra = (Collection) handleService.resolveToObject(c, handle);
+                        collectionService.addItem(c, extra, item);
                     }
-
-                    whatHasChanged.setItem(item);
                 }
 
-                // Record the changes
-                changes.add(whatHasChanged);
+                whatHasChanged.setItem(item);
             }
 
-            if (change) {
-                //only clear cache if changes have been made.
-                c.uncacheEntity(wsItem);
-                c.uncacheEntity(wfItem);
-                c.uncacheEntity(item);
-            }
-            populateRefAndRowMap(line, item == null ? null : item.getID());
-            // keep track of current rows processed
-            rowCount++;
+            // Record the changes
+            result = whatHasChanged;
         }
 
-        c.setMode(originalMode);
-
-
-        // Return the changes
-        if (!change) {
-            validateExpressedRelations(c);
+        if (change && streamedEntityRefs != null) {
+            // uncache the entities once their changes have been committed
+            uncommittedEntities.add(wsItem);
+            uncommittedEntities.add(wfItem);
+            uncommittedEntities.add(item);
+        } else if (change) {
+            //only clear cache if changes have been made.
+            c.uncacheEntity(wsItem);
+            c.uncacheEntity(wfItem);
+            c.uncacheEntity(item);
         }
-        return changes;
+        populateRefAndRowMap(line, item == null ? null : item.getID());
+        return result;
     }
 
     /**
@@ -1213,149 +1493,165 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
         // Display the changes
         int changeCounter = 0;
         for (BulkEditChange change : changes) {
-            // Get the changes
-            List<BulkEditMetadataValue> adds = change.getAdds();
-            List<BulkEditMetadataValue> removes = change.getRemoves();
-            List<Collection> newCollections = change.getNewMappedCollections();
-            List<Collection> oldCollections = change.getOldMappedCollections();
-            if ((adds.size() > 0) || (removes.size() > 0) ||
-                (newCollections.size() > 0) || (oldCollections.size() > 0) ||
-                (change.getNewOwningCollection() != null) || (change.getOldOwningCollection() != null) ||
-                (change.isDeleted()) || (change.isWithdrawn()) || (change.isReinstated())) {
-                // Show the item
-                Item i = change.getItem();
-                handler.logInfo("-----------------------------------------------------------");
-                if (!change.isNewItem()) {
-                    handler.logInfo("Changes for item: " + i.getID() + " (" + i.getHandle() + ")");
-                } else {
-                    handler.logInfo("New item: ");
-                    if (i != null) {
-                        if (i.getHandle() != null) {
-                            handler.logInfo(i.getID() + " (" + i.getHandle() + ")");
-                        } else {
-                            handler.logInfo(i.getID() + " (in workflow)");
-                        }
-                    }
-                }
+            if (displayChange(change, changed, handler::logInfo)) {
                 changeCounter++;
             }
+        }
+        return changeCounter;
+    }
 
-            // Show actions
-            if (change.isDeleted()) {
-                if (changed) {
-                    handler.logInfo(" - EXPUNGED!");
-                } else {
-                    handler.logInfo(" - EXPUNGE!");
-                }
-            }
-            if (change.isWithdrawn()) {
-                if (changed) {
-                    handler.logInfo(" - WITHDRAWN!");
-                } else {
-                    handler.logInfo(" - WITHDRAW!");
-                }
-            }
-            if (change.isReinstated()) {
-                if (changed) {
-                    handler.logInfo(" - REINSTATED!");
-                } else {
-                    handler.logInfo(" - REINSTATE!");
-                }
-            }
-
-            if (change.getNewOwningCollection() != null) {
-                Collection c = change.getNewOwningCollection();
-                if (c != null) {
-                    String cHandle = c.getHandle();
-                    String cName = c.getName();
-                    if (!changed) {
-                        handler.logInfo(" + New owning collection (" + cHandle + "): ");
+    /**
+     * Display the changes to a single item
+     *
+     * @param change  The changes to the item
+     * @param changed Whether or not the changes have been made
+     * @param out     receives the lines of the display
+     * @return Whether the item has changed
+     */
+    private boolean displayChange(BulkEditChange change, boolean changed, Consumer<String> out) {
+        boolean itemChanged = false;
+        // Get the changes
+        List<BulkEditMetadataValue> adds = change.getAdds();
+        List<BulkEditMetadataValue> removes = change.getRemoves();
+        List<Collection> newCollections = change.getNewMappedCollections();
+        List<Collection> oldCollections = change.getOldMappedCollections();
+        if ((adds.size() > 0) || (removes.size() > 0) ||
+            (newCollections.size() > 0) || (oldCollections.size() > 0) ||
+            (change.getNewOwningCollection() != null) || (change.getOldOwningCollection() != null) ||
+            (change.isDeleted()) || (change.isWithdrawn()) || (change.isReinstated())) {
+            // Show the item
+            Item i = change.getItem();
+            out.accept("-----------------------------------------------------------");
+            if (!change.isNewItem()) {
+                out.accept("Changes for item: " + i.getID() + " (" + i.getHandle() + ")");
+            } else {
+                out.accept("New item: ");
+                if (i != null) {
+                    if (i.getHandle() != null) {
+                        out.accept(i.getID() + " (" + i.getHandle() + ")");
                     } else {
-                        handler.logInfo(" + New owning collection  (" + cHandle + "): ");
+                        out.accept(i.getID() + " (in workflow)");
                     }
-                    handler.logInfo(cName);
                 }
+            }
+            itemChanged = true;
+        }
 
-                c = change.getOldOwningCollection();
-                if (c != null) {
-                    String cHandle = c.getHandle();
-                    String cName = c.getName();
-                    if (!changed) {
-                        handler.logInfo(" + Old owning collection (" + cHandle + "): ");
-                    } else {
-                        handler.logInfo(" + Old owning collection  (" + cHandle + "): ");
-                    }
-                    handler.logInfo(cName);
-                }
+        // Show actions
+        if (change.isDeleted()) {
+            if (changed) {
+                out.accept(" - EXPUNGED!");
+            } else {
+                out.accept(" - EXPUNGE!");
+            }
+        }
+        if (change.isWithdrawn()) {
+            if (changed) {
+                out.accept(" - WITHDRAWN!");
+            } else {
+                out.accept(" - WITHDRAW!");
+            }
+        }
+        if (change.isReinstated()) {
+            if (changed) {
+                out.accept(" - REINSTATED!");
+            } else {
+                out.accept(" - REINSTATE!");
             }
+        }
 
-            // Show new mapped collections
-            for (Collection c : newCollections) {
+        if (change.getNewOwningCollection() != null) {
+            Collection c = change.getNewOwningCollection();
+            if (c != null) {
                 String cHandle = c.getHandle();
                 String cName = c.getName();
                 if (!changed) {
-                    handler.logInfo(" + Map to collection (" + cHandle + "): ");
+                    out.accept(" + New owning collection (" + cHandle + "): ");
                 } else {
-                    handler.logInfo(" + Mapped to collection  (" + cHandle + "): ");
+                    out.accept(" + New owning collection  (" + cHandle + "): ");
                 }
-                handler.logInfo(cName);
+                out.accept(cName);
             }
 
-            // Show old mapped collections
-            for (Collection c : oldCollections) {
+            c = change.getOldOwningCollection();
+            if (c != null) {
                 String cHandle = c.getHandle();
                 String cName = c.getName();
                 if (!changed) {
-                    handler.logInfo(" + Un-map from collection (" + cHandle + "): ");
+                    out.accept(" + Old owning collection (" + cHandle + "): ");
                 } else {
-                    handler.logInfo(" + Un-mapped from collection  (" + cHandle + "): ");
+                    out.accept(" + Old owning collection  (" + cHandle + "): ");
                 }
-                handler.logInfo(cName);
+                out.accept(cName);
             }
+        }
 
-            // Show additions
-            for (BulkEditMetadataValue metadataValue : adds) {
-                String md = metadataValue.getSchema() + "." + metadataValue.getElement();
-                if (metadataValue.getQualifier() != null) {
-                    md += "." + metadataValue.getQualifier();
-                }
-                if (metadataValue.getLanguage() != null) {
-                    md += "[" + metadataValue.getLanguage() + "]";
-                }
-                if (!changed) {
-                    handler.logInfo(" + Add    (" + md + "): ");
-                } else {
-                    handler.logInfo(" + Added   (" + md + "): ");
-                }
-                handler.logInfo(metadataValue.getValue());
-                if (isAuthorityControlledField(md)) {
-                    handler.logInfo(", authority = " + metadataValue.getAuthority());
-                    handler.logInfo(", confidence = " + metadataValue.getConfidence());
-                }
+        // Show new mapped collections
+        for (Collection c : newCollections) {
+            String cHandle = c.getHandle();
+            String cName = c.getName();
+            if (!changed) {
+                out.accept(" + Map to collection (" + cHandle + "): ");
+            } else {
+                out.accept(" + Mapped to collection  (" + cHandle + "): ");
             }
+            out.accept(cName);
+        }
 
-            // Show removals
-            for (BulkEditMetadataValue metadataValue : removes) {
-                String md = metadataValue.getSchema() + "." + metadataValue.getElement();
-                if (metadataValue.getQualifier() != null) {
-                    md += "." + metadataValue.getQualifier();
-                }
-                if (metadataValue.getLanguage() != null) {
-                    md += "[" + metadataValue.getLanguage() + "]";
-                }
-                if (!changed) {
-                    handler.logInfo(" - Remove (" + md + "): ");
-                } else {
-                    handler.logInfo(" - Removed (" + md + "): ");
-                }
-                handler.logInfo(metadataValue.getValue());
-                if (isAuthorityControlledField(md)) {
-                    handler.logInfo(", authority = " + metadataValue.getAuthority());
-                    handler.logInfo(", confidence = " + metadataValue.getConfidence());
-                }
+        // Show old mapped collections
+        for (Collection c : oldCollections) {
+            String cHandle = c.getHandle();
+            String cName = c.getName();
+            if (!changed) {
+                out.accept(" + Un-map from collection (" + cHandle + "): ");
+            } else {
+                out.accept(" + Un-mapped from collection  (" + cHandle + "): ");
             }
+            out.accept(cName);
         }
-        return changeCounter;
+
+        // Show additions
+        for (BulkEditMetadataValue metadataValue : adds) {
+            String md = metadataValue.getSchema() + "." + metadataValue.getElement();
+            if (metadataValue.getQualifier() != null) {
+                md += "." + metadataValue.getQualifier();
+            }
+            if (metadataValue.getLanguage() != null) {
+                md += "[" + metadataValue.getLanguage() + "]";
+            }
+            if (!changed) {
+                out.accept(" + Add    (" + md + "): ");
+            } else {
+                out.accept(" + Added   (" + md + "): ");
+            }
+            out.accept(metadataValue.getValue());
+            if (isAuthorityControlledField(md)) {
+                out.accept(", authority = " + metadataValue.getAuthority());
+                out.accept(", confidence = " + metadataValue.getConfidence());
+            }
+        }
+
+        // Show removals
+        for (BulkEditMetadataValue metadataValue : removes) {
+            String md = metadataValue.getSchema() + "." + metadataValue.getElement();
+            if (metadataValue.getQualifier() != null) {
+                md += "." + metadataValue.getQualifier();
+            }
+            if (metadataValue.getLanguage() != null) {
+                md += "[" + metadataValue.getLanguage() + "]";
+            }
+            if (!changed) {
+                out.accept(" - Remove (" + md + "): ");
+            } else {
+                out.accept(" - Removed (" + md + "): ");
+            }
+            out.accept(metadataValue.getValue());
+            if (isAuthorityControlledField(md)) {
+                out.accept(", authority = " + metadataValue.getAuthority());
+                out.accept(", confidence = " + metadataValue.getConfidence());
+            }
+        }
+        return itemChanged;
     }
 
     /**
@@ -1464,20 +1760,25 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
      * been processed so far which has a known (minted) UUID for its item. This is used to help complete
      * the resolution after the row number has been determined.
      *
+     * When streaming the file, only the rows which are referred to by {@link #streamedEntityRefs} or which carry
+     * relations themselves are added.
+     *
      * @param line the csv line.
      * @param uuid the uuid of the item, which may be null if it has not been minted yet.
      */
     private void populateRefAndRowMap(DSpaceCSVLine line, @Nullable UUID uuid) {
-        if (uuid != null) {
-            csvRowMap.put(rowCount, uuid);
-        } else {
-            csvRowMap.put(rowCount, new UUID(0, rowCount));
-        }
+        boolean needed = streamedEntityRefs == null || hasRelations(line)
+            || uuid != null && streamedEntityRefs.contains(uuid.toString());
+        String entityType = null;
         for (String key : line.keys()) {
             if (key.contains(".") && !key.split("\\.")[0].equalsIgnoreCase("relation") ||
                 key.equalsIgnoreCase("rowName")) {
                 for (String value : line.get(key)) {
                     String valueKey = key + ":" + value;
+                    if (streamedEntityRefs != null && !streamedEntityRefs.contains(valueKey)) {
+                        continue;
+                    }
+                    needed = true;
                     Set<Integer> rowNums = csvRefMap.get(valueKey);
                     if (rowNums == null) {
                         rowNums = new HashSet<>();
@@ -1486,15 +1787,41 @@ public class MetadataImport extends DSpaceRunnable<MetadataImportScriptConfigura
                     rowNums.add(rowCount);
                 }
             }
-            //Populate entityTypeMap
             if (key.equalsIgnoreCase("dspace.entity.type") && line.get(key).size() > 0) {
-                if (uuid == null) {
-                    entityTypeMap.put(new UUID(0, rowCount), line.get(key).get(0));
-                } else {
-                    entityTypeMap.put(uuid, line.get(key).get(0));
-                }
+                entityType = line.get(key).get(0);
+            }
+        }
+        if (!needed) {
+            return;
+        }
+        if (uuid != null) {
+            csvRowMap.put(rowCount, uuid);
+        } else {
+            csvRowMap.put(rowCount, new UUID(0, rowCount));
+        }
+        //Populate entityTypeMap
+        if (entityType != null) {
+            if (uuid == null) {
+                entityTypeMap.put(new UUID(0, rowCount), entityType);
+            } else {
+                entityTypeMap.put(uuid, entityType);
+            }
+        }
+    }
+
+    /**
+     * Whether the given csv line relates its item to other items.
+     *
+     * @param line the csv line.
+     * @return true if any of the relation columns of the line has a value.
+     */
+    private boolean hasRelations(DSpaceCSVLine line) {
+        for (String key : line.keys()) {
+            if (key.split("\\.")[0].equalsIgnoreCase("relation") && line.get(key).size() > 0) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
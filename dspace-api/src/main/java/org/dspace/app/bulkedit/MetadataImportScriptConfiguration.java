@@ -71,6 +71,14 @@ public class MetadataImportScriptConfiguration<T extends MetadataImport> extends
             options.addOption("t", "template", false,
                               "template - when adding new items, use the collection template (if it exists)");
             options.getOption("t").setType(boolean.class);
+            options.addOption("b", "batch-size", true,
+                              "batch size - stream the file, applying and committing the changes in batches of " +
+                                  "this number of lines");
+            options.getOption("b").setType(Integer.class);
+            options.addOption("r", "resume", true,
+                              "resume - when streaming the file, start at this line (as reported by an import " +
+                                  "which was interrupted)");
+            options.getOption("r").setType(Integer.class);
             options.addOption("h", "help", false, "help");
             options.getOption("h").setType(boolean.class);
 
@@ -22,6 +22,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dspace.checker.BitstreamDispatcher;
@@ -79,6 +80,8 @@ public final class ChecksumChecker {
      * <dd>Report only errors in the logs</dd>
      * <dt>-p</dt>
      * <dd>Don't prune results before running checker</dd>
+     * <dt>-t [threads]</dt>
+     * <dd>compute the checksums in the given number of threads</dd>
      * </dl>
      *
      * @param args the command line arguments given
@@ -100,6 +103,7 @@ public final class ChecksumChecker {
         options.addOption("c", "count", true, "Check count");
         options.addOption("a", "handle", true, "Specify a handle to check");
         options.addOption("v", "verbose", false, "Report all processing");
+        options.addOption("t", "threads", true, "Number of threads computing checksums");
 
         Option option;
 
@@ -128,6 +132,16 @@ public final class ChecksumChecker {
         if (line.hasOption('h')) {
             printHelp(options);
         }
+        int threads = 1;
+        if (line.hasOption('t')) {
+            threads = NumberUtils.toInt(line.getOptionValue('t'), 0);
+            if (threads < 1) {
+                System.err.println("\nERROR: Invalid number of threads '" + line.getOptionValue('t')
+                                       + "', the number of threads must be at least 1\n");
+                new HelpFormatter().printHelp("Checksum Checker\n", options);
+                System.exit(1);
+            }
+        }
         Context context = null;
         try {
             context = new Context();
@@ -206,6 +220,9 @@ public final class ChecksumChecker {
             if (line.hasOption('v')) {
                 checker.setReportVerbose(true);
             }
+            if (line.hasOption('t')) {
+                checker.setThreads(threads);
+            }
 
             checker.setProcessStartDate(processStart);
             checker.setDispatcher(dispatcher);
@@ -239,6 +256,7 @@ public final class ChecksumChecker {
         System.out.println("\nLoop continuously through all bitstreams: ChecksumChecker -L");
         System.out.println("\nCheck a defined number of bitstreams: ChecksumChecker -c 10");
         System.out.println("\nReport all processing (verbose)(default reports only errors): ChecksumChecker -v");
+        System.out.println("\nCompute the checksums in 4 threads: ChecksumChecker -l -t 4");
         System.out.println("\nDefault (no arguments) is equivalent to '-c 1'");
         System.exit(0);
     }
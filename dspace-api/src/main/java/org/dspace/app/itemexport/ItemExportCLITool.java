@@ -82,6 +82,11 @@ public class ItemExportCLITool {
         options.addOption("n", "number", true,
                           "sequence number to begin exporting items with");
         options.addOption("z", "zip", true, "export as zip file (specify filename e.g. export.zip)");
+        options.addOption("s", "stream", false,
+                          "with -z, write the items straight into the zip file without a working directory");
+        options.addOption("T", "threads", true, "with -s, number of threads fetching bitstreams (default 1)");
+        options.addOption("S", "split-size", true,
+                          "with -s, size in megabytes after which a further zip file is started");
         options.addOption("h", "help", false, "help");
 
         // as pointed out by Peter Dietz this provides similar functionality to export metadata
@@ -149,6 +154,14 @@ public class ItemExportCLITool {
             excludeBitstreams = true;
         }
 
+        boolean stream = line.hasOption('s');
+        if (line.hasOption('T')) {
+            itemExportService.setThreads(Integer.parseInt(line.getOptionValue('T')));
+        }
+        if (line.hasOption('S')) {
+            itemExportService.setMaxZipSize(Long.parseLong(line.getOptionValue('S')) * 1024 * 1024);
+        }
+
         // now validate the args
         if (myType == -1) {
             System.out
@@ -225,7 +238,13 @@ public class ItemExportCLITool {
                 System.out.println("Exporting from collection: " + myIDString);
                 items = itemService.findByCollection(c, mycollection);
             }
-            itemExportService.exportAsZip(c, items, destDirName, zipFileName, seqStart, migrate, excludeBitstreams);
+            if (stream) {
+                itemExportService.exportAsZipStream(c, items, destDirName, zipFileName, seqStart, migrate,
+                                                    excludeBitstreams);
+            } else {
+                itemExportService.exportAsZip(c, items, destDirName, zipFileName, seqStart, migrate,
+                                              excludeBitstreams);
+            }
         } else {
             if (myItem != null) {
                 // it's only a single item
@@ -15,6 +15,7 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
@@ -26,6 +27,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.zip.ZipEntry;
@@ -35,6 +37,7 @@ import javax.mail.MessagingException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 import org.dspace.app.itemexport.service.ItemExportService;
+import org.dspace.authorize.service.AuthorizeService;
 import org.dspace.content.Bitstream;
 import org.dspace.content.Bundle;
 import org.dspace.content.Collection;
@@ -57,6 +60,7 @@ import org.dspace.eperson.EPerson;
 import org.dspace.eperson.service.EPersonService;
 import org.dspace.handle.service.HandleService;
 import org.dspace.services.ConfigurationService;
+import org.dspace.storage.bitstore.service.BitstreamStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -83,9 +87,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class ItemExportServiceImpl implements ItemExportService {
     protected final int SUBDIR_LIMIT = 0;
 
+    @Autowired(required = true)
+    protected AuthorizeService authorizeService;
     @Autowired(required = true)
     protected BitstreamService bitstreamService;
     @Autowired(required = true)
+    protected BitstreamStorageService bitstreamStorageService;
+    @Autowired(required = true)
     protected CommunityService communityService;
     @Autowired(required = true)
     protected EPersonService ePersonService;
@@ -96,6 +104,8 @@ public class ItemExportServiceImpl implements ItemExportService {
     @Autowired(required = true)
     protected ConfigurationService configurationService;
 
+    protected int threads = 1;
+    protected long maxZipSize = 0;
 
     /**
      * log4j logger
@@ -191,15 +201,38 @@ public class ItemExportServiceImpl implements ItemExportService {
      */
     protected void writeMetadata(Context c, Item i, File destDir, boolean migrate)
         throws Exception {
+        // Save each of the schemas into it's own metadata file
+        for (String schema : getMetadataSchemas(i)) {
+            writeMetadata(c, schema, i, destDir, migrate);
+        }
+    }
+
+    /**
+     * Discover the different schemas in use by the metadata of an item
+     *
+     * @param i DSpace Item
+     * @return the names of the schemas
+     */
+    protected Set<String> getMetadataSchemas(Item i) {
         Set<String> schemas = new HashSet<String>();
         List<MetadataValue> dcValues = itemService.getMetadata(i, Item.ANY, Item.ANY, Item.ANY, Item.ANY);
         for (MetadataValue metadataValue : dcValues) {
             schemas.add(metadataValue.getMetadataField().getMetadataSchema().getName());
         }
+        return schemas;
+    }
 
-        // Save each of the schemas into it's own metadata file
-        for (String schema : schemas) {
-            writeMetadata(c, schema, i, destDir, migrate);
+    /**
+     * The name of the metadata file of a schema in the item directory
+     *
+     * @param schema schema
+     * @return dublin_core.xml for the dc schema, metadata_[schema].xml otherwise
+     */
+    protected String getMetadataFileName(String schema) {
+        if (schema.equals(MetadataSchemaEnum.DC.getName())) {
+            return "dublin_core.xml";
+        } else {
+            return "metadata_" + schema + ".xml";
         }
     }
 
@@ -215,101 +248,107 @@ public class ItemExportServiceImpl implements ItemExportService {
      */
     protected void writeMetadata(Context c, String schema, Item i,
                                  File destDir, boolean migrate) throws Exception {
-        String filename;
-        if (schema.equals(MetadataSchemaEnum.DC.getName())) {
-            filename = "dublin_core.xml";
-        } else {
-            filename = "metadata_" + schema + ".xml";
-        }
-
-        File outFile = new File(destDir, filename);
+        File outFile = new File(destDir, getMetadataFileName(schema));
 
         System.out.println("Attempting to create file " + outFile);
 
         if (outFile.createNewFile()) {
             BufferedOutputStream out = new BufferedOutputStream(
                 new FileOutputStream(outFile));
+            writeMetadata(c, schema, i, out, migrate);
+            out.close();
+        } else {
+            throw new Exception("Cannot create dublin_core.xml in " + destDir);
+        }
+    }
 
-            List<MetadataValue> dcorevalues = itemService.getMetadata(i, schema, Item.ANY, Item.ANY,
-                                                                      Item.ANY);
+    /**
+     * output the item's metadata of one schema in the dublin core format
+     *
+     * @param c       DSpace context
+     * @param schema  schema
+     * @param i       DSpace Item
+     * @param out     the stream to write to, left open
+     * @param migrate Whether to use the migrate option or not
+     * @throws Exception if error
+     */
+    protected void writeMetadata(Context c, String schema, Item i,
+                                 OutputStream out, boolean migrate) throws Exception {
+        List<MetadataValue> dcorevalues = itemService.getMetadata(i, schema, Item.ANY, Item.ANY,
+                                                                  Item.ANY);
 
-            // XML preamble
-            byte[] utf8 = "<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n"
-                .getBytes("UTF-8");
-            out.write(utf8, 0, utf8.length);
+        // XML preamble
+        byte[] utf8 = "<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n"
+            .getBytes("UTF-8");
+        out.write(utf8, 0, utf8.length);
 
-            String dcTag = "<dublin_core schema=\"" + schema + "\">\n";
-            utf8 = dcTag.getBytes("UTF-8");
-            out.write(utf8, 0, utf8.length);
+        String dcTag = "<dublin_core schema=\"" + schema + "\">\n";
+        utf8 = dcTag.getBytes("UTF-8");
+        out.write(utf8, 0, utf8.length);
 
-            String dateIssued = null;
-            String dateAccessioned = null;
+        String dateIssued = null;
+        String dateAccessioned = null;
 
-            for (MetadataValue dcv : dcorevalues) {
-                MetadataField metadataField = dcv.getMetadataField();
-                String qualifier = metadataField.getQualifier();
+        for (MetadataValue dcv : dcorevalues) {
+            MetadataField metadataField = dcv.getMetadataField();
+            String qualifier = metadataField.getQualifier();
 
-                if (qualifier == null) {
-                    qualifier = "none";
-                }
+            if (qualifier == null) {
+                qualifier = "none";
+            }
 
-                String language = dcv.getLanguage();
+            String language = dcv.getLanguage();
 
-                if (language != null) {
-                    language = " language=\"" + language + "\"";
-                } else {
-                    language = "";
-                }
+            if (language != null) {
+                language = " language=\"" + language + "\"";
+            } else {
+                language = "";
+            }
 
-                utf8 = ("  <dcvalue element=\"" + metadataField.getElement() + "\" "
-                    + "qualifier=\"" + qualifier + "\""
-                    + language + ">"
-                    + Utils.addEntities(dcv.getValue()) + "</dcvalue>\n")
-                    .getBytes("UTF-8");
-
-                if ((!migrate) ||
-                    (migrate && !(
-                        ("date".equals(metadataField.getElement()) && "issued".equals(qualifier)) ||
-                            ("date".equals(metadataField.getElement()) && "accessioned".equals(qualifier)) ||
-                            ("date".equals(metadataField.getElement()) && "available".equals(qualifier)) ||
-                            ("identifier".equals(metadataField.getElement()) && "uri".equals(qualifier) &&
-                                (dcv.getValue() != null && dcv.getValue().startsWith(
-                                    handleService.getCanonicalPrefix() + handleService.getPrefix() + "/"))) ||
-                            ("description".equals(metadataField.getElement()) && "provenance".equals(qualifier)) ||
-                            ("format".equals(metadataField.getElement()) && "extent".equals(qualifier)) ||
-                            ("format".equals(metadataField.getElement()) && "mimetype".equals(qualifier))))) {
-                    out.write(utf8, 0, utf8.length);
-                }
+            utf8 = ("  <dcvalue element=\"" + metadataField.getElement() + "\" "
+                + "qualifier=\"" + qualifier + "\""
+                + language + ">"
+                + Utils.addEntities(dcv.getValue()) + "</dcvalue>\n")
+                .getBytes("UTF-8");
 
-                // Store the date issued and accession to see if they are different
-                // because we need to keep date.issued if they are, when migrating
-                if (("date".equals(metadataField.getElement()) && "issued".equals(qualifier))) {
-                    dateIssued = dcv.getValue();
-                }
-                if (("date".equals(metadataField.getElement()) && "accessioned".equals(qualifier))) {
-                    dateAccessioned = dcv.getValue();
-                }
+            if ((!migrate) ||
+                (migrate && !(
+                    ("date".equals(metadataField.getElement()) && "issued".equals(qualifier)) ||
+                        ("date".equals(metadataField.getElement()) && "accessioned".equals(qualifier)) ||
+                        ("date".equals(metadataField.getElement()) && "available".equals(qualifier)) ||
+                        ("identifier".equals(metadataField.getElement()) && "uri".equals(qualifier) &&
+                            (dcv.getValue() != null && dcv.getValue().startsWith(
+                                handleService.getCanonicalPrefix() + handleService.getPrefix() + "/"))) ||
+                        ("description".equals(metadataField.getElement()) && "provenance".equals(qualifier)) ||
+                        ("format".equals(metadataField.getElement()) && "extent".equals(qualifier)) ||
+                        ("format".equals(metadataField.getElement()) && "mimetype".equals(qualifier))))) {
+                out.write(utf8, 0, utf8.length);
             }
 
-            // When migrating, only keep date.issued if it is different to date.accessioned
-            if ((migrate) &&
-                (dateIssued != null) &&
-                (dateAccessioned != null) &&
-                (!dateIssued.equals(dateAccessioned))) {
-                utf8 = ("  <dcvalue element=\"date\" "
-                    + "qualifier=\"issued\">"
-                    + Utils.addEntities(dateIssued) + "</dcvalue>\n")
-                    .getBytes("UTF-8");
-                out.write(utf8, 0, utf8.length);
+            // Store the date issued and accession to see if they are different
+            // because we need to keep date.issued if they are, when migrating
+            if (("date".equals(metadataField.getElement()) && "issued".equals(qualifier))) {
+                dateIssued = dcv.getValue();
+            }
+            if (("date".equals(metadataField.getElement()) && "accessioned".equals(qualifier))) {
+                dateAccessioned = dcv.getValue();
             }
+        }
 
-            utf8 = "</dublin_core>\n".getBytes("UTF-8");
+        // When migrating, only keep date.issued if it is different to date.accessioned
+        if ((migrate) &&
+            (dateIssued != null) &&
+            (dateAccessioned != null) &&
+            (!dateIssued.equals(dateAccessioned))) {
+            utf8 = ("  <dcvalue element=\"date\" "
+                + "qualifier=\"issued\">"
+                + Utils.addEntities(dateIssued) + "</dcvalue>\n")
+                .getBytes("UTF-8");
             out.write(utf8, 0, utf8.length);
-
-            out.close();
-        } else {
-            throw new Exception("Cannot create dublin_core.xml in " + destDir);
         }
+
+        utf8 = "</dublin_core>\n".getBytes("UTF-8");
+        out.write(utf8, 0, utf8.length);
     }
 
     /**
@@ -368,24 +407,10 @@ public class ItemExportServiceImpl implements ItemExportService {
                 // bundles can have multiple bitstreams now...
                 List<Bitstream> bitstreams = bundle.getBitstreams();
 
-                String bundleName = bundle.getName();
-
                 for (Bitstream bitstream : bitstreams) {
                     String myName = bitstream.getName();
                     String oldName = myName;
 
-                    String description = bitstream.getDescription();
-                    if (!StringUtils.isEmpty(description)) {
-                        description = "\tdescription:" + description;
-                    } else {
-                        description = "";
-                    }
-
-                    String primary = "";
-                    if (bitstream.equals(bundle.getPrimaryBitstream())) {
-                        primary = "\tprimary:true ";
-                    }
-
                     int myPrefix = 1; // only used with name conflict
 
                     boolean isDone = false; // done when bitstream is finally
@@ -424,16 +449,7 @@ public class ItemExportServiceImpl implements ItemExportService {
                     }
 
                     // write the manifest file entry
-                    if (bitstreamService.isRegisteredBitstream(bitstream)) {
-                        out.println("-r -s " + bitstream.getStoreNumber()
-                                        + " -f " + myName +
-                                        "\tbundle:" + bundleName +
-                                        primary + description);
-                    } else {
-                        out.println(myName + "\tbundle:" + bundleName +
-                                        primary + description);
-                    }
-
+                    out.println(getContentsEntry(bundle, bitstream, myName));
                 }
             }
 
@@ -444,6 +460,36 @@ public class ItemExportServiceImpl implements ItemExportService {
         }
     }
 
+    /**
+     * The line of the contents file for a bitstream. Registered bitstreams are
+     * listed with their store number, to be registered again on import.
+     *
+     * @param bundle    the bundle of the bitstream
+     * @param bitstream the bitstream
+     * @param name      the name of the bitstream's file in the item directory
+     * @return the entry, without line separator
+     */
+    protected String getContentsEntry(Bundle bundle, Bitstream bitstream, String name) {
+        String description = bitstream.getDescription();
+        if (!StringUtils.isEmpty(description)) {
+            description = "\tdescription:" + description;
+        } else {
+            description = "";
+        }
+
+        String primary = "";
+        if (bitstream.equals(bundle.getPrimaryBitstream())) {
+            primary = "\tprimary:true ";
+        }
+
+        if (bitstreamService.isRegisteredBitstream(bitstream)) {
+            return "-r -s " + bitstream.getStoreNumber() + " -f " + name +
+                "\tbundle:" + bundle.getName() + primary + description;
+        } else {
+            return name + "\tbundle:" + bundle.getName() + primary + description;
+        }
+    }
+
     @Override
     public void exportAsZip(Context context, Iterator<Item> items,
                             String destDirName, String zipFileName,
@@ -470,6 +516,41 @@ public class ItemExportServiceImpl implements ItemExportService {
         zip(workDir, destDirName + System.getProperty("file.separator") + zipFileName);
     }
 
+    @Override
+    public void exportAsZipStream(Context context, Iterator<Item> items,
+                                  String destDirName, String zipFileName,
+                                  int seqStart, boolean migrate,
+                                  boolean excludeBitstreams) throws Exception {
+        System.out.println("Beginning export");
+
+        int mySequenceNumber = seqStart;
+        try (ItemExportZipWriter writer = new ItemExportZipWriter(this, new File(destDirName), zipFileName, threads,
+                                                                  maxZipSize)) {
+            while (items.hasNext()) {
+                Item item = items.next();
+                System.out.println("Exporting Item " + item.getID() +
+                                       (item.getHandle() != null ? ", handle " + item.getHandle() : "") +
+                                       " to " + mySequenceNumber);
+                writer.addItem(context, item, String.valueOf(mySequenceNumber), migrate, excludeBitstreams);
+                context.uncacheEntity(item);
+                mySequenceNumber++;
+            }
+            for (File archive : writer.finish()) {
+                System.out.println("Created " + archive);
+            }
+        }
+    }
+
+    @Override
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void setMaxZipSize(long maxZipSize) {
+        this.maxZipSize = maxZipSize;
+    }
+
     @Override
     public void createDownloadableExport(DSpaceObject dso,
                                          Context context, boolean migrate) throws Exception {
@@ -648,6 +729,15 @@ public class ItemExportServiceImpl implements ItemExportService {
                             log.error("Unable to create download directory");
                         }
 
+                        if (configurationService.getBooleanProperty("org.dspace.app.itemexport.streaming")) {
+                            // write the items straight into the download
+                            streamDownloadableExport(context, itemsMap, new File(downloadDir),
+                                                     fileName + ".zip", migrate);
+                            emailSuccessMessage(context, eperson, fileName + ".zip");
+                            context.restoreAuthSystemState();
+                            return;
+                        }
+
                         Iterator<String> iter = itemsMap.keySet().iterator();
                         while (iter.hasNext()) {
                             String keyName = iter.next();
@@ -708,6 +798,34 @@ public class ItemExportServiceImpl implements ItemExportService {
         }
     }
 
+    /**
+     * Write the items of a downloadable export straight into its zip file, in the same layout as the
+     * directories zipped otherwise: one directory per key of the items map, holding the item directories.
+     *
+     * @param context     the DSpace context
+     * @param itemsMap    the IDs of the items to export by directory name
+     * @param downloadDir the directory of the download
+     * @param zipFileName the name of the zip file
+     * @param migrate     Whether to use the migrate option or not
+     * @throws Exception if error
+     */
+    protected void streamDownloadableExport(Context context, Map<String, List<UUID>> itemsMap, File downloadDir,
+                                            String zipFileName, boolean migrate) throws Exception {
+        int fetchThreads = configurationService.getIntProperty("org.dspace.app.itemexport.threads", 1);
+        try (ItemExportZipWriter writer = new ItemExportZipWriter(this, downloadDir, zipFileName, fetchThreads, 0)) {
+            for (Map.Entry<String, List<UUID>> entry : itemsMap.entrySet()) {
+                int mySequenceNumber = 1;
+                for (UUID uuid : entry.getValue()) {
+                    Item item = itemService.find(context, uuid);
+                    writer.addItem(context, item, entry.getKey() + "/" + mySequenceNumber, migrate, false);
+                    context.uncacheEntity(item);
+                    mySequenceNumber++;
+                }
+            }
+            writer.finish();
+        }
+    }
+
     @Override
     public String assembleFileName(String type, EPerson eperson,
                                    Date date) throws Exception {
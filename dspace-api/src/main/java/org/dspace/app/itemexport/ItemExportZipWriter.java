@@ -0,0 +1,407 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.itemexport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.logging.log4j.Logger;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+
+/**
+ * Writes items in the Simple Archive Format straight into zip files, without a working directory. The metadata
+ * files of an item are created in memory when the item is added, while the content of its bitstreams is fetched
+ * from the bitstore ahead of writing, by a pool of threads. The entries are written in the order the items are
+ * added.
+ * <P>
+ * When a maximum size is set, a further archive is started once an archive has grown past it, so that every
+ * archive holds complete items and can be imported on its own. The archives are written to a temporary file
+ * first and renamed when they are complete.
+ */
+public class ItemExportZipWriter implements Closeable {
+
+    /**
+     * Bitstreams up to this size are read into memory ahead of writing, larger ones are only opened
+     */
+    protected static final int PREFETCH_MAX_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * The maximum number of entries waiting to be written, e.g. behind a large bitstream being fetched
+     */
+    protected static final int MAX_PENDING_ENTRIES = 1000;
+
+    /**
+     * The maximum size of the entries held in memory while waiting to be written
+     */
+    protected static final long MAX_PENDING_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Marks the end of an item's entries
+     */
+    protected static final ZipContent END_OF_ITEM = new ZipContent(null, (byte[]) null);
+
+    /**
+     * log4j logger
+     */
+    private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(ItemExportZipWriter.class);
+
+    protected final ItemExportServiceImpl exportService;
+    protected final File destDir;
+    protected final String zipFileName;
+    protected final long maxZipSize;
+
+    /**
+     * The threads fetching the content, or null to fetch it when it is written
+     */
+    protected final ExecutorService fetchers;
+
+    /**
+     * The maximum number of bitstreams fetched ahead
+     */
+    protected final int window;
+
+    /**
+     * The entries of the added items which are not written yet
+     */
+    protected final Deque<ZipContent> pending = new ArrayDeque<>();
+    protected int pendingBitstreams = 0;
+    protected long pendingBytes = 0;
+
+    protected final List<File> archives = new ArrayList<>();
+    protected File tempFile;
+    protected CountingOutputStream counter;
+    protected ZipOutputStream zip;
+
+    /**
+     * @param exportService the export service creating the metadata files
+     * @param destDir       the directory to write the archives in
+     * @param zipFileName   the name of the (first) archive
+     * @param threads       the number of threads fetching bitstream content
+     * @param maxZipSize    the size in bytes after which a further archive is started, or 0 for a single archive
+     */
+    public ItemExportZipWriter(ItemExportServiceImpl exportService, File destDir, String zipFileName, int threads,
+                               long maxZipSize) {
+        this.exportService = exportService;
+        this.destDir = destDir;
+        this.zipFileName = zipFileName;
+        this.maxZipSize = maxZipSize;
+        if (threads > 1) {
+            fetchers = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+                .namingPattern("item-export-%d").daemon(true).build());
+            window = threads * 2;
+        } else {
+            fetchers = null;
+            window = 0;
+        }
+    }
+
+    /**
+     * Add an item to the export. Its bitstreams are queued for fetching, and the pending entries are written as far
+     * as the fetched content allows. When too many bitstreams, entries or bytes are pending, the entries are written
+     * waiting for the content.
+     *
+     * @param c                 the DSpace context
+     * @param item              the item to export
+     * @param itemDir           the path of the item's directory in the archive, e.g. "1"
+     * @param migrate           Whether to use the migrate option or not
+     * @param excludeBitstreams whether to exclude bitstreams
+     * @throws Exception if error
+     */
+    public void addItem(Context c, Item item, String itemDir, boolean migrate, boolean excludeBitstreams)
+        throws Exception {
+        Set<String> names = new HashSet<>();
+        for (String schema : exportService.getMetadataSchemas(item)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exportService.writeMetadata(c, schema, item, out, migrate);
+            String name = exportService.getMetadataFileName(schema);
+            names.add(name);
+            queue(new ZipContent(itemDir + "/" + name, out.toByteArray()));
+        }
+        names.add("contents");
+        boolean writeHandle = !migrate && item.getHandle() != null;
+        if (writeHandle) {
+            names.add("handle");
+        }
+
+        StringWriter contents = new StringWriter();
+        PrintWriter out = new PrintWriter(contents);
+        for (Bundle bundle : item.getBundles()) {
+            for (Bitstream bitstream : bundle.getBitstreams()) {
+                String name = bitstream.getName();
+                // keep prefixing numbers to the name until it is unique, like the files of a directory export
+                for (int prefix = 1; !names.add(name); prefix++) {
+                    name = prefix + "_" + bitstream.getName();
+                }
+                if (!excludeBitstreams) {
+                    exportService.authorizeService.authorizeAction(c, bitstream, Constants.READ);
+                    queue(new ZipContent(itemDir + "/" + name, fetch(c, bitstream)));
+                }
+                out.println(exportService.getContentsEntry(bundle, bitstream, name));
+            }
+        }
+        out.close();
+        queue(new ZipContent(itemDir + "/contents", contents.toString().getBytes(StandardCharsets.UTF_8)));
+
+        if (writeHandle) {
+            queue(new ZipContent(itemDir + "/handle",
+                                 (item.getHandle() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+        }
+        queue(END_OF_ITEM);
+
+        while (!pending.isEmpty() && (isReady(pending.peekFirst()) || pendingBitstreams > window
+            || pending.size() > MAX_PENDING_ENTRIES || pendingBytes > MAX_PENDING_BYTES)) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Queue an entry for writing
+     *
+     * @param entry the entry
+     */
+    protected void queue(ZipContent entry) {
+        pending.addLast(entry);
+        if (entry.content != null) {
+            pendingBitstreams++;
+        } else if (entry.bytes != null) {
+            pendingBytes += entry.bytes.length;
+        }
+    }
+
+    /**
+     * Whether an entry can be written without waiting: its content is in memory or has been fetched
+     *
+     * @param entry the entry
+     * @return true if it can be written right away
+     */
+    protected boolean isReady(ZipContent entry) {
+        return entry.content == null || (fetchers != null && entry.content.isDone());
+    }
+
+    /**
+     * Write all remaining entries and complete the last archive
+     *
+     * @return the archives written
+     * @throws Exception if error
+     */
+    public List<File> finish() throws Exception {
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        // an export without items still gives an (empty) archive
+        if (zip != null || archives.isEmpty()) {
+            closeArchive();
+        }
+        return archives;
+    }
+
+    /**
+     * Stop fetching content. If the export wasn't finished, the incomplete archive is deleted, while archives
+     * completed before are kept.
+     */
+    @Override
+    public void close() throws IOException {
+        if (fetchers != null) {
+            fetchers.shutdownNow();
+        }
+        for (ZipContent entry : pending) {
+            if (entry.content != null) {
+                entry.content.cancel(true);
+                if (entry.content.isDone() && !entry.content.isCancelled()) {
+                    try {
+                        entry.content.get().close();
+                    } catch (InterruptedException | ExecutionException | IOException e) {
+                        // nothing to close
+                    }
+                }
+            }
+        }
+        pending.clear();
+        pendingBitstreams = 0;
+        pendingBytes = 0;
+        if (zip != null) {
+            try {
+                zip.close();
+            } finally {
+                zip = null;
+                if (!tempFile.delete()) {
+                    log.error("Unable to delete incomplete export " + tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue fetching the content of a bitstream. With fetching threads, small bitstreams are read into memory and
+     * larger ones are opened.
+     * The bitstore is read without the context's session, so the content can be fetched in other threads.
+     *
+     * @param c         the DSpace context
+     * @param bitstream the bitstream
+     * @return the content, when it is fetched
+     */
+    protected Future<InputStream> fetch(Context c, Bitstream bitstream) {
+        boolean inMemory = fetchers != null && bitstream.getSizeBytes() <= PREFETCH_MAX_BYTES;
+        Callable<InputStream> task = () -> {
+            InputStream in = exportService.bitstreamStorageService.retrieve(c, bitstream);
+            if (inMemory) {
+                try {
+                    return new ByteArrayInputStream(IOUtils.toByteArray(in));
+                } finally {
+                    in.close();
+                }
+            }
+            return in;
+        };
+        if (fetchers != null) {
+            return fetchers.submit(task);
+        }
+        // fetched when it is written
+        return new FutureTask<>(task);
+    }
+
+    /**
+     * Write the first pending entry, or start a further archive at the end of an item if the current one is full
+     *
+     * @throws Exception if error
+     */
+    protected void writeNext() throws Exception {
+        ZipContent entry = pending.removeFirst();
+        if (entry == END_OF_ITEM) {
+            if (maxZipSize > 0 && zip != null && counter.getByteCount() >= maxZipSize) {
+                closeArchive();
+            }
+            return;
+        }
+        if (zip == null) {
+            openArchive();
+        }
+        zip.putNextEntry(new ZipEntry(entry.name));
+        if (entry.bytes != null) {
+            pendingBytes -= entry.bytes.length;
+            zip.write(entry.bytes);
+        } else {
+            pendingBitstreams--;
+            try (InputStream in = getContent(entry.content)) {
+                IOUtils.copy(in, zip);
+            }
+        }
+        zip.closeEntry();
+    }
+
+    /**
+     * Wait for the content of a bitstream
+     *
+     * @param content the content being fetched
+     * @return the content
+     * @throws Exception the exception of fetching the content
+     */
+    protected InputStream getContent(Future<InputStream> content) throws Exception {
+        if (content instanceof FutureTask && !content.isDone()) {
+            ((Runnable) content).run();
+        }
+        try {
+            return content.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    protected void openArchive() throws IOException {
+        if (!destDir.exists() && !destDir.mkdirs()) {
+            log.error("Unable to create destination directory");
+        }
+        tempFile = new File(destDir, getArchiveName(archives.size() + 1) + "_tmp");
+        counter = new CountingOutputStream(new FileOutputStream(tempFile));
+        zip = new ZipOutputStream(counter);
+        zip.setLevel(9);
+    }
+
+    protected void closeArchive() throws IOException {
+        if (zip == null) {
+            openArchive();
+        }
+        zip.finish();
+        zip.close();
+        zip = null;
+        File archive = new File(destDir, getArchiveName(archives.size() + 1));
+        if (!tempFile.renameTo(archive)) {
+            throw new IOException("Unable to rename " + tempFile + " to " + archive);
+        }
+        archives.add(archive);
+    }
+
+    /**
+     * The name of an archive: the zip file name for the first one, and the name followed by the archive's number
+     * for further ones, e.g. export_2.zip
+     *
+     * @param number the number of the archive, starting at 1
+     * @return the file name
+     */
+    protected String getArchiveName(int number) {
+        if (number == 1) {
+            return zipFileName;
+        }
+        int extension = zipFileName.toLowerCase().endsWith(".zip") ? zipFileName.length() - 4
+            : zipFileName.length();
+        return zipFileName.substring(0, extension) + "_" + number + zipFileName.substring(extension);
+    }
+
+    /**
+     * An entry of the archive, with its content in memory or being fetched from the bitstore
+     */
+    protected static class ZipContent {
+        protected final String name;
+        protected final byte[] bytes;
+        protected final Future<InputStream> content;
+
+        protected ZipContent(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+            this.content = null;
+        }
+
+        protected ZipContent(String name, Future<InputStream> content) {
+            this.name = name;
+            this.bytes = null;
+            this.content = content;
+        }
+    }
+}
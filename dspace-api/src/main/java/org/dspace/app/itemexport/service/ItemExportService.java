@@ -67,6 +67,40 @@ public interface ItemExportService {
                             int seqStart, boolean migrate,
                             boolean excludeBitstreams) throws Exception;
 
+    /**
+     * Method to perform an export straight into a zip file, without a working
+     * directory. The bitstreams are fetched ahead in the number of threads set
+     * with {@link #setThreads(int)}, and further zip files are started when
+     * one grows past the size set with {@link #setMaxZipSize(long)}.
+     *
+     * @param context           The DSpace Context
+     * @param items             The items to export
+     * @param destDirName       The directory to save the export in
+     * @param zipFileName       The name to save the (first) zip file as
+     * @param seqStart          The first number in the sequence
+     * @param migrate           Whether to use the migrate option or not
+     * @param excludeBitstreams Whether to exclude bitstreams or not
+     * @throws Exception if error
+     */
+    public void exportAsZipStream(Context context, Iterator<Item> items,
+                                  String destDirName, String zipFileName,
+                                  int seqStart, boolean migrate,
+                                  boolean excludeBitstreams) throws Exception;
+
+    /**
+     * Set the number of threads fetching bitstreams for a streamed zip export
+     *
+     * @param threads the number of threads, 1 to fetch each bitstream when it is written
+     */
+    public void setThreads(int threads);
+
+    /**
+     * Set the size after which a streamed zip export continues in a further zip file
+     *
+     * @param maxZipSize the size in bytes, or 0 to write a single zip file
+     */
+    public void setMaxZipSize(long maxZipSize);
+
     /**
      * Convenience methot to create export a single Community, Collection, or
      * Item
@@ -94,6 +94,11 @@ public class ItemImportCLITool {
             options.addOption("R", "resume", false,
                               "resume a failed import (add only)");
             options.addOption("q", "quiet", false, "don't display metadata");
+            options.addOption("T", "threads", true,
+                              "number of threads storing the bitstreams of the next items (add only)");
+            options.addOption("B", "batch-size", true,
+                              "commit and append to the mapfile every n items, so that --resume continues after " +
+                                  "the last committed item (add only)");
 
             options.addOption("h", "help", false, "help");
 
@@ -110,6 +115,8 @@ public class ItemImportCLITool {
             boolean useWorkflow = false;
             boolean useWorkflowSendEmail = false;
             boolean isQuiet = false;
+            int threads = 1;
+            int batchSize = 0;
 
             if (line.hasOption('h')) {
                 HelpFormatter myhelp = new HelpFormatter();
@@ -194,6 +201,14 @@ public class ItemImportCLITool {
                 isQuiet = true;
             }
 
+            if (line.hasOption('T')) {
+                threads = Integer.parseInt(line.getOptionValue('T'));
+            }
+
+            if (line.hasOption('B')) {
+                batchSize = Integer.parseInt(line.getOptionValue('B'));
+            }
+
             boolean zip = false;
             String zipfilename = "";
             if (line.hasOption('z')) {
@@ -304,6 +319,8 @@ public class ItemImportCLITool {
             myloader.setUseWorkflow(useWorkflow);
             myloader.setUseWorkflowSendEmail(useWorkflowSendEmail);
             myloader.setQuiet(isQuiet);
+            myloader.setThreads(threads);
+            myloader.setBatchSize(batchSize);
 
             // create a context
             Context c = new Context(Context.Mode.BATCH_EDIT);
@@ -21,12 +21,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.URL;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -34,9 +37,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import javax.mail.MessagingException;
@@ -50,6 +60,7 @@ import org.apache.commons.io.FileDeleteStrategy;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.xpath.XPathAPI;
@@ -89,6 +100,8 @@ import org.dspace.eperson.service.EPersonService;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.handle.service.HandleService;
 import org.dspace.services.ConfigurationService;
+import org.dspace.storage.bitstore.StoredContent;
+import org.dspace.storage.bitstore.service.BitstreamStorageService;
 import org.dspace.workflow.WorkflowItem;
 import org.dspace.workflow.WorkflowService;
 import org.springframework.beans.factory.InitializingBean;
@@ -126,6 +139,8 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
     @Autowired(required = true)
     protected BitstreamFormatService bitstreamFormatService;
     @Autowired(required = true)
+    protected BitstreamStorageService bitstreamStorageService;
+    @Autowired(required = true)
     protected BundleService bundleService;
     @Autowired(required = true)
     protected CollectionService collectionService;
@@ -159,6 +174,23 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
     protected boolean useWorkflow = false;
     protected boolean useWorkflowSendEmail = false;
     protected boolean isQuiet = false;
+    protected int threads = 1; // number of threads storing bitstreams, 1 to store them while adding the item
+    protected int batchSize = 0; // number of items per commit, 0 to leave the commit to the caller
+
+    /**
+     * The bits stored ahead for the bitstreams of the item being added, by file name, null if there are none
+     */
+    protected Map<String, StoredContent> storedContents = null;
+
+    /**
+     * All bits stored ahead, which are not committed yet. They are removed if the import fails.
+     */
+    protected final Set<StoredContent> storedAhead = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The bits stored ahead for the items added since the last commit
+     */
+    protected final List<StoredContent> batchContents = new ArrayList<>();
 
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -211,6 +243,9 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
         // create the mapfile
         File outFile = null;
         PrintWriter mapOut = null;
+        // the mapfile lines of the uncommitted items, when committing every batchSize items
+        StringWriter batchMap = null;
+        ExecutorService storePool = null;
         try {
             Map<String, String> skipItems = new HashMap<>(); // set of items to skip if in 'resume'
             // mode
@@ -223,6 +258,9 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
             boolean directoryFileCollections = false;
             if (mycollections == null) {
                 directoryFileCollections = true;
+            } else {
+                // the collections are reloaded after every commit
+                mycollections = new ArrayList<>(mycollections);
             }
 
             if (!isTest) {
@@ -252,10 +290,40 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
 
             Arrays.sort(dircontents, ComparatorUtils.naturalComparator());
 
+            // the bitstreams of the next items are stored by the worker threads, while the current item is added
+            Deque<Future<Map<String, StoredContent>>> storing = new ArrayDeque<>();
+            int nextToStore = 0;
+            if (threads > 1 && !isTest) {
+                storePool = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+                    .namingPattern("item-import-%d").build());
+            }
+            PrintWriter itemMapOut = mapOut;
+            if (batchSize > 0 && mapOut != null) {
+                batchMap = new StringWriter();
+                itemMapOut = new PrintWriter(batchMap);
+            }
+            int uncommittedItems = 0;
+
             for (int i = 0; i < dircontents.length; i++) {
                 if (skipItems.containsKey(dircontents[i])) {
                     System.out.println("Skipping import of " + dircontents[i]);
                 } else {
+                    if (storePool != null) {
+                        // keep the worker threads busy with this item and the next ones
+                        for (nextToStore = Math.max(nextToStore, i);
+                             nextToStore < dircontents.length && storing.size() < threads * 2; nextToStore++) {
+                            if (!skipItems.containsKey(dircontents[nextToStore])) {
+                                String path = sourceDir + File.separatorChar + dircontents[nextToStore];
+                                storing.add(storePool.submit(() -> storeContents(path, "contents")));
+                            }
+                        }
+                        try {
+                            storedContents = storing.remove().get();
+                        } catch (ExecutionException e) {
+                            throw new IOException("Unable to store the bitstreams of " + dircontents[i], e.getCause());
+                        }
+                        batchContents.addAll(storedContents.values());
+                    }
                     List<Collection> clist;
                     if (directoryFileCollections) {
                         String path = sourceDir + File.separatorChar + dircontents[i];
@@ -264,23 +332,54 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
                             if (cols == null) {
                                 System.out
                                     .println("No collections specified for item " + dircontents[i] + ". Skipping.");
+                                discardStoredContents();
                                 continue;
                             }
                             clist = cols;
                         } catch (IllegalArgumentException e) {
                             System.out.println(e.getMessage() + " Skipping.");
+                            discardStoredContents();
                             continue;
                         }
                     } else {
                         clist = mycollections;
                     }
-                    Item item = addItem(c, clist, sourceDir, dircontents[i], mapOut, template);
+                    Item item = addItem(c, clist, sourceDir, dircontents[i], itemMapOut, template);
+                    discardStoredContents();
                     c.uncacheEntity(item);
                     System.out.println(i + " " + dircontents[i]);
+
+                    if (batchSize > 0 && ++uncommittedItems >= batchSize) {
+                        commitBatch(c, mycollections, mapOut, batchMap);
+                        uncommittedItems = 0;
+                    }
                 }
             }
-
+            if (batchSize > 0) {
+                commitBatch(c, mycollections, mapOut, batchMap);
+            }
+        } catch (Exception e) {
+            // the bits of the bitstreams which are rolled back, or not created at all, are removed again
+            if (storePool != null) {
+                storePool.shutdownNow();
+                storePool.awaitTermination(1, TimeUnit.MINUTES);
+                storePool = null;
+            }
+            for (StoredContent content : storedAhead) {
+                try {
+                    bitstreamStorageService.discard(content);
+                } catch (IOException discardException) {
+                    log.warn("Unable to remove the stored bits " + content.getInternalId(), discardException);
+                }
+            }
+            throw e;
         } finally {
+            if (storePool != null) {
+                storePool.shutdownNow();
+            }
+            storedAhead.clear();
+            batchContents.clear();
+            storedContents = null;
             if (mapOut != null) {
                 mapOut.flush();
                 mapOut.close();
@@ -288,6 +387,88 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
         }
     }
 
+    /**
+     * Commit the items added since the last commit, and append their lines to the mapfile. A resumed import starts
+     * after the last committed item.
+     *
+     * @param c             current Context
+     * @param mycollections the collections given for all items, which are reloaded, or null
+     * @param mapOut        the mapfile, or null in a test run
+     * @param batchMap      the mapfile lines of the uncommitted items
+     * @throws SQLException if the items could not be committed
+     */
+    protected void commitBatch(Context c, List<Collection> mycollections, PrintWriter mapOut, StringWriter batchMap)
+        throws SQLException {
+        c.commit();
+        storedAhead.removeAll(batchContents);
+        batchContents.clear();
+        if (mapOut != null) {
+            mapOut.print(batchMap.toString());
+            mapOut.flush();
+            batchMap.getBuffer().setLength(0);
+        }
+        if (mycollections != null) {
+            for (int i = 0; i < mycollections.size(); i++) {
+                mycollections.set(i, c.reloadEntity(mycollections.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Store the bits of the bitstreams an item's contents file imports conventionally, ahead of adding the item.
+     * Called by the worker threads.
+     *
+     * @param path     the item directory
+     * @param filename the name of the contents file
+     * @return the stored bits, by file name
+     * @throws IOException if the bits could not be stored
+     */
+    protected Map<String, StoredContent> storeContents(String path, String filename) throws IOException {
+        Map<String, StoredContent> contents = new HashMap<>();
+        File contentsFile = new File(path + File.separatorChar + filename);
+        if (!contentsFile.exists()) {
+            return contents;
+        }
+        try (BufferedReader is = new BufferedReader(new FileReader(contentsFile))) {
+            String line;
+            while ((line = is.readLine()) != null) {
+                // registered bitstreams stay where they are
+                if ("".equals(line.trim()) || line.trim().startsWith("-r ")) {
+                    continue;
+                }
+                String fileName = line.indexOf('\t') == -1 ? line : line.substring(0, line.indexOf('\t'));
+                File file = new File(path + File.separatorChar + fileName);
+                if (contents.containsKey(fileName) || !file.isFile()) {
+                    // left to processContentFileEntry
+                    continue;
+                }
+                try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                    StoredContent content = bitstreamStorageService.store(in);
+                    storedAhead.add(content);
+                    contents.put(fileName, content);
+                }
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Remove the bits stored ahead for the current item, which were not given to a bitstream.
+     *
+     * @throws IOException if the bits could not be removed
+     */
+    protected void discardStoredContents() throws IOException {
+        if (storedContents == null) {
+            return;
+        }
+        for (StoredContent content : storedContents.values()) {
+            bitstreamStorageService.discard(content);
+            storedAhead.remove(content);
+            batchContents.remove(content);
+        }
+        storedContents = null;
+    }
+
     @Override
     public void replaceItems(Context c, List<Collection> mycollections,
                              String sourceDir, String mapFile, boolean template) throws Exception {
@@ -985,9 +1166,12 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
         IOException, AuthorizeException {
         String fullpath = path + File.separatorChar + fileName;
 
-        // get an input stream
-        BufferedInputStream bis = new BufferedInputStream(new FileInputStream(
-            fullpath));
+        // use the bits stored ahead, or get an input stream
+        StoredContent content = storedContents == null ? null : storedContents.remove(fileName);
+        BufferedInputStream bis = null;
+        if (content == null) {
+            bis = new BufferedInputStream(new FileInputStream(fullpath));
+        }
 
         Bitstream bs = null;
         String newBundleName = bundleName;
@@ -1016,7 +1200,11 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
             }
 
             // now add the bitstream
-            bs = bitstreamService.create(c, targetBundle, bis);
+            if (content != null) {
+                bs = bitstreamService.create(c, targetBundle, content);
+            } else {
+                bs = bitstreamService.create(c, targetBundle, bis);
+            }
 
             bs.setName(c, fileName);
 
@@ -1035,7 +1223,9 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
             bitstreamService.update(c, bs);
         }
 
-        bis.close();
+        if (bis != null) {
+            bis.close();
+        }
     }
 
     /**
@@ -1823,4 +2013,14 @@ public class ItemImportServiceImpl implements ItemImportService, InitializingBea
     public void setQuiet(boolean isQuiet) {
         this.isQuiet = isQuiet;
     }
+
+    @Override
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
@@ -235,4 +235,20 @@ public interface ItemImportService {
      * @param isQuiet true or false
      */
     public void setQuiet(boolean isQuiet);
+
+    /**
+     * Set the number of threads storing the bitstreams of the next items, while an item is added by the calling
+     * thread. With 1, the bitstreams are stored while their item is added.
+     *
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads);
+
+    /**
+     * Set the number of items added per commit. The mapfile is appended to after every commit, so an import resumed
+     * with the mapfile starts after the last committed item. With 0, the caller commits the whole import.
+     *
+     * @param batchSize the number of items per commit
+     */
+    public void setBatchSize(int batchSize);
 }
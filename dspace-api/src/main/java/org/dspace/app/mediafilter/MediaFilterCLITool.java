@@ -22,6 +22,7 @@ import org.apache.commons.cli.MissingArgumentException;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.dspace.app.mediafilter.factory.MediaFilterServiceFactory;
 import org.dspace.app.mediafilter.service.MediaFilterService;
 import org.dspace.content.Collection;
@@ -81,6 +82,8 @@ public class MediaFilterCLITool {
                           "ONLY process bitstreams belonging to identifier");
         options.addOption("m", "maximum", true,
                           "process no more than maximum items");
+        options.addOption("t", "threads", true,
+                          "filter items in the given number of threads");
         options.addOption("h", "help", false, "help");
 
         //create a "plugin" option (to specify specific MediaFilter plugins to run)
@@ -115,6 +118,7 @@ public class MediaFilterCLITool {
         boolean isForce = false; // default to not forced
         String identifier = null; // object scope limiter
         int max2Process = Integer.MAX_VALUE;
+        int threads = 1;
         Map<String, List<String>> filterFormats = new HashMap<>();
 
         CommandLine line = null;
@@ -157,6 +161,17 @@ public class MediaFilterCLITool {
             }
         }
 
+        if (line.hasOption('t')) {
+            threads = NumberUtils.toInt(line.getOptionValue('t'), 0);
+            if (threads < 1) {
+                System.err.println("\nERROR: Invalid number of threads '" + line.getOptionValue('t') +
+                                       "', the number of threads must be at least 1\n");
+                HelpFormatter myhelp = new HelpFormatter();
+                myhelp.printHelp("MediaFilterManager\n", options);
+                System.exit(1);
+            }
+        }
+
         String filterNames[] = null;
         if (line.hasOption('p')) {
             //specified which media filter plugins we are using
@@ -180,6 +195,7 @@ public class MediaFilterCLITool {
         mediaFilterService.setQuiet(isQuiet);
         mediaFilterService.setVerbose(isVerbose);
         mediaFilterService.setMax2Process(max2Process);
+        mediaFilterService.setThreads(threads);
 
         //initialize an array of our enabled filters
         List<FormatFilter> filterList = new ArrayList<>();
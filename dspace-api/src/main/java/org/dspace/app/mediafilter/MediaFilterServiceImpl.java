@@ -7,13 +7,26 @@
  */
 package org.dspace.app.mediafilter;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.dspace.app.mediafilter.service.MediaFilterService;
 import org.dspace.authorize.service.AuthorizeService;
 import org.dspace.content.Bitstream;
@@ -46,6 +59,11 @@ import org.springframework.beans.factory.annotation.Autowired;
  * recreate index after processing bitstreams; -i [identifier] limits processing
  * scope to a community, collection or item; and -m [max] limits processing to a
  * maximum number of items.
+ * <p>
+ * With more than one thread (-t), the items are filtered by a pool of worker threads, each with its own Context,
+ * which take the items from a queue filled by the thread walking the repository. Each worker commits its changes
+ * every <code>filter.batchSize</code> items. The time a filter may take and the size of the bitstreams it is given
+ * can be limited per filter, the bitstreams and items which could not be filtered are reported at the end of the run.
  */
 public class MediaFilterServiceImpl implements MediaFilterService, InitializingBean {
     @Autowired(required = true)
@@ -69,9 +87,10 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
 
     protected int max2Process = Integer.MAX_VALUE;  // maximum number items to process
 
-    protected int processed = 0;   // number items processed
+    protected final AtomicInteger processed = new AtomicInteger();   // number items processed
 
-    protected Item currentItem = null;   // current item being processed
+    // current item being processed by each thread
+    protected final ThreadLocal<Item> currentItem = new ThreadLocal<>();
 
     protected List<FormatFilter> filterClasses = null;
 
@@ -85,6 +104,35 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
     protected boolean isQuiet = false;
     protected boolean isForce = false; // default to not forced
 
+    protected int threads = 1; // number of worker threads, 1 to filter in the calling thread
+
+    /**
+     * Nesting depth of the applyFilters* calls, the run ends when the outermost call returns
+     */
+    protected int runDepth = 0;
+
+    /**
+     * The bitstreams and items which could not be filtered during the current (or last) run
+     */
+    protected final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The IDs of the items to filter by the worker threads, null if the items are filtered in the calling thread
+     */
+    protected BlockingQueue<UUID> workQueue = null;
+
+    protected List<Future<?>> workers = null;
+
+    /**
+     * The thread which runs filters with a timeout
+     */
+    protected ExecutorService filterExecutor = null;
+
+    /**
+     * Marks the end of the work queue
+     */
+    private static final UUID END_OF_QUEUE = new UUID(0, 0);
+
     protected MediaFilterServiceImpl() {
 
     }
@@ -103,6 +151,15 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
 
     @Override
     public void applyFiltersAllItems(Context context) throws Exception {
+        startRun();
+        try {
+            applyFiltersAllItemsInRun(context);
+        } finally {
+            endRun();
+        }
+    }
+
+    protected void applyFiltersAllItemsInRun(Context context) throws Exception {
         if (skipList != null) {
             //if a skip-list exists, we need to filter community-by-community
             //so we can respect what is in the skip-list
@@ -114,7 +171,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
         } else {
             //otherwise, just find every item and process
             Iterator<Item> itemIterator = itemService.findAll(context);
-            while (itemIterator.hasNext() && processed < max2Process) {
+            while (itemIterator.hasNext() && processed.get() < max2Process) {
                 applyFiltersItem(context, itemIterator.next());
             }
         }
@@ -122,6 +179,16 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
 
     @Override
     public void applyFiltersCommunity(Context context, Community community)
+        throws Exception {
+        startRun();
+        try {
+            applyFiltersCommunityInRun(context, community);
+        } finally {
+            endRun();
+        }
+    }
+
+    protected void applyFiltersCommunityInRun(Context context, Community community)
         throws Exception {   //only apply filters if community not in skip-list
         if (!inSkipList(community.getHandle())) {
             List<Community> subcommunities = community.getSubcommunities();
@@ -138,11 +205,21 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
 
     @Override
     public void applyFiltersCollection(Context context, Collection collection)
+        throws Exception {
+        startRun();
+        try {
+            applyFiltersCollectionInRun(context, collection);
+        } finally {
+            endRun();
+        }
+    }
+
+    protected void applyFiltersCollectionInRun(Context context, Collection collection)
         throws Exception {
         //only apply filters if collection not in skip-list
         if (!inSkipList(collection.getHandle())) {
             Iterator<Item> itemIterator = itemService.findAllByCollection(context, collection);
-            while (itemIterator.hasNext() && processed < max2Process) {
+            while (itemIterator.hasNext() && processed.get() < max2Process) {
                 applyFiltersItem(context, itemIterator.next());
             }
         }
@@ -150,22 +227,159 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
 
     @Override
     public void applyFiltersItem(Context c, Item item) throws Exception {
+        startRun();
+        try {
+            applyFiltersItemInRun(c, item);
+        } finally {
+            endRun();
+        }
+    }
+
+    protected void applyFiltersItemInRun(Context c, Item item) throws Exception {
         //only apply filters if item not in skip-list
         if (!inSkipList(item.getHandle())) {
+            if (workQueue != null) {
+                // leave the filtering to the worker threads
+                queueItem(item.getID());
+                c.uncacheEntity(item);
+                return;
+            }
+
             //cache this item in MediaFilterManager
             //so it can be accessed by MediaFilters as necessary
-            currentItem = item;
+            currentItem.set(item);
 
             if (filterItem(c, item)) {
                 // increment processed count
-                ++processed;
+                processed.incrementAndGet();
             }
             // clear item objects from context cache and internal cache
-            c.uncacheEntity(currentItem);
-            currentItem = null;
+            c.uncacheEntity(item);
+            currentItem.remove();
+        }
+    }
+
+    /**
+     * Start a run, unless it is already started by an enclosing call. Starts the worker threads if more than one
+     * thread is configured.
+     */
+    protected void startRun() {
+        if (runDepth++ > 0) {
+            return;
+        }
+        failures.clear();
+        if (threads > 1) {
+            workQueue = new ArrayBlockingQueue<>(threads * 4);
+            ExecutorService pool = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+                .namingPattern("filter-media-%d").build());
+            workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(this::work));
+            }
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * End a run, unless it was started by an enclosing call. Waits for the worker threads to finish, and reports
+     * the bitstreams and items which could not be filtered.
+     *
+     * @throws Exception if a worker thread failed
+     */
+    protected void endRun() throws Exception {
+        if (--runDepth > 0) {
+            return;
+        }
+        try {
+            if (workQueue != null) {
+                for (Future<?> worker : workers) {
+                    queueItem(END_OF_QUEUE);
+                }
+                for (Future<?> worker : workers) {
+                    try {
+                        worker.get();
+                    } catch (ExecutionException e) {
+                        failures.add("worker thread: " + e.getCause());
+                    }
+                }
+            }
+        } finally {
+            workQueue = null;
+            workers = null;
+        }
+        if (!failures.isEmpty()) {
+            System.out.println("ERROR: " + failures.size() + " bitstream(s) or item(s) could not be filtered:");
+            for (String failure : failures) {
+                System.out.println("\t" + failure);
+            }
+        }
+    }
+
+    /**
+     * Hand an item over to the worker threads, waiting for room in the queue.
+     *
+     * @param itemId the ID of the item, or END_OF_QUEUE to stop a worker
+     * @throws Exception if all worker threads stopped
+     */
+    protected void queueItem(UUID itemId) throws Exception {
+        while (!workQueue.offer(itemId, 1, TimeUnit.SECONDS)) {
+            if (workers.stream().allMatch(Future::isDone)) {
+                throw new IllegalStateException("All filter-media worker threads have stopped");
+            }
         }
     }
 
+    /**
+     * Filter the items from the work queue in a Context of its own, until the end of the queue.
+     *
+     * @return nothing
+     * @throws Exception if the Context could not be completed
+     */
+    protected Void work() throws Exception {
+        int batchSize = Math.max(1, configurationService.getIntProperty("filter.batchSize", 100));
+        List<UUID> batch = new ArrayList<>();
+        Context context = new Context();
+        try {
+            context.turnOffAuthorisationSystem();
+            for (UUID itemId = workQueue.take(); !END_OF_QUEUE.equals(itemId); itemId = workQueue.take()) {
+                if (processed.get() >= max2Process) {
+                    continue;
+                }
+                batch.add(itemId);
+                try {
+                    Item item = itemService.find(context, itemId);
+                    if (item != null) {
+                        currentItem.set(item);
+                        if (filterItem(context, item)) {
+                            processed.incrementAndGet();
+                        }
+                        context.uncacheEntity(item);
+                    }
+                    if (batch.size() >= batchSize) {
+                        context.commit();
+                        batch.clear();
+                    }
+                } catch (Exception e) {
+                    // the changes to the whole batch are lost, so all of its items will have to be filtered again
+                    failures.add("item " + itemId + ": " + e + (batch.size() > 1 ?
+                        " (also rolled back the changes to items " + batch.subList(0, batch.size() - 1) + ")" : ""));
+                    batch.clear();
+                    context.abort();
+                    context = new Context();
+                    context.turnOffAuthorisationSystem();
+                } finally {
+                    currentItem.remove();
+                }
+            }
+            context.complete();
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+        return null;
+    }
+
     @Override
     public boolean filterItem(Context context, Item myItem) throws Exception {
         // get 'original' bundles
@@ -235,6 +449,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
                     System.out.println("\tAsset Store: " + assetstore);
                     System.out.println(e);
                     e.printStackTrace();
+                    failures.add("bitstream " + myBitstream.getID() + " (item: " + handle + "): " + e);
                 }
             } else if (filterClass instanceof SelfRegisterInputFormats) {
                 // Filter implements self registration, so check to see if it should be applied
@@ -290,6 +505,8 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
                         System.out.println("ERROR filtering, skipping bitstream #"
                                                + myBitstream.getID() + " " + e);
                         e.printStackTrace();
+                        failures.add("bitstream " + myBitstream.getID() + " (item: " + myItem.getHandle() + "): "
+                                         + e);
                     }
                 }
             }
@@ -339,6 +556,17 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
             return false;
         }
 
+        // most filters read the whole bitstream into memory, so very large bitstreams can be skipped
+        long maxFileSize = getFilterProperty(formatFilter, "maxFileSize");
+        if (maxFileSize > 0 && source.getSizeBytes() > maxFileSize) {
+            if (!isQuiet) {
+                System.out.println("SKIPPED: bitstream " + source.getID()
+                                       + " (item: " + item.getHandle() + ") because it is larger than "
+                                       + maxFileSize + " bytes");
+            }
+            return false;
+        }
+
         if (isVerbose) {
             System.out.println("PROCESSING: bitstream " + source.getID()
                                    + " (item: " + item.getHandle() + ")");
@@ -352,7 +580,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
                 InputStream srcStream = bitstreamService.retrieve(context, source);
                 // filter the source stream to produce the destination stream
                 // this is the hard work, check for OutOfMemoryErrors at the end of the try clause.
-                InputStream destStream = formatFilter.getDestinationStream(item, srcStream, isVerbose);
+                InputStream destStream = getDestinationStream(formatFilter, item, srcStream);
         ) {
             if (destStream == null) {
                 if (!isQuiet) {
@@ -419,9 +647,78 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
         return true;
     }
 
+    /**
+     * Run a filter on a source stream, in a separate thread if a timeout is configured for the filter.
+     *
+     * @param formatFilter the filter
+     * @param item         the item containing the source bitstream
+     * @param srcStream    the source stream
+     * @return the filtered stream
+     * @throws Exception if the filter failed or timed out
+     */
+    protected InputStream getDestinationStream(FormatFilter formatFilter, Item item, InputStream srcStream)
+        throws Exception {
+        long timeout = getFilterProperty(formatFilter, "timeout");
+        if (timeout <= 0) {
+            return formatFilter.getDestinationStream(item, srcStream, isVerbose);
+        }
+
+        Future<InputStream> result = getFilterExecutor().submit(() -> {
+            currentItem.set(item);
+            try {
+                return formatFilter.getDestinationStream(item, srcStream, isVerbose);
+            } finally {
+                currentItem.remove();
+            }
+        });
+        try {
+            return result.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new IOException(formatFilter.getClass().getSimpleName() + " timed out after " + timeout
+                                      + " seconds");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    protected synchronized ExecutorService getFilterExecutor() {
+        if (filterExecutor == null) {
+            // a filter which doesn't respond to the interruption keeps its thread, don't let it block the JVM exit
+            filterExecutor = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
+                .namingPattern("filter-media-timeout-%d").daemon(true).build());
+        }
+        return filterExecutor;
+    }
+
+    /**
+     * Get a numeric setting of a filter: filter.&lt;class-name&gt;[.&lt;plugin-name&gt;].&lt;name&gt;, or
+     * filter.&lt;name&gt; for all filters.
+     *
+     * @param formatFilter the filter
+     * @param name         the name of the setting
+     * @return the value, 0 if it isn't configured
+     */
+    protected long getFilterProperty(FormatFilter formatFilter, String name) {
+        String key = "filter." + formatFilter.getClass().getName();
+        if (formatFilter instanceof SelfNamedPlugin) {
+            key += "." + ((SelfNamedPlugin) formatFilter).getPluginInstanceName();
+        }
+        return configurationService.getLongProperty(key + "." + name,
+                                                     configurationService.getLongProperty("filter." + name, 0));
+    }
+
     @Override
     public Item getCurrentItem() {
-        return currentItem;
+        return currentItem.get();
+    }
+
+    @Override
+    public List<String> getFailures() {
+        return new ArrayList<>(failures);
     }
 
     @Override
@@ -456,6 +753,11 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
         this.max2Process = max2Process;
     }
 
+    @Override
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     @Override
     public void setFilterClasses(List<FormatFilter> filterClasses) {
         this.filterClasses = filterClasses;
@@ -102,6 +102,13 @@ public interface MediaFilterService {
      */
     public Item getCurrentItem();
 
+    /**
+     * Get the bitstreams and items which could not be filtered during the current or last run.
+     *
+     * @return descriptions of the bitstreams and items, and of the errors
+     */
+    public List<String> getFailures();
+
     /**
      * Check whether or not to skip processing the given identifier.
      *
@@ -119,6 +126,14 @@ public interface MediaFilterService {
 
     public void setMax2Process(int max2Process);
 
+    /**
+     * Set the number of threads which filter items in parallel, each with its own Context. With a single thread
+     * (the default) items are filtered in the Context of the caller.
+     *
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads);
+
     public void setFilterClasses(List<FormatFilter> filterClasses);
 
     public void setSkipList(List<String> skipList);
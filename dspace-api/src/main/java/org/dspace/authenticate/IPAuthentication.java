@@ -10,10 +10,11 @@ package org.dspace.authenticate;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -27,6 +28,7 @@ import org.dspace.eperson.factory.EPersonServiceFactory;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.service.ClientInfoService;
 import org.dspace.services.factory.DSpaceServicesFactory;
+import org.dspace.statistics.util.IPTable;
 
 /**
  * Adds users to special groups based on IP address. Configuration parameter
@@ -41,7 +43,10 @@ import org.dspace.services.factory.DSpaceServicesFactory;
  * <P>
  * 111.222,-111.222.333.
  * <p>
- * For supported IP ranges see {@link org.dspace.authenticate.IPMatcher}.
+ * For supported IP ranges see {@link org.dspace.statistics.util.IPTable#add(String)}.
+ * <p>
+ * The ranges of each group are kept in an {@link IPTable}, so checking the address of a request costs a binary search
+ * per group, however many ranges are configured.
  *
  * @author Robert Tansley
  * @version $Revision$
@@ -58,40 +63,31 @@ public class IPAuthentication implements AuthenticationMethod {
     protected static Boolean useProxies;
 
     /**
-     * All the IP matchers
+     * The IP ranges of each group, by group name
      */
-    protected List<IPMatcher> ipMatchers;
+    protected Map<String, IPTable> ipTables;
 
     /**
-     * All the negative IP matchers
+     * The negative IP ranges of each group, by group name
      */
-    protected List<IPMatcher> ipNegativeMatchers;
+    protected Map<String, IPTable> ipNegativeTables;
 
     protected GroupService groupService;
     protected ClientInfoService clientInfoService;
 
-
-    /**
-     * Maps IPMatchers to group names when we don't know group DB ID yet. When
-     * the DB ID is known, the IPMatcher is moved to ipMatcherGroupIDs and then
-     * points to the DB ID.
-     */
-    protected Map<IPMatcher, String> ipMatcherGroupNames;
-
     /**
-     * Maps IPMatchers to group IDs (Integers) where we know the group DB ID
+     * Maps group names to group IDs, once the group has been looked up
      */
-    protected Map<IPMatcher, UUID> ipMatcherGroupIDs;
+    protected Map<String, UUID> groupIDs;
 
     /**
      * Initialize an IP authenticator, reading in the configuration. Note this
      * will never fail if the configuration is bad -- a warning will be logged.
      */
     public IPAuthentication() {
-        ipMatchers = new ArrayList<IPMatcher>();
-        ipNegativeMatchers = new ArrayList<IPMatcher>();
-        ipMatcherGroupIDs = new HashMap<>();
-        ipMatcherGroupNames = new HashMap<>();
+        ipTables = new LinkedHashMap<>();
+        ipNegativeTables = new LinkedHashMap<>();
+        groupIDs = new ConcurrentHashMap<>();
         groupService = EPersonServiceFactory.getInstance().getGroupService();
         clientInfoService = CoreServiceFactory.getInstance().getClientInfoService();
 
@@ -120,23 +116,19 @@ public class IPAuthentication implements AuthenticationMethod {
     protected void addMatchers(String groupName, String[] ipRanges) {
         for (String entry : ipRanges) {
             try {
-                IPMatcher ipm;
                 if (entry.startsWith("-")) {
-                    ipm = new IPMatcher(entry.substring(1));
-                    ipNegativeMatchers.add(ipm);
+                    ipNegativeTables.computeIfAbsent(groupName, name -> new IPTable()).add(entry.substring(1));
                 } else {
-                    ipm = new IPMatcher(entry);
-                    ipMatchers.add(ipm);
+                    ipTables.computeIfAbsent(groupName, name -> new IPTable()).add(entry);
                 }
-                ipMatcherGroupNames.put(ipm, groupName);
 
                 if (log.isDebugEnabled()) {
                     log.debug("Configured " + entry + " for special group "
                                   + groupName);
                 }
-            } catch (IPMatcherException ipme) {
+            } catch (IPTable.IPFormatException ipfe) {
                 log.warn("Malformed IP range specified for group " + groupName,
-                         ipme);
+                         ipfe);
             }
         }
     }
@@ -174,74 +166,30 @@ public class IPAuthentication implements AuthenticationMethod {
         // Get the user's IP address
         String addr = clientInfoService.getClientIp(request);
 
-        for (IPMatcher ipm : ipMatchers) {
-            try {
-                if (ipm.match(addr)) {
-                    // Do we know group ID?
-                    UUID g = ipMatcherGroupIDs.get(ipm);
-                    if (g != null) {
-                        groups.add(groupService.find(context, g));
-                    } else {
-                        // See if we have a group name
-                        String groupName = ipMatcherGroupNames.get(ipm);
-
-                        if (groupName != null) {
-                            Group group = groupService.findByName(context, groupName);
-                            if (group != null) {
-                                // Add ID so we won't have to do lookup again
-                                ipMatcherGroupIDs.put(ipm, (group.getID()));
-                                ipMatcherGroupNames.remove(ipm);
-
-                                groups.add(group);
-                            } else {
-                                log.warn(LogManager.getHeader(context,
-                                                              "configuration_error", "unknown_group="
-                                                                  + groupName));
-                            }
-                        }
+        try {
+            for (Map.Entry<String, IPTable> entry : ipTables.entrySet()) {
+                if (entry.getValue().contains(addr)) {
+                    Group group = findGroup(context, entry.getKey());
+                    if (group != null) {
+                        groups.add(group);
                     }
                 }
-            } catch (IPMatcherException ipme) {
-                log.warn(LogManager.getHeader(context, "configuration_error",
-                                              "bad_ip=" + addr), ipme);
             }
-        }
-
-        // Now remove any negative matches
-        for (IPMatcher ipm : ipNegativeMatchers) {
-            try {
-                if (ipm.match(addr)) {
-                    // Do we know group ID?
-                    UUID g = ipMatcherGroupIDs.get(ipm);
-                    if (g != null) {
-                        groups.remove(groupService.find(context, g));
-                    } else {
-                        // See if we have a group name
-                        String groupName = ipMatcherGroupNames.get(ipm);
 
-                        if (groupName != null) {
-                            Group group = groupService.findByName(context, groupName);
-                            if (group != null) {
-                                // Add ID so we won't have to do lookup again
-                                ipMatcherGroupIDs.put(ipm, group.getID());
-                                ipMatcherGroupNames.remove(ipm);
-
-                                groups.remove(group);
-                            } else {
-                                log.warn(LogManager.getHeader(context,
-                                                              "configuration_error", "unknown_group="
-                                                                  + groupName));
-                            }
-                        }
+            // Now remove any negative matches
+            for (Map.Entry<String, IPTable> entry : ipNegativeTables.entrySet()) {
+                if (entry.getValue().contains(addr)) {
+                    Group group = findGroup(context, entry.getKey());
+                    if (group != null) {
+                        groups.remove(group);
                     }
                 }
-            } catch (IPMatcherException ipme) {
-                log.warn(LogManager.getHeader(context, "configuration_error",
-                                              "bad_ip=" + addr), ipme);
             }
+        } catch (IPTable.IPFormatException ipfe) {
+            log.warn(LogManager.getHeader(context, "configuration_error",
+                                          "bad_ip=" + addr), ipfe);
         }
 
-
         if (log.isDebugEnabled()) {
             StringBuilder gsb = new StringBuilder();
             for (Group group : groups) {
@@ -257,6 +205,31 @@ public class IPAuthentication implements AuthenticationMethod {
         return groups;
     }
 
+    /**
+     * Find a special group by name, remembering its ID so the name doesn't have to be looked up again.
+     *
+     * @param context   The relevant DSpace Context.
+     * @param groupName name of group
+     * @return the group, or null if there is no group with this name
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    protected Group findGroup(Context context, String groupName) throws SQLException {
+        UUID id = groupIDs.get(groupName);
+        if (id != null) {
+            return groupService.find(context, id);
+        }
+        Group group = groupService.findByName(context, groupName);
+        if (group != null) {
+            // Add ID so we won't have to do lookup again
+            groupIDs.put(groupName, group.getID());
+        } else {
+            log.warn(LogManager.getHeader(context,
+                                          "configuration_error", "unknown_group="
+                                              + groupName));
+        }
+        return group;
+    }
+
     @Override
     public int authenticate(Context context, String username, String password,
                             String realm, HttpServletRequest request) throws SQLException {
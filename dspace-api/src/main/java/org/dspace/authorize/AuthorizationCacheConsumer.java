@@ -0,0 +1,106 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Removes the authorization decisions which may have been changed by the events from the
+ * {@link AuthorizationDecisionCache}.
+ * <p>
+ * Policy changes are reported as MODIFY events on the object of the policy. Changes to items, bundles and bitstreams
+ * only affect the decisions about these objects (and the objects they contain), group membership changes only affect
+ * the decisions for the user involved. Changes to collections and communities, and to group nesting, may affect
+ * any decision through the inheritance of ADMIN rights or through nested groups, so they remove all decisions.
+ */
+public class AuthorizationCacheConsumer implements Consumer {
+
+    private AuthorizationDecisionCache authorizationDecisionCache;
+
+    private Set<UUID> objects = new HashSet<>();
+    private Set<UUID> epersons = new HashSet<>();
+    private boolean all = false;
+
+    @Override
+    public void initialize() throws Exception {
+        authorizationDecisionCache = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServiceByName(AuthorizationDecisionCache.class.getName(), AuthorizationDecisionCache.class);
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        if (!authorizationDecisionCache.isEnabled()) {
+            return;
+        }
+
+        int et = event.getEventType();
+        switch (event.getSubjectType()) {
+            case Constants.BITSTREAM:
+            case Constants.BUNDLE:
+            case Constants.ITEM:
+                if (et != Event.MODIFY_METADATA) {
+                    objects.add(event.getSubjectID());
+                    if (event.getObjectID() != null) {
+                        objects.add(event.getObjectID());
+                    }
+                }
+                break;
+            case Constants.COLLECTION:
+            case Constants.COMMUNITY:
+                if ((et == Event.ADD || et == Event.REMOVE) && event.getObjectType() == Constants.ITEM) {
+                    // an item was mapped or moved, which may change the ADMIN rights on it
+                    objects.add(event.getObjectID());
+                } else if (et != Event.CREATE && et != Event.MODIFY_METADATA) {
+                    all = true;
+                }
+                break;
+            case Constants.GROUP:
+                if ((et == Event.ADD || et == Event.REMOVE) && event.getObjectType() == Constants.EPERSON) {
+                    epersons.add(event.getObjectID());
+                } else if (et == Event.ADD || et == Event.REMOVE || et == Event.DELETE) {
+                    all = true;
+                }
+                break;
+            case Constants.EPERSON:
+                if (et == Event.DELETE) {
+                    epersons.add(event.getSubjectID());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        try {
+            if (all) {
+                authorizationDecisionCache.invalidateAll();
+            } else {
+                authorizationDecisionCache.invalidateObjects(objects);
+                authorizationDecisionCache.invalidateEPersons(epersons);
+            }
+        } finally {
+            objects = new HashSet<>();
+            epersons = new HashSet<>();
+            all = false;
+        }
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+}
@@ -0,0 +1,351 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.services.ConfigurationService;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Authorization decisions shared by all Contexts, so that subsequent requests don't evaluate the same policies again
+ * (e.g. for every item on a listing page). The decision cache kept by the Context itself only lives as long as a
+ * single (read-only) Context.
+ * <p>
+ * A decision is cached for the combination of the user (or anonymous), the special groups of the Context, the object,
+ * the action and whether inheritance is used. Decisions are kept for a limited time, and never beyond the start or
+ * end date of any of the policies which were evaluated. The {@link AuthorizationCacheConsumer} removes decisions when
+ * the objects they depend on, their policies or the group memberships of the user change:
+ * <ul>
+ *   <li>changes to an item, bundle or bitstream remove the decisions on that object and on the bundles and
+ *   bitstreams it contains;</li>
+ *   <li>adding a user to or removing a user from a group removes the decisions for that user;</li>
+ *   <li>changes to the policies or structure of collections and communities, and changes to group nesting, remove
+ *   all decisions.</li>
+ * </ul>
+ * Events are dispatched before the changes are committed, so for a few seconds after a change no new decisions are
+ * cached for the objects involved. Decisions are neither used nor cached by a Context which has changes of its own
+ * which have not been committed yet.
+ * <p>
+ * Changes made by other processes (e.g. command line tools, or other nodes of a cluster) don't reach this cache, so
+ * they are only picked up when the cached decisions expire. The cache is disabled by default.
+ */
+public class AuthorizationDecisionCache implements InitializingBean {
+
+    private static final Logger log = LogManager.getLogger(AuthorizationDecisionCache.class);
+
+    /**
+     * The time (in milliseconds) during which no decisions are cached for invalidated objects, to cover the time
+     * between dispatching the events and committing the transaction.
+     */
+    protected static final long SETTLE_TIME = 5000;
+
+    @Autowired(required = true)
+    protected ConfigurationService configurationService;
+
+    private boolean enabled;
+    private Cache<Key, Decision> decisions;
+
+    /**
+     * Incremented on every invalidation, a decision is only cached if no invalidation happened while it was made
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The objects and users which have recently been invalidated, with the time until which no decisions are cached
+     * for them
+     */
+    private final Map<UUID, Long> settling = new ConcurrentHashMap<>();
+    private volatile long settlingAllUntil = 0;
+
+    protected AuthorizationDecisionCache() {
+    }
+
+    /**
+     * Create an enabled cache.
+     *
+     * @param maxEntries the maximum number of decisions
+     * @param ttl        the maximum time (in seconds) a decision is kept
+     */
+    protected AuthorizationDecisionCache(long maxEntries, long ttl) {
+        configure(true, maxEntries, ttl);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        configure(configurationService.getBooleanProperty("core.authorization.cache.enabled", false),
+                  configurationService.getLongProperty("core.authorization.cache.max-entries", 10000),
+                  configurationService.getLongProperty("core.authorization.cache.ttl", 60));
+    }
+
+    private void configure(boolean enabled, long maxEntries, long ttl) {
+        this.enabled = enabled && maxEntries > 0 && ttl > 0;
+        if (this.enabled) {
+            decisions = CacheBuilder.newBuilder()
+                                    .maximumSize(maxEntries)
+                                    .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                                    .build();
+            log.info("Caching up to {} authorization decisions for {} seconds", maxEntries, ttl);
+        }
+    }
+
+    /**
+     * @return true if decisions are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the key of a decision in this cache.
+     *
+     * @param context        The relevant DSpace Context.
+     * @param object         the object the action is being attempted on
+     * @param action         the action
+     * @param eperson        the user attempting the action, null for anonymous
+     * @param useInheritance whether ADMIN rights on parent objects are used
+     * @return the key, or null if the decision must not be cached
+     */
+    public Key getKey(Context context, DSpaceObject object, int action, EPerson eperson, boolean useInheritance) {
+        if (!enabled || object == null || object.getID() == null || context.hasEvents()) {
+            return null;
+        }
+        // special groups only count for the current user
+        Set<UUID> specialGroups = Objects.equals(context.getCurrentUser(), eperson)
+            ? context.getSpecialGroupUuids() : Collections.emptySet();
+        return new Key(eperson == null ? null : eperson.getID(), specialGroups, object.getID(), action,
+                       useInheritance, generation.get());
+    }
+
+    /**
+     * Get a cached decision.
+     *
+     * @param key the key of the decision, may be null
+     * @return the decision, or null if it isn't cached
+     */
+    public Boolean get(Key key) {
+        if (key == null) {
+            return null;
+        }
+        Decision decision = decisions.getIfPresent(key);
+        if (decision == null) {
+            return null;
+        }
+        if (decision.validUntil <= System.currentTimeMillis()) {
+            decisions.invalidate(key);
+            return null;
+        }
+        return decision.result;
+    }
+
+    /**
+     * Cache a decision, unless anything it depends on was invalidated while it was being made.
+     *
+     * @param key        the key of the decision, as returned by {@link #getKey}, may be null
+     * @param object     the object the decision is about
+     * @param result     the decision
+     * @param validUntil the time (in milliseconds) the decision is no longer valid, Long.MAX_VALUE if it is only
+     *                   limited by the configured time to live
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    public void put(Key key, DSpaceObject object, boolean result, long validUntil) throws SQLException {
+        if (key == null || key.generation != generation.get()) {
+            return;
+        }
+        Set<UUID> owners = getOwners(object);
+        long now = System.currentTimeMillis();
+        if (now < settlingAllUntil || isSettling(key.object, now) || isSettling(key.eperson, now)) {
+            return;
+        }
+        for (UUID owner : owners) {
+            if (isSettling(owner, now)) {
+                return;
+            }
+        }
+        decisions.put(key, new Decision(result, validUntil, owners));
+    }
+
+    private boolean isSettling(UUID id, long now) {
+        Long until = id == null ? null : settling.get(id);
+        return until != null && until > now;
+    }
+
+    /**
+     * Limit the validity of a decision to the next start or end date of a policy that was evaluated.
+     *
+     * @param policy     the policy
+     * @param validUntil the validity of the decision so far
+     * @return the validity of the decision
+     */
+    public long limitValidity(ResourcePolicy policy, long validUntil) {
+        long now = System.currentTimeMillis();
+        for (Date date : new Date[] {policy.getStartDate(), policy.getEndDate()}) {
+            if (date != null && date.getTime() > now) {
+                validUntil = Math.min(validUntil, date.getTime());
+            }
+        }
+        return validUntil;
+    }
+
+    /**
+     * Remove the decisions about the given objects, and about the objects they contain.
+     *
+     * @param ids the IDs of the objects
+     */
+    public void invalidateObjects(Collection<UUID> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        settle(ids);
+        decisions.asMap().entrySet().removeIf(entry -> ids.contains(entry.getKey().object)
+            || !Collections.disjoint(entry.getValue().owners, ids));
+    }
+
+    /**
+     * Remove the decisions for the given users.
+     *
+     * @param ids the IDs of the users
+     */
+    public void invalidateEPersons(Collection<UUID> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        settle(ids);
+        decisions.asMap().keySet().removeIf(key -> key.eperson != null && ids.contains(key.eperson));
+    }
+
+    /**
+     * Remove all decisions.
+     */
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        settlingAllUntil = System.currentTimeMillis() + SETTLE_TIME;
+        decisions.invalidateAll();
+    }
+
+    private void settle(Collection<UUID> ids) {
+        generation.incrementAndGet();
+        long now = System.currentTimeMillis();
+        settling.values().removeIf(until -> until <= now);
+        for (UUID id : ids) {
+            settling.put(id, now + SETTLE_TIME);
+        }
+    }
+
+    /**
+     * @return the number of cached decisions
+     */
+    public long size() {
+        return enabled ? decisions.size() : 0;
+    }
+
+    /**
+     * Get the objects containing the given object, whose changes also affect the decisions about it.
+     *
+     * @param object the object
+     * @return the IDs of its bundles and items
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    protected Set<UUID> getOwners(DSpaceObject object) throws SQLException {
+        Set<UUID> owners = new HashSet<>();
+        if (object instanceof Bitstream) {
+            for (Bundle bundle : ((Bitstream) object).getBundles()) {
+                owners.add(bundle.getID());
+                for (Item item : bundle.getItems()) {
+                    owners.add(item.getID());
+                }
+            }
+        } else if (object instanceof Bundle) {
+            for (Item item : ((Bundle) object).getItems()) {
+                owners.add(item.getID());
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * The key of a cached decision.
+     */
+    public static final class Key {
+        private final UUID eperson;
+        private final Set<UUID> specialGroups;
+        private final UUID object;
+        private final int action;
+        private final boolean useInheritance;
+
+        /**
+         * The generation of the cache when the key was created, not part of the key itself
+         */
+        private final long generation;
+
+        private Key(UUID eperson, Set<UUID> specialGroups, UUID object, int action, boolean useInheritance,
+                    long generation) {
+            this.eperson = eperson;
+            this.specialGroups = specialGroups;
+            this.object = object;
+            this.action = action;
+            this.useInheritance = useInheritance;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return action == key.action && useInheritance == key.useInheritance && object.equals(key.object)
+                && Objects.equals(eperson, key.eperson) && specialGroups.equals(key.specialGroups);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eperson, specialGroups, object, action, useInheritance);
+        }
+    }
+
+    private static final class Decision {
+        private final boolean result;
+        private final long validUntil;
+        private final Set<UUID> owners;
+
+        private Decision(boolean result, long validUntil, Set<UUID> owners) {
+            this.result = result;
+            this.validUntil = validUntil;
+            this.owners = owners;
+        }
+    }
+}
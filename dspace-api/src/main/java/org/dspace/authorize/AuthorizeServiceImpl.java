@@ -78,6 +78,8 @@ public class AuthorizeServiceImpl implements AuthorizeService {
     protected WorkflowItemService workflowItemService;
     @Autowired(required = true)
     private SearchService searchService;
+    @Autowired(required = true)
+    protected AuthorizationDecisionCache authorizationDecisionCache;
 
 
     protected AuthorizeServiceImpl() {
@@ -246,6 +248,14 @@ public class AuthorizeServiceImpl implements AuthorizeService {
             return cachedResult.booleanValue();
         }
 
+        // If the same decision was made before by another request
+        AuthorizationDecisionCache.Key cacheKey = authorizationDecisionCache.getKey(c, o, action, e, useInheritance);
+        Boolean sharedResult = authorizationDecisionCache.get(cacheKey);
+        if (sharedResult != null) {
+            c.cacheAuthorizedAction(o, action, e, sharedResult, null);
+            return sharedResult.booleanValue();
+        }
+
         // is eperson set? if not, userToCheck = null (anonymous)
         EPerson userToCheck = null;
         if (e != null) {
@@ -258,6 +268,7 @@ public class AuthorizeServiceImpl implements AuthorizeService {
 
             if (isAdmin(c, e, adminObject)) {
                 c.cacheAuthorizedAction(o, action, e, true, null);
+                authorizationDecisionCache.put(cacheKey, o, true, Long.MAX_VALUE);
                 return true;
             }
         }
@@ -288,6 +299,8 @@ public class AuthorizeServiceImpl implements AuthorizeService {
         }
 
 
+        // the decision may change when a policy starts or ends
+        long validUntil = Long.MAX_VALUE;
         for (ResourcePolicy rp : getPoliciesActionFilter(c, o, action)) {
 
             if (ignoreCustomPolicies
@@ -301,9 +314,11 @@ public class AuthorizeServiceImpl implements AuthorizeService {
             }
 
             // check policies for date validity
+            validUntil = authorizationDecisionCache.limitValidity(rp, validUntil);
             if (resourcePolicyService.isDateValid(rp)) {
                 if (rp.getEPerson() != null && rp.getEPerson().equals(userToCheck)) {
                     c.cacheAuthorizedAction(o, action, e, true, rp);
+                    authorizationDecisionCache.put(cacheKey, o, true, validUntil);
                     return true; // match
                 }
 
@@ -312,6 +327,7 @@ public class AuthorizeServiceImpl implements AuthorizeService {
                     // group was set, and eperson is a member
                     // of that group
                     c.cacheAuthorizedAction(o, action, e, true, rp);
+                    authorizationDecisionCache.put(cacheKey, o, true, validUntil);
                     return true;
                 }
             }
@@ -325,6 +341,7 @@ public class AuthorizeServiceImpl implements AuthorizeService {
 
         // default authorization is denial
         c.cacheAuthorizedAction(o, action, e, false, null);
+        authorizationDecisionCache.put(cacheKey, o, false, validUntil);
         return false;
     }
 
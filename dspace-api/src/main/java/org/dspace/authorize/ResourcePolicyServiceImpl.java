@@ -51,6 +51,9 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     @Autowired
     private GroupService groupService;
 
+    @Autowired(required = true)
+    protected AuthorizationDecisionCache authorizationDecisionCache;
+
     protected ResourcePolicyServiceImpl() {
     }
 
@@ -254,11 +257,29 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     @Override
     public void removeAllEPersonPolicies(Context context, EPerson ePerson) throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByEPerson(context, ePerson);
+        Set<UUID> ePersonIds = Collections.singleton(ePerson.getID());
+        invalidateDecisions(context, () -> authorizationDecisionCache.invalidateEPersons(ePersonIds));
     }
 
     @Override
     public void removeGroupPolicies(Context c, Group group) throws SQLException {
         resourcePolicyDAO.deleteByGroup(c, group);
+        // the policies applied to every member of the group and of its subgroups
+        invalidateDecisions(c, authorizationDecisionCache::invalidateAll);
+    }
+
+    /**
+     * Remove the shared authorization decisions which depend on policies deleted in bulk. Unlike the other changes
+     * to policies, these deletes don't modify an object, so no event reports them to the
+     * {@link AuthorizationCacheConsumer}. The decisions are removed right away, and again once the deletes are
+     * committed, since other contexts may cache decisions based on the committed policies meanwhile.
+     *
+     * @param context      DSpace context object
+     * @param invalidation the removal of the decisions
+     */
+    protected void invalidateDecisions(Context context, Runnable invalidation) {
+        invalidation.run();
+        context.runAfterCommit(invalidation);
     }
 
     @Override
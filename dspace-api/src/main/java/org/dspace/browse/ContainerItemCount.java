@@ -0,0 +1,58 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse;
+
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.dspace.core.ReloadableEntity;
+
+/**
+ * Database entity representation of the container_item_count table: the number of archived, discoverable and not
+ * withdrawn items in a community or collection. The container is referred to by its ID only, so that the count can
+ * be read without loading the container.
+ */
+@Entity
+@Table(name = "container_item_count")
+public class ContainerItemCount implements ReloadableEntity<UUID> {
+
+    @Id
+    @Column(name = "container_id")
+    private UUID containerId;
+
+    @Column(name = "item_count", nullable = false)
+    private int count;
+
+    /**
+     * Protected constructor, create object using:
+     * {@link org.dspace.browse.service.ItemCountService#update(org.dspace.core.Context,
+     * org.dspace.content.DSpaceObject)}
+     */
+    protected ContainerItemCount() {
+    }
+
+    protected ContainerItemCount(UUID containerId) {
+        this.containerId = containerId;
+    }
+
+    @Override
+    public UUID getID() {
+        return containerId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.logging.log4j.Logger;
+import org.dspace.browse.service.ItemCountService;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.CommunityService;
+import org.dspace.core.Context;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Command line tool to check the stored item counts of the communities and collections (the container_item_count
+ * table) against the items, and to repair them. The counts are maintained by the {@link ItemCountConsumer} when items
+ * and containers are changed, so they should only get out of date when the consumer is disabled or the database is
+ * changed by other means. The counts of an existing repository are computed by a database migration when the
+ * table is added; run it with -r to recompute them.
+ * <p>
+ * The containers are counted in parallel, in batches which each have their own context. The wrong and missing counts
+ * are logged, the tool exits with status 1 if it found (and didn't repair) any.
+ */
+public class ItemCountCLITool {
+
+    private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(ItemCountCLITool.class);
+
+    /**
+     * Number of containers checked in each context
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private static final CollectionService collectionService
+            = ContentServiceFactory.getInstance().getCollectionService();
+    private static final CommunityService communityService
+            = ContentServiceFactory.getInstance().getCommunityService();
+    private static final ItemCountService itemCountService = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServiceByName(ItemCountService.class.getName(), ItemCountService.class);
+
+    /**
+     * Default constructor
+     */
+    private ItemCountCLITool() { }
+
+    public static void main(String[] argv) throws Exception {
+        Options options = new Options();
+        options.addOption("r", "repair", false, "store the wrong and missing counts");
+        options.addOption("t", "threads", true, "number of threads counting the items (default 4)");
+        options.addOption("h", "help", false, "help");
+
+        CommandLineParser parser = new DefaultParser();
+        CommandLine line = null;
+        int threads = 4;
+        try {
+            line = parser.parse(options, argv);
+            if (line.hasOption('t')) {
+                threads = Integer.parseInt(line.getOptionValue('t'));
+            }
+        } catch (ParseException | NumberFormatException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("item-counts [-r] [-t threads]", options);
+            System.exit(1);
+        }
+        if (line.hasOption('h')) {
+            new HelpFormatter().printHelp("item-counts [-r] [-t threads]", options);
+            System.exit(0);
+        }
+        boolean repair = line.hasOption('r');
+
+        List<UUID> collections = new ArrayList<>();
+        List<UUID> communities = new ArrayList<>();
+        Context context = new Context(Context.Mode.READ_ONLY);
+        try {
+            for (Collection collection : collectionService.findAll(context)) {
+                collections.add(collection.getID());
+            }
+            for (Community community : communityService.findAll(context)) {
+                communities.add(community.getID());
+            }
+        } finally {
+            context.abort();
+        }
+
+        int errors = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads),
+            new BasicThreadFactory.Builder().namingPattern("item-counts-%d").build());
+        try {
+            List<Future<Integer>> batches = new ArrayList<>();
+            for (List<UUID> batch : Lists.partition(collections, BATCH_SIZE)) {
+                batches.add(executor.submit(new CountTask(batch, false, repair)));
+            }
+            for (List<UUID> batch : Lists.partition(communities, BATCH_SIZE)) {
+                batches.add(executor.submit(new CountTask(batch, true, repair)));
+            }
+            for (Future<Integer> batch : batches) {
+                errors += batch.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (errors == 0) {
+            System.out.println("The item counts of " + collections.size() + " collections and "
+                                   + communities.size() + " communities are up to date");
+        } else if (repair) {
+            System.out.println("Repaired " + errors + " item counts");
+        } else {
+            System.out.println("Found " + errors + " wrong or missing item counts, "
+                                   + "see the log for details. Use -r to repair them.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Check (and repair) the counts of a batch of collections or communities in a context of its own
+     */
+    private static class CountTask implements Callable<Integer> {
+        private final List<UUID> ids;
+        private final boolean communities;
+        private final boolean repair;
+
+        CountTask(List<UUID> ids, boolean communities, boolean repair) {
+            this.ids = ids;
+            this.communities = communities;
+            this.repair = repair;
+        }
+
+        @Override
+        public Integer call() throws SQLException {
+            int errors = 0;
+            Context context = new Context(Context.Mode.BATCH_EDIT);
+            try {
+                for (UUID id : ids) {
+                    DSpaceObject container = communities ? communityService.find(context, id)
+                                                         : collectionService.find(context, id);
+                    if (container == null) {
+                        // deleted since the run started
+                        continue;
+                    }
+                    Integer stored = itemCountService.getStoredCount(context, container);
+                    int items = itemCountService.countItems(context, container);
+                    if (!Objects.equals(stored, items)) {
+                        errors++;
+                        log.info("Item count of " + (communities ? "community " : "collection ") + id + " is "
+                                     + stored + ", counted " + items);
+                        if (repair) {
+                            itemCountService.update(context, container);
+                            // release the lock on the count, the consumer locks the counts in another order
+                            context.commit();
+                        }
+                    }
+                }
+                context.complete();
+            } finally {
+                if (context.isValid()) {
+                    context.abort();
+                }
+            }
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.apache.logging.log4j.Logger;
+import org.dspace.browse.service.ItemCountService;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.CommunityService;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Keeps the item counts of the communities and collections up to date, in the transaction of the changes.
+ * <p>
+ * The counts are changed by the difference the events make: for each item which has been listed or unlisted
+ * ({@link Item#getListedChange()}), mapped, moved, removed or deleted, the containers which counted it before the
+ * event batch and the containers which count it now are compared, and one is added to or removed from their counts.
+ * Each count is locked while it is changed, in the order of the container IDs, so the concurrent transactions don't
+ * lose each other's changes. The containers which are created, or whose collections or sub-communities have changed,
+ * are counted again instead. The counts which haven't been stored yet are left alone: they are counted when they
+ * are read, until "item-counts -r" stores them.
+ */
+public class ItemCountConsumer implements Consumer {
+
+    private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(ItemCountConsumer.class);
+
+    private static final String LISTED = "LISTED: ";
+
+    private ItemCountService itemCountService;
+    private ItemService itemService;
+    private CollectionService collectionService;
+    private CommunityService communityService;
+
+    /**
+     * The state of the changed items before the event batch, by item ID
+     */
+    private Map<UUID, ItemState> items = new HashMap<>();
+    /**
+     * The created containers
+     */
+    private Set<UUID> created = new HashSet<>();
+    /**
+     * The communities whose collections or sub-communities have changed, with the changed children
+     */
+    private Map<UUID, Set<UUID>> restructured = new HashMap<>();
+    private Set<UUID> deleted = new HashSet<>();
+
+    @Override
+    public void initialize() throws Exception {
+        itemCountService = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServiceByName(ItemCountService.class.getName(), ItemCountService.class);
+        itemService = ContentServiceFactory.getInstance().getItemService();
+        collectionService = ContentServiceFactory.getInstance().getCollectionService();
+        communityService = ContentServiceFactory.getInstance().getCommunityService();
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        int et = event.getEventType();
+        switch (event.getSubjectType()) {
+            case Constants.ITEM:
+                if (et == Event.MODIFY && isListedDetail(event)) {
+                    ItemState state = getState(event.getSubjectID());
+                    if (state.listed == null) {
+                        state.listed = !listed(event);
+                    }
+                }
+                break;
+            case Constants.COLLECTION:
+                if ((et == Event.ADD || et == Event.REMOVE) && event.getObjectType() == Constants.ITEM) {
+                    ItemState state = getState(event.getObjectID());
+                    state.memberships.putIfAbsent(event.getSubjectID(), et == Event.REMOVE);
+                    if (et == Event.REMOVE && isListedDetail(event)) {
+                        // the item has been deleted
+                        state.listedWhenDeleted = listed(event);
+                    }
+                } else if (et == Event.CREATE) {
+                    created.add(event.getSubjectID());
+                } else if (et == Event.DELETE) {
+                    deleted.add(event.getSubjectID());
+                }
+                break;
+            case Constants.COMMUNITY:
+                if (et == Event.ADD || et == Event.REMOVE) {
+                    restructured.computeIfAbsent(event.getSubjectID(), id -> new HashSet<>())
+                                .add(event.getObjectID());
+                } else if (et == Event.CREATE) {
+                    created.add(event.getSubjectID());
+                } else if (et == Event.DELETE) {
+                    deleted.add(event.getSubjectID());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        try {
+            Map<UUID, DSpaceObject> recount = new HashMap<>();
+            for (UUID id : created) {
+                DSpaceObject container = findContainer(ctx, id);
+                if (container != null) {
+                    recount.put(id, container);
+                }
+            }
+            for (Map.Entry<UUID, Set<UUID>> entry : restructured.entrySet()) {
+                Community community = communityService.find(ctx, entry.getKey());
+                if (community != null && !deleted.contains(community.getID())
+                    && !holdNoItems(ctx, entry.getValue())) {
+                    recount.put(community.getID(), community);
+                    for (Community parent : communityService.getAllParents(ctx, community)) {
+                        recount.put(parent.getID(), parent);
+                    }
+                }
+            }
+
+            Map<UUID, Integer> deltas = new HashMap<>();
+            Map<UUID, Set<UUID>> ancestors = new HashMap<>();
+            for (Map.Entry<UUID, ItemState> entry : items.entrySet()) {
+                Item item = itemService.find(ctx, entry.getKey());
+                ItemState state = entry.getValue();
+
+                Set<UUID> collectionsNow = new HashSet<>();
+                if (item != null) {
+                    for (Collection collection : item.getCollections()) {
+                        collectionsNow.add(collection.getID());
+                    }
+                }
+                boolean listedNow = item != null && item.isListed();
+                boolean listedBefore = state.listed != null ? state.listed
+                                                            : item != null ? listedNow : state.listedWhenDeleted;
+                Set<UUID> collectionsBefore = new HashSet<>(collectionsNow);
+                for (Map.Entry<UUID, Boolean> membership : state.memberships.entrySet()) {
+                    if (membership.getValue()) {
+                        collectionsBefore.add(membership.getKey());
+                    } else {
+                        collectionsBefore.remove(membership.getKey());
+                    }
+                }
+
+                Set<UUID> countedBefore = listedBefore ? collectionsBefore : Collections.emptySet();
+                Set<UUID> countedNow = listedNow ? collectionsNow : Collections.emptySet();
+                if (!countedBefore.equals(countedNow)) {
+                    addDeltas(deltas, countedBefore, countedNow);
+                    addDeltas(deltas, getAncestors(ctx, ancestors, countedBefore),
+                              getAncestors(ctx, ancestors, countedNow));
+                }
+            }
+
+            // always lock the counts in the same order, so concurrent transactions can't deadlock
+            Set<UUID> containers = new TreeSet<>(recount.keySet());
+            containers.addAll(deltas.keySet());
+            containers.removeAll(deleted);
+            for (UUID id : containers) {
+                if (recount.containsKey(id)) {
+                    itemCountService.update(ctx, recount.get(id));
+                } else if (deltas.get(id) != 0 && !itemCountService.addToCount(ctx, id, deltas.get(id))) {
+                    log.debug("No stored item count for " + id + ", it will be counted when it is read");
+                }
+            }
+            if (!deleted.isEmpty()) {
+                itemCountService.delete(ctx, deleted);
+            }
+        } finally {
+            items = new HashMap<>();
+            created = new HashSet<>();
+            restructured = new HashMap<>();
+            deleted = new HashSet<>();
+        }
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+
+    private ItemState getState(UUID itemId) {
+        return items.computeIfAbsent(itemId, id -> new ItemState());
+    }
+
+    private boolean isListedDetail(Event event) {
+        return event.getDetail() != null && event.getDetail().startsWith(LISTED);
+    }
+
+    private boolean listed(Event event) {
+        return Boolean.parseBoolean(event.getDetail().substring(LISTED.length()));
+    }
+
+    /**
+     * Whether the children added to or removed from a community don't change its count: they have just been created
+     * and hold no items yet, e.g. a new collection
+     */
+    private boolean holdNoItems(Context ctx, Set<UUID> children) throws Exception {
+        for (UUID id : children) {
+            DSpaceObject child = created.contains(id) ? findContainer(ctx, id) : null;
+            if (child == null || itemCountService.countItems(ctx, child) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DSpaceObject findContainer(Context ctx, UUID id) throws Exception {
+        DSpaceObject container = collectionService.find(ctx, id);
+        return container != null ? container : communityService.find(ctx, id);
+    }
+
+    /**
+     * Get the communities holding the given collections (directly or not), using the cache of each collection's
+     * ancestors. The collections which have been deleted are ignored: their communities are counted again.
+     */
+    private Set<UUID> getAncestors(Context ctx, Map<UUID, Set<UUID>> cache, Set<UUID> collections)
+        throws Exception {
+        Set<UUID> communities = new HashSet<>();
+        for (UUID id : collections) {
+            Set<UUID> parents = cache.get(id);
+            if (parents == null) {
+                parents = new HashSet<>();
+                Collection collection = deleted.contains(id) ? null : collectionService.find(ctx, id);
+                if (collection != null) {
+                    for (Community parent : communityService.getAllParents(ctx, collection)) {
+                        parents.add(parent.getID());
+                    }
+                }
+                cache.put(id, parents);
+            }
+            communities.addAll(parents);
+        }
+        return communities;
+    }
+
+    private void addDeltas(Map<UUID, Integer> deltas, Set<UUID> before, Set<UUID> now) {
+        for (UUID id : now) {
+            if (!before.contains(id)) {
+                deltas.merge(id, 1, Integer::sum);
+            }
+        }
+        for (UUID id : before) {
+            if (!now.contains(id)) {
+                deltas.merge(id, -1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * What is known of the state of an item before the event batch. The unknown parts are the same as now.
+     */
+    private static class ItemState {
+        /**
+         * Whether the item was listed, null if it hasn't been listed or unlisted
+         */
+        private Boolean listed;
+        /**
+         * Whether the item was listed when it was deleted
+         */
+        private boolean listedWhenDeleted;
+        /**
+         * Whether the item was in the collections it has been added to or removed from, by collection ID
+         */
+        private final Map<UUID, Boolean> memberships = new HashMap<>();
+    }
+}
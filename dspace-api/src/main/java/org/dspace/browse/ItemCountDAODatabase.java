@@ -0,0 +1,69 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse;
+
+import java.sql.SQLException;
+
+import org.apache.logging.log4j.Logger;
+import org.dspace.browse.service.ItemCountService;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.core.Context;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Database driver implementing ItemCountDAO interface to look up item count information in communities and
+ * collections. The counts are read from the container_item_count table, which is kept up to date by the
+ * {@link ItemCountConsumer}, so each count is a single primary key lookup.
+ */
+public class ItemCountDAODatabase implements ItemCountDAO {
+    /**
+     * Log4j logger
+     */
+    private static Logger log = org.apache.logging.log4j.LogManager.getLogger(ItemCountDAODatabase.class);
+
+    /**
+     * DSpace context
+     */
+    private Context context;
+
+    private ItemCountService itemCountService = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName(ItemCountService.class.getName(), ItemCountService.class);
+
+    /**
+     * Set the dspace context to use
+     *
+     * @param context DSpace Context
+     * @throws ItemCountException if count error
+     */
+    @Override
+    public void setContext(Context context) throws ItemCountException {
+        this.context = context;
+    }
+
+    /**
+     * Get the count of the items in the given container.
+     *
+     * @param dso Dspace Context
+     * @return count
+     * @throws ItemCountException if count error
+     */
+    @Override
+    public int getCount(DSpaceObject dso) throws ItemCountException {
+        if (!(dso instanceof Collection) && !(dso instanceof Community)) {
+            throw new ItemCountException("We can only count items in Communities or Collections");
+        }
+        try {
+            return itemCountService.getCount(context, dso);
+        } catch (SQLException e) {
+            log.error("caught exception: ", e);
+            throw new ItemCountException(e);
+        }
+    }
+}
@@ -45,9 +45,9 @@ public class ItemCountDAOFactory {
                 = DSpaceServicesFactory.getInstance().getConfigurationService();
         String className = configurationService.getProperty("ItemCountDAO.class");
 
-        // SOLR implementation is the default since DSpace 4.0
+        // the counts maintained in the database by the ItemCountConsumer are the default
         if (className == null) {
-            dao = new ItemCountDAOSolr();
+            dao = new ItemCountDAODatabase();
         } else {
             try {
                 dao = (ItemCountDAO) Class.forName(className.trim())
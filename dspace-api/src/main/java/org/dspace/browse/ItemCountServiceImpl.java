@@ -0,0 +1,139 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.Logger;
+import org.dspace.browse.dao.ContainerItemCountDAO;
+import org.dspace.browse.service.ItemCountService;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.CommunityService;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Context;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Service implementation for the ContainerItemCount object.
+ * This class is responsible for all business logic calls for the ContainerItemCount object and is autowired by
+ * spring.
+ * This class should never be accessed directly.
+ */
+public class ItemCountServiceImpl implements ItemCountService {
+
+    private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(ItemCountServiceImpl.class);
+
+    @Autowired(required = true)
+    protected ContainerItemCountDAO containerItemCountDAO;
+
+    @Autowired(required = true)
+    protected ItemService itemService;
+
+    @Autowired(required = true)
+    protected CollectionService collectionService;
+
+    @Autowired(required = true)
+    protected CommunityService communityService;
+
+    protected ItemCountServiceImpl() {
+
+    }
+
+    @Override
+    public int getCount(Context context, DSpaceObject container) throws SQLException {
+        ContainerItemCount count = containerItemCountDAO.findByContainer(context, container.getID());
+        if (count != null) {
+            return count.getCount();
+        }
+        return countItems(context, container);
+    }
+
+    @Override
+    public Integer getStoredCount(Context context, DSpaceObject container) throws SQLException {
+        ContainerItemCount count = containerItemCountDAO.findByContainer(context, container.getID());
+        return count != null ? count.getCount() : null;
+    }
+
+    @Override
+    public int countItems(Context context, DSpaceObject container) throws SQLException {
+        if (container instanceof Collection) {
+            return itemService.countDiscoverableItems(context, (Collection) container);
+        } else if (container instanceof Community) {
+            return itemService.countDiscoverableItems(context, (Community) container);
+        }
+        throw new IllegalArgumentException("We can only count items in Communities or Collections");
+    }
+
+    @Override
+    public void update(Context context, DSpaceObject container) throws SQLException {
+        // lock first: the items changed by the transactions holding the lock are counted once they are committed
+        ContainerItemCount count = containerItemCountDAO.findByContainerForUpdate(context, container.getID());
+        int items = countItems(context, container);
+        if (count == null) {
+            count = new ContainerItemCount(container.getID());
+            count.setCount(items);
+            containerItemCountDAO.create(context, count);
+        } else if (count.getCount() != items) {
+            count.setCount(items);
+            containerItemCountDAO.save(context, count);
+        }
+    }
+
+    @Override
+    public boolean addToCount(Context context, UUID containerId, int items) throws SQLException {
+        ContainerItemCount count = containerItemCountDAO.findByContainerForUpdate(context, containerId);
+        if (count == null) {
+            return false;
+        }
+        if (items != 0) {
+            int total = count.getCount() + items;
+            if (total < 0) {
+                // the stored count drifted from the items, e.g. because they were changed without events
+                total = recount(context, containerId);
+                log.warn("The stored item count of {} was {}, which is less than the {} items removed from it, " +
+                             "it is repaired with the current count {}. Run \"item-counts\" to check the other " +
+                             "counts.", containerId, count.getCount(), -items, total);
+            }
+            count.setCount(total);
+            containerItemCountDAO.save(context, count);
+        }
+        return true;
+    }
+
+    /**
+     * Count the items of a community or collection which is only known by its ID
+     *
+     * @param context     DSpace context
+     * @param containerId the ID of the community or collection
+     * @return the number of items, 0 if there is no such container
+     * @throws SQLException if database error
+     */
+    protected int recount(Context context, UUID containerId) throws SQLException {
+        DSpaceObject container = collectionService.find(context, containerId);
+        if (container == null) {
+            container = communityService.find(context, containerId);
+        }
+        return container != null ? countItems(context, container) : 0;
+    }
+
+    @Override
+    public void delete(Context context, Set<UUID> containerIds) throws SQLException {
+        // some databases limit the size of an IN list to 1000
+        for (List<UUID> batch : Lists.partition(new ArrayList<>(containerIds), 1000)) {
+            containerItemCountDAO.deleteByContainers(context, batch);
+        }
+    }
+}
@@ -21,15 +21,15 @@ import org.dspace.services.factory.DSpaceServicesFactory;
 
 /**
  * This class provides a standard interface to all item counting
- * operations for communities and collections.  It can be run from the
- * command line to prepare the cached data if desired, simply by
- * running:
+ * operations for communities and collections.  By default the counts
+ * are read from the database, where they are maintained by the
+ * {@link ItemCountConsumer}; they can be checked and repaired from the
+ * command line by running:
  *
- * java org.dspace.browse.ItemCounter
+ * dspace item-counts -r
  *
- * It can also be invoked via its standard API.  In the event that
- * the data cache is not being used, this class will return direct
- * real time counts of content.
+ * In the event that the data cache is not being used, this class will
+ * return direct real time counts of content.
  *
  * @author Richard Jones
  */
@@ -0,0 +1,57 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse.dao;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.dspace.browse.ContainerItemCount;
+import org.dspace.core.Context;
+import org.dspace.core.GenericDAO;
+
+/**
+ * Database Access Object interface class for the ContainerItemCount object.
+ * The implementation of this class is responsible for all database calls for the ContainerItemCount object and is
+ * autowired by spring
+ * This class should only be accessed from a single service and should never be exposed outside of the API
+ */
+public interface ContainerItemCountDAO extends GenericDAO<ContainerItemCount> {
+
+    /**
+     * Find the item count of a container
+     *
+     * @param context     DSpace context
+     * @param containerId the ID of the community or collection
+     * @return the count, null if it hasn't been computed
+     * @throws SQLException if database error
+     */
+    ContainerItemCount findByContainer(Context context, UUID containerId) throws SQLException;
+
+    /**
+     * Find the item count of a container and lock it until the end of the transaction, so it can be changed
+     * without losing the changes of concurrent transactions. The count is read again from the database if it was
+     * already loaded.
+     *
+     * @param context     DSpace context
+     * @param containerId the ID of the community or collection
+     * @return the count, null if it hasn't been computed
+     * @throws SQLException if database error
+     */
+    ContainerItemCount findByContainerForUpdate(Context context, UUID containerId) throws SQLException;
+
+    /**
+     * Delete the item counts of the given containers
+     *
+     * @param context      DSpace context
+     * @param containerIds the IDs of the communities and collections
+     * @return the number of deleted counts
+     * @throws SQLException if database error
+     */
+    int deleteByContainers(Context context, Collection<UUID> containerIds) throws SQLException;
+}
@@ -0,0 +1,59 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse.dao.impl;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.UUID;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+
+import org.dspace.browse.ContainerItemCount;
+import org.dspace.browse.dao.ContainerItemCountDAO;
+import org.dspace.core.AbstractHibernateDAO;
+import org.dspace.core.Context;
+import org.hibernate.Session;
+
+/**
+ * Hibernate implementation of the Database Access Object interface class for the ContainerItemCount object.
+ * This class is responsible for all database calls for the ContainerItemCount object and is autowired by spring
+ * This class should never be accessed directly.
+ */
+public class ContainerItemCountDAOImpl extends AbstractHibernateDAO<ContainerItemCount>
+    implements ContainerItemCountDAO {
+
+    protected ContainerItemCountDAOImpl() {
+        super();
+    }
+
+    @Override
+    public ContainerItemCount findByContainer(Context context, UUID containerId) throws SQLException {
+        return findByID(context, ContainerItemCount.class, containerId);
+    }
+
+    @Override
+    public ContainerItemCount findByContainerForUpdate(Context context, UUID containerId) throws SQLException {
+        Session session = getHibernateSession(context);
+        ContainerItemCount count = session.get(ContainerItemCount.class, containerId);
+        if (count != null) {
+            // lock the row, and read the count committed by the transactions which held the lock
+            session.refresh(count, LockModeType.PESSIMISTIC_WRITE);
+        }
+        return count;
+    }
+
+    @Override
+    public int deleteByContainers(Context context, Collection<UUID> containerIds) throws SQLException {
+        if (containerIds.isEmpty()) {
+            return 0;
+        }
+        Query query = createQuery(context, "delete from ContainerItemCount where containerId in (:ids)");
+        query.setParameter("ids", containerIds);
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse.service;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.content.DSpaceObject;
+import org.dspace.core.Context;
+
+/**
+ * Service interface class for the ContainerItemCount object: the number of archived, discoverable and not withdrawn
+ * items in each community and collection. The counts are kept up to date by the
+ * {@link org.dspace.browse.ItemCountConsumer} in the transaction of the changes, and can be checked and repaired with
+ * the {@link org.dspace.browse.ItemCountCLITool}.
+ */
+public interface ItemCountService {
+
+    /**
+     * Get the number of items in a community or collection. The stored count is returned if there is one, otherwise
+     * the items are counted.
+     *
+     * @param context   DSpace context
+     * @param container the community or collection
+     * @return the number of items
+     * @throws SQLException if database error
+     */
+    int getCount(Context context, DSpaceObject container) throws SQLException;
+
+    /**
+     * Get the stored number of items in a community or collection
+     *
+     * @param context   DSpace context
+     * @param container the community or collection
+     * @return the stored count, null if there is none
+     * @throws SQLException if database error
+     */
+    Integer getStoredCount(Context context, DSpaceObject container) throws SQLException;
+
+    /**
+     * Count the items in a community or collection, ignoring the stored count
+     *
+     * @param context   DSpace context
+     * @param container the community or collection
+     * @return the number of items
+     * @throws SQLException if database error
+     */
+    int countItems(Context context, DSpaceObject container) throws SQLException;
+
+    /**
+     * Count the items in a community or collection, and store the count in the transaction of the context. The
+     * stored count is locked before the items are counted, so the concurrent changes are either counted or added to
+     * the new count once this transaction is over.
+     *
+     * @param context   DSpace context
+     * @param container the community or collection
+     * @throws SQLException if database error
+     */
+    void update(Context context, DSpaceObject container) throws SQLException;
+
+    /**
+     * Add items to (or remove items from, with a negative number) the stored count of a community or collection, in
+     * the transaction of the context. The stored count is locked until the end of the transaction. A count which
+     * would become negative has drifted from the items, it is counted again instead (and a warning is logged).
+     *
+     * @param context     DSpace context
+     * @param containerId the ID of the community or collection
+     * @param items       the number of items to add
+     * @return false if there is no stored count to change
+     * @throws SQLException if database error
+     */
+    boolean addToCount(Context context, UUID containerId, int items) throws SQLException;
+
+    /**
+     * Remove the stored counts of deleted communities and collections
+     *
+     * @param context      DSpace context
+     * @param containerIds the IDs of the communities and collections
+     * @throws SQLException if database error
+     */
+    void delete(Context context, Set<UUID> containerIds) throws SQLException;
+}
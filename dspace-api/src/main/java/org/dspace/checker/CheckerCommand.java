@@ -10,9 +10,21 @@ package org.dspace.checker;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.RateLimiter;
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.Logger;
 import org.dspace.checker.factory.CheckerServiceFactory;
 import org.dspace.checker.service.ChecksumHistoryService;
@@ -20,6 +32,8 @@ import org.dspace.checker.service.ChecksumResultService;
 import org.dspace.checker.service.MostRecentChecksumService;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
 import org.dspace.storage.bitstore.factory.StorageServiceFactory;
 import org.dspace.storage.bitstore.service.BitstreamStorageService;
 
@@ -30,6 +44,14 @@ import org.dspace.storage.bitstore.service.BitstreamStorageService;
  * against the last calculated checksum for that bitstream.
  * </p>
  *
+ * <p>
+ * The checksums can be computed in several threads (see {@link #setThreads(int)}). The bitstreams are still taken
+ * from the dispatcher and the results are still recorded by the calling thread, which commits them in batches of
+ * <code>checker.batch-size</code> bitstreams, so the other threads only read the files. The rate at which the files
+ * are read can be limited with <code>checker.max-bytes-per-second</code>, and the progress is logged every
+ * <code>checker.progress-interval</code> seconds.
+ * </p>
+ *
  * @author Jim Downing
  * @author Grace Carpenter
  * @author Nathan Sarr
@@ -78,6 +100,34 @@ public final class CheckerCommand {
      */
     private boolean reportVerbose = false;
 
+    /**
+     * Number of threads computing the checksums
+     */
+    private int threads = 1;
+
+    /**
+     * Number of bitstreams to check between commits, when checking in several threads
+     */
+    private final int batchSize;
+
+    /**
+     * Limit of the bytes read per second, null if unlimited
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Milliseconds between the progress messages, 0 to log no progress
+     */
+    private final long progressInterval;
+
+    /**
+     * Progress of the current run
+     */
+    private long checkedCount;
+    private long checkedBytes;
+    private long runStartTime;
+    private long lastProgressTime;
+
     /**
      * Default constructor uses DSpace plugin manager to construct dependencies.
      *
@@ -89,6 +139,13 @@ public final class CheckerCommand {
         bitstreamStorageService = StorageServiceFactory.getInstance().getBitstreamStorageService();
         checksumResultService = CheckerServiceFactory.getInstance().getChecksumResultService();
         this.context = context;
+
+        ConfigurationService configurationService = DSpaceServicesFactory.getInstance().getConfigurationService();
+        threads = Math.max(1, configurationService.getIntProperty("checker.threads", 1));
+        batchSize = Math.max(1, configurationService.getIntProperty("checker.batch-size", 100));
+        long maxBytesPerSecond = configurationService.getLongProperty("checker.max-bytes-per-second", 0);
+        rateLimiter = maxBytesPerSecond > 0 ? RateLimiter.create(maxBytesPerSecond) : null;
+        progressInterval = configurationService.getLongProperty("checker.progress-interval", 60) * 1000;
     }
 
     /**
@@ -120,20 +177,155 @@ public final class CheckerCommand {
         // bitstream table - this always done.
         checksumService.updateMissingBitstreams(context);
 
-        Bitstream bitstream = dispatcher.next();
+        checkedCount = 0;
+        checkedBytes = 0;
+        runStartTime = System.currentTimeMillis();
+        lastProgressTime = runStartTime;
 
-        while (bitstream != null) {
-            LOG.debug("Processing bitstream id = " + bitstream.getID());
-            MostRecentChecksum info = checkBitstream(bitstream);
+        if (threads > 1) {
+            processInThreads();
+        } else {
+            Bitstream bitstream = dispatcher.next();
+
+            while (bitstream != null) {
+                LOG.debug("Processing bitstream id = " + bitstream.getID());
+                MostRecentChecksum info = checkBitstream(bitstream);
+                collect(info);
 
-            if (reportVerbose
-                || !ChecksumResultCode.CHECKSUM_MATCH.equals(info.getChecksumResult().getResultCode())) {
-                collector.collect(context, info);
+                context.uncacheEntity(bitstream);
+                bitstream = dispatcher.next();
             }
+        }
 
-            context.uncacheEntity(bitstream);
-            bitstream = dispatcher.next();
+        logProgress("Finished checking");
+    }
+
+    /**
+     * Check the bitstreams of the dispatcher, computing the checksums in the worker threads. The calling thread
+     * claims every bitstream to check by setting its process dates to now, so that a dispatcher which selects the
+     * oldest records doesn't select it again while its checksum is computed.
+     *
+     * @throws SQLException if database error
+     */
+    protected void processInThreads() throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+            .namingPattern("checker-%d").daemon(true).build());
+        CompletionService<ChecksumTask> completionService = new ExecutorCompletionService<>(executor);
+        Set<UUID> inProgress = new HashSet<>();
+        int uncommitted = 0;
+        int batch = 0;
+        try {
+            Bitstream bitstream = dispatcher.next();
+
+            while (bitstream != null) {
+                LOG.debug("Processing bitstream id = " + bitstream.getID());
+                if (inProgress.contains(bitstream.getID())) {
+                    // e.g. a continuous loop through fewer bitstreams than there are threads
+                    uncommitted += awaitChecksums(completionService, inProgress, 0, batch);
+                }
+
+                MostRecentChecksum info = checksumService.findByBitstream(context, bitstream);
+                if (info == null || !info.isToBeProcessed() || info.getBitstream().isDeleted()) {
+                    collect(checkBitstream(bitstream));
+                    uncommitted++;
+                } else {
+                    Date now = new Date();
+                    info.setProcessStartDate(now);
+                    info.setProcessEndDate(now);
+                    checksumService.update(context, info);
+                    inProgress.add(bitstream.getID());
+                    completionService.submit(new ChecksumTask(info, batch));
+                    // keep every thread busy, without loading every bitstream to check
+                    uncommitted += awaitChecksums(completionService, inProgress, 2 * threads - 1, batch);
+                }
+
+                if (uncommitted >= batchSize) {
+                    context.commit();
+                    uncommitted = 0;
+                    batch++;
+                }
+                bitstream = dispatcher.next();
+            }
+
+            awaitChecksums(completionService, inProgress, 0, batch);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Record the computed checksums, until no more than the given number of checksums are being computed.
+     *
+     * @param completionService the service computing the checksums
+     * @param inProgress        the IDs of the bitstreams whose checksums are being computed
+     * @param maxInProgress     the number of checksums which may still be computed on return
+     * @param batch             the number of the current batch
+     * @return the number of recorded checksums
+     * @throws SQLException if database error
+     */
+    private int awaitChecksums(CompletionService<ChecksumTask> completionService, Set<UUID> inProgress,
+                               int maxInProgress, int batch) throws SQLException {
+        int recorded = 0;
+        Future<ChecksumTask> future = completionService.poll();
+        while (future != null || inProgress.size() > maxInProgress) {
+            if (future == null) {
+                try {
+                    future = completionService.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while computing checksums", e);
+                }
+            }
+            ChecksumTask task;
+            try {
+                task = future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Unable to compute a checksum", e);
+            }
+
+            MostRecentChecksum info = task.info;
+            if (task.batch != batch) {
+                // the info was claimed in a batch which has been committed since
+                info = checksumService.findByBitstream(context, info.getBitstream());
+            }
+            recordChecksum(info, task.checksums, task.error);
+            collect(info);
+            context.uncacheEntity(info.getBitstream());
+            inProgress.remove(info.getBitstream().getID());
+            recorded++;
+            future = completionService.poll();
         }
+        return recorded;
+    }
+
+    /**
+     * Hand the check results to the collector, and log the progress if it is time to.
+     *
+     * @param info the check results
+     * @throws SQLException if database error
+     */
+    private void collect(MostRecentChecksum info) throws SQLException {
+        if (reportVerbose
+            || !ChecksumResultCode.CHECKSUM_MATCH.equals(info.getChecksumResult().getResultCode())) {
+            collector.collect(context, info);
+        }
+
+        long now = System.currentTimeMillis();
+        if (progressInterval > 0 && now - lastProgressTime >= progressInterval) {
+            lastProgressTime = now;
+            logProgress("Progress");
+        }
+    }
+
+    /**
+     * Log the number of bitstreams checked in this run, and the average number of bytes read per second.
+     *
+     * @param message the message to start with
+     */
+    private void logProgress(String message) {
+        long seconds = Math.max(1, (System.currentTimeMillis() - runStartTime) / 1000);
+        LOG.info(String.format("%s: checked %d bitstreams (%d bytes) in %d seconds, %.2f MB/s", message,
+                               checkedCount, checkedBytes, seconds, checkedBytes / (1024.0 * 1024.0 * seconds)));
     }
 
     /**
@@ -244,8 +436,49 @@ public final class CheckerCommand {
     protected void processBitstream(MostRecentChecksum info) throws SQLException {
         info.setProcessStartDate(new Date());
 
+        Map checksumMap = null;
+        IOException error = null;
+        try {
+            checksumMap = computeChecksum(info.getBitstream());
+        } catch (IOException e) {
+            error = e;
+        }
+        recordChecksum(info, checksumMap, error);
+    }
+
+    /**
+     * Compute the checksum of a bitstream, waiting first as long as it takes to stay below
+     * <code>checker.max-bytes-per-second</code>. This only reads the file, so it can be called from any thread.
+     *
+     * @param bitstream the bitstream
+     * @return the checksum and checksum algorithm
+     * @throws IOException if the file could not be read
+     */
+    protected Map computeChecksum(Bitstream bitstream) throws IOException {
+        if (rateLimiter != null) {
+            long bytes = bitstream.getSizeBytes();
+            while (bytes > 0) {
+                int permits = (int) Math.min(bytes, Integer.MAX_VALUE);
+                rateLimiter.acquire(permits);
+                bytes -= permits;
+            }
+        }
+        return bitstreamStorageService.computeChecksum(context, bitstream);
+    }
+
+    /**
+     * Record the result of computing the checksum of a bitstream.
+     *
+     * @param info        BitstreamInfo to handle
+     * @param checksumMap the checksum and checksum algorithm, if computed
+     * @param error       the error reading the file, if any
+     * @throws SQLException if database error
+     */
+    protected void recordChecksum(MostRecentChecksum info, Map checksumMap, IOException error) throws SQLException {
         try {
-            Map checksumMap = bitstreamStorageService.computeChecksum(context, info.getBitstream());
+            if (error != null) {
+                throw error;
+            }
             if (MapUtils.isNotEmpty(checksumMap)) {
                 info.setBitstreamFound(true);
                 if (checksumMap.containsKey("checksum")) {
@@ -255,7 +488,9 @@ public final class CheckerCommand {
                 if (checksumMap.containsKey("checksum_algorithm")) {
                     info.setChecksumAlgorithm(checksumMap.get("checksum_algorithm").toString());
                 }
+                checkedBytes += info.getBitstream().getSizeBytes();
             }
+            checkedCount++;
 
             // compare new checksum to previous checksum
             info.setChecksumResult(compareChecksums(info.getExpectedChecksum(), info.getCurrentChecksum()));
@@ -356,4 +591,49 @@ public final class CheckerCommand {
     public void setReportVerbose(boolean reportVerbose) {
         this.reportVerbose = reportVerbose;
     }
+
+    /**
+     * Get the number of threads computing the checksums
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads computing the checksums, <code>checker.threads</code> by default
+     *
+     * @param threads the number of threads, 1 to compute them in the calling thread
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Computation of the checksum of a claimed bitstream, in a worker thread
+     */
+    private class ChecksumTask implements Callable<ChecksumTask> {
+        private final MostRecentChecksum info;
+        private final Bitstream bitstream;
+        private final int batch;
+        private Map checksums;
+        private IOException error;
+
+        ChecksumTask(MostRecentChecksum info, int batch) {
+            this.info = info;
+            this.bitstream = info.getBitstream();
+            this.batch = batch;
+        }
+
+        @Override
+        public ChecksumTask call() {
+            try {
+                checksums = computeChecksum(bitstream);
+            } catch (IOException e) {
+                error = e;
+            }
+            return this;
+        }
+    }
 }
@@ -30,6 +30,7 @@ import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.LogManager;
 import org.dspace.event.Event;
+import org.dspace.storage.bitstore.StoredContent;
 import org.dspace.storage.bitstore.service.BitstreamStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -155,6 +156,29 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
         return b;
     }
 
+    @Override
+    public Bitstream create(Context context, Bundle bundle, StoredContent content)
+        throws SQLException, AuthorizeException {
+        // Check authorisation
+        authorizeService.authorizeAction(context, bundle, Constants.ADD);
+
+        UUID bitstreamID = bitstreamStorageService.store(context, bitstreamDAO.create(context, new Bitstream()),
+                                                         content);
+
+        log.info(LogManager.getHeader(context, "create_bitstream",
+                                      "bitstream_id=" + bitstreamID));
+
+        // Set the format to "unknown"
+        Bitstream bitstream = find(context, bitstreamID);
+        setFormat(context, bitstream, null);
+
+        context.addEvent(
+            new Event(Event.CREATE, Constants.BITSTREAM, bitstreamID, null, getIdentifiers(context, bitstream)));
+
+        bundleService.addBitstream(context, bundle, bitstream);
+        return bitstream;
+    }
+
     @Override
     public Bitstream register(Context context, Bundle bundle, int assetstore, String bitstreamPath)
         throws IOException, SQLException, AuthorizeException {
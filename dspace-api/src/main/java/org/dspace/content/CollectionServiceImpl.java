@@ -713,6 +713,12 @@ public class CollectionServiceImpl extends DSpaceObjectServiceImpl<Collection> i
 
         context.addEvent(new Event(Event.DELETE, Constants.COLLECTION,
                                    collection.getID(), collection.getHandle(), getIdentifiers(context, collection)));
+        // The consumers can't find the communities of a deleted collection, tell them which ones it is removed from
+        for (Community owningCommunity : collection.getCommunities()) {
+            context.addEvent(new Event(Event.REMOVE, Constants.COMMUNITY, owningCommunity.getID(),
+                                       Constants.COLLECTION, collection.getID(), collection.getHandle(),
+                                       getIdentifiers(context, collection)));
+        }
 
         // remove subscriptions - hmm, should this be in Subscription.java?
         subscribeService.deleteByCollection(context, collection);
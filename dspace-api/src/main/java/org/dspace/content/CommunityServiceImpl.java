@@ -524,6 +524,12 @@ public class CommunityServiceImpl extends DSpaceObjectServiceImpl<Community> imp
 
         context.addEvent(new Event(Event.DELETE, Constants.COMMUNITY, community.getID(), community.getHandle(),
                                    getIdentifiers(context, community)));
+        // The consumers can't find the parents of a deleted community, tell them which ones it is removed from
+        for (Community parentCommunity : community.getParentCommunities()) {
+            context.addEvent(new Event(Event.REMOVE, Constants.COMMUNITY, parentCommunity.getID(),
+                                       Constants.COMMUNITY, community.getID(), community.getHandle(),
+                                       getIdentifiers(context, community)));
+        }
 
         // Remove collections
         Iterator<Collection> collections = community.getCollections().iterator();
@@ -70,6 +70,12 @@ public abstract class DSpaceObject implements Serializable, ReloadableEntity<jav
     @Transient
     private boolean modifiedMetadata = false;
 
+    /**
+     * Index of the metadata values by field, built when needed
+     */
+    @Transient
+    private MetadataIndex metadataIndex = null;
+
     /**
      * Flag set when data is modified, for events
      */
@@ -161,6 +167,7 @@ public abstract class DSpaceObject implements Serializable, ReloadableEntity<jav
 
     public void setMetadata(List<MetadataValue> metadata) {
         this.metadata = metadata;
+        clearMetadataIndex();
     }
 
     protected void removeMetadata(MetadataValue metadataValue) {
@@ -180,6 +187,25 @@ public abstract class DSpaceObject implements Serializable, ReloadableEntity<jav
         addDetails(metadataValue.getMetadataField().toString());
     }
 
+    /**
+     * Get the index of the metadata values of this object by field, (re)building it if the metadata changed.
+     *
+     * @return the index of {@link #getMetadata()}
+     */
+    MetadataIndex getMetadataIndex() {
+        if (metadataIndex == null || !metadataIndex.isIndexOf(getMetadata())) {
+            metadataIndex = new MetadataIndex(getMetadata());
+        }
+        return metadataIndex;
+    }
+
+    /**
+     * Discard the index of the metadata values, e.g. after they have been reordered.
+     */
+    protected void clearMetadataIndex() {
+        metadataIndex = null;
+    }
+
     public List<ResourcePolicy> getResourcePolicies() {
         return resourcePolicies;
     }
@@ -190,6 +216,7 @@ public abstract class DSpaceObject implements Serializable, ReloadableEntity<jav
 
     protected void setMetadataModified() {
         this.modifiedMetadata = true;
+        clearMetadataIndex();
     }
 
     public boolean isModified() {
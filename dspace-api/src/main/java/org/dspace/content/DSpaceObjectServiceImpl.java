@@ -132,9 +132,9 @@ public abstract class DSpaceObjectServiceImpl<T extends DSpaceObject> implements
 
     @Override
     public List<MetadataValue> getMetadata(T dso, String schema, String element, String qualifier, String lang) {
-        // Build up list of matching values
+        // Build up list of matching values, only checking the values of the requested field
         List<MetadataValue> values = new ArrayList<>();
-        for (MetadataValue dcv : dso.getMetadata()) {
+        for (MetadataValue dcv : dso.getMetadataIndex().getCandidates(schema, element, qualifier)) {
             if (match(schema, element, qualifier, lang, dcv)) {
                 values.add(dcv);
             }
@@ -634,6 +634,8 @@ public abstract class DSpaceObjectServiceImpl<T extends DSpaceObject> implements
                     return compare;
                 }
             });
+            // the values may have been reordered
+            dso.clearMetadataIndex();
             for (MetadataValue metadataValue : metadataValues) {
                 //Retrieve & store the place for each metadata value
                 if (StringUtils.startsWith(metadataValue.getAuthority(), Constants.VIRTUAL_AUTHORITY_PREFIX) &&
@@ -123,6 +123,16 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
     @Transient
     private List<MetadataValue> cachedMetadata = new ArrayList<>();
 
+    @Transient
+    private MetadataIndex cachedMetadataIndex = null;
+
+    /**
+     * Whether the item was listed (archived, not withdrawn and discoverable) before the changes of these flags which
+     * haven't been reported in an event yet, null if they haven't changed
+     */
+    @Transient
+    private Boolean listedBefore = null;
+
     /**
      * Protected constructor, create object using:
      * {@link org.dspace.content.service.ItemService#create(Context, WorkspaceItem)}
@@ -156,6 +166,7 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
      * @param withdrawn
      */
     void setWithdrawn(boolean withdrawn) {
+        rememberListed();
         this.withdrawn = withdrawn;
     }
 
@@ -190,6 +201,7 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
      * @param isArchived new value for the flag
      */
     public void setArchived(boolean isArchived) {
+        rememberListed();
         this.inArchive = isArchived;
         setModified();
     }
@@ -200,10 +212,46 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
      * @param discoverable new value for the flag
      */
     public void setDiscoverable(boolean discoverable) {
+        rememberListed();
         this.discoverable = discoverable;
         setModified();
     }
 
+    /**
+     * Find out if the item is listed: archived, not withdrawn and discoverable
+     *
+     * @return true if the item is listed
+     */
+    public boolean isListed() {
+        return inArchive && !withdrawn && discoverable;
+    }
+
+    private void rememberListed() {
+        if (listedBefore == null) {
+            listedBefore = isListed();
+        }
+    }
+
+    /**
+     * Get the detail of the MODIFY event reporting a change of {@link #isListed()}: "LISTED: true" if the item has
+     * been listed since the last event, "LISTED: false" if it has been unlisted, null if it hasn't changed.
+     *
+     * @return the event detail, or null
+     */
+    public String getListedChange() {
+        if (listedBefore == null || listedBefore == isListed()) {
+            return null;
+        }
+        return "LISTED: " + isListed();
+    }
+
+    /**
+     * Forget the changes of {@link #isListed()}, once they have been reported in an event
+     */
+    void clearListedChange() {
+        listedBefore = null;
+    }
+
     /**
      * Set the owning Collection for the item
      *
@@ -401,6 +449,19 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
 
     protected void setCachedMetadata(List<MetadataValue> cachedMetadata) {
         this.cachedMetadata = cachedMetadata;
+        this.cachedMetadataIndex = null;
         modifiedMetadataCache = false;
     }
+
+    /**
+     * Get the index of the cached metadata values (including the virtual metadata) by field.
+     *
+     * @return the index of {@link #getCachedMetadata()}
+     */
+    MetadataIndex getCachedMetadataIndex() {
+        if (cachedMetadataIndex == null || !cachedMetadataIndex.isIndexOf(cachedMetadata)) {
+            cachedMetadataIndex = new MetadataIndex(cachedMetadata);
+        }
+        return cachedMetadataIndex;
+    }
 }
@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
@@ -23,6 +24,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 import org.dspace.app.util.AuthorizeUtil;
@@ -44,6 +46,7 @@ import org.dspace.content.service.ItemService;
 import org.dspace.content.service.MetadataSchemaService;
 import org.dspace.content.service.RelationshipService;
 import org.dspace.content.service.WorkspaceItemService;
+import org.dspace.content.virtual.VirtualMetadataCache;
 import org.dspace.content.virtual.VirtualMetadataPopulator;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
@@ -59,6 +62,7 @@ import org.dspace.services.ConfigurationService;
 import org.dspace.versioning.service.VersioningService;
 import org.dspace.workflow.WorkflowItemService;
 import org.dspace.workflow.factory.WorkflowServiceFactory;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -119,6 +123,14 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     @Autowired(required = true)
     private RelationshipMetadataService relationshipMetadataService;
 
+    @Autowired(required = true)
+    protected VirtualMetadataCache virtualMetadataCache;
+
+    /**
+     * The number of items whose metadata is loaded by a single query in {@link #loadMetadata}
+     */
+    protected static final int LOAD_METADATA_BATCH_SIZE = 500;
+
     protected ItemServiceImpl() {
         super();
     }
@@ -227,6 +239,12 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
         return itemDAO.findAll(context, true, true);
     }
 
+    @Override
+    public Iterator<Item> findAllUnfiltered(Context context, UUID lowerBound, UUID upperBound)
+        throws SQLException {
+        return itemDAO.findAll(context, true, true, lowerBound, upperBound);
+    }
+
     @Override
     public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException {
         return itemDAO.findBySubmitter(context, eperson);
@@ -263,6 +281,11 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
         return itemDAO.findArchivedByCollection(context, collection, limit, offset);
     }
 
+    @Override
+    public List<UUID> findIdsByCollection(Context context, Collection collection) throws SQLException {
+        return itemDAO.findArchivedIdsByCollection(context, collection);
+    }
+
     @Override
     public Iterator<Item> findByCollectionMapping(Context context, Collection collection, Integer limit, Integer offset)
         throws SQLException {
@@ -493,6 +516,9 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
         log.info(LogManager.getHeader(context, "update_item", "item_id="
             + item.getID()));
 
+        // the relationship metadata of this item and of the items related to it may change
+        virtualMetadataCache.invalidate(Collections.singleton(item.getID()));
+
         super.update(context, item);
 
         // Set sequence IDs for bitstreams in Item. To guarantee uniqueness,
@@ -537,8 +563,10 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
                                            getIdentifiers(context, item)));
             }
 
+            // the detail tells whether the item has been listed or unlisted, e.g. installed or withdrawn
             context.addEvent(new Event(Event.MODIFY, Constants.ITEM, item.getID(),
-                                       null, getIdentifiers(context, item)));
+                                       item.getListedChange(), getIdentifiers(context, item)));
+            item.clearListedChange();
             item.clearModified();
             item.clearDetails();
         }
@@ -681,6 +709,13 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
 
         context.addEvent(new Event(Event.DELETE, Constants.ITEM, item.getID(),
                                    item.getHandle(), getIdentifiers(context, item)));
+        // The consumers can't find the collections of a deleted item, tell them which ones it is removed from, and
+        // whether it was listed in them (see Item.getListedChange())
+        for (Collection collection : item.getCollections()) {
+            context.addEvent(new Event(Event.REMOVE, Constants.COLLECTION, collection.getID(),
+                                       Constants.ITEM, item.getID(), "LISTED: " + item.isListed(),
+                                       collectionService.getIdentifiers(context, collection)));
+        }
 
         log.info(LogManager.getHeader(context, "delete_item", "item_id="
             + item.getID()));
@@ -1225,6 +1260,16 @@ prevent the generation of resource policy entry values with null dspace_object a
         return itemDAO.countItems(context, collections, true, false);
     }
 
+    @Override
+    public int countDiscoverableItems(Context context, Collection collection) throws SQLException {
+        return itemDAO.countDiscoverableItems(context, Collections.singletonList(collection));
+    }
+
+    @Override
+    public int countDiscoverableItems(Context context, Community community) throws SQLException {
+        return itemDAO.countDiscoverableItems(context, communityService.getAllCollections(context, community));
+    }
+
     @Override
     public int countAllItems(Context context, Community community) throws SQLException {
         // First we need a list of all collections under this community in the hierarchy
@@ -1349,7 +1394,7 @@ prevent the generation of resource policy entry values with null dspace_object a
         log.debug("Called getMetadata for " + item.getID() + " based on cache");
         // Build up list of matching values based on the cache
         List<MetadataValue> values = new ArrayList<>();
-        for (MetadataValue dcv : item.getCachedMetadata()) {
+        for (MetadataValue dcv : item.getCachedMetadataIndex().getCandidates(schema, element, qualifier)) {
             if (match(schema, element, qualifier, lang, dcv)) {
                 values.add(dcv);
             }
@@ -1359,6 +1404,19 @@ prevent the generation of resource policy entry values with null dspace_object a
         return values;
     }
 
+    @Override
+    public void loadMetadata(Context context, Iterable<Item> items) throws SQLException {
+        List<UUID> ids = new ArrayList<>();
+        for (Item item : items) {
+            if (!Hibernate.isInitialized(item) || !Hibernate.isInitialized(item.getMetadata())) {
+                ids.add(item.getID());
+            }
+        }
+        for (List<UUID> batch : ListUtils.partition(ids, LOAD_METADATA_BATCH_SIZE)) {
+            itemDAO.findWithMetadata(context, batch);
+        }
+    }
+
     /**
      * Supports moving metadata by adding the metadata value or updating the place of the relationship
      */
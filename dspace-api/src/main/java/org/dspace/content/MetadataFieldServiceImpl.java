@@ -12,9 +12,15 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.authorize.service.AuthorizeService;
@@ -55,6 +61,24 @@ public class MetadataFieldServiceImpl implements MetadataFieldService {
     @Autowired
     protected SiteService siteService;
 
+    /**
+     * A snapshot found out of date by a lookup is kept if it was loaded less than this many milliseconds ago: the
+     * changes which aren't committed yet wouldn't be in a new snapshot either
+     */
+    private static final long SNAPSHOT_MIN_AGE = 60 * 1000;
+
+    /**
+     * The snapshot of the registry used for the lookups, null when it has to be loaded again
+     */
+    private final AtomicReference<MetadataRegistrySnapshot> registrySnapshot = new AtomicReference<>();
+    /**
+     * Incremented when the snapshot is discarded, so a snapshot loaded meanwhile isn't used
+     */
+    private final AtomicLong registryVersion = new AtomicLong();
+    private final ThreadFactory snapshotThreadFactory = new BasicThreadFactory.Builder()
+        .namingPattern("metadata-registry-%d").daemon(true).build();
+    private final Runnable clearRegistrySnapshot = this::clearRegistrySnapshot;
+
     protected MetadataFieldServiceImpl() {
 
     }
@@ -85,6 +109,7 @@ public class MetadataFieldServiceImpl implements MetadataFieldService {
 
         log.info(LogManager.getHeader(context, "create_metadata_field",
                                       "metadata_field_id=" + metadataField.getID()));
+        clearRegistrySnapshot(context);
         // Update the index of type metadatafield
         this.triggerEventToUpdateIndex(context, metadataField.getID());
         return metadataField;
@@ -98,13 +123,100 @@ public class MetadataFieldServiceImpl implements MetadataFieldService {
     @Override
     public MetadataField findByElement(Context context, MetadataSchema metadataSchema, String element, String qualifier)
         throws SQLException {
-        return metadataFieldDAO.findByElement(context, metadataSchema, element, qualifier);
+        return findByElement(context, metadataSchema.getName(), element, qualifier);
     }
 
     @Override
     public MetadataField findByElement(Context context, String metadataSchemaName, String element, String qualifier)
         throws SQLException {
-        return metadataFieldDAO.findByElement(context, metadataSchemaName, element, qualifier);
+        MetadataRegistrySnapshot snapshot = getRegistrySnapshot(context);
+        Integer id = snapshot.getFieldId(metadataSchemaName, element, qualifier);
+        if (id != null) {
+            MetadataField metadataField = find(context, id);
+            if (metadataField != null && matches(metadataField, metadataSchemaName, element, qualifier)) {
+                return metadataField;
+            }
+        }
+
+        // the field isn't in the snapshot, or the snapshot is out of date
+        MetadataField metadataField = metadataFieldDAO.findByElement(context, metadataSchemaName, element, qualifier);
+        if (id != null || metadataField != null) {
+            discardOutdatedSnapshot(snapshot);
+        }
+        return metadataField;
+    }
+
+    /**
+     * Check that a field loaded through the registry snapshot is still the requested one
+     */
+    private boolean matches(MetadataField metadataField, String metadataSchemaName, String element,
+                            String qualifier) {
+        return StringUtils.equals(metadataField.getMetadataSchema().getName(), metadataSchemaName)
+            && StringUtils.equals(metadataField.getElement(), element)
+            && StringUtils.equals(StringUtils.defaultIfBlank(metadataField.getQualifier(), null),
+                                  StringUtils.defaultIfBlank(qualifier, null));
+    }
+
+    @Override
+    public MetadataRegistrySnapshot getRegistrySnapshot(Context context) throws SQLException {
+        MetadataRegistrySnapshot snapshot = registrySnapshot.get();
+        if (snapshot == null) {
+            long version = registryVersion.get();
+            snapshot = loadRegistrySnapshot();
+            // a snapshot loaded while the registry changed is only used by this lookup
+            if (registryVersion.get() == version) {
+                registrySnapshot.compareAndSet(null, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Load the snapshot of the registry as it is committed, with a read-only context of its own. The context is
+     * used in a thread of its own, since the contexts of a thread share the same Hibernate session: the changes of
+     * the caller which aren't committed yet would end up in the snapshot shared by all contexts.
+     */
+    private MetadataRegistrySnapshot loadRegistrySnapshot() throws SQLException {
+        FutureTask<MetadataRegistrySnapshot> task = new FutureTask<>(() -> {
+            Context snapshotContext = new Context(Context.Mode.READ_ONLY);
+            try {
+                return new MetadataRegistrySnapshot(findAll(snapshotContext),
+                                                    metadataSchemaService.findAll(snapshotContext));
+            } finally {
+                snapshotContext.abort();
+            }
+        });
+        snapshotThreadFactory.newThread(task).start();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading the metadata registry", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Unable to load the metadata registry", e.getCause());
+        }
+    }
+
+    @Override
+    public void clearRegistrySnapshot() {
+        registryVersion.incrementAndGet();
+        registrySnapshot.set(null);
+    }
+
+    @Override
+    public void clearRegistrySnapshot(Context context) {
+        context.runAfterCommit(clearRegistrySnapshot);
+    }
+
+    @Override
+    public void discardOutdatedSnapshot(MetadataRegistrySnapshot snapshot) {
+        if (System.currentTimeMillis() - snapshot.getLoadTime() >= SNAPSHOT_MIN_AGE) {
+            registryVersion.incrementAndGet();
+            registrySnapshot.compareAndSet(snapshot, null);
+        }
     }
 
     @Override
@@ -154,6 +266,7 @@ public class MetadataFieldServiceImpl implements MetadataFieldService {
         }
 
         metadataFieldDAO.save(context, metadataField);
+        clearRegistrySnapshot(context);
 
         log.info(LogManager.getHeader(context, "update_metadatafieldregistry",
                                       "metadata_field_id=" + metadataField.getID() + "element=" + metadataField
@@ -182,6 +295,7 @@ public class MetadataFieldServiceImpl implements MetadataFieldService {
         // Only remove this field if it is NOT in use (as we don't want to bulk delete metadata values)
         if (CollectionUtils.isEmpty(values)) {
             metadataFieldDAO.delete(context, metadataField);
+            clearRegistrySnapshot(context);
         } else {
             throw new IllegalStateException("Metadata field " + metadataField
                 .toString() + " cannot be deleted as it is currently used by one or more objects.");
@@ -0,0 +1,123 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Index of a list of metadata values by metadata field, so that the values of a single field (or element) can be
+ * found without comparing the field of every value of an object.
+ * <p>
+ * The index only narrows down the values to check: the candidates it returns are in the same order as in the indexed
+ * list, and still have to be matched on language (and on the field itself, when wildcards are used). The index is
+ * built from the list as it is at the time. It records which value was at which position with which field, so that a
+ * change to the list or to the field of one of its values is detected even if the list keeps its size. Changes to the
+ * value or language don't affect the candidates, as these are only matched after the lookup.
+ */
+final class MetadataIndex {
+
+    private final List<MetadataValue> values;
+
+    /**
+     * The values of the list, and their fields, when the index was built
+     */
+    private final MetadataValue[] indexedValues;
+    private final MetadataField[] indexedFields;
+
+    /**
+     * The values per schema, element and qualifier, null if the fields of the values can't be indexed
+     */
+    private final Map<String, List<MetadataValue>> byField;
+
+    /**
+     * The values per schema and element
+     */
+    private final Map<String, List<MetadataValue>> byElement;
+
+    /**
+     * Build the index of a list of metadata values.
+     *
+     * @param values the metadata values
+     */
+    MetadataIndex(List<MetadataValue> values) {
+        this.values = values;
+        this.indexedValues = values.toArray(new MetadataValue[0]);
+        this.indexedFields = new MetadataField[indexedValues.length];
+        Map<String, List<MetadataValue>> fields = new HashMap<>();
+        Map<String, List<MetadataValue>> elements = new HashMap<>();
+        for (int i = 0; i < indexedValues.length; i++) {
+            MetadataValue value = indexedValues[i];
+            MetadataField field = value.getMetadataField();
+            indexedFields[i] = field;
+            if (fields == null) {
+                continue;
+            }
+            if (field == null || field.getMetadataSchema() == null) {
+                // such a value matches any schema, so it can't be indexed
+                fields = null;
+                elements = null;
+                continue;
+            }
+            String elementKey = field.getMetadataSchema().getName() + "." + field.getElement();
+            elements.computeIfAbsent(elementKey, key -> new ArrayList<>()).add(value);
+            String fieldKey = field.getQualifier() == null ? elementKey : elementKey + "." + field.getQualifier();
+            fields.computeIfAbsent(fieldKey, key -> new ArrayList<>()).add(value);
+        }
+        this.byField = fields;
+        this.byElement = elements;
+    }
+
+    /**
+     * @param list a list of metadata values
+     * @return true if this index was built from the given list, and the list still holds the same values, with the
+     * same fields, in the same order
+     */
+    boolean isIndexOf(List<MetadataValue> list) {
+        if (values != list || indexedValues.length != list.size()) {
+            return false;
+        }
+        int i = 0;
+        for (MetadataValue value : list) {
+            if (value != indexedValues[i] || value.getMetadataField() != indexedFields[i]) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Get the values which may match the given field, in the order of the indexed list.
+     *
+     * @param schema    the schema, or <code>Item.ANY</code>
+     * @param element   the element, or <code>Item.ANY</code>
+     * @param qualifier the qualifier, <code>Item.ANY</code> or blank for unqualified
+     * @return the candidate values
+     */
+    List<MetadataValue> getCandidates(String schema, String element, String qualifier) {
+        if (byField == null || Item.ANY.equals(schema) || Item.ANY.equals(element)) {
+            return values;
+        }
+        String elementKey = schema + "." + element;
+        List<MetadataValue> candidates;
+        if (Item.ANY.equals(qualifier)) {
+            candidates = byElement.get(elementKey);
+        } else if (StringUtils.isBlank(qualifier)) {
+            candidates = byField.get(elementKey);
+        } else {
+            candidates = byField.get(elementKey + "." + qualifier);
+        }
+        return candidates != null ? candidates : Collections.emptyList();
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Immutable snapshot of the metadata registry, which maps the keys of the metadata fields
+ * ("schema.element" or "schema.element.qualifier") and the names of the metadata schemas to their IDs.
+ * <p>
+ * The snapshot only holds IDs and names, the fields and schemas themselves are still loaded through Hibernate (from
+ * the session or the second level cache). It is built by the {@link org.dspace.content.service.MetadataFieldService}
+ * from the committed registry and replaced as a whole when changes to the registry are committed, so a snapshot may
+ * be out of date: callers have to check the fields or schemas they load against the keys they looked up. The keys
+ * of loaded fields are taken from the fields themselves, which is why the snapshot doesn't map IDs back to keys.
+ */
+public final class MetadataRegistrySnapshot {
+
+    private final Map<String, Integer> fieldIds;
+    private final Map<String, Integer> schemaIds;
+    private final long loadTime = System.currentTimeMillis();
+
+    /**
+     * Build the snapshot of the given fields and schemas.
+     *
+     * @param fields  all metadata fields of the registry
+     * @param schemas all metadata schemas of the registry
+     */
+    public MetadataRegistrySnapshot(Collection<MetadataField> fields, Collection<MetadataSchema> schemas) {
+        Map<String, Integer> fieldIds = new HashMap<>();
+        for (MetadataField field : fields) {
+            fieldIds.put(toKey(field.getMetadataSchema().getName(), field.getElement(), field.getQualifier()),
+                         field.getID());
+        }
+        Map<String, Integer> schemaIds = new HashMap<>();
+        for (MetadataSchema schema : schemas) {
+            schemaIds.put(schema.getName(), schema.getID());
+        }
+        this.fieldIds = Collections.unmodifiableMap(fieldIds);
+        this.schemaIds = Collections.unmodifiableMap(schemaIds);
+    }
+
+    /**
+     * Build the key of a metadata field. A blank qualifier is the same as no qualifier, as in the lookups of fields.
+     *
+     * @param schema    the schema name
+     * @param element   the element
+     * @param qualifier the qualifier, or null
+     * @return "schema.element" or "schema.element.qualifier"
+     */
+    public static String toKey(String schema, String element, String qualifier) {
+        if (StringUtils.isBlank(qualifier)) {
+            return schema + "." + element;
+        }
+        return schema + "." + element + "." + qualifier;
+    }
+
+    /**
+     * @param key "schema.element" or "schema.element.qualifier"
+     * @return the ID of the metadata field, or null if it isn't in the snapshot
+     */
+    public Integer getFieldId(String key) {
+        return fieldIds.get(key);
+    }
+
+    /**
+     * @param schema    the schema name
+     * @param element   the element
+     * @param qualifier the qualifier, or null
+     * @return the ID of the metadata field, or null if it isn't in the snapshot
+     */
+    public Integer getFieldId(String schema, String element, String qualifier) {
+        return fieldIds.get(toKey(schema, element, qualifier));
+    }
+
+    /**
+     * @param name the schema name
+     * @return the ID of the metadata schema, or null if it isn't in the snapshot
+     */
+    public Integer getSchemaId(String name) {
+        return schemaIds.get(name);
+    }
+
+    /**
+     * @return the time the snapshot was loaded, in milliseconds since the epoch
+     */
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * @return the number of metadata fields in the snapshot
+     */
+    public int getFieldCount() {
+        return fieldIds.size();
+    }
+}
@@ -8,6 +8,7 @@
 package org.dspace.content;
 
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.logging.log4j.Logger;
@@ -18,6 +19,8 @@ import org.dspace.content.service.MetadataFieldService;
 import org.dspace.content.service.MetadataSchemaService;
 import org.dspace.core.Context;
 import org.dspace.core.LogManager;
+import org.dspace.core.cluster.CacheEviction;
+import org.dspace.core.cluster.ClusterCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -43,6 +46,9 @@ public class MetadataSchemaServiceImpl implements MetadataSchemaService {
     @Autowired(required = true)
     protected MetadataSchemaDAO metadataSchemaDAO;
 
+    @Autowired(required = true)
+    protected ClusterCacheService clusterCacheService;
+
     protected MetadataSchemaServiceImpl() {
 
     }
@@ -74,12 +80,28 @@ public class MetadataSchemaServiceImpl implements MetadataSchemaService {
         metadataSchema.setNamespace(namespace);
         metadataSchema.setName(name);
         metadataSchemaDAO.save(context, metadataSchema);
+        metadataFieldService.clearRegistrySnapshot(context);
+        broadcastEviction(context, metadataSchema);
         log.info(LogManager.getHeader(context, "create_metadata_schema",
                                       "metadata_schema_id="
                                           + metadataSchema.getID()));
         return metadataSchema;
     }
 
+    /**
+     * Tell the other nodes of the cluster to evict the schema from their cache, with the changes of the context.
+     * The schema changes don't fire events, so the {@link org.dspace.core.cluster.ClusterCacheConsumer} doesn't see
+     * them.
+     *
+     * @param context        DSpace context
+     * @param metadataSchema the changed schema
+     * @throws SQLException if database error
+     */
+    protected void broadcastEviction(Context context, MetadataSchema metadataSchema) throws SQLException {
+        clusterCacheService.broadcast(context, Collections.singletonList(
+            new CacheEviction(MetadataSchema.class, metadataSchema.getID())));
+    }
+
     @Override
     public MetadataSchema findByNamespace(Context context, String namespace) throws SQLException {
         return metadataSchemaDAO.findByNamespace(context, namespace);
@@ -106,6 +128,8 @@ public class MetadataSchemaServiceImpl implements MetadataSchemaService {
                                                      + " unique");
         }
         metadataSchemaDAO.save(context, metadataSchema);
+        metadataFieldService.clearRegistrySnapshot(context);
+        broadcastEviction(context, metadataSchema);
         log.info(LogManager.getHeader(context, "update_metadata_schema",
                                       "metadata_schema_id=" + metadataSchema.getID() + "namespace="
                                           + metadataSchema.getNamespace() + "name=" + metadataSchema.getName()));
@@ -123,7 +147,9 @@ public class MetadataSchemaServiceImpl implements MetadataSchemaService {
             metadataFieldService.delete(context, metadataField);
         }
 
+        broadcastEviction(context, metadataSchema);
         metadataSchemaDAO.delete(context, metadataSchema);
+        metadataFieldService.clearRegistrySnapshot(context);
 
         log.info(LogManager.getHeader(context, "delete_metadata_schema",
                 "metadata_schema_id=" + metadataSchema.getID()));
@@ -145,7 +171,21 @@ public class MetadataSchemaServiceImpl implements MetadataSchemaService {
         if (shortName == null) {
             return null;
         }
-        return metadataSchemaDAO.find(context, shortName);
+        MetadataRegistrySnapshot snapshot = metadataFieldService.getRegistrySnapshot(context);
+        Integer id = snapshot.getSchemaId(shortName);
+        if (id != null) {
+            MetadataSchema metadataSchema = find(context, id);
+            if (metadataSchema != null && shortName.equals(metadataSchema.getName())) {
+                return metadataSchema;
+            }
+        }
+
+        // the schema isn't in the snapshot of the registry, or the snapshot is out of date
+        MetadataSchema metadataSchema = metadataSchemaDAO.find(context, shortName);
+        if (id != null || metadataSchema != null) {
+            metadataFieldService.discardOutdatedSnapshot(snapshot);
+        }
+        return metadataSchema;
     }
 
 
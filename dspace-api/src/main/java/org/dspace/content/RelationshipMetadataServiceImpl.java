@@ -8,15 +8,22 @@
 package org.dspace.content;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
+import org.dspace.content.service.ItemService;
 import org.dspace.content.service.MetadataFieldService;
 import org.dspace.content.service.RelationshipService;
+import org.dspace.content.virtual.Related;
+import org.dspace.content.virtual.VirtualMetadataCache;
 import org.dspace.content.virtual.VirtualMetadataConfiguration;
 import org.dspace.content.virtual.VirtualMetadataPopulator;
 import org.dspace.core.Constants;
@@ -39,6 +46,12 @@ public class RelationshipMetadataServiceImpl implements RelationshipMetadataServ
     @Autowired(required = true)
     protected MetadataFieldService metadataFieldService;
 
+    @Autowired(required = true)
+    protected ItemService itemService;
+
+    @Autowired(required = true)
+    protected VirtualMetadataCache virtualMetadataCache;
+
     @Override
     public List<RelationshipMetadataValue> getRelationshipMetadata(Item item, boolean enableVirtualMetadata) {
         Context context = new Context();
@@ -46,13 +59,29 @@ public class RelationshipMetadataServiceImpl implements RelationshipMetadataServ
         try {
             String entityType = getEntityTypeStringFromMetadata(item);
             if (StringUtils.isNotBlank(entityType)) {
+                List<RelationshipMetadataValue> cachedMetadataValueList =
+                    getCachedRelationshipMetadata(context, item, enableVirtualMetadata);
+                if (cachedMetadataValueList != null) {
+                    return cachedMetadataValueList;
+                }
+                long generation = virtualMetadataCache.getGeneration();
                 List<Relationship> relationships = relationshipService.findByItem(context, item, -1, -1, true);
+                if (enableVirtualMetadata) {
+                    // load the metadata of all related items at once, rather than item per item
+                    itemService.loadMetadata(context, getOtherItems(item, relationships));
+                }
+                Set<UUID> dependencies = new HashSet<>();
                 for (Relationship relationship : relationships) {
                     fullMetadataValueList
                         .addAll(findRelationshipMetadataValueForItemRelationship(context, item, entityType,
                                 relationship, enableVirtualMetadata));
+                    if (virtualMetadataCache.isEnabled()) {
+                        addDependencies(context, item, entityType, relationship, enableVirtualMetadata,
+                                        dependencies);
+                    }
                 }
-
+                virtualMetadataCache.put(item.getID(), enableVirtualMetadata, fullMetadataValueList, dependencies,
+                                         generation);
             }
         } catch (SQLException e) {
             log.error("Lookup for Relationships for item with uuid: " + item.getID() + " caused DSpace to crash", e);
@@ -60,6 +89,101 @@ public class RelationshipMetadataServiceImpl implements RelationshipMetadataServ
         return fullMetadataValueList;
     }
 
+    /**
+     * Get the relationship metadata of an item from the {@link VirtualMetadataCache}
+     *
+     * @param context               The context
+     * @param item                  The item whose relationship metadata is requested
+     * @param enableVirtualMetadata Whether the virtual metadata is requested
+     * @return                      The relationship metadata values, or null if they aren't cached
+     */
+    private List<RelationshipMetadataValue> getCachedRelationshipMetadata(Context context, Item item,
+        boolean enableVirtualMetadata) throws SQLException {
+        List<VirtualMetadataCache.CachedValue> cachedValues = virtualMetadataCache.get(item.getID(),
+                                                                                       enableVirtualMetadata);
+        if (cachedValues == null) {
+            return null;
+        }
+        List<RelationshipMetadataValue> resultingMetadataValueList = new LinkedList<>();
+        for (VirtualMetadataCache.CachedValue cachedValue : cachedValues) {
+            MetadataField metadataField = metadataFieldService.find(context, cachedValue.getFieldId());
+            if (metadataField == null) {
+                // the field was deleted meanwhile
+                return null;
+            }
+            RelationshipMetadataValue metadataValue = new RelationshipMetadataValue();
+            metadataValue.setMetadataField(metadataField);
+            metadataValue.setValue(cachedValue.getValue());
+            metadataValue.setAuthority(cachedValue.getAuthority());
+            metadataValue.setConfidence(cachedValue.getConfidence());
+            metadataValue.setPlace(cachedValue.getPlace());
+            metadataValue.setUseForPlace(cachedValue.isUseForPlace());
+            if (cachedValue.isOfItem()) {
+                metadataValue.setDSpaceObject(item);
+            }
+            resultingMetadataValueList.add(metadataValue);
+        }
+        return resultingMetadataValueList;
+    }
+
+    /**
+     * Get the items on the other side of the relationships of an item
+     */
+    private List<Item> getOtherItems(Item item, List<Relationship> relationships) {
+        List<Item> otherItems = new ArrayList<>(relationships.size());
+        for (Relationship relationship : relationships) {
+            if (item.getID().equals(relationship.getLeftItem().getID())) {
+                otherItems.add(relationship.getRightItem());
+            } else {
+                otherItems.add(relationship.getLeftItem());
+            }
+        }
+        return otherItems;
+    }
+
+    /**
+     * Add the IDs of the items which the relationship metadata of a relationship of an item is built from: the
+     * related item, and the items found from it through {@link Related} configurations
+     *
+     * @param context               The context
+     * @param item                  The item whose relationship metadata is requested
+     * @param entityType            The entity type of the given item
+     * @param relationship          The relationship of the item
+     * @param enableVirtualMetadata Whether the virtual metadata is requested
+     * @param dependencies          The IDs of the items to add to
+     */
+    private void addDependencies(Context context, Item item, String entityType, Relationship relationship,
+                                 boolean enableVirtualMetadata, Set<UUID> dependencies) throws SQLException {
+        RelationshipType relationshipType = relationship.getRelationshipType();
+        HashMap<String, VirtualMetadataConfiguration> hashMaps;
+        Item otherItem;
+        if (StringUtils.equals(relationshipType.getLeftType().getLabel(), entityType) &&
+                item.getID().equals(relationship.getLeftItem().getID())) {
+            hashMaps = virtualMetadataPopulator.getMap().get(relationshipType.getLeftwardType());
+            otherItem = relationship.getRightItem();
+        } else if (StringUtils.equals(relationshipType.getRightType().getLabel(), entityType) &&
+                item.getID().equals(relationship.getRightItem().getID())) {
+            hashMaps = virtualMetadataPopulator.getMap().get(relationshipType.getRightwardType());
+            otherItem = relationship.getLeftItem();
+        } else {
+            return;
+        }
+        dependencies.add(otherItem.getID());
+        if (hashMaps == null || !enableVirtualMetadata) {
+            return;
+        }
+        for (VirtualMetadataConfiguration virtualBean : hashMaps.values()) {
+            Item relatedItem = otherItem;
+            while (virtualBean instanceof Related && relatedItem != null) {
+                relatedItem = ((Related) virtualBean).findRelatedItem(context, relatedItem);
+                if (relatedItem != null) {
+                    dependencies.add(relatedItem.getID());
+                }
+                virtualBean = ((Related) virtualBean).getVirtualMetadataConfiguration();
+            }
+        }
+    }
+
     public String getEntityTypeStringFromMetadata(Item item) {
         List<MetadataValue> list = item.getMetadata();
         for (MetadataValue mdv : list) {
@@ -0,0 +1,510 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.authority;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * An immutable, in-memory representation of a controlled vocabulary XML file (as read by
+ * {@link DSpaceControlledVocabulary}), which answers the lookups of the authority without walking the DOM.
+ * <p>
+ * The concepts ({@code node} elements) are numbered in document order. For every concept the label, id, note,
+ * selectable flag, parent and children are kept in arrays, and the hierarchy string (the labels from the root down to
+ * the concept, joined by the delimiter) is computed when the file is loaded. Lookups by id and by exact label go
+ * through hash maps.
+ * <p>
+ * The labels are lowercased like the XPath {@code translate()} of the former lookups did: only the ASCII letters are
+ * folded, so e.g. "École" is found by "cole" but not by "école". The searched texts are lowercased entirely.
+ * <p>
+ * The lowercase labels are split into tokens (runs of letters and digits). Every distinct token has the sorted list of
+ * the concepts using it, and all suffixes of the distinct tokens are kept in a sorted array, so the tokens starting
+ * with or containing a string are found by a binary search. A "contains" lookup takes the candidates from the longest
+ * token of the searched text and only checks the labels of those.
+ * <p>
+ * Loaded vocabularies are shared by all instances of the authority, and loaded again when the file changes.
+ */
+public final class ControlledVocabularyIndex {
+
+    private static final Logger log = LogManager.getLogger(ControlledVocabularyIndex.class);
+
+    private static final Map<String, ControlledVocabularyIndex> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * The number of the root concept
+     */
+    public static final int ROOT = 0;
+
+    private static final int[] NONE = new int[0];
+
+    private final String delimiter;
+    private final long lastModified;
+    private final long length;
+
+    private final String[] labels;
+    private final String[] lowerLabels;
+    private final String[] ids;
+    private final String[] notes;
+    private final String[] hierarchies;
+    private final boolean[] selectable;
+    private final int[] parents;
+    private final int[][] children;
+
+    private final Map<String, Integer> byId;
+    private final Map<String, int[]> byLabel;
+
+    /**
+     * The distinct tokens of the labels, in alphabetical order, with the concepts using them
+     */
+    private final String[] tokens;
+    private final int[][] postings;
+
+    /**
+     * The suffixes of the tokens in alphabetical order, each given by the number of the token and the offset in it
+     */
+    private final int[] suffixTokens;
+    private final int[] suffixOffsets;
+
+    /**
+     * Get the index of a vocabulary file, loading it if it wasn't loaded yet or if the file changed since.
+     *
+     * @param file      the vocabulary file
+     * @param delimiter the delimiter used in the hierarchy strings
+     * @return the index of the vocabulary
+     * @throws IOException if the file can't be read or parsed
+     */
+    public static ControlledVocabularyIndex get(File file, String delimiter) throws IOException {
+        String key = file.getAbsolutePath() + "\u0000" + delimiter;
+        ControlledVocabularyIndex index = loaded.get(key);
+        if (index == null || index.lastModified != file.lastModified() || index.length != file.length()) {
+            synchronized (loaded) {
+                index = loaded.get(key);
+                if (index == null || index.lastModified != file.lastModified() || index.length != file.length()) {
+                    index = new ControlledVocabularyIndex(file, delimiter);
+                    loaded.put(key, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    private ControlledVocabularyIndex(File file, String delimiter) throws IOException {
+        long start = System.currentTimeMillis();
+        this.delimiter = delimiter;
+        this.lastModified = file.lastModified();
+        this.length = file.length();
+
+        Element root;
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            root = builder.parse(file).getDocumentElement();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unable to parse the controlled vocabulary " + file, e);
+        }
+
+        List<Element> elements = new ArrayList<>();
+        List<Integer> parentList = new ArrayList<>();
+        collect(root, -1, elements, parentList);
+        int size = elements.size();
+
+        labels = new String[size];
+        lowerLabels = new String[size];
+        ids = new String[size];
+        notes = new String[size];
+        hierarchies = new String[size];
+        selectable = new boolean[size];
+        parents = new int[size];
+        children = new int[size][];
+        byId = new HashMap<>();
+        Map<String, List<Integer>> labelLists = new HashMap<>();
+        List<List<Integer>> childLists = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Element element = elements.get(i);
+            parents[i] = parentList.get(i);
+            childLists.add(new ArrayList<>());
+            if (parents[i] >= 0) {
+                childLists.get(parents[i]).add(i);
+            }
+            if (element.hasAttribute("label")) {
+                labels[i] = element.getAttribute("label");
+                lowerLabels[i] = toLowerCaseAscii(labels[i]);
+                labelLists.computeIfAbsent(labels[i], label -> new ArrayList<>()).add(i);
+            }
+            if (element.hasAttribute("id")) {
+                ids[i] = element.getAttribute("id");
+                byId.putIfAbsent(ids[i], i);
+            }
+            selectable[i] = !element.hasAttribute("selectable")
+                || Boolean.valueOf(element.getAttribute("selectable"));
+            notes[i] = getNote(element);
+
+            // parents come before their children, so their hierarchy is known already
+            String parentHierarchy = parents[i] >= 0 ? hierarchies[parents[i]] : "";
+            if (labels[i] == null) {
+                hierarchies[i] = parentHierarchy;
+            } else if (parentHierarchy.isEmpty()) {
+                hierarchies[i] = labels[i];
+            } else {
+                hierarchies[i] = parentHierarchy + delimiter + labels[i];
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            children[i] = toArray(childLists.get(i));
+        }
+        byLabel = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : labelLists.entrySet()) {
+            byLabel.put(entry.getKey(), toArray(entry.getValue()));
+        }
+
+        // the token index
+        Map<String, List<Integer>> tokenLists = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            for (String token : tokenize(lowerLabels[i])) {
+                tokenLists.computeIfAbsent(token, t -> new ArrayList<>()).add(i);
+            }
+        }
+        tokens = tokenLists.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+        postings = new int[tokens.length][];
+        int suffixCount = 0;
+        for (int t = 0; t < tokens.length; t++) {
+            postings[t] = toArray(tokenLists.get(tokens[t]));
+            suffixCount += tokens[t].length();
+        }
+        Long[] suffixes = new Long[suffixCount];
+        int s = 0;
+        for (int t = 0; t < tokens.length; t++) {
+            for (int offset = 0; offset < tokens[t].length(); offset++) {
+                suffixes[s++] = ((long) t << 32) | offset;
+            }
+        }
+        Arrays.sort(suffixes, (a, b) -> compareSuffixes(tokens[(int) (a >>> 32)], (int) (long) a,
+                                                         tokens[(int) (b >>> 32)], (int) (long) b));
+        suffixTokens = new int[suffixCount];
+        suffixOffsets = new int[suffixCount];
+        for (int i = 0; i < suffixCount; i++) {
+            suffixTokens[i] = (int) (suffixes[i] >>> 32);
+            suffixOffsets[i] = (int) (long) suffixes[i];
+        }
+
+        log.info("Loaded the controlled vocabulary {} ({} concepts, {} tokens) in {} ms", file, size, tokens.length,
+                 System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add a concept and all concepts below it, in document order.
+     */
+    private static void collect(Element element, int parent, List<Element> elements, List<Integer> parentList) {
+        int number = elements.size();
+        elements.add(element);
+        parentList.add(parent);
+        NodeList childNodes = element.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            Node child = childNodes.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE && "isComposedBy".equals(child.getNodeName())) {
+                NodeList concepts = child.getChildNodes();
+                for (int j = 0; j < concepts.getLength(); j++) {
+                    Node concept = concepts.item(j);
+                    if (concept.getNodeType() == Node.ELEMENT_NODE && "node".equals(concept.getNodeName())) {
+                        collect((Element) concept, number, elements, parentList);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    private static String getNote(Element element) {
+        NodeList childNodes = element.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            Node child = childNodes.item(i);
+            if ("hasNote".equals(child.getNodeName()) && StringUtils.isNotBlank(child.getTextContent())) {
+                return child.getTextContent();
+            }
+        }
+        return null;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        if (list.isEmpty()) {
+            return NONE;
+        }
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Lowercase only the ASCII letters of a label, like translate(@label, 'ABC...Z', 'abc...z').
+     */
+    private static String toLowerCaseAscii(String label) {
+        char[] chars = label.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] = (char) (chars[i] + ('a' - 'A'));
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Split a lowercase text into its distinct runs of letters and digits.
+     */
+    private static Set<String> tokenize(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        if (text == null) {
+            return result;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                result.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static int compareSuffixes(String a, int aOffset, String b, int bOffset) {
+        int length = Math.min(a.length() - aOffset, b.length() - bOffset);
+        for (int i = 0; i < length; i++) {
+            int difference = a.charAt(aOffset + i) - b.charAt(bOffset + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return (a.length() - aOffset) - (b.length() - bOffset);
+    }
+
+    /**
+     * @return the number of concepts in the vocabulary
+     */
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * @return the delimiter used in the hierarchy strings
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Find a concept by its id.
+     *
+     * @param id the id of the concept
+     * @return the number of the first concept with the given id, or -1 if there is none
+     */
+    public int findById(String id) {
+        Integer number = id == null ? null : byId.get(id);
+        return number == null ? -1 : number;
+    }
+
+    /**
+     * Find the concepts whose label contains the last of the given texts, and which are below concepts whose labels
+     * contain the texts before it, in the same order. The comparison ignores case.
+     *
+     * @param texts the texts, from the top of the hierarchy down
+     * @return the numbers of the concepts, in document order
+     */
+    public int[] findContaining(String[] texts) {
+        String[] lowerTexts = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            lowerTexts[i] = texts[i].toLowerCase(Locale.ROOT);
+        }
+        BitSet candidates = findContaining(lowerTexts[lowerTexts.length - 1]);
+        List<Integer> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (hasAncestors(i, lowerTexts, false)) {
+                result.add(i);
+            }
+        }
+        return toArray(result);
+    }
+
+    /**
+     * Find the concepts whose label is the last of the given labels, and which are below concepts with the labels
+     * before it, in the same order.
+     *
+     * @param labels the labels, from the top of the hierarchy down
+     * @return the numbers of the concepts, in document order
+     */
+    public int[] findByLabels(String[] labels) {
+        int[] candidates = byLabel.getOrDefault(labels[labels.length - 1], NONE);
+        List<Integer> result = new ArrayList<>();
+        for (int candidate : candidates) {
+            if (hasAncestors(candidate, labels, true)) {
+                result.add(candidate);
+            }
+        }
+        return toArray(result);
+    }
+
+    /**
+     * Check whether the ancestors of a concept match all but the last text, in the same order.
+     */
+    private boolean hasAncestors(int concept, String[] texts, boolean exact) {
+        int remaining = texts.length - 2;
+        for (int ancestor = parents[concept]; ancestor >= 0 && remaining >= 0; ancestor = parents[ancestor]) {
+            boolean matches;
+            if (exact) {
+                matches = texts[remaining].equals(labels[ancestor]);
+            } else {
+                matches = lowerLabels[ancestor] == null ? texts[remaining].isEmpty()
+                    : lowerLabels[ancestor].contains(texts[remaining]);
+            }
+            if (matches) {
+                remaining--;
+            }
+        }
+        return remaining < 0;
+    }
+
+    /**
+     * Find the concepts whose lowercase label contains the given lowercase text.
+     */
+    private BitSet findContaining(String lowerText) {
+        BitSet result = new BitSet(size());
+        String longest = "";
+        for (String token : tokenize(lowerText)) {
+            if (token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        if (longest.isEmpty()) {
+            // nothing to look up in the index, check all labels
+            for (int i = 0; i < size(); i++) {
+                if (lowerLabels[i] == null ? lowerText.isEmpty() : lowerLabels[i].contains(lowerText)) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+
+        BitSet matchingTokens = new BitSet(tokens.length);
+        for (int s = firstSuffix(longest); s < suffixTokens.length
+            && tokens[suffixTokens[s]].startsWith(longest, suffixOffsets[s]); s++) {
+            matchingTokens.set(suffixTokens[s]);
+        }
+        for (int t = matchingTokens.nextSetBit(0); t >= 0; t = matchingTokens.nextSetBit(t + 1)) {
+            for (int concept : postings[t]) {
+                result.set(concept);
+            }
+        }
+        if (!longest.equals(lowerText)) {
+            // the longest token only gives the candidates, the labels have to contain the whole text
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                if (!lowerLabels[i].contains(lowerText)) {
+                    result.clear(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the position of the first suffix which isn't smaller than the given text
+     */
+    private int firstSuffix(String text) {
+        int low = 0;
+        int high = suffixTokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareSuffixes(tokens[suffixTokens[middle]], suffixOffsets[middle], text, 0) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the label of the concept, or null if it has none
+     */
+    public String getLabel(int concept) {
+        return labels[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the id of the concept, or null if it has none
+     */
+    public String getId(int concept) {
+        return ids[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the note of the concept, or null if it has none
+     */
+    public String getNote(int concept) {
+        return notes[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the labels from the root down to the concept, joined by the delimiter
+     */
+    public String getHierarchy(int concept) {
+        return hierarchies[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return whether the concept can be selected
+     */
+    public boolean isSelectable(int concept) {
+        return selectable[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the number of the parent concept, or -1 for the root
+     */
+    public int getParent(int concept) {
+        return parents[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the numbers of the child concepts, in document order
+     */
+    public int[] getChildren(int concept) {
+        return children[concept];
+    }
+}
@@ -8,16 +8,12 @@
 package org.dspace.content.authority;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -25,9 +21,6 @@ import org.apache.logging.log4j.Logger;
 import org.dspace.core.SelfNamedPlugin;
 import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 /**
  * ChoiceAuthority source that reads the JSPUI-style hierarchical vocabularies
@@ -53,22 +46,20 @@ import org.xml.sax.InputSource;
  * # Delimiter to use when building hierarchy strings. Default: "::"
  * }
  *
+ * The vocabularies are not searched in the XML document: each file is loaded
+ * once into a {@link ControlledVocabularyIndex}, which is shared by all
+ * instances and loaded again when the file changes.
+ *
  * @author Michael B. Klein
  */
 
 public class DSpaceControlledVocabulary extends SelfNamedPlugin implements HierarchicalAuthority {
 
     private static Logger log = org.apache.logging.log4j.LogManager.getLogger(DSpaceControlledVocabulary.class);
-    protected static String xpathTemplate = "//node[contains(translate(@label,'ABCDEFGHIJKLMNOPQRSTUVWXYZ'," +
-        "'abcdefghijklmnopqrstuvwxyz'),'%s')]";
-    protected static String idTemplate = "//node[@id = '%s']";
-    protected static String labelTemplate = "//node[@label = '%s']";
-    protected static String idParentTemplate = "//node[@id = '%s']/parent::isComposedBy/parent::node";
-    protected static String rootTemplate = "/node";
     protected static String pluginNames[] = null;
 
     protected String vocabularyName = null;
-    protected InputSource vocabulary = null;
+    protected File vocabularyFile = null;
     protected Boolean suggestHierarchy = false;
     protected Boolean storeHierarchy = true;
     protected String hierarchyDelimiter = "::";
@@ -115,7 +106,7 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
     }
 
     protected void init() {
-        if (vocabulary == null) {
+        if (vocabularyFile == null) {
             ConfigurationService config = DSpaceServicesFactory.getInstance().getConfigurationService();
 
             log.info("Initializing " + this.getClass().getName());
@@ -131,71 +122,47 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
             }
             String filename = vocabulariesPath + vocabularyName + ".xml";
             log.info("Loading " + filename);
-            vocabulary = new InputSource(filename);
+            vocabularyFile = new File(filename);
         }
     }
 
-    protected String buildString(Node node) {
-        if (node.getNodeType() == Node.DOCUMENT_NODE) {
-            return ("");
-        } else {
-            String parentValue = buildString(node.getParentNode());
-            Node currentLabel = node.getAttributes().getNamedItem("label");
-            if (currentLabel != null) {
-                String currentValue = currentLabel.getNodeValue();
-                if (parentValue.equals("")) {
-                    return currentValue;
-                } else {
-                    return (parentValue + this.hierarchyDelimiter + currentValue);
-                }
-            } else {
-                return (parentValue);
-            }
+    /**
+     * Get the index of the vocabulary, which is loaded when it is first used and whenever the file changes.
+     *
+     * @return the index, or null if the vocabulary can't be loaded
+     */
+    protected ControlledVocabularyIndex getIndex() {
+        init();
+        try {
+            return ControlledVocabularyIndex.get(vocabularyFile, hierarchyDelimiter);
+        } catch (IOException e) {
+            log.error("Unable to load the controlled vocabulary " + vocabularyName, e);
+            return null;
         }
     }
 
     @Override
     public Choices getMatches(String text, int start, int limit, String locale) {
-        init();
         log.debug("Getting matches for '" + text + "'");
-        String xpathExpression = "";
-        String[] textHierarchy = text.split(hierarchyDelimiter, -1);
-        for (int i = 0; i < textHierarchy.length; i++) {
-            xpathExpression += String.format(xpathTemplate, textHierarchy[i].replaceAll("'", "&apos;").toLowerCase());
-        }
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        int total = 0;
-        List<Choice> choices = new ArrayList<Choice>();
-        try {
-            NodeList results = (NodeList) xpath.evaluate(xpathExpression, vocabulary, XPathConstants.NODESET);
-            total = results.getLength();
-            choices = getChoicesFromNodeList(results, start, limit);
-        } catch (XPathExpressionException e) {
-            log.warn(e.getMessage(), e);
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
             return new Choices(true);
         }
-        return new Choices(choices.toArray(new Choice[choices.size()]), start, total, Choices.CF_AMBIGUOUS,
-                total > start + limit);
+        int[] results = index.findContaining(text.split(hierarchyDelimiter, -1));
+        List<Choice> choices = getChoices(index, results, start, limit);
+        return new Choices(choices.toArray(new Choice[choices.size()]), start, results.length, Choices.CF_AMBIGUOUS,
+                results.length > start + limit);
     }
 
     @Override
     public Choices getBestMatch(String text, String locale) {
-        init();
         log.debug("Getting best matches for '" + text + "'");
-        String xpathExpression = "";
-        String[] textHierarchy = text.split(hierarchyDelimiter, -1);
-        for (int i = 0; i < textHierarchy.length; i++) {
-            xpathExpression += String.format(labelTemplate, textHierarchy[i].replaceAll("'", "&apos;"));
-        }
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        List<Choice> choices = new ArrayList<Choice>();
-        try {
-            NodeList results = (NodeList) xpath.evaluate(xpathExpression, vocabulary, XPathConstants.NODESET);
-            choices = getChoicesFromNodeList(results, 0, 1);
-        } catch (XPathExpressionException e) {
-            log.warn(e.getMessage(), e);
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
             return new Choices(true);
         }
+        int[] results = index.findByLabels(text.split(hierarchyDelimiter, -1));
+        List<Choice> choices = getChoices(index, results, 0, 1);
         return new Choices(choices.toArray(new Choice[choices.size()]), 0, choices.size(), Choices.CF_AMBIGUOUS, false);
     }
 
@@ -211,13 +178,11 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
 
     @Override
     public Choice getChoice(String authKey, String locale) {
-        Node node;
-        try {
-            node = getNode(authKey);
-        } catch (XPathExpressionException e) {
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
             return null;
         }
-        return createChoiceFromNode(node);
+        return createChoice(index, index.findById(authKey));
     }
 
     @Override
@@ -227,29 +192,33 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
 
     @Override
     public Choices getTopChoices(String authorityName, int start, int limit, String locale) {
-        init();
-        String xpathExpression = rootTemplate;
-        return getChoicesByXpath(xpathExpression, start, limit);
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
+            return new Choices(true);
+        }
+        return getChildChoices(index, ControlledVocabularyIndex.ROOT, start, limit);
     }
 
     @Override
     public Choices getChoicesByParent(String authorityName, String parentId, int start, int limit, String locale) {
-        init();
-        String xpathExpression = String.format(idTemplate, parentId);
-        return getChoicesByXpath(xpathExpression, start, limit);
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
+            return new Choices(true);
+        }
+        return getChildChoices(index, index.findById(parentId), start, limit);
     }
 
     @Override
     public Choice getParentChoice(String authorityName, String childId, String locale) {
-        init();
-        try {
-            String xpathExpression = String.format(idParentTemplate, childId);
-            Choice choice = createChoiceFromNode(getNodeFromXPath(xpathExpression));
-            return choice;
-        } catch (XPathExpressionException e) {
-            log.error(e.getMessage(), e);
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
+            return null;
+        }
+        int child = index.findById(childId);
+        if (child < 0) {
             return null;
         }
+        return createChoice(index, index.getParent(child));
     }
 
     @Override
@@ -257,46 +226,29 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
         return preloadLevel;
     }
 
-    private boolean isRootElement(Node node) {
-        if (node != null && node.getOwnerDocument().getDocumentElement().equals(node)) {
-            return true;
+    private List<Choice> getChoices(ControlledVocabularyIndex index, int[] results, int start, int limit) {
+        List<Choice> choices = new ArrayList<Choice>();
+        for (int i = start; i < results.length && choices.size() < limit; i++) {
+            choices.add(buildChoice(index, results[i]));
         }
-        return false;
-    }
-
-    private Node getNode(String key) throws XPathExpressionException {
-        init();
-        String xpathExpression = String.format(idTemplate, key);
-        Node node = getNodeFromXPath(xpathExpression);
-        return node;
-    }
-
-    private Node getNodeFromXPath(String xpathExpression) throws XPathExpressionException {
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        Node node = (Node) xpath.evaluate(xpathExpression, vocabulary, XPathConstants.NODE);
-        return node;
+        return choices;
     }
 
-    private List<Choice> getChoicesFromNodeList(NodeList results, int start, int limit) {
+    private Choices getChildChoices(ControlledVocabularyIndex index, int parent, int start, int limit) {
+        if (parent < 0) {
+            return new Choices(false);
+        }
+        int[] children = index.getChildren(parent);
         List<Choice> choices = new ArrayList<Choice>();
-        for (int i = 0; i < results.getLength(); i++) {
-            if (i < start) {
-                continue;
-            }
-            if (choices.size() == limit) {
-                break;
-            }
-            Node node = results.item(i);
-            Choice choice = new Choice(getAuthority(node), getLabel(node), getValue(node),
-                    isSelectable(node));
-            choice.extras = addOtherInformation(getParent(node), getNote(node), getChildren(node), getAuthority(node));
-            choices.add(choice);
+        for (int i = start; i < children.length && choices.size() < limit; i++) {
+            choices.add(createChoice(index, children[i]));
         }
-        return choices;
+        return new Choices(choices.toArray(new Choice[choices.size()]), start, children.length,
+                Choices.CF_AMBIGUOUS, false);
     }
 
     private Map<String, String> addOtherInformation(String parentCurr, String noteCurr,
-            List<String> childrenCurr, String authorityCurr) {
+            boolean hasChildren, String authorityCurr) {
         Map<String, String> extras = new HashMap<String, String>();
         if (StringUtils.isNotBlank(parentCurr)) {
             extras.put("parent", parentCurr);
@@ -304,7 +256,7 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
         if (StringUtils.isNotBlank(noteCurr)) {
             extras.put("note", noteCurr);
         }
-        if (childrenCurr.size() > 0) {
+        if (hasChildren) {
             extras.put("hasChildren", "true");
         } else {
             extras.put("hasChildren", "false");
@@ -314,140 +266,59 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
     }
 
     private String getNodeLabel(String key, boolean useHierarchy) {
-        try {
-            Node node = getNode(key);
-            if (Objects.isNull(node)) {
-                return null;
-            }
-            if (useHierarchy) {
-                return this.buildString(node);
-            } else {
-                return node.getAttributes().getNamedItem("label").getNodeValue();
-            }
-        } catch (XPathExpressionException e) {
-            return ("");
+        ControlledVocabularyIndex index = getIndex();
+        if (index == null) {
+            return "";
+        }
+        int node = index.findById(key);
+        if (node < 0) {
+            return null;
+        }
+        if (useHierarchy) {
+            return index.getHierarchy(node);
+        } else {
+            return index.getLabel(node);
         }
     }
 
-    private String getLabel(Node node) {
-        String hierarchy = this.buildString(node);
+    private String getLabel(ControlledVocabularyIndex index, int node) {
         if (this.suggestHierarchy) {
-            return hierarchy;
+            return index.getHierarchy(node);
         } else {
-            return node.getAttributes().getNamedItem("label").getNodeValue();
+            return index.getLabel(node);
         }
     }
 
-    private String getValue(Node node) {
-        String hierarchy = this.buildString(node);
+    private String getValue(ControlledVocabularyIndex index, int node) {
         if (this.storeHierarchy) {
-            return hierarchy;
+            return index.getHierarchy(node);
         } else {
-            return node.getAttributes().getNamedItem("label").getNodeValue();
+            return index.getLabel(node);
         }
     }
 
-    private String getNote(Node node) {
-        NodeList childNodes = node.getChildNodes();
-        for (int ci = 0; ci < childNodes.getLength(); ci++) {
-            Node firstChild = childNodes.item(ci);
-            if (firstChild != null && "hasNote".equals(firstChild.getNodeName())) {
-                String nodeValue = firstChild.getTextContent();
-                if (StringUtils.isNotBlank(nodeValue)) {
-                    return nodeValue;
-                }
-            }
+    private String getParent(ControlledVocabularyIndex index, int node) {
+        int parent = index.getParent(node);
+        if (parent >= 0 && parent != ControlledVocabularyIndex.ROOT) {
+            return index.getHierarchy(parent);
         }
         return null;
     }
 
-    private List<String> getChildren(Node node) {
-        List<String> children = new ArrayList<String>();
-        NodeList childNodes = node.getChildNodes();
-        for (int ci = 0; ci < childNodes.getLength(); ci++) {
-            Node firstChild = childNodes.item(ci);
-            if (firstChild != null && "isComposedBy".equals(firstChild.getNodeName())) {
-                for (int cii = 0; cii < firstChild.getChildNodes().getLength(); cii++) {
-                    Node childN = firstChild.getChildNodes().item(cii);
-                    if (childN != null && "node".equals(childN.getNodeName())) {
-                        Node childIdAttr = childN.getAttributes().getNamedItem("id");
-                        if (null != childIdAttr) {
-                            children.add(childIdAttr.getNodeValue());
-                        }
-                    }
-                }
-                break;
-            }
-        }
-        return children;
-    }
-
-    private boolean isSelectable(Node node) {
-        Node selectableAttr = node.getAttributes().getNamedItem("selectable");
-        if (null != selectableAttr) {
-            return Boolean.valueOf(selectableAttr.getNodeValue());
-        } else { // Default is true
-            return true;
-        }
-    }
-
-    private String getParent(Node node) {
-        Node parentN = node.getParentNode();
-        if (parentN != null) {
-            parentN = parentN.getParentNode();
-            if (parentN != null && !isRootElement(parentN)) {
-                return buildString(parentN);
-            }
-        }
-        return null;
-    }
-
-    private String getAuthority(Node node) {
-        Node idAttr = node.getAttributes().getNamedItem("id");
-        if (null != idAttr) { // 'id' is optional
-            return idAttr.getNodeValue();
-        } else {
-            return null;
-        }
-    }
-
-    private Choices getChoicesByXpath(String xpathExpression, int start, int limit) {
-        List<Choice> choices = new ArrayList<Choice>();
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        try {
-            Node parentNode = (Node) xpath.evaluate(xpathExpression, vocabulary, XPathConstants.NODE);
-            int count = 0;
-            if (parentNode != null) {
-                NodeList childNodes = (NodeList) xpath.evaluate(".//isComposedBy", parentNode, XPathConstants.NODE);
-                if (null != childNodes) {
-                    for (int i = 0; i < childNodes.getLength(); i++) {
-                        Node childNode = childNodes.item(i);
-                        if (childNode != null && "node".equals(childNode.getNodeName())) {
-                            if (count < start || choices.size() >= limit) {
-                                count++;
-                                continue;
-                            }
-                            count++;
-                            choices.add(createChoiceFromNode(childNode));
-                        }
-                    }
-                }
-                return new Choices(choices.toArray(new Choice[choices.size()]), start, count,
-                        Choices.CF_AMBIGUOUS, false);
-            }
-        } catch (XPathExpressionException e) {
-            log.warn(e.getMessage(), e);
-            return new Choices(true);
-        }
-        return new Choices(false);
+    private Choice buildChoice(ControlledVocabularyIndex index, int node) {
+        Choice choice = new Choice(index.getId(node), getLabel(index, node), getValue(index, node),
+                index.isSelectable(node));
+        choice.extras = addOtherInformation(getParent(index, node), index.getNote(node),
+                index.getChildren(node).length > 0, index.getId(node));
+        return choice;
     }
 
-    private Choice createChoiceFromNode(Node node) {
-        if (node != null && !isRootElement(node)) {
-            Choice choice = new Choice(getAuthority(node), getLabel(node), getValue(node),
-                    isSelectable(node));
-            choice.extras = addOtherInformation(getParent(node), getNote(node),getChildren(node), getAuthority(node));
-            return choice;
+    /**
+     * Build the choice of a concept, unless it is the root of the vocabulary.
+     */
+    private Choice createChoice(ControlledVocabularyIndex index, int node) {
+        if (node >= 0 && node != ControlledVocabularyIndex.ROOT) {
+            return buildChoice(index, node);
         }
         return null;
     }
@@ -34,6 +34,20 @@ public interface ItemDAO extends DSpaceObjectLegacySupportDAO<Item> {
 
     public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn) throws SQLException;
 
+    /**
+     * Find all Items (archived or withdrawn) whose UUID lies within the given range.
+     *
+     * @param context    Context
+     * @param archived   whether to include archived items
+     * @param withdrawn  whether to include withdrawn items
+     * @param lowerBound the lowest UUID to include (inclusive)
+     * @param upperBound the highest UUID to include (inclusive)
+     * @return iterator over the items in the range
+     * @throws SQLException if database error
+     */
+    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn, UUID lowerBound,
+                                  UUID upperBound) throws SQLException;
+
     /**
      * Find all Items modified since a Date.
      *
@@ -76,6 +90,16 @@ public interface ItemDAO extends DSpaceObjectLegacySupportDAO<Item> {
     public Iterator<Item> findArchivedByCollection(Context context, Collection collection, Integer limit,
                                                    Integer offset) throws SQLException;
 
+    /**
+     * Find the IDs of all the archived items in a collection, without loading the items.
+     *
+     * @param context    context
+     * @param collection the collection
+     * @return the IDs of the items
+     * @throws SQLException if database error
+     */
+    public List<UUID> findArchivedIdsByCollection(Context context, Collection collection) throws SQLException;
+
     /**
      * Returns all the Items in an iterator that are archived and for which the given Collection is part of the Item's
      * Collections but it is not the owning collection
@@ -133,6 +157,17 @@ public interface ItemDAO extends DSpaceObjectLegacySupportDAO<Item> {
     public int countItems(Context context, List<Collection> collections, boolean includeArchived,
                           boolean includeWithdrawn) throws SQLException;
 
+    /**
+     * Count the unique archived, discoverable and not withdrawn items across several collections at once: the
+     * items which are shown in the container item counts.
+     *
+     * @param context     context
+     * @param collections the list of collections
+     * @return item count
+     * @throws SQLException if database error
+     */
+    public int countDiscoverableItems(Context context, List<Collection> collections) throws SQLException;
+
     /**
      * Get all Items installed or withdrawn, discoverable, and modified since a Date.
      *
@@ -181,4 +216,15 @@ public interface ItemDAO extends DSpaceObjectLegacySupportDAO<Item> {
     public int countItems(Context context, EPerson submitter, boolean includeArchived, boolean includeWithdrawn)
         throws SQLException;
 
+    /**
+     * Find the items with the given IDs, with their metadata loaded by the same query. The metadata of those items
+     * which are already loaded in the session is initialized as well.
+     *
+     * @param context context
+     * @param ids     the IDs of the items
+     * @return the items which were found, in no particular order
+     * @throws SQLException if database error
+     */
+    public List<Item> findWithMetadata(Context context, List<UUID> ids) throws SQLException;
+
 }
@@ -10,8 +10,10 @@ package org.dspace.content.dao.impl;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
@@ -19,6 +21,7 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
+import com.google.common.collect.Lists;
 import org.apache.logging.log4j.Logger;
 import org.dspace.content.Collection;
 import org.dspace.content.Item;
@@ -77,6 +80,18 @@ public class ItemDAOImpl extends AbstractHibernateDSODAO<Item> implements ItemDA
         return iterate(query);
     }
 
+    @Override
+    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn, UUID lowerBound,
+                                  UUID upperBound) throws SQLException {
+        Query query = createQuery(context, "FROM Item WHERE (inArchive= :in_archive or withdrawn = :withdrawn)"
+            + " AND id >= :lower_bound AND id <= :upper_bound");
+        query.setParameter("in_archive", archived);
+        query.setParameter("withdrawn", withdrawn);
+        query.setParameter("lower_bound", lowerBound);
+        query.setParameter("upper_bound", upperBound);
+        return iterate(query);
+    }
+
     @Override
     public Iterator<Item> findAll(Context context, boolean archived,
                                   boolean withdrawn, boolean discoverable, Date lastModified)
@@ -298,6 +313,18 @@ public class ItemDAOImpl extends AbstractHibernateDSODAO<Item> implements ItemDA
         return iterate(query);
     }
 
+    @Override
+    public List<UUID> findArchivedIdsByCollection(Context context, Collection collection) throws SQLException {
+        Query query = createQuery(context,
+              "select i.id from Item i join i.collections c " +
+              "WHERE :collection IN c AND i.inArchive=:in_archive");
+        query.setParameter("collection", collection);
+        query.setParameter("in_archive", true);
+        @SuppressWarnings("unchecked")
+        List<UUID> ids = query.getResultList();
+        return ids;
+    }
+
     @Override
     public Iterator<Item> findArchivedByCollectionExcludingOwning(Context context, Collection collection, Integer limit,
                                                                   Integer offset) throws SQLException {
@@ -378,6 +405,34 @@ public class ItemDAOImpl extends AbstractHibernateDSODAO<Item> implements ItemDA
         return count(query);
     }
 
+    @Override
+    public int countDiscoverableItems(Context context, List<Collection> collections) throws SQLException {
+        if (collections.size() == 0) {
+            return 0;
+        }
+        if (collections.size() <= 1000) {
+            Query query = createQuery(context, "select count(distinct i) from Item i " +
+                "join i.collections collection " +
+                "WHERE collection IN (:collections) AND i.inArchive=true AND i.withdrawn=false " +
+                "AND i.discoverable=true");
+            query.setParameter("collections", collections);
+
+            return count(query);
+        }
+        // some databases limit the size of an IN list to 1000: the items mapped to collections of several batches
+        // must only be counted once
+        Set<UUID> items = new HashSet<>();
+        for (List<Collection> batch : Lists.partition(collections, 1000)) {
+            Query query = createQuery(context, "select distinct i.id from Item i " +
+                "join i.collections collection " +
+                "WHERE collection IN (:collections) AND i.inArchive=true AND i.withdrawn=false " +
+                "AND i.discoverable=true");
+            query.setParameter("collections", batch);
+            items.addAll(query.getResultList());
+        }
+        return items.size();
+    }
+
     @Override
     public Iterator<Item> findByLastModifiedSince(Context context, Date since)
         throws SQLException {
@@ -413,4 +468,12 @@ public class ItemDAOImpl extends AbstractHibernateDSODAO<Item> implements ItemDA
         return count(query);
 
     }
+
+    @Override
+    public List<Item> findWithMetadata(Context context, List<UUID> ids) throws SQLException {
+        Query query = createQuery(context,
+                "SELECT DISTINCT i FROM Item i LEFT JOIN FETCH i.metadata WHERE i.id IN (:ids)");
+        query.setParameter("ids", ids);
+        return list(query);
+    }
 }
@@ -40,6 +40,9 @@ public class RelationshipDAOImpl extends AbstractHibernateDAO<Relationship> impl
         CriteriaQuery criteriaQuery = getCriteriaQuery(criteriaBuilder, Relationship.class);
         Root<Relationship> relationshipRoot = criteriaQuery.from(Relationship.class);
         criteriaQuery.select(relationshipRoot);
+        // load the items on both sides with the relationships, instead of with a query per relationship
+        relationshipRoot.fetch(Relationship_.leftItem);
+        relationshipRoot.fetch(Relationship_.rightItem);
         if (excludeTilted) {
             // If this item is the left item,
             //    return relationships for types which are not tilted right (tilted is either left nor null)
@@ -23,6 +23,7 @@ import org.dspace.content.Collection;
 import org.dspace.content.Community;
 import org.dspace.content.Item;
 import org.dspace.core.Context;
+import org.dspace.storage.bitstore.StoredContent;
 
 /**
  * Service interface class for the Bitstream object.
@@ -101,6 +102,21 @@ public interface BitstreamService extends DSpaceObjectService<Bitstream>, DSpace
     public Bitstream register(Context context, Bundle bundle, int assetstore, String bitstreamPath)
         throws IOException, SQLException, AuthorizeException;
 
+    /**
+     * Create a new bitstream, with a new ID, from bits stored ahead with
+     * {@link org.dspace.storage.bitstore.service.BitstreamStorageService#store(InputStream)}.
+     * The newly created bitstream has the "unknown" format.
+     *
+     * @param context DSpace context object
+     * @param bundle  The bundle in which our bitstream should be added.
+     * @param content the stored bits
+     * @return the newly created bitstream
+     * @throws SQLException       if database error
+     * @throws AuthorizeException if authorization error
+     */
+    public Bitstream create(Context context, Bundle bundle, StoredContent content)
+        throws SQLException, AuthorizeException;
+
     /**
      * Register a new bitstream, with a new ID.  The checksum and file size
      * are calculated. The newly created bitstream has the "unknown"
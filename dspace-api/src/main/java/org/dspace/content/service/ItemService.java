@@ -101,6 +101,18 @@ public interface ItemService
      */
     public Iterator<Item> findAllUnfiltered(Context context) throws SQLException;
 
+    /**
+     * Get all "final" items in the archive (archived or withdrawn) whose UUID lies
+     * within the given range. The order of the list is indeterminate.
+     *
+     * @param context    DSpace context object
+     * @param lowerBound the lowest UUID to include (inclusive)
+     * @param upperBound the highest UUID to include (inclusive)
+     * @return an iterator over the items in the range.
+     * @throws SQLException if database error
+     */
+    public Iterator<Item> findAllUnfiltered(Context context, UUID lowerBound, UUID upperBound) throws SQLException;
+
     /**
      * Find all the items in the archive by a given submitter. The order is
      * indeterminate. Only items with the "in archive" flag set are included.
@@ -150,6 +162,17 @@ public interface ItemService
      */
     public Iterator<Item> findByCollection(Context context, Collection collection) throws SQLException;
 
+    /**
+     * Get the IDs of all the archived items in this collection, without loading the items. The order is
+     * indeterminate.
+     *
+     * @param context    DSpace context object
+     * @param collection Collection (parent)
+     * @return the IDs of the items in the collection.
+     * @throws SQLException if database error
+     */
+    public List<UUID> findIdsByCollection(Context context, Collection collection) throws SQLException;
+
     /**
      * Get all the archived items in this collection. The order is indeterminate.
      *
@@ -634,6 +657,26 @@ public interface ItemService
      */
     public int countItems(Context context, Community community) throws SQLException;
 
+    /**
+     * counts the archived, discoverable and not withdrawn items in the given collection
+     *
+     * @param context    DSpace context object
+     * @param collection Collection
+     * @return total items
+     * @throws SQLException if database error
+     */
+    public int countDiscoverableItems(Context context, Collection collection) throws SQLException;
+
+    /**
+     * counts the unique archived, discoverable and not withdrawn items in the given community
+     *
+     * @param context   DSpace context object
+     * @param community Community
+     * @return total items
+     * @throws SQLException if database error
+     */
+    public int countDiscoverableItems(Context context, Community community) throws SQLException;
+
     /**
      * counts all items in the given community including withdrawn
      *
@@ -741,4 +784,14 @@ public interface ItemService
     public List<MetadataValue> getMetadata(Item item, String schema, String element, String qualifier,
                                            String lang, boolean enableVirtualMetadata);
 
+    /**
+     * Load the metadata of the given items with a query per batch of items, instead of a query per item when their
+     * metadata is first read. Items whose metadata is already loaded are skipped.
+     *
+     * @param context DSpace context object
+     * @param items   the items
+     * @throws SQLException if database error
+     */
+    public void loadMetadata(Context context, Iterable<Item> items) throws SQLException;
+
 }
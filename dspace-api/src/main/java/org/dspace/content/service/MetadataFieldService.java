@@ -13,6 +13,7 @@ import java.util.List;
 
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.content.MetadataField;
+import org.dspace.content.MetadataRegistrySnapshot;
 import org.dspace.content.MetadataSchema;
 import org.dspace.content.NonUniqueMetadataException;
 import org.dspace.core.Context;
@@ -81,6 +82,39 @@ public interface MetadataFieldService {
      */
     public MetadataField findByString(Context context, String mdString, char separator) throws SQLException;
 
+    /**
+     * Return the snapshot of the metadata registry, loading it if it isn't loaded yet or the registry changed since.
+     * The snapshot maps the keys of the fields and the names of the schemas to their IDs, without querying the
+     * database. It is loaded with a context of its own, so it only holds committed changes.
+     *
+     * @param context dspace context
+     * @return the snapshot of the registry
+     * @throws SQLException if database error
+     */
+    public MetadataRegistrySnapshot getRegistrySnapshot(Context context) throws SQLException;
+
+    /**
+     * Discard the snapshot of the metadata registry, so that it is loaded again by the next lookup. This is done when
+     * other cluster nodes changed metadata fields or schemas.
+     */
+    public void clearRegistrySnapshot();
+
+    /**
+     * Discard the snapshot of the metadata registry once the changes of the context are committed. This is done when
+     * metadata fields or schemas are created, updated or deleted.
+     *
+     * @param context dspace context
+     */
+    public void clearRegistrySnapshot(Context context);
+
+    /**
+     * Discard a snapshot of the metadata registry which a lookup found out of date, unless it has just been loaded:
+     * the registry may have been changed by another process, or by a transaction which isn't committed yet.
+     *
+     * @param snapshot the snapshot
+     */
+    public void discardOutdatedSnapshot(MetadataRegistrySnapshot snapshot);
+
     public List<MetadataField> findFieldsByElementNameUnqualified(Context context, String metadataSchema,
                                                                   String element)
         throws SQLException;
@@ -146,6 +146,23 @@ public class Related implements VirtualMetadataConfiguration {
      */
     @Override
     public List<String> getValues(Context context, Item item) throws SQLException {
+        Item otherItem = findRelatedItem(context, item);
+        if (otherItem == null) {
+            //Return an empty list if no relationships were found
+            return new LinkedList<>();
+        }
+        return virtualMetadataConfiguration.getValues(context, otherItem);
+    }
+
+    /**
+     * This method will find the correct Relationship from the given item and return the other item from it, which
+     * is the item passed along to the next VirtualBean that's stored in this class.
+     * @param context   The relevant DSpace context
+     * @param item      The item that will be used to find the related item through its relationships
+     * @return          The related item, or null if no relationships are found
+     * @throws SQLException If something goes wrong
+     */
+    public Item findRelatedItem(Context context, Item item) throws SQLException {
         Entity entity = entityService.findByItemId(context, item.getID());
         EntityType entityType = entityService.getType(context, entity);
 
@@ -166,19 +183,15 @@ public class Related implements VirtualMetadataConfiguration {
         for (Relationship relationship : relationships) {
             if (relationship.getRelationshipType().getLeftType().equals(entityType)) {
                 if (place == null || relationship.getLeftPlace() == place) {
-                    Item otherItem = relationship.getRightItem();
-                    return virtualMetadataConfiguration.getValues(context, otherItem);
+                    return relationship.getRightItem();
                 }
             } else if (relationship.getRelationshipType().getRightType().equals(entityType)) {
                 if (place == null || relationship.getRightPlace() == place) {
-                    Item otherItem = relationship.getLeftItem();
-                    return virtualMetadataConfiguration.getValues(context, otherItem);
+                    return relationship.getLeftItem();
                 }
             }
         }
-
-        //Return an empty list if no relationships were found
-        return new LinkedList<>();
+        return null;
     }
 
 }
@@ -0,0 +1,300 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.virtual;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.content.RelationshipMetadataValue;
+import org.dspace.services.ConfigurationService;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * The relationship metadata (including the virtual metadata) of items, shared by all Contexts, so that entities with
+ * many relationships don't resolve the metadata of all their related items on every request.
+ * <p>
+ * The cache only holds the IDs of the metadata fields and the values themselves, which are turned into new
+ * {@link RelationshipMetadataValue}s of the item for every use. Every entry records the items it was built from (the
+ * related items, and the items found through {@link Related} configurations). The
+ * {@link VirtualMetadataCacheConsumer} removes the entries of changed items and of the items which depend on them.
+ * Relationship changes update the items on both sides, so they are covered by the same events. Updating an item also
+ * removes its entries immediately, before the events are dispatched.
+ * <p>
+ * Events are dispatched before the changes are committed, so for a few seconds after a change no entries are cached
+ * for the items involved. An entry built while an invalidation happened is not cached either. Entries are kept for a
+ * limited time, which bounds how long changes made by other processes (e.g. command line tools, or other nodes of a
+ * cluster) or changes which were rolled back may go unnoticed. The cache is disabled by default.
+ */
+public class VirtualMetadataCache implements InitializingBean {
+
+    private static final Logger log = LogManager.getLogger(VirtualMetadataCache.class);
+
+    /**
+     * The time (in milliseconds) during which no entries are cached for invalidated items, to cover the time
+     * between dispatching the events and committing the transaction.
+     */
+    protected static final long SETTLE_TIME = 5000;
+
+    @Autowired(required = true)
+    protected ConfigurationService configurationService;
+
+    private boolean enabled;
+    private Cache<Key, Entry> entries;
+
+    /**
+     * Incremented on every invalidation, an entry is only cached if no invalidation happened while it was built
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The items which have recently been invalidated, with the time until which no entries are cached for them
+     */
+    private final Map<UUID, Long> settling = new ConcurrentHashMap<>();
+    private volatile long settlingAllUntil = 0;
+
+    protected VirtualMetadataCache() {
+    }
+
+    /**
+     * Create an enabled cache.
+     *
+     * @param maxEntries the maximum number of items
+     * @param ttl        the maximum time (in seconds) an entry is kept
+     */
+    protected VirtualMetadataCache(long maxEntries, long ttl) {
+        configure(true, maxEntries, ttl);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        configure(configurationService.getBooleanProperty("relationship.virtual-metadata.cache.enabled", false),
+                  configurationService.getLongProperty("relationship.virtual-metadata.cache.max-entries", 1000),
+                  configurationService.getLongProperty("relationship.virtual-metadata.cache.ttl", 300));
+    }
+
+    private void configure(boolean enabled, long maxEntries, long ttl) {
+        this.enabled = enabled && maxEntries > 0 && ttl > 0;
+        if (this.enabled) {
+            entries = CacheBuilder.newBuilder()
+                                  .maximumSize(maxEntries)
+                                  .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                                  .build();
+            log.info("Caching the virtual metadata of up to {} items for {} seconds", maxEntries, ttl);
+        }
+    }
+
+    /**
+     * @return true if virtual metadata is cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the generation of the cache, to pass to {@link #put} once the relationship metadata is built.
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Get the cached relationship metadata of an item.
+     *
+     * @param item                  the ID of the item
+     * @param enableVirtualMetadata whether the metadata includes the virtual metadata
+     * @return the cached values, or null if they aren't cached
+     */
+    public List<CachedValue> get(UUID item, boolean enableVirtualMetadata) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(new Key(item, enableVirtualMetadata));
+        return entry == null ? null : entry.values;
+    }
+
+    /**
+     * Cache the relationship metadata of an item, unless any item it depends on was invalidated while it was built.
+     *
+     * @param item                  the ID of the item
+     * @param enableVirtualMetadata whether the metadata includes the virtual metadata
+     * @param values                the relationship metadata of the item
+     * @param dependencies          the IDs of the items the metadata was built from
+     * @param generation            the generation of the cache before the metadata was built
+     */
+    public void put(UUID item, boolean enableVirtualMetadata, List<RelationshipMetadataValue> values,
+                    Set<UUID> dependencies, long generation) {
+        if (!enabled || generation != this.generation.get()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now < settlingAllUntil || isSettling(item, now)) {
+            return;
+        }
+        for (UUID dependency : dependencies) {
+            if (isSettling(dependency, now)) {
+                return;
+            }
+        }
+        List<CachedValue> cachedValues = new ArrayList<>(values.size());
+        for (RelationshipMetadataValue value : values) {
+            cachedValues.add(new CachedValue(value));
+        }
+        entries.put(new Key(item, enableVirtualMetadata),
+                    new Entry(Collections.unmodifiableList(cachedValues), dependencies));
+    }
+
+    private boolean isSettling(UUID id, long now) {
+        Long until = settling.get(id);
+        return until != null && until > now;
+    }
+
+    /**
+     * Remove the entries of the given items, and of the items whose relationship metadata was built from them.
+     *
+     * @param ids the IDs of the items
+     */
+    public void invalidate(Collection<UUID> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        long now = System.currentTimeMillis();
+        settling.values().removeIf(until -> until <= now);
+        for (UUID id : ids) {
+            settling.put(id, now + SETTLE_TIME);
+        }
+        entries.asMap().entrySet().removeIf(entry -> ids.contains(entry.getKey().item)
+            || !Collections.disjoint(entry.getValue().dependencies, ids));
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        settlingAllUntil = System.currentTimeMillis() + SETTLE_TIME;
+        entries.invalidateAll();
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public long size() {
+        return enabled ? entries.size() : 0;
+    }
+
+    /**
+     * A cached relationship metadata value, without the entities it refers to.
+     */
+    public static final class CachedValue {
+        private final int fieldId;
+        private final String value;
+        private final String authority;
+        private final int confidence;
+        private final int place;
+        private final boolean useForPlace;
+        private final boolean ofItem;
+
+        private CachedValue(RelationshipMetadataValue value) {
+            this.fieldId = value.getMetadataField().getID();
+            this.value = value.getValue();
+            this.authority = value.getAuthority();
+            this.confidence = value.getConfidence();
+            this.place = value.getPlace();
+            this.useForPlace = value.isUseForPlace();
+            this.ofItem = value.getDSpaceObject() != null;
+        }
+
+        public int getFieldId() {
+            return fieldId;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        public int getConfidence() {
+            return confidence;
+        }
+
+        public int getPlace() {
+            return place;
+        }
+
+        public boolean isUseForPlace() {
+            return useForPlace;
+        }
+
+        /**
+         * @return true if the value was set on the item, false for the relation.* values
+         */
+        public boolean isOfItem() {
+            return ofItem;
+        }
+    }
+
+    private static final class Key {
+        private final UUID item;
+        private final boolean enableVirtualMetadata;
+
+        private Key(UUID item, boolean enableVirtualMetadata) {
+            this.item = item;
+            this.enableVirtualMetadata = enableVirtualMetadata;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return enableVirtualMetadata == key.enableVirtualMetadata && item.equals(key.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(item, enableVirtualMetadata);
+        }
+    }
+
+    private static final class Entry {
+        private final List<CachedValue> values;
+        private final Set<UUID> dependencies;
+
+        private Entry(List<CachedValue> values, Set<UUID> dependencies) {
+            this.values = values;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.virtual;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Removes the relationship metadata of changed items, and of the items which depend on them, from the
+ * {@link VirtualMetadataCache}.
+ * <p>
+ * Creating, changing or deleting a relationship updates the items on both sides (and the items whose virtual
+ * metadata goes through them), so any event of an item is enough to find the entries to remove.
+ */
+public class VirtualMetadataCacheConsumer implements Consumer {
+
+    private VirtualMetadataCache virtualMetadataCache;
+
+    private Set<UUID> items = new HashSet<>();
+
+    @Override
+    public void initialize() throws Exception {
+        virtualMetadataCache = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServiceByName(VirtualMetadataCache.class.getName(), VirtualMetadataCache.class);
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        if (!virtualMetadataCache.isEnabled()) {
+            return;
+        }
+
+        if (event.getSubjectType() == Constants.ITEM && event.getSubjectID() != null) {
+            items.add(event.getSubjectID());
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        try {
+            virtualMetadataCache.invalidate(items);
+        } finally {
+            items = new HashSet<>();
+        }
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+}
@@ -9,7 +9,10 @@ package org.dspace.core;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EmptyStackException;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -104,6 +107,11 @@ public class Context implements AutoCloseable {
      */
     private LinkedList<Event> events = null;
 
+    /**
+     * Actions to run once the current transaction has been committed
+     */
+    private Set<Runnable> commitActions = null;
+
     /**
      * Event dispatcher name
      */
@@ -430,11 +438,73 @@ public class Context implements AutoCloseable {
             if (dbConnection != null) {
                 // Commit our changes (this closes the transaction but leaves database connection open)
                 dbConnection.commit();
+                runCommitActions();
                 reloadContextBoundEntities();
             }
         }
     }
 
+    /**
+     * Run an action once the current transaction has been committed, e.g. to discard a cache shared by all contexts
+     * only when the changes are visible to the other contexts. The action is dropped if the transaction is rolled
+     * back. An action which is already waiting for the commit isn't added twice.
+     *
+     * @param action the action
+     */
+    public void runAfterCommit(Runnable action) {
+        if (commitActions == null) {
+            commitActions = new LinkedHashSet<>();
+        }
+        commitActions.add(action);
+    }
+
+    /**
+     * Run the actions waiting for the commit of the transaction, a failing action doesn't stop the others
+     */
+    private void runCommitActions() {
+        if (commitActions == null) {
+            return;
+        }
+        Set<Runnable> actions = commitActions;
+        commitActions = null;
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.error("Error running an action after the commit", e);
+            }
+        }
+    }
+
+
+    /**
+     * Roll back the current transaction with the database, discarding any pending changes and events.
+     * The database connection is not closed and can be reused afterwards.
+     *
+     * <b>WARNING: After calling this method all previously fetched entities are "detached" and lose their pending
+     * changes. You have to reload all entities you still want to work with manually after this method call (see
+     * {@link Context#reloadEntity(ReloadableEntity)}).</b>
+     *
+     * @throws SQLException When rolling back the transaction in the database fails.
+     */
+    public void rollback() throws SQLException {
+        // If Context is no longer open/valid, just note that it has already been closed
+        if (!isValid()) {
+            log.info("rollback() was called on a closed Context object. No changes to roll back.");
+            return;
+        }
+
+        try {
+            // Rollback ONLY if we have a database transaction, and it is NOT Read Only
+            if (!isReadOnly() && isTransactionAlive()) {
+                dbConnection.rollback();
+                reloadContextBoundEntities();
+            }
+        } finally {
+            events = null;
+            commitActions = null;
+        }
+    }
 
     /**
      * Dispatch any events (cached in current Context) to configured EventListeners (consumers)
@@ -562,6 +632,7 @@ public class Context implements AutoCloseable {
                 log.error("Error closing the database connection", ex);
             }
             events = null;
+            commitActions = null;
         }
     }
 
@@ -650,6 +721,15 @@ public class Context implements AutoCloseable {
         return myGroups;
     }
 
+    /**
+     * Get the UUIDs of all of the special groups that current user is a member of.
+     *
+     * @return set of special group UUIDs
+     */
+    public Set<UUID> getSpecialGroupUuids() {
+        return CollectionUtils.isEmpty(specialGroups) ? Collections.emptySet() : new HashSet<>(specialGroups);
+    }
+
     /**
      * Temporary change the user bound to the context, empty the special groups that
      * are retained to allow subsequent restore
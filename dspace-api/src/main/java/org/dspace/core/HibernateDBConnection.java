@@ -116,7 +116,8 @@ public class HibernateDBConnection implements DBConnection<Session> {
 
     /**
      * Rollback any changes applied to the current Transaction. This also closes the Transaction. A new Transaction
-     * may be opened the next time getSession() is called.
+     * may be opened the next time getSession() is called. The Session is cleared, as its entities may still hold
+     * the changes which were rolled back.
      * @throws SQLException
      */
     @Override
@@ -124,6 +125,9 @@ public class HibernateDBConnection implements DBConnection<Session> {
         if (isTransActionAlive()) {
             getTransaction().rollback();
         }
+        if (isSessionAlive()) {
+            sessionFactory.getCurrentSession().clear();
+        }
     }
 
     /**
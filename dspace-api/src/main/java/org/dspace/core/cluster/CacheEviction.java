@@ -0,0 +1,68 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import java.util.Objects;
+
+/**
+ * An entity to remove from the Hibernate second level cache of the other nodes of a cluster. The entity is
+ * identified by its class name and the string form of its ID, so that evictions are easily sent between nodes. An
+ * eviction without ID removes all entities of the class.
+ */
+public class CacheEviction {
+
+    private final String entityType;
+    private final String id;
+
+    /**
+     * @param entityType the name of the entity class
+     * @param id         the ID of the entity, or null for all entities of the class
+     */
+    public CacheEviction(String entityType, String id) {
+        this.entityType = entityType;
+        this.id = id;
+    }
+
+    /**
+     * @param entityType the entity class
+     * @param id         the ID of the entity, or null for all entities of the class
+     */
+    public CacheEviction(Class<?> entityType, Object id) {
+        this(entityType.getName(), id == null ? null : id.toString());
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheEviction)) {
+            return false;
+        }
+        CacheEviction other = (CacheEviction) o;
+        return entityType.equals(other.entityType) && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityType, id);
+    }
+
+    @Override
+    public String toString() {
+        return entityType + (id == null ? "" : "#" + id);
+    }
+}
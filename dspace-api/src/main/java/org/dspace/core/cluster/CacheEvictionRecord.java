@@ -0,0 +1,93 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.dspace.core.ReloadableEntity;
+
+/**
+ * Database entity representation of the cache_eviction table: a {@link CacheEviction} sent by a node of the cluster
+ * through the {@link DatabaseCacheEvictionTransport}.
+ */
+@Entity
+@Table(name = "cache_eviction")
+public class CacheEvictionRecord implements ReloadableEntity<Integer> {
+
+    @Id
+    @Column(name = "eviction_id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cache_eviction_seq")
+    @SequenceGenerator(name = "cache_eviction_seq", sequenceName = "cache_eviction_seq", allocationSize = 1)
+    private Integer id;
+
+    @Column(name = "node_id", nullable = false, length = 36)
+    private String nodeId;
+
+    @Column(name = "entity_type", nullable = false, length = 256)
+    private String entityType;
+
+    @Column(name = "entity_id", length = 36)
+    private String entityId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "eviction_date", nullable = false)
+    private Date evictionDate;
+
+    /**
+     * Protected constructor, create object using:
+     * {@link DatabaseCacheEvictionTransport#send(org.dspace.core.Context, String, java.util.Collection)}
+     */
+    protected CacheEvictionRecord() {
+    }
+
+    @Override
+    public Integer getID() {
+        return id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(String entityId) {
+        this.entityId = entityId;
+    }
+
+    public Date getEvictionDate() {
+        return evictionDate;
+    }
+
+    public void setEvictionDate(Date evictionDate) {
+        this.evictionDate = evictionDate;
+    }
+}
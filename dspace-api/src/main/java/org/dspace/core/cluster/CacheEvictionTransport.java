@@ -0,0 +1,45 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import org.dspace.core.Context;
+
+/**
+ * Sends second level cache evictions to the other nodes of a cluster, and receives theirs. Implementations are
+ * plugged into the {@link ClusterCacheService} in the Spring configuration.
+ */
+public interface CacheEvictionTransport {
+
+    /**
+     * Send evictions to the other nodes. They are sent while the changes of the context are not committed yet, so
+     * transports which can't take part in the transaction should only deliver them once it is committed.
+     *
+     * @param context   the DSpace context which made the changes
+     * @param nodeId    the ID of the sending node
+     * @param evictions the evictions
+     * @throws SQLException if database error
+     */
+    void send(Context context, String nodeId, Collection<CacheEviction> evictions) throws SQLException;
+
+    /**
+     * Start receiving the evictions of the other nodes
+     *
+     * @param nodeId   the ID of this node, whose own evictions are not received
+     * @param receiver called with the evictions received, from a thread of the transport
+     */
+    void start(String nodeId, Consumer<Collection<CacheEviction>> receiver);
+
+    /**
+     * Stop receiving evictions
+     */
+    void stop();
+}
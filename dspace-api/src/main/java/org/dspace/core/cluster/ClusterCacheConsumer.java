@@ -0,0 +1,113 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.MetadataField;
+import org.dspace.content.MetadataSchema;
+import org.dspace.content.Site;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.discovery.indexobject.IndexableMetadataField;
+import org.dspace.eperson.EPerson;
+import org.dspace.eperson.Group;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Broadcasts the entities of the second level cache changed by the events to the other nodes of the cluster, through
+ * the {@link ClusterCacheService}. The evictions are sent before the changes are committed, in the same transaction
+ * when the transport uses the database.
+ * <p>
+ * Communities, collections, epeople, groups and the site are evicted when they are the subject or the object of an
+ * event, except for items added to or removed from collections. Changes to metadata fields are reported as MODIFY
+ * events on the site with the IDs of the fields, they evict those fields and all metadata schemas. Changes to metadata
+ * schemas fire no events, the {@link org.dspace.content.MetadataSchemaServiceImpl} broadcasts them itself.
+ */
+public class ClusterCacheConsumer implements Consumer {
+
+    protected ClusterCacheService clusterCacheService;
+
+    private Set<CacheEviction> evictions = new LinkedHashSet<>();
+
+    @Override
+    public void initialize() throws Exception {
+        clusterCacheService = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServiceByName(ClusterCacheService.class.getName(), ClusterCacheService.class);
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        if (!clusterCacheService.isEnabled()) {
+            return;
+        }
+
+        if (event.getSubjectType() == Constants.SITE && event.getSubjectID() == null
+            && IndexableMetadataField.TYPE.equals(event.getDetail())) {
+            for (String id : event.getIdentifiers()) {
+                evictions.add(new CacheEviction(MetadataField.class, id));
+            }
+            evictions.add(new CacheEviction(MetadataSchema.class, null));
+            return;
+        }
+        int et = event.getEventType();
+        if ((et == Event.ADD || et == Event.REMOVE) && event.getObjectType() == Constants.ITEM) {
+            // adding items to or removing them from collections doesn't change the cached collections
+            return;
+        }
+        addEviction(event.getSubjectType(), event.getSubjectID());
+        addEviction(event.getObjectType(), event.getObjectID());
+    }
+
+    /**
+     * Add the eviction of an object of an event, if it is cached
+     */
+    protected void addEviction(int type, UUID id) {
+        if (id == null) {
+            return;
+        }
+        switch (type) {
+            case Constants.COMMUNITY:
+                evictions.add(new CacheEviction(Community.class, id));
+                break;
+            case Constants.COLLECTION:
+                evictions.add(new CacheEviction(Collection.class, id));
+                break;
+            case Constants.EPERSON:
+                evictions.add(new CacheEviction(EPerson.class, id));
+                break;
+            case Constants.GROUP:
+                evictions.add(new CacheEviction(Group.class, id));
+                break;
+            case Constants.SITE:
+                evictions.add(new CacheEviction(Site.class, id));
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        try {
+            clusterCacheService.broadcast(ctx, evictions);
+        } finally {
+            evictions = new LinkedHashSet<>();
+        }
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+}
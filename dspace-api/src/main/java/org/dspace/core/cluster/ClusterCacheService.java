@@ -0,0 +1,145 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.MetadataField;
+import org.dspace.content.MetadataSchema;
+import org.dspace.content.service.MetadataFieldService;
+import org.dspace.core.Context;
+import org.dspace.services.ConfigurationService;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+/**
+ * Keeps the Hibernate second level caches of the nodes of a cluster (e.g. several REST API nodes, and the command
+ * line tools, sharing one database) consistent. The {@link ClusterCacheConsumer} broadcasts the cached entities
+ * changed by a node through a {@link CacheEvictionTransport}, and the other nodes remove them from their cache,
+ * together with the cached query results which may include them.
+ * <p>
+ * Every instance is a node with its own ID. The service is disabled by default, since a single node keeps its cache
+ * consistent by itself.
+ */
+public class ClusterCacheService implements InitializingBean {
+
+    private static final Logger log = LogManager.getLogger(ClusterCacheService.class);
+
+    @Autowired(required = true)
+    protected ConfigurationService configurationService;
+
+    @Autowired(required = true)
+    @Qualifier("sessionFactory")
+    protected SessionFactory sessionFactory;
+
+    @Autowired(required = true)
+    protected MetadataFieldService metadataFieldService;
+
+    private CacheEvictionTransport transport;
+    private final String nodeId = UUID.randomUUID().toString();
+    private boolean enabled;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        enabled = configurationService.getBooleanProperty("cache.cluster.enabled", false);
+        if (enabled) {
+            log.info("Exchanging second level cache evictions as cluster node " + nodeId);
+            transport.start(nodeId, this::evict);
+        }
+    }
+
+    /**
+     * Stop receiving evictions
+     */
+    public void stop() {
+        if (enabled) {
+            transport.stop();
+        }
+    }
+
+    /**
+     * Send evictions to the other nodes, as part of the changes of a context
+     *
+     * @param context   the DSpace context which changed the entities
+     * @param evictions the changed entities
+     * @throws SQLException if database error
+     */
+    public void broadcast(Context context, Collection<CacheEviction> evictions) throws SQLException {
+        if (enabled && !evictions.isEmpty()) {
+            transport.send(context, nodeId, evictions);
+        }
+    }
+
+    /**
+     * Remove entities changed by another node from the second level cache, and all cached query results. Changes
+     * to the metadata registry also discard the snapshot of the registry.
+     *
+     * @param evictions the changed entities
+     */
+    public void evict(Collection<CacheEviction> evictions) {
+        Cache cache = sessionFactory.getCache();
+        boolean registryChanged = false;
+        for (CacheEviction eviction : evictions) {
+            try {
+                Class<?> entityType = Class.forName(eviction.getEntityType());
+                if (entityType == MetadataField.class || entityType == MetadataSchema.class) {
+                    registryChanged = true;
+                }
+                if (eviction.getId() == null) {
+                    cache.evictEntityData(entityType);
+                } else {
+                    cache.evictEntityData(entityType, getId(entityType, eviction.getId()));
+                }
+            } catch (ClassNotFoundException | IllegalArgumentException e) {
+                log.warn("Unable to evict " + eviction + " from the second level cache", e);
+            }
+        }
+        cache.evictQueryRegions();
+        if (registryChanged) {
+            metadataFieldService.clearRegistrySnapshot();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted " + evictions + " from the second level cache");
+        }
+    }
+
+    /**
+     * Convert the ID of an eviction to the ID type of the entity: UUID for DSpaceObjects, Integer otherwise
+     */
+    protected Serializable getId(Class<?> entityType, String id) {
+        if (DSpaceObject.class.isAssignableFrom(entityType)) {
+            return UUID.fromString(id);
+        }
+        return Integer.valueOf(id);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public CacheEvictionTransport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(CacheEvictionTransport transport) {
+        this.transport = transport;
+    }
+}
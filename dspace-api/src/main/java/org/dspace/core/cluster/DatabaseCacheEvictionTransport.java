@@ -0,0 +1,124 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.core.Context;
+import org.dspace.core.cluster.dao.CacheEvictionRecordDAO;
+import org.dspace.services.ConfigurationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Exchanges cache evictions through the cache_eviction table of the shared database. Evictions are inserted in the
+ * transaction of the changes, so they are only visible to the other nodes once the changes are committed. Every
+ * node polls the table for the evictions of the other nodes.
+ * <p>
+ * Transactions may commit in another order than they started, so each poll reads back the evictions of the last
+ * cache.cluster.overlap seconds (default 300) and skips the ones already received. Evictions of transactions which
+ * take longer, or which are sent from a node whose clock is off by more, may be missed, and only expire from the
+ * cache. Evictions older than cache.cluster.retention seconds (default 3600) are deleted.
+ */
+public class DatabaseCacheEvictionTransport implements CacheEvictionTransport {
+
+    private static final Logger log = LogManager.getLogger(DatabaseCacheEvictionTransport.class);
+
+    @Autowired(required = true)
+    protected CacheEvictionRecordDAO cacheEvictionRecordDAO;
+
+    @Autowired(required = true)
+    protected ConfigurationService configurationService;
+
+    private ScheduledExecutorService poller;
+    private String nodeId;
+    private Consumer<Collection<CacheEviction>> receiver;
+
+    /**
+     * The evictions received within the overlap, with their date
+     */
+    private final Map<Integer, Date> received = new HashMap<>();
+    private Date latest;
+
+    @Override
+    public void send(Context context, String nodeId, Collection<CacheEviction> evictions) throws SQLException {
+        Date now = new Date();
+        for (CacheEviction eviction : evictions) {
+            CacheEvictionRecord record = new CacheEvictionRecord();
+            record.setNodeId(nodeId);
+            record.setEntityType(eviction.getEntityType());
+            record.setEntityId(eviction.getId());
+            record.setEvictionDate(now);
+            cacheEvictionRecordDAO.create(context, record);
+        }
+    }
+
+    @Override
+    public synchronized void start(String nodeId, Consumer<Collection<CacheEviction>> receiver) {
+        this.nodeId = nodeId;
+        this.receiver = receiver;
+        long interval = configurationService.getLongProperty("cache.cluster.poll-interval", 2000);
+        poller = Executors.newSingleThreadScheduledExecutor(new BasicThreadFactory.Builder()
+            .namingPattern("cache-eviction-poller-%d").daemon(true).build());
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * Receive the evictions sent by the other nodes since the last poll, and delete the expired ones
+     */
+    protected void poll() {
+        List<CacheEviction> evictions = new ArrayList<>();
+        Context context = null;
+        try {
+            context = new Context();
+            long overlap = configurationService.getLongProperty("cache.cluster.overlap", 300) * 1000;
+            Date since = latest == null ? null : new Date(latest.getTime() - overlap);
+            received.values().removeIf(date -> since != null && date.before(since));
+            for (CacheEvictionRecord record : cacheEvictionRecordDAO.findSince(context, since, nodeId)) {
+                if (received.put(record.getID(), record.getEvictionDate()) == null) {
+                    evictions.add(new CacheEviction(record.getEntityType(), record.getEntityId()));
+                }
+                if (latest == null || record.getEvictionDate().after(latest)) {
+                    latest = record.getEvictionDate();
+                }
+            }
+            long retention = configurationService.getLongProperty("cache.cluster.retention", 3600) * 1000;
+            cacheEvictionRecordDAO.deleteBefore(context, new Date(System.currentTimeMillis() - retention));
+            context.complete();
+        } catch (SQLException | RuntimeException e) {
+            log.error("Unable to poll the cache evictions of the other nodes", e);
+        } finally {
+            if (context != null && context.isValid()) {
+                context.abort();
+            }
+        }
+        if (!evictions.isEmpty()) {
+            receiver.accept(evictions);
+        }
+    }
+}
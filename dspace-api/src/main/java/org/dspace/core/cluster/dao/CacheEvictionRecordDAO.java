@@ -0,0 +1,46 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster.dao;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import org.dspace.core.Context;
+import org.dspace.core.GenericDAO;
+import org.dspace.core.cluster.CacheEvictionRecord;
+
+/**
+ * Database Access Object interface class for the CacheEvictionRecord object.
+ * The implementation of this class is responsible for all database calls for the CacheEvictionRecord object and is
+ * autowired by spring
+ * This class should only be accessed from a single service and should never be exposed outside of the API
+ */
+public interface CacheEvictionRecordDAO extends GenericDAO<CacheEvictionRecord> {
+
+    /**
+     * Find the evictions sent by other nodes since the given date, in the order in which they were sent
+     *
+     * @param context DSpace context
+     * @param since   the date, or null for all evictions
+     * @param nodeId  the ID of the node whose evictions are excluded
+     * @return the evictions
+     * @throws SQLException if database error
+     */
+    List<CacheEvictionRecord> findSince(Context context, Date since, String nodeId) throws SQLException;
+
+    /**
+     * Delete the evictions sent before the given date
+     *
+     * @param context DSpace context
+     * @param date    the date
+     * @return the number of deleted evictions
+     * @throws SQLException if database error
+     */
+    int deleteBefore(Context context, Date date) throws SQLException;
+}
@@ -0,0 +1,62 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster.dao.impl;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.dspace.core.AbstractHibernateDAO;
+import org.dspace.core.Context;
+import org.dspace.core.cluster.CacheEvictionRecord;
+import org.dspace.core.cluster.CacheEvictionRecord_;
+import org.dspace.core.cluster.dao.CacheEvictionRecordDAO;
+
+/**
+ * Hibernate implementation of the Database Access Object interface class for the CacheEvictionRecord object.
+ * This class is responsible for all database calls for the CacheEvictionRecord object and is autowired by spring
+ * This class should never be accessed directly.
+ */
+public class CacheEvictionRecordDAOImpl extends AbstractHibernateDAO<CacheEvictionRecord>
+    implements CacheEvictionRecordDAO {
+
+    protected CacheEvictionRecordDAOImpl() {
+        super();
+    }
+
+    @Override
+    public List<CacheEvictionRecord> findSince(Context context, Date since, String nodeId) throws SQLException {
+        CriteriaBuilder criteriaBuilder = getCriteriaBuilder(context);
+        CriteriaQuery<CacheEvictionRecord> criteriaQuery = getCriteriaQuery(criteriaBuilder,
+                                                                            CacheEvictionRecord.class);
+        Root<CacheEvictionRecord> root = criteriaQuery.from(CacheEvictionRecord.class);
+        criteriaQuery.select(root);
+        Predicate otherNode = criteriaBuilder.notEqual(root.get(CacheEvictionRecord_.nodeId), nodeId);
+        if (since == null) {
+            criteriaQuery.where(otherNode);
+        } else {
+            criteriaQuery.where(otherNode, criteriaBuilder.greaterThanOrEqualTo(
+                root.get(CacheEvictionRecord_.evictionDate), since));
+        }
+        criteriaQuery.orderBy(criteriaBuilder.asc(root.get(CacheEvictionRecord_.id)));
+        return list(context, criteriaQuery, false, CacheEvictionRecord.class, -1, -1, false);
+    }
+
+    @Override
+    public int deleteBefore(Context context, Date date) throws SQLException {
+        Query query = createQuery(context, "delete from CacheEvictionRecord where evictionDate < :date");
+        query.setParameter("date", date, TemporalType.TIMESTAMP);
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ConcurrentTaskQueue objects are task queues which can be drained by several readers at the same time, in one or
+ * more processes. Instead of locking the whole queue, a reader leases entries one batch at a time. A leased entry is
+ * hidden from the other readers until the lease is completed or failed, or until it expires, so the entries of a
+ * reader which crashed are eventually processed by another one. Entries which keep failing are given up on.
+ */
+public interface ConcurrentTaskQueue extends TaskQueue {
+
+    /**
+     * Leases entries of a named queue.
+     *
+     * @param queueName the name of the queue to read
+     * @param owner     a name of the reader, unique among all readers
+     * @param max       the maximum number of entries to lease
+     * @return the leased entries, or an empty list if no entries are available
+     * @throws IOException if IO error
+     */
+    List<TaskQueueLease> lease(String queueName, String owner, int max) throws IOException;
+
+    /**
+     * Removes a leased entry from the queue once its tasks are performed.
+     *
+     * @param lease the lease
+     * @throws IOException if IO error
+     */
+    void complete(TaskQueueLease lease) throws IOException;
+
+    /**
+     * Returns a leased entry whose tasks failed to the queue, to be retried later, or gives up on it if it failed too
+     * often.
+     *
+     * @param lease the lease
+     * @param error a description of the failure
+     * @return the time from which the entry can be leased again, or null if it was given up on
+     * @throws IOException if IO error
+     */
+    Date fail(TaskQueueLease lease, String error) throws IOException;
+}
@@ -16,14 +16,24 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.content.DSpaceObject;
 import org.dspace.content.factory.ContentServiceFactory;
@@ -44,6 +54,11 @@ import org.dspace.utils.DSpace;
  */
 public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
 
+    /**
+     * How often the idle workers look for failed entries to retry, in milliseconds
+     */
+    private static final long RETRY_POLL_INTERVAL = 5000;
+
     protected EPersonService ePersonService = EPersonServiceFactory.getInstance().getEPersonService();
 
     protected Context context;
@@ -53,8 +68,11 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
     private String taskFile;
     private String id;
     private String queue;
+    private int workers;
+    private double itemsPerSecond;
     private String scope;
     private String reporter;
+    private Writer reportWriter;
     private Map<String, String> parameters;
     private boolean verbose;
 
@@ -83,7 +101,16 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
                 super.handler.logError("No implementation configured for queue");
                 throw new UnsupportedOperationException("No queue service available");
             }
-            long timeRun = this.runQueue(taskQueue, curator);
+            long timeRun;
+            if (workers > 0) {
+                if (!(taskQueue instanceof ConcurrentTaskQueue)) {
+                    super.handler.logError("The configured queue implementation can't be read by several workers");
+                    throw new UnsupportedOperationException("No concurrent queue service available");
+                }
+                timeRun = this.runWorkers((ConcurrentTaskQueue) taskQueue);
+            } else {
+                timeRun = this.runQueue(taskQueue, curator);
+            }
             this.endScript(timeRun);
         }
     }
@@ -168,6 +195,130 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
         return ticket;
     }
 
+    /**
+     * Runs task queue (-q set) with a number of worker threads (-w set). Each worker leases one entry at a time and
+     * curates it in a context of its own, until no entries are left to lease. Failed entries, whose tasks threw an
+     * exception or returned {@link Curator#CURATE_ERROR}, are returned to the queue, to be retried by any reader of
+     * the queue once their retry delay is over: the workers keep polling the
+     * queue until the entries failed by this run can be leased again, so they are retried before the run ends.
+     *
+     * @param queue The task queue
+     * @return Time when queue started
+     */
+    private long runWorkers(ConcurrentTaskQueue queue) throws Exception {
+        long start = System.currentTimeMillis();
+        UUID currentUser = context.getCurrentUser().getID();
+        String workerPrefix = ManagementFactory.getRuntimeMXBean().getName() + "-" + start + "-";
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong lastRetry = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new BasicThreadFactory.Builder()
+            .namingPattern("curation-worker-%d").build());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                String owner = workerPrefix + i;
+                futures.add(executor.submit(() -> {
+                    runWorker(queue, owner, currentUser, done, failed, lastRetry);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        super.handler.logInfo("Curated " + done.get() + " queue entries, " + failed.get() + " failed");
+        return start;
+    }
+
+    /**
+     * Leases and curates entries of the queue until none are left, and none of the entries failed by the run are
+     * waiting to be retried.
+     */
+    private void runWorker(ConcurrentTaskQueue queue, String owner, UUID currentUser, AtomicInteger done,
+                           AtomicInteger failed, AtomicLong lastRetry) throws Exception {
+        Curator curator = initCurator();
+        while (true) {
+            List<TaskQueueLease> leases = queue.lease(this.queue, owner, 1);
+            if (leases.isEmpty()) {
+                long wait = lastRetry.get() - System.currentTimeMillis();
+                if (wait < 0) {
+                    // another reader may have leased the failed entries after their retry delay
+                    return;
+                }
+                Thread.sleep(Math.min(wait + 1, RETRY_POLL_INTERVAL));
+                continue;
+            }
+            for (TaskQueueLease lease : leases) {
+                TaskQueueEntry entry = lease.getEntry();
+                if (verbose) {
+                    super.handler.logInfo("Curating id: " + entry.getObjectId() + " (" + owner + ")");
+                }
+                Context workerContext = new Context(Context.Mode.BATCH_EDIT);
+                try {
+                    workerContext.setCurrentUser(ePersonService.find(workerContext, currentUser));
+                    if (entry.getObjectId().indexOf('/') <= 0) {
+                        throw new IllegalArgumentException("curation for workflow items is no longer supported");
+                    }
+                    curator.clear();
+                    for (String taskName : entry.getTaskNames()) {
+                        curator.addTask(taskName);
+                    }
+                    curator.curate(workerContext, entry.getObjectId());
+                    // the curator completes the context itself when the transaction scope is 'curation'
+                    if (workerContext.isValid()) {
+                        workerContext.complete();
+                    }
+                    String error = getError(curator, entry.getTaskNames());
+                    if (error == null) {
+                        queue.complete(lease);
+                        done.incrementAndGet();
+                    } else {
+                        fail(queue, lease, error, failed, lastRetry);
+                    }
+                } catch (Exception e) {
+                    fail(queue, lease, e.toString(), failed, lastRetry);
+                } finally {
+                    if (workerContext.isValid()) {
+                        workerContext.abort();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the error reported by the first task which returned {@link Curator#CURATE_ERROR}, e.g. a virus scan which
+     * could not reach its daemon: the task didn't throw an exception, but the entry has to be retried all the same.
+     *
+     * @return the result of the task, or null if no task returned an error
+     */
+    private String getError(Curator curator, List<String> taskNames) {
+        for (String taskName : taskNames) {
+            if (curator.getStatus(taskName) == Curator.CURATE_ERROR) {
+                String result = curator.getResult(taskName);
+                return taskName + ": " + (result != null ? result : "error");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a failed entry to the queue, to be retried after the retry delay, or given up on
+     */
+    private void fail(ConcurrentTaskQueue queue, TaskQueueLease lease, String error, AtomicInteger failed,
+                      AtomicLong lastRetry) throws IOException {
+        super.handler.logError("Curation of " + lease.getEntry().getObjectId() + " failed (attempt "
+                                   + lease.getAttempt() + "): " + error);
+        Date retry = queue.fail(lease, error);
+        if (retry != null) {
+            lastRetry.accumulateAndGet(retry.getTime(), Math::max);
+        }
+        failed.incrementAndGet();
+    }
+
     /**
      * End of curation script; logs script time if -v verbose is set
      *
@@ -188,17 +339,20 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
      * @return Initialised curator
      * @throws FileNotFoundException If file of command line variable -r reporter is not found
      */
-    private Curator initCurator() throws FileNotFoundException {
+    private synchronized Curator initCurator() throws FileNotFoundException {
         Curator curator = new Curator();
-        OutputStream reporterStream;
-        if (null == this.reporter) {
-            reporterStream = new NullOutputStream();
-        } else if ("-".equals(this.reporter)) {
-            reporterStream = System.out;
-        } else {
-            reporterStream = new PrintStream(this.reporter);
+        // the report writer is shared by the curators of all workers
+        if (reportWriter == null) {
+            OutputStream reporterStream;
+            if (null == this.reporter) {
+                reporterStream = new NullOutputStream();
+            } else if ("-".equals(this.reporter)) {
+                reporterStream = System.out;
+            } else {
+                reporterStream = new PrintStream(this.reporter);
+            }
+            reportWriter = new OutputStreamWriter(reporterStream);
         }
-        Writer reportWriter = new OutputStreamWriter(reporterStream);
         curator.setReporter(reportWriter);
 
         if (this.scope != null) {
@@ -206,6 +360,11 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
             curator.setTransactionScope(txScope);
         }
 
+        if (curationClientOptions == CurationClientOptions.TASK && workers > 0) {
+            curator.setThreads(workers);
+            curator.setItemsPerSecond(itemsPerSecond);
+        }
+
         curator.addParameters(parameters);
         // we are operating in batch mode, if anyone cares.
         curator.setInvoked(Curator.Invoked.BATCH);
@@ -218,6 +377,8 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
         super.handler.logInfo("\nwhole repo: CurationCli -t estimate -i all");
         super.handler.logInfo("single item: CurationCli -t generate -i itemId");
         super.handler.logInfo("task queue: CurationCli -q monthly");
+        super.handler.logInfo("whole repo with 8 threads: CurationCli -t estimate -i all -w 8");
+        super.handler.logInfo("task queue with 4 workers: CurationCli -q monthly -w 4");
     }
 
     @Override
@@ -297,6 +458,32 @@ public class Curation extends DSpaceRunnable<CurationScriptConfiguration> {
             verbose = true;
         }
 
+        // workers
+        if (this.commandLine.hasOption('w')) {
+            try {
+                this.workers = Integer.parseInt(this.commandLine.getOptionValue('w'));
+            } catch (NumberFormatException e) {
+                this.workers = 0;
+            }
+            if (this.workers < 1) {
+                super.handler.logError("-w workers must be a positive number");
+                throw new IllegalArgumentException("-w workers must be a positive number");
+            }
+        }
+
+        // items per second
+        if (this.commandLine.hasOption('l')) {
+            try {
+                this.itemsPerSecond = Double.parseDouble(this.commandLine.getOptionValue('l'));
+            } catch (NumberFormatException e) {
+                this.itemsPerSecond = 0;
+            }
+            if (this.itemsPerSecond <= 0) {
+                super.handler.logError("-l limit must be a positive number");
+                throw new IllegalArgumentException("-l limit must be a positive number");
+            }
+        }
+
         // scope
         if (this.commandLine.getOptionValue('s') != null) {
             this.scope = this.commandLine.getOptionValue('s');
@@ -59,6 +59,13 @@ public enum CurationClientOptions {
             "Id (handle) of object to perform task on, or 'all' to perform on whole repository");
         options.addOption("p", "parameter", true, "a task parameter 'NAME=VALUE'");
         options.addOption("q", "queue", true, "name of task queue to process");
+        options.addOption("w", "workers", true,
+            "number of threads curating the items of the object (-i) in parallel, each item in a transaction of " +
+            "its own. With a task queue (-q): number of threads processing the queue, alongside any other " +
+            "workers on the same queue, which requires a queue implementation which can be read concurrently, " +
+            "such as DatabaseTaskQueue");
+        options.addOption("l", "limit", true,
+            "maximum number of items curated per second by the threads (-w) curating an object in parallel");
         options.addOption("r", "reporter", true,
             "relative or absolute path to the desired report file. Use '-' to report to console. If absent, no " +
             "reporting");
@@ -0,0 +1,179 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.dspace.core.ReloadableEntity;
+
+/**
+ * Database entity representation of the curation_task table: a {@link TaskQueueEntry} queued in the
+ * {@link DatabaseTaskQueue}, with its lease.
+ */
+@Entity
+@Table(name = "curation_task")
+public class CurationTaskRecord implements ReloadableEntity<Integer> {
+
+    @Id
+    @Column(name = "task_id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "curation_task_seq")
+    @SequenceGenerator(name = "curation_task_seq", sequenceName = "curation_task_seq", allocationSize = 1)
+    private Integer id;
+
+    @Column(name = "queue_name", nullable = false, length = 256)
+    private String queueName;
+
+    @Column(name = "eperson_id", length = 256)
+    private String epersonId;
+
+    @Column(name = "submit_time", nullable = false)
+    private long submitTime;
+
+    @Column(name = "tasks", nullable = false, length = 1024)
+    private String tasks;
+
+    @Column(name = "object_id", nullable = false, length = 256)
+    private String objectId;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "lease_owner", length = 256)
+    private String leaseOwner;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "lease_expires")
+    private Date leaseExpires;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "dead_date")
+    private Date deadDate;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    /**
+     * Protected constructor, create object using:
+     * {@link DatabaseTaskQueue#enqueue(String, java.util.Set)}
+     */
+    protected CurationTaskRecord() {
+    }
+
+    @Override
+    public Integer getID() {
+        return id;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    public void setQueueName(String queueName) {
+        this.queueName = queueName;
+    }
+
+    public String getEpersonId() {
+        return epersonId;
+    }
+
+    public void setEpersonId(String epersonId) {
+        this.epersonId = epersonId;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    public void setSubmitTime(long submitTime) {
+        this.submitTime = submitTime;
+    }
+
+    /**
+     * @return the comma separated names of the tasks
+     */
+    public String getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(String tasks) {
+        this.tasks = tasks;
+    }
+
+    public String getObjectId() {
+        return objectId;
+    }
+
+    public void setObjectId(String objectId) {
+        this.objectId = objectId;
+    }
+
+    /**
+     * @return the number of times the entry was leased
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    /**
+     * @return the time after which the entry can be leased again, or null if it isn't leased
+     */
+    public Date getLeaseExpires() {
+        return leaseExpires;
+    }
+
+    public void setLeaseExpires(Date leaseExpires) {
+        this.leaseExpires = leaseExpires;
+    }
+
+    /**
+     * @return the time the entry was given up on, or null if it can still be leased
+     */
+    public Date getDeadDate() {
+        return deadDate;
+    }
+
+    public void setDeadDate(Date deadDate) {
+        this.deadDate = deadDate;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    /**
+     * @return the queue entry of this record
+     */
+    public TaskQueueEntry toEntry() {
+        return new TaskQueueEntry(epersonId + "|" + submitTime + "|" + tasks + "|" + objectId);
+    }
+}
@@ -14,7 +14,14 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dspace.content.Collection;
@@ -28,6 +35,7 @@ import org.dspace.content.service.ItemService;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.factory.CoreServiceFactory;
+import org.dspace.eperson.factory.EPersonServiceFactory;
 import org.dspace.handle.factory.HandleServiceFactory;
 import org.dspace.handle.service.HandleService;
 
@@ -87,6 +95,8 @@ public class Curator {
     protected Invoked iMode = null;
     protected TaskResolver resolver = new TaskResolver();
     protected TxScope txScope = TxScope.OPEN;
+    protected int threads = 1;
+    protected double itemsPerSecond = 0;
     protected CommunityService communityService;
     protected ItemService itemService;
     protected HandleService handleService;
@@ -214,6 +224,32 @@ public class Curator {
         return this;
     }
 
+    /**
+     * Sets the number of threads performing the tasks on the items of a container (community, collection or
+     * site). With more than one thread, the items of the container are curated in parallel: each item in a context
+     * of its own, which is committed once the tasks were performed on the item, whatever the transaction scope.
+     * The containers themselves are still curated in the calling thread and context. Tasks declared
+     * {@link Distributive} distribute themselves through the container, and are not run in parallel.
+     *
+     * @param threads number of threads, 1 (the default) to curate in the calling thread only
+     * @return return self (Curator instance) with the number of threads set
+     */
+    public Curator setThreads(int threads) {
+        this.threads = Math.max(threads, 1);
+        return this;
+    }
+
+    /**
+     * Limits the number of items of a container curated per second, when curating with several threads.
+     *
+     * @param itemsPerSecond maximum number of items per second, 0 (the default) for no limit
+     * @return return self (Curator instance) with the limit set
+     */
+    public Curator setItemsPerSecond(double itemsPerSecond) {
+        this.itemsPerSecond = itemsPerSecond;
+        return this;
+    }
+
     /**
      * Performs all configured tasks upon object identified by id. If
      * the object can be resolved as a handle, the DSO will be the
@@ -273,6 +309,8 @@ public class Curator {
             // do we need to iterate over the object ?
             if (type == Constants.ITEM || tr.task.isDistributive()) {
                 tr.run(dso);
+            } else if (threads > 1) {
+                doParallel(tr, dso);
             } else if (type == Constants.COLLECTION) {
                 doCollection(tr, (Collection) dso);
             } else if (type == Constants.COMMUNITY) {
@@ -343,7 +381,10 @@ public class Curator {
         }
 
         try {
-            reporter.append(message);
+            // the reporter is shared by the threads of a parallel curation
+            synchronized (reporter) {
+                reporter.append(message);
+            }
         } catch (IOException ex) {
             System.out.println("Task reporting failure: " +  ex);
         }
@@ -514,6 +555,238 @@ public class Curator {
         return true;
     }
 
+    /**
+     * Run task for a container (Site, Community or Collection) and everything in it, performing the task on the
+     * items in parallel.
+     *
+     * @param tr  TaskRunner
+     * @param dso the container
+     * @return true if successful, false otherwise
+     * @throws IOException if IO error
+     */
+    protected boolean doParallel(TaskRunner tr, DSpaceObject dso) throws IOException {
+        ParallelCuration parallel = new ParallelCuration(tr);
+        // the results set by the task on the containers go to a runner of their own, so that only the parallel
+        // curation writes the status and result of the task
+        trMap.put(tr.task.getName(), parallel.containerRunner);
+        try {
+            Context context = curationContext();
+            parallel.start(context);
+            boolean completed = walk(parallel, context, dso);
+            parallel.finish();
+            return completed && !parallel.stopped;
+        } catch (SQLException sqlE) {
+            throw new IOException(sqlE.getMessage(), sqlE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while curating " + dso.getHandle(), e);
+        } finally {
+            trMap.put(tr.task.getName(), tr);
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * Run task for a container, and hand the items found in it over to the threads of the parallel curation.
+     */
+    private boolean walk(ParallelCuration parallel, Context context, DSpaceObject dso)
+        throws IOException, SQLException, InterruptedException {
+        if (parallel.stopped || !parallel.runContainer(dso)) {
+            return false;
+        }
+        if (dso.getType() == Constants.SITE) {
+            for (Community comm : communityService.findAllTop(context)) {
+                if (!walk(parallel, context, comm)) {
+                    return false;
+                }
+            }
+        } else if (dso.getType() == Constants.COMMUNITY) {
+            Community comm = (Community) dso;
+            for (Community subcomm : comm.getSubcommunities()) {
+                if (!walk(parallel, context, subcomm)) {
+                    return false;
+                }
+            }
+            for (Collection coll : comm.getCollections()) {
+                if (!walk(parallel, context, coll)) {
+                    return false;
+                }
+            }
+        } else if (dso.getType() == Constants.COLLECTION) {
+            for (UUID itemId : itemService.findIdsByCollection(context, (Collection) dso)) {
+                if (parallel.stopped) {
+                    return false;
+                }
+                parallel.submit(itemId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The state of the parallel curation of the items of a container by one task. Every thread performs the task
+     * with a Curator and a task instance of its own, as tasks are not expected to be thread safe. The status of the
+     * task is the most severe status of all containers and items: it is only written by {@link #record}, which
+     * is synchronized.
+     */
+    protected class ParallelCuration {
+        protected final TaskRunner runner;
+        protected final TaskRunner containerRunner;
+        protected ExecutorService executor;
+        protected Semaphore pending;
+        protected RateLimiter rateLimiter;
+        protected UUID currentUser;
+        protected boolean ignoreAuthorization;
+        protected volatile boolean stopped = false;
+        protected IOException failure;
+        protected final ThreadLocal<TaskRunner> workerRunners = new ThreadLocal<>();
+
+        protected ParallelCuration(TaskRunner runner) {
+            this.runner = runner;
+            this.containerRunner = new TaskRunner(runner.task);
+        }
+
+        protected void start(Context context) {
+            synchronized (this) {
+                runner.statusCode = CURATE_UNSET;
+                runner.result = null;
+            }
+            currentUser = context.getCurrentUser() != null ? context.getCurrentUser().getID() : null;
+            ignoreAuthorization = context.ignoreAuthorization();
+            executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+                .namingPattern("curation-" + runner.task.getName() + "-%d").build());
+            // enough items in the queue to keep the threads busy, without loading all item IDs into it
+            pending = new Semaphore(threads * 2);
+            rateLimiter = itemsPerSecond > 0 ? RateLimiter.create(itemsPerSecond) : null;
+        }
+
+        /**
+         * Perform the task on a container, in the calling thread
+         */
+        protected boolean runContainer(DSpaceObject dso) throws IOException {
+            containerRunner.result = null;
+            boolean shouldContinue = containerRunner.run(dso);
+            record(containerRunner, shouldContinue);
+            return shouldContinue;
+        }
+
+        protected void submit(UUID itemId) throws InterruptedException {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            pending.acquire();
+            executor.execute(() -> {
+                try {
+                    if (!stopped) {
+                        curateItem(itemId);
+                    }
+                } catch (IOException | SQLException | RuntimeException e) {
+                    fail(e);
+                } finally {
+                    pending.release();
+                }
+            });
+        }
+
+        /**
+         * Wait for the submitted items, and report the status of the task.
+         */
+        protected void finish() throws IOException, InterruptedException {
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("Waiting for the parallel curation of task {}", runner.task.getName());
+            }
+            synchronized (this) {
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+
+        protected void shutdown() {
+            stopped = true;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        private void curateItem(UUID itemId) throws IOException, SQLException {
+            Context context = new Context(Context.Mode.BATCH_EDIT);
+            try {
+                if (currentUser != null) {
+                    context.setCurrentUser(EPersonServiceFactory.getInstance().getEPersonService()
+                                                                .find(context, currentUser));
+                }
+                if (ignoreAuthorization) {
+                    context.turnOffAuthorisationSystem();
+                }
+                curationCtx.set(context);
+                Item item = itemService.find(context, itemId);
+                if (item == null) {
+                    return;
+                }
+                TaskRunner workerRunner = getWorkerRunner();
+                workerRunner.result = null;
+                boolean shouldContinue = workerRunner.run(item);
+                context.complete();
+                record(workerRunner, shouldContinue);
+            } finally {
+                curationCtx.remove();
+                if (context.isValid()) {
+                    context.abort();
+                }
+            }
+        }
+
+        private TaskRunner getWorkerRunner() throws IOException {
+            TaskRunner workerRunner = workerRunners.get();
+            if (workerRunner == null) {
+                Curator curator = new Curator();
+                curator.runParameters.putAll(runParameters);
+                curator.reporter = reporter;
+                curator.iMode = iMode;
+                curator.txScope = txScope;
+                curator.addTask(runner.task.getName());
+                workerRunner = curator.trMap.get(runner.task.getName());
+                if (workerRunner == null) {
+                    throw new IOException("Unable to resolve task " + runner.task.getName());
+                }
+                workerRunners.set(workerRunner);
+            }
+            return workerRunner;
+        }
+
+        private synchronized void record(TaskRunner workerRunner, boolean shouldContinue) {
+            if (severity(workerRunner.statusCode) >= severity(runner.statusCode)) {
+                runner.statusCode = workerRunner.statusCode;
+                runner.result = workerRunner.result;
+            }
+            if (!shouldContinue) {
+                stopped = true;
+            }
+        }
+
+        private synchronized void fail(Exception e) {
+            if (failure == null) {
+                failure = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+            }
+            stopped = true;
+        }
+
+        private int severity(int statusCode) {
+            switch (statusCode) {
+                case CURATE_ERROR:
+                    return 3;
+                case CURATE_FAIL:
+                    return 2;
+                case CURATE_SUCCESS:
+                    return 1;
+                default:
+                    return 0;
+            }
+        }
+    }
+
     /**
      * Record a 'visit' to a DSpace object and enforce any policies set
      * on this curator.
@@ -0,0 +1,258 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.core.Context;
+import org.dspace.curate.dao.CurationTaskRecordDAO;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * DatabaseTaskQueue provides a {@link ConcurrentTaskQueue} implementation based on the curation_task table, so
+ * several curation processes (on one or more servers) can drain the same queue.
+ * <p>
+ * Leasing selects the available entries with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so concurrent readers get
+ * other entries without waiting for each other. A lease expires after curate.taskqueue.lease-timeout seconds
+ * (default 3600), after which the entry can be leased again. Failed entries are retried after
+ * curate.taskqueue.retry-delay seconds (default 60), and given up on when they were leased
+ * curate.taskqueue.max-attempts times (default 3). Entries which were given up on stay in the table, with the last
+ * error, but are no longer leased.
+ * <p>
+ * The {@link TaskQueue} operations are supported too: {@link #dequeue} leases all available entries of the queue to
+ * the ticket, and {@link #release} removes them or returns them to the queue.
+ */
+public class DatabaseTaskQueue implements ConcurrentTaskQueue {
+    private static final Logger log = LogManager.getLogger(DatabaseTaskQueue.class);
+
+    protected static final int MAX_ERROR_LENGTH = 2000;
+
+    protected CurationTaskRecordDAO curationTaskRecordDAO;
+
+    protected long leaseTimeout;
+    protected long retryDelay;
+    protected int maxAttempts;
+
+    public DatabaseTaskQueue() {
+        ConfigurationService configurationService = DSpaceServicesFactory.getInstance().getConfigurationService();
+        leaseTimeout = configurationService.getLongProperty("curate.taskqueue.lease-timeout", 3600) * 1000;
+        retryDelay = configurationService.getLongProperty("curate.taskqueue.retry-delay", 60) * 1000;
+        maxAttempts = configurationService.getIntProperty("curate.taskqueue.max-attempts", 3);
+        curationTaskRecordDAO = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServicesByType(CurationTaskRecordDAO.class).get(0);
+    }
+
+    @Override
+    public String[] queueNames() {
+        Context context = new Context();
+        try {
+            List<String> names = curationTaskRecordDAO.findQueueNames(context);
+            context.complete();
+            return names.toArray(new String[names.size()]);
+        } catch (SQLException e) {
+            log.error("Unable to read the names of the curation task queues", e);
+            return new String[0];
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+    }
+
+    @Override
+    public void enqueue(String queueName, TaskQueueEntry entry) throws IOException {
+        Set<TaskQueueEntry> entrySet = new HashSet<>();
+        entrySet.add(entry);
+        enqueue(queueName, entrySet);
+    }
+
+    @Override
+    public void enqueue(String queueName, Set<TaskQueueEntry> entrySet) throws IOException {
+        Context context = new Context();
+        try {
+            for (TaskQueueEntry entry : entrySet) {
+                CurationTaskRecord record = new CurationTaskRecord();
+                record.setQueueName(queueName);
+                record.setEpersonId(entry.getEpersonId());
+                record.setSubmitTime(entry.getSubmitTime());
+                record.setTasks(StringUtils.join(entry.getTaskNames(), ","));
+                record.setObjectId(entry.getObjectId());
+                curationTaskRecordDAO.create(context, record);
+            }
+            context.complete();
+        } catch (SQLException e) {
+            throw new IOException("Unable to queue curation tasks on " + queueName, e);
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+    }
+
+    @Override
+    public Set<TaskQueueEntry> dequeue(String queueName, long ticket) throws IOException {
+        Set<TaskQueueEntry> entrySet = new HashSet<>();
+        for (TaskQueueLease lease : lease(queueName, getTicketOwner(ticket), -1)) {
+            entrySet.add(lease.getEntry());
+        }
+        return entrySet;
+    }
+
+    @Override
+    public void release(String queueName, long ticket, boolean removeEntries) {
+        Context context = new Context();
+        try {
+            for (CurationTaskRecord record : curationTaskRecordDAO.findByLeaseOwner(context, queueName,
+                                                                                    getTicketOwner(ticket))) {
+                if (removeEntries) {
+                    curationTaskRecordDAO.delete(context, record);
+                } else {
+                    record.setLeaseOwner(null);
+                    record.setLeaseExpires(null);
+                    record.setAttempts(record.getAttempts() - 1);
+                    curationTaskRecordDAO.save(context, record);
+                }
+            }
+            context.complete();
+        } catch (SQLException e) {
+            log.error("Unable to release the curation task queue " + queueName, e);
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+    }
+
+    @Override
+    public List<TaskQueueLease> lease(String queueName, String owner, int max) throws IOException {
+        List<TaskQueueLease> leases = new ArrayList<>();
+        Context context = new Context();
+        try {
+            Date now = new Date();
+            Date expires = new Date(now.getTime() + leaseTimeout);
+            for (CurationTaskRecord record : curationTaskRecordDAO.findLeasable(context, queueName, now, max)) {
+                record.setLeaseOwner(owner);
+                record.setLeaseExpires(expires);
+                record.setAttempts(record.getAttempts() + 1);
+                curationTaskRecordDAO.save(context, record);
+                leases.add(new TaskQueueLease(record.getID(), owner, record.getAttempts(), record.toEntry()));
+            }
+            // commit straight away, to release the row locks
+            context.complete();
+        } catch (SQLException e) {
+            throw new IOException("Unable to lease curation tasks from " + queueName, e);
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+        return leases;
+    }
+
+    @Override
+    public void complete(TaskQueueLease lease) throws IOException {
+        Context context = new Context();
+        try {
+            CurationTaskRecord record = findLeased(context, lease);
+            if (record != null) {
+                curationTaskRecordDAO.delete(context, record);
+            }
+            context.complete();
+        } catch (SQLException e) {
+            throw new IOException("Unable to complete curation task entry " + lease.getId(), e);
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+    }
+
+    @Override
+    public Date fail(TaskQueueLease lease, String error) throws IOException {
+        Date retry = null;
+        Context context = new Context();
+        try {
+            CurationTaskRecord record = findLeased(context, lease);
+            if (record != null) {
+                Date now = new Date();
+                record.setLeaseOwner(null);
+                record.setLastError(StringUtils.abbreviate(error, MAX_ERROR_LENGTH));
+                if (record.getAttempts() >= maxAttempts) {
+                    log.warn("Giving up on curation task entry {} of queue {} after {} attempts: {}",
+                             record.getID(), record.getQueueName(), record.getAttempts(), error);
+                    record.setLeaseExpires(null);
+                    record.setDeadDate(now);
+                } else {
+                    retry = new Date(now.getTime() + retryDelay);
+                    record.setLeaseExpires(retry);
+                }
+                curationTaskRecordDAO.save(context, record);
+            }
+            context.complete();
+        } catch (SQLException e) {
+            throw new IOException("Unable to fail curation task entry " + lease.getId(), e);
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+        return retry;
+    }
+
+    /**
+     * Find the entries of a queue which were given up on.
+     *
+     * @param queueName the name of the queue
+     * @return the entries
+     * @throws IOException if IO error
+     */
+    public List<TaskQueueEntry> findDead(String queueName) throws IOException {
+        List<TaskQueueEntry> entries = new ArrayList<>();
+        Context context = new Context();
+        try {
+            for (CurationTaskRecord record : curationTaskRecordDAO.findDead(context, queueName)) {
+                entries.add(record.toEntry());
+            }
+            context.complete();
+        } catch (SQLException e) {
+            throw new IOException("Unable to read the curation task queue " + queueName, e);
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Find the record of a lease, unless the lease expired and the entry was leased by another reader meanwhile.
+     */
+    private CurationTaskRecord findLeased(Context context, TaskQueueLease lease) throws SQLException {
+        CurationTaskRecord record = curationTaskRecordDAO.findByID(context, CurationTaskRecord.class, lease.getId());
+        if (record == null || !lease.getOwner().equals(record.getLeaseOwner())
+            || record.getAttempts() != lease.getAttempt()) {
+            log.warn("The lease of {} on curation task entry {} expired", lease.getOwner(), lease.getId());
+            return null;
+        }
+        return record;
+    }
+
+    private String getTicketOwner(long ticket) {
+        return "ticket-" + ticket;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+/**
+ * TaskQueueLease is an entry of a {@link ConcurrentTaskQueue} leased by a worker. The entry is hidden from other
+ * workers until the lease is completed, failed or expires.
+ * Regular immutable value object class.
+ */
+public final class TaskQueueLease {
+    private final int id;
+    private final String owner;
+    private final int attempt;
+    private final TaskQueueEntry entry;
+
+    /**
+     * TaskQueueLease constructor.
+     *
+     * @param id      the identifier of the entry in the queue
+     * @param owner   the worker holding the lease
+     * @param attempt the number of times the entry was leased, including this lease
+     * @param entry   the task entry
+     */
+    public TaskQueueLease(int id, String owner, int attempt, TaskQueueEntry entry) {
+        this.id = id;
+        this.owner = owner;
+        this.attempt = attempt;
+        this.entry = entry;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public TaskQueueEntry getEntry() {
+        return entry;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate.dao;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import org.dspace.core.Context;
+import org.dspace.core.GenericDAO;
+import org.dspace.curate.CurationTaskRecord;
+
+/**
+ * Database Access Object interface class for the CurationTaskRecord object.
+ * The implementation of this class is responsible for all database calls for the CurationTaskRecord object and is
+ * autowired by spring
+ * This class should only be accessed from a single service and should never be exposed outside of the API
+ */
+public interface CurationTaskRecordDAO extends GenericDAO<CurationTaskRecord> {
+
+    /**
+     * Find the names of the queues which have entries which weren't given up on
+     *
+     * @param context DSpace context
+     * @return the queue names
+     * @throws SQLException if database error
+     */
+    List<String> findQueueNames(Context context) throws SQLException;
+
+    /**
+     * Find and lock the entries of a queue which aren't leased, or whose lease expired, in the order in which they
+     * were queued. Entries locked by another transaction are skipped where the database supports it, so concurrent
+     * workers each get other entries.
+     *
+     * @param context   DSpace context
+     * @param queueName the name of the queue
+     * @param now       the current time
+     * @param max       the maximum number of entries, or -1 for all
+     * @return the entries, locked until the transaction ends
+     * @throws SQLException if database error
+     */
+    List<CurationTaskRecord> findLeasable(Context context, String queueName, Date now, int max) throws SQLException;
+
+    /**
+     * Find the entries of a queue leased by the given owner
+     *
+     * @param context    DSpace context
+     * @param queueName  the name of the queue
+     * @param leaseOwner the owner of the lease
+     * @return the entries
+     * @throws SQLException if database error
+     */
+    List<CurationTaskRecord> findByLeaseOwner(Context context, String queueName, String leaseOwner)
+        throws SQLException;
+
+    /**
+     * Find the entries of a queue which were given up on
+     *
+     * @param context   DSpace context
+     * @param queueName the name of the queue
+     * @return the entries
+     * @throws SQLException if database error
+     */
+    List<CurationTaskRecord> findDead(Context context, String queueName) throws SQLException;
+}
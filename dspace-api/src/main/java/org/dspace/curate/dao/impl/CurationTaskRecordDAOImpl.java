@@ -0,0 +1,90 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate.dao.impl;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.dspace.core.AbstractHibernateDAO;
+import org.dspace.core.Context;
+import org.dspace.curate.CurationTaskRecord;
+import org.dspace.curate.CurationTaskRecord_;
+import org.dspace.curate.dao.CurationTaskRecordDAO;
+import org.hibernate.LockOptions;
+
+/**
+ * Hibernate implementation of the Database Access Object interface class for the CurationTaskRecord object.
+ * This class is responsible for all database calls for the CurationTaskRecord object and is autowired by spring
+ * This class should never be accessed directly.
+ */
+public class CurationTaskRecordDAOImpl extends AbstractHibernateDAO<CurationTaskRecord>
+    implements CurationTaskRecordDAO {
+
+    protected CurationTaskRecordDAOImpl() {
+        super();
+    }
+
+    @Override
+    public List<String> findQueueNames(Context context) throws SQLException {
+        Query query = createQuery(context, "SELECT DISTINCT queueName FROM CurationTaskRecord " +
+            "WHERE deadDate IS NULL ORDER BY queueName");
+        @SuppressWarnings("unchecked")
+        List<String> result = query.getResultList();
+        return result;
+    }
+
+    @Override
+    public List<CurationTaskRecord> findLeasable(Context context, String queueName, Date now, int max)
+        throws SQLException {
+        Query query = createQuery(context, "FROM CurationTaskRecord WHERE queueName = :queueName " +
+            "AND deadDate IS NULL AND (leaseExpires IS NULL OR leaseExpires < :now) ORDER BY id");
+        query.setParameter("queueName", queueName);
+        query.setParameter("now", now, TemporalType.TIMESTAMP);
+        // SELECT ... FOR UPDATE SKIP LOCKED, or a plain FOR UPDATE on databases which can't skip locked rows
+        query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        query.setHint("javax.persistence.lock.timeout", LockOptions.SKIP_LOCKED);
+        if (max > 0) {
+            query.setMaxResults(max);
+        }
+        return list(query);
+    }
+
+    @Override
+    public List<CurationTaskRecord> findByLeaseOwner(Context context, String queueName, String leaseOwner)
+        throws SQLException {
+        CriteriaBuilder criteriaBuilder = getCriteriaBuilder(context);
+        CriteriaQuery<CurationTaskRecord> criteriaQuery = getCriteriaQuery(criteriaBuilder,
+                                                                           CurationTaskRecord.class);
+        Root<CurationTaskRecord> root = criteriaQuery.from(CurationTaskRecord.class);
+        criteriaQuery.select(root);
+        criteriaQuery.where(criteriaBuilder.equal(root.get(CurationTaskRecord_.queueName), queueName),
+                            criteriaBuilder.equal(root.get(CurationTaskRecord_.leaseOwner), leaseOwner));
+        criteriaQuery.orderBy(criteriaBuilder.asc(root.get(CurationTaskRecord_.id)));
+        return list(context, criteriaQuery, false, CurationTaskRecord.class, -1, -1, false);
+    }
+
+    @Override
+    public List<CurationTaskRecord> findDead(Context context, String queueName) throws SQLException {
+        CriteriaBuilder criteriaBuilder = getCriteriaBuilder(context);
+        CriteriaQuery<CurationTaskRecord> criteriaQuery = getCriteriaQuery(criteriaBuilder,
+                                                                           CurationTaskRecord.class);
+        Root<CurationTaskRecord> root = criteriaQuery.from(CurationTaskRecord.class);
+        criteriaQuery.select(root);
+        criteriaQuery.where(criteriaBuilder.equal(root.get(CurationTaskRecord_.queueName), queueName),
+                            criteriaBuilder.isNotNull(root.get(CurationTaskRecord_.deadDate)));
+        criteriaQuery.orderBy(criteriaBuilder.asc(root.get(CurationTaskRecord_.id)));
+        return list(context, criteriaQuery, false, CurationTaskRecord.class, -1, -1, false);
+    }
+}
@@ -9,12 +9,23 @@ package org.dspace.discovery;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.StringUtils;
 import org.dspace.content.Collection;
 import org.dspace.content.Community;
 import org.dspace.content.DSpaceObject;
@@ -29,6 +40,7 @@ import org.dspace.discovery.indexobject.factory.IndexFactory;
 import org.dspace.discovery.indexobject.factory.IndexObjectFactoryFactory;
 import org.dspace.handle.factory.HandleServiceFactory;
 import org.dspace.scripts.DSpaceRunnable;
+import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
 import org.dspace.utils.DSpace;
 
@@ -68,7 +80,11 @@ public class IndexClient extends DSpaceRunnable<IndexDiscoveryScriptConfiguratio
         } else if (indexClientOptions == IndexClientOptions.BUILD ||
             indexClientOptions == IndexClientOptions.BUILDANDSPELLCHECK) {
             handler.logInfo("(Re)building index from scratch.");
-            indexer.createIndex(context);
+            if (isParallel()) {
+                indexPartitions(true);
+            } else {
+                indexer.createIndex(context);
+            }
             if (indexClientOptions == IndexClientOptions.BUILDANDSPELLCHECK) {
                 checkRebuildSpellCheck(commandLine, indexer);
             }
@@ -126,16 +142,30 @@ public class IndexClient extends DSpaceRunnable<IndexDiscoveryScriptConfiguratio
         } else if (indexClientOptions == IndexClientOptions.UPDATE ||
             indexClientOptions == IndexClientOptions.UPDATEANDSPELLCHECK) {
             handler.logInfo("Updating and Cleaning Index");
-            indexer.cleanIndex(false);
-            indexer.updateIndex(context, false);
+            if (isParallel()) {
+                if (!commandLine.hasOption("p")) {
+                    indexer.cleanIndex(false);
+                }
+                indexPartitions(false);
+            } else {
+                indexer.cleanIndex(false);
+                indexer.updateIndex(context, false);
+            }
             if (indexClientOptions == IndexClientOptions.UPDATEANDSPELLCHECK) {
                 checkRebuildSpellCheck(commandLine, indexer);
             }
         } else if (indexClientOptions == IndexClientOptions.FORCEUPDATE ||
             indexClientOptions == IndexClientOptions.FORCEUPDATEANDSPELLCHECK) {
             handler.logInfo("Updating and Cleaning Index");
-            indexer.cleanIndex(true);
-            indexer.updateIndex(context, true);
+            if (isParallel()) {
+                if (!commandLine.hasOption("p")) {
+                    indexer.cleanIndex(true);
+                }
+                indexPartitions(true);
+            } else {
+                indexer.cleanIndex(true);
+                indexer.updateIndex(context, true);
+            }
             if (indexClientOptions == IndexClientOptions.FORCEUPDATEANDSPELLCHECK) {
                 checkRebuildSpellCheck(commandLine, indexer);
             }
@@ -159,6 +189,106 @@ public class IndexClient extends DSpaceRunnable<IndexDiscoveryScriptConfiguratio
         }
         indexClientOptions = IndexClientOptions.getIndexClientOption(commandLine);
     }
+    /**
+     * @return true if the index should be (re)built or updated per partition, using a pool of worker threads
+     */
+    private boolean isParallel() {
+        return commandLine.hasOption("t") || commandLine.hasOption("p");
+    }
+
+    /**
+     * (Re)index the partitions given on the command line, or all partitions if none were given, using the number of
+     * worker threads given on the command line. Each worker uses its own DSpace Context. Partitions which fail are
+     * reported at the end of the run, so they can be retried using the "-p" option.
+     *
+     * @param force whether or not to force the reindexing
+     * @throws Exception if one or more partitions could not be indexed
+     */
+    private void indexPartitions(boolean force) throws Exception {
+        final ConfigurationService configurationService = DSpaceServicesFactory.getInstance()
+                                                                               .getConfigurationService();
+        final int threads = commandLine.hasOption("t") ? Integer.parseInt(commandLine.getOptionValue("t")) : 1;
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads should be at least 1");
+        }
+        final List<IndexingPartition> partitions = new ArrayList<>();
+        if (commandLine.hasOption("p")) {
+            for (String partition : StringUtils.split(commandLine.getOptionValue("p"), ",")) {
+                partitions.add(IndexingPartition.parse(partition));
+            }
+        } else {
+            partitions.addAll(indexer.getIndexingPartitions(null,
+                configurationService.getIntProperty("discovery.index.partitions", 64)));
+        }
+        handler.logInfo("Indexing " + partitions.size() + " partitions using " + threads + " threads");
+
+        final long startTimeMillis = System.currentTimeMillis();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        final Map<IndexingPartition, Future<Long>> results = new LinkedHashMap<>();
+        final AtomicInteger completed = new AtomicInteger();
+        try {
+            for (IndexingPartition partition : partitions) {
+                results.put(partition, executorService.submit(
+                    new PartitionIndexer(partition, force, completed, partitions.size())));
+            }
+
+            long count = 0;
+            final List<IndexingPartition> failed = new ArrayList<>();
+            for (Map.Entry<IndexingPartition, Future<Long>> result : results.entrySet()) {
+                try {
+                    count += result.getValue().get();
+                } catch (ExecutionException e) {
+                    handler.logError("Partition " + result.getKey() + " failed: " + e.getCause().getMessage());
+                    failed.add(result.getKey());
+                }
+            }
+            indexer.commit();
+
+            final long seconds = (System.currentTimeMillis() - startTimeMillis) / 1000;
+            handler.logInfo("Indexed " + count + " object" + (count != 1 ? "s" : "") + " in " + seconds + " seconds");
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException(failed.size() + " partition(s) failed, retry them with -p "
+                                                    + StringUtils.join(failed, ","));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * {@link Callable} implementation indexing a single partition in its own DSpace Context.
+     */
+    private class PartitionIndexer implements Callable<Long> {
+
+        private final IndexingPartition partition;
+        private final boolean force;
+        private final AtomicInteger completed;
+        private final int total;
+
+        PartitionIndexer(IndexingPartition partition, boolean force, AtomicInteger completed, int total) {
+            this.partition = partition;
+            this.force = force;
+            this.completed = completed;
+            this.total = total;
+        }
+
+        @Override
+        public Long call() throws Exception {
+            final long startTimeMillis = System.currentTimeMillis();
+            final Context partitionContext = new Context(Context.Mode.READ_ONLY);
+            try {
+                partitionContext.turnOffAuthorisationSystem();
+                final long count = indexer.updateIndex(partitionContext, force, partition);
+                final long seconds = (System.currentTimeMillis() - startTimeMillis) / 1000;
+                handler.logInfo("Partition " + partition + " indexed " + count + " objects in " + seconds
+                                    + " seconds (" + completed.incrementAndGet() + "/" + total + " partitions)");
+                return count;
+            } finally {
+                partitionContext.abort();
+            }
+        }
+    }
+
     /**
      * Indexes the given object and all children, if applicable.
      *
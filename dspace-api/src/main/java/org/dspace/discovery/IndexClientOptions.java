@@ -90,6 +90,13 @@ public enum IndexClientOptions {
         options.addOption("f", "force", false,
                           "if updating existing index, force each handle to be reindexed even if uptodate");
         options.getOption("f").setType(boolean.class);
+        options.addOption("t", "threads", true,
+                          "(re)build or update the index in parallel, using the given number of threads");
+        options.getOption("t").setType(String.class);
+        options.addOption("p", "partitions", true,
+                          "only (re)build or update the given comma separated partitions (e.g. Item:5/64), as "
+                              + "reported by a previous parallel run");
+        options.getOption("p").setType(String.class);
         options.addOption("h", "help", false, "print this help message");
         options.getOption("h").setType(boolean.class);
         return options;
@@ -7,7 +7,9 @@
  */
 package org.dspace.discovery;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -149,7 +151,11 @@ public class IndexEventConsumer implements Consumer {
 
             case Event.REMOVE:
             case Event.ADD:
-                if (object == null) {
+                if (object == null && et == Event.REMOVE) {
+                    // expected: the deletion of an object is followed by the removal from its containers (see
+                    // Event), the object is unindexed by its DELETE event
+                    log.debug("consume() skipping the removal of a deleted object: " + event.toString());
+                } else if (object == null) {
                     log.warn(event.getEventTypeAsString() + " event, could not get object for "
                                  + event.getObjectTypeAsString() + " id="
                                  + event.getObjectID()
@@ -197,45 +203,28 @@ public class IndexEventConsumer implements Consumer {
     public void end(Context ctx) throws Exception {
 
         try {
-            for (String uid : uniqueIdsToDelete) {
-                try {
-                    indexer.unIndexContent(ctx, uid, false);
-                    if (log.isDebugEnabled()) {
-                        log.debug("UN-Indexed Item, handle=" + uid);
-                    }
-                } catch (Exception e) {
-                    log.error("Failed while UN-indexing object: " + uid, e);
-                }
-            }
-            // update the changed Items not deleted because they were on create list
+            // reload the objects to update in the current session; we let all types through here and allow the
+            // search indexer to make decisions on indexing and/or removal
+            final List<IndexableObject> objectsToIndex = new ArrayList<>(objectsToUpdate.size());
             for (IndexableObject iu : objectsToUpdate) {
-                /* we let all types through here and
-                 * allow the search indexer to make
-                 * decisions on indexing and/or removal
-                 */
                 iu.setIndexedObject(ctx.reloadEntity(iu.getIndexedObject()));
-                String uniqueIndexID = iu.getUniqueIndexID();
-                if (uniqueIndexID != null) {
-                    try {
-                        indexer.indexContent(ctx, iu, true, false);
-                        log.debug("Indexed "
-                                + iu.getTypeText()
-                                + ", id=" + iu.getID()
-                                + ", unique_id=" + uniqueIndexID);
-                    } catch (Exception e) {
-                        log.error("Failed while indexing object: ", e);
-                    }
+                if (iu.getUniqueIndexID() != null) {
+                    objectsToIndex.add(iu);
                 }
             }
-        } finally {
-            if (!objectsToUpdate.isEmpty() || !uniqueIdsToDelete.isEmpty()) {
-
-                indexer.commit();
-
-                // "free" the resources
-                objectsToUpdate.clear();
-                uniqueIdsToDelete.clear();
+            if (!objectsToIndex.isEmpty() || !uniqueIdsToDelete.isEmpty()) {
+                // hand the whole transaction over to the indexer at once, so it can be sent in batches
+                indexer.updateIndex(ctx, objectsToIndex, uniqueIdsToDelete);
+                if (log.isDebugEnabled()) {
+                    log.debug("UN-Indexed " + uniqueIdsToDelete + ", indexed " + objectsToIndex.size() + " objects");
+                }
             }
+        } catch (Exception e) {
+            log.error("Failed while updating the index", e);
+        } finally {
+            // "free" the resources
+            objectsToUpdate.clear();
+            uniqueIdsToDelete.clear();
         }
     }
 
@@ -0,0 +1,183 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A slice of the discovery index which can be (re)built independently of the others, see
+ * {@link IndexingService#updateIndex(org.dspace.core.Context, boolean, IndexingPartition)}.
+ * <p>
+ * A partition covers either all objects of one indexable type, or the objects of that type whose UUID lies within a
+ * range. UUID ranges are obtained by splitting the leading 32 bits of the UUID into a power of two number of equally
+ * sized ranges. Because of that no range ever spans the sign bit, so the ranges are the same whether the database
+ * compares UUIDs as signed (H2) or unsigned (PostgreSQL) values.
+ * <p>
+ * The string representation of a partition is either the type ("Community") or the type followed by the index and
+ * the number of partitions ("Item:5/64"). It can be parsed again using {@link #parse(String)}, which allows a failed
+ * partition to be retried on its own.
+ */
+public class IndexingPartition {
+
+    /**
+     * The maximum number of ranges the objects of a single type can be split into
+     */
+    public static final int MAX_PARTITIONS = 65536;
+
+    private static final String INDEX_SEPARATOR = ":";
+    private static final String COUNT_SEPARATOR = "/";
+
+    private final String type;
+    private final int index;
+    private final int count;
+
+    /**
+     * Create a partition covering all objects of the given type
+     * @param type  the indexable object type
+     */
+    public IndexingPartition(String type) {
+        this(type, 0, 1);
+    }
+
+    /**
+     * Create a partition covering one of count UUID ranges of the given type
+     * @param type  the indexable object type
+     * @param index the (zero based) index of the range
+     * @param count the total number of ranges, a power of two between 1 and {@link #MAX_PARTITIONS}
+     */
+    public IndexingPartition(String type, int index, int count) {
+        if (StringUtils.isBlank(type)) {
+            throw new IllegalArgumentException("A partition requires a type");
+        }
+        if (count < 1 || count > MAX_PARTITIONS || Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("The number of partitions must be a power of two between 1 and "
+                                                   + MAX_PARTITIONS + ", got " + count);
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Partition index " + index + " is out of bounds for " + count
+                                                   + " partitions");
+        }
+        this.type = type;
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Split the objects of the given type into the given number of UUID ranges
+     * @param type  the indexable object type
+     * @param count the number of ranges, will be rounded up to the next power of two
+     * @return      the partitions, ordered by their UUID range
+     */
+    public static List<IndexingPartition> split(String type, int count) {
+        int partitions = count <= 1 ? 1 : Integer.highestOneBit(Math.min(count, MAX_PARTITIONS) - 1) << 1;
+        List<IndexingPartition> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            result.add(new IndexingPartition(type, i, partitions));
+        }
+        return result;
+    }
+
+    /**
+     * Parse the string representation of a partition, as returned by {@link #toString()}
+     * @param value the string representation, e.g. "Item:5/64" or "Collection"
+     * @return      the partition
+     * @throws IllegalArgumentException if the value is not a valid partition
+     */
+    public static IndexingPartition parse(String value) {
+        String trimmed = StringUtils.trimToEmpty(value);
+        if (!StringUtils.contains(trimmed, INDEX_SEPARATOR)) {
+            return new IndexingPartition(trimmed);
+        }
+        String type = StringUtils.substringBefore(trimmed, INDEX_SEPARATOR);
+        String range = StringUtils.substringAfter(trimmed, INDEX_SEPARATOR);
+        try {
+            int index = Integer.parseInt(StringUtils.substringBefore(range, COUNT_SEPARATOR));
+            int count = Integer.parseInt(StringUtils.substringAfter(range, COUNT_SEPARATOR));
+            return new IndexingPartition(type, index, count);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid partition: " + value, e);
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return true if this partition only covers a UUID range of its type rather than all of its objects
+     */
+    public boolean isRange() {
+        return count > 1;
+    }
+
+    /**
+     * @return the lowest UUID of this partition (inclusive)
+     */
+    public UUID getLowerBound() {
+        return new UUID(getRangeStart(index) << 32, 0L);
+    }
+
+    /**
+     * @return the highest UUID of this partition (inclusive)
+     */
+    public UUID getUpperBound() {
+        return new UUID((getRangeStart(index + 1) - 1) << 32 | 0xFFFFFFFFL, -1L);
+    }
+
+    /**
+     * Check whether the given UUID lies within this partition
+     * @param uuid  the UUID to check
+     * @return      true if the UUID is part of this partition
+     */
+    public boolean contains(UUID uuid) {
+        long leadingBits = uuid.getMostSignificantBits() >>> 32;
+        return leadingBits >= getRangeStart(index) && leadingBits < getRangeStart(index + 1);
+    }
+
+    private long getRangeStart(int rangeIndex) {
+        return rangeIndex * ((1L << 32) / count);
+    }
+
+    @Override
+    public String toString() {
+        if (!isRange()) {
+            return type;
+        }
+        return type + INDEX_SEPARATOR + index + COUNT_SEPARATOR + count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IndexingPartition that = (IndexingPartition) o;
+        return index == that.index && count == that.count && type.equals(that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, index, count);
+    }
+}
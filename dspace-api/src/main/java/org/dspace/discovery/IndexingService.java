@@ -9,6 +9,8 @@ package org.dspace.discovery;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 
 import org.dspace.core.Context;
 
@@ -53,6 +55,50 @@ public interface IndexingService {
 
     void updateIndex(Context context, boolean force, String type);
 
+    /**
+     * Split the objects to index into partitions which can be indexed independently (and concurrently) using
+     * {@link #updateIndex(Context, boolean, IndexingPartition)}. Items are split into UUID ranges, all other types
+     * are returned as a single partition per type.
+     *
+     * @param type           only return the partitions of this type, or all types if null
+     * @param itemPartitions the number of UUID ranges to split the items into
+     * @return the partitions
+     */
+    List<IndexingPartition> getIndexingPartitions(String type, int itemPartitions);
+
+    /**
+     * Update the index for all objects in the given partition. Documents are sent to the search core in batches,
+     * the caller is responsible for committing. Unlike {@link #updateIndex(Context, boolean)} errors are not
+     * swallowed, so the caller can decide to retry the partition.
+     *
+     * @param context   the DSpace context, which is not shared with any other thread
+     * @param force     whether or not to force the reindexing
+     * @param partition the partition to index
+     * @return the number of indexed objects
+     * @throws SQLException           if database error
+     * @throws IOException            if IO error
+     * @throws SearchServiceException if the documents could not be written to the search core
+     */
+    long updateIndex(Context context, boolean force, IndexingPartition partition)
+        throws SQLException, IOException, SearchServiceException;
+
+    /**
+     * Update the index for a set of changes, e.g. all objects changed within a single transaction. The given
+     * documents are removed from the index and the given objects are (re)indexed. Objects which cannot be indexed
+     * are logged and skipped.
+     * <p>
+     * When asynchronous indexing is enabled (discovery.index.async.enabled) the documents are handed to the
+     * indexing queue and this method returns as soon as they are queued. Otherwise the documents are written in
+     * batches and committed before this method returns.
+     *
+     * @param context           the DSpace context
+     * @param indexableObjects  the objects to (re)index
+     * @param uniqueIdsToDelete the unique IDs of the documents to remove from the index
+     * @throws SearchServiceException if the changes could not be written to the search core
+     */
+    void updateIndex(Context context, Collection<IndexableObject> indexableObjects,
+                     Collection<String> uniqueIdsToDelete) throws SearchServiceException;
+
     void cleanIndex(boolean force) throws IOException,
         SQLException, SearchServiceException;
 
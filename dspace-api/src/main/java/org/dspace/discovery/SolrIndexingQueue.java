@@ -0,0 +1,371 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+
+/**
+ * Bounded queue which sends updates of the discovery index to Solr asynchronously, in batches.
+ * <p>
+ * Documents to add and unique IDs to delete are put on a bounded queue. A single background thread takes them off
+ * the queue and sends them to Solr in batches. A batch is sent as soon as it holds the maximum number of updates,
+ * reaches the maximum (estimated) size in bytes, or when its oldest update reaches the maximum age. Adds and deletes
+ * are sent in the order in which they were queued. When the queue is full, callers block until the sender has
+ * caught up.
+ * <p>
+ * A batch which cannot be sent is retried a number of times. If it still fails, its updates are sent one by one so
+ * a single invalid document does not cause the others to be lost. Updates which still fail are kept, and can be
+ * inspected and queued again using {@link #getFailedDocuments()}, {@link #getFailedDeletes()} and
+ * {@link #retryFailed()}.
+ */
+public class SolrIndexingQueue {
+
+    private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(SolrIndexingQueue.class);
+
+    private final Supplier<SolrClient> solrSupplier;
+    private final BlockingQueue<Update> queue;
+    private final int maxBatchSize;
+    private final long maxBatchBytes;
+    private final long maxBatchAge;
+    private final int commitWithin;
+    private final int maxAttempts;
+    private final long retryDelay;
+
+    private final Map<String, SolrInputDocument> failedDocuments = new LinkedHashMap<>();
+    private final Set<String> failedDeletes = new LinkedHashSet<>();
+
+    private final Object progressLock = new Object();
+    // guarded by progressLock
+    private long queued = 0;
+    // guarded by progressLock
+    private long processed = 0;
+
+    private volatile boolean running = true;
+    private final AtomicInteger flushing = new AtomicInteger();
+    private final Thread sender;
+
+    /**
+     * Create a new queue and start its sender thread.
+     *
+     * @param solrSupplier  supplies the client of the search core, may supply null if Solr is not available
+     * @param capacity      the maximum number of updates waiting to be sent
+     * @param maxBatchSize  the maximum number of updates sent in a single request
+     * @param maxBatchBytes the maximum estimated size in bytes of the documents sent in a single request
+     * @param maxBatchAge   the maximum time (in milliseconds) an update waits for its batch to fill up
+     * @param commitWithin  the time (in milliseconds) within which Solr should make the updates visible, or -1 to
+     *                      leave this to explicit commits
+     * @param maxAttempts   the number of times a batch is sent before its updates are sent one by one
+     * @param retryDelay    the time (in milliseconds) to wait before resending a failed batch, multiplied by the
+     *                      number of failed attempts
+     */
+    public SolrIndexingQueue(Supplier<SolrClient> solrSupplier, int capacity, int maxBatchSize, long maxBatchBytes,
+                             long maxBatchAge, int commitWithin, int maxAttempts, long retryDelay) {
+        this.solrSupplier = solrSupplier;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchBytes = Math.max(1, maxBatchBytes);
+        this.maxBatchAge = Math.max(0, maxBatchAge);
+        this.commitWithin = commitWithin;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = Math.max(0, retryDelay);
+        this.sender = new Thread(this::run, "discovery-indexing-queue");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    /**
+     * Queue a document to be added to (or replaced in) the index. Blocks while the queue is full.
+     *
+     * @param document the document
+     * @throws InterruptedException if interrupted while waiting for space in the queue
+     */
+    public void add(SolrInputDocument document) throws InterruptedException {
+        enqueue(new Update(document, null));
+    }
+
+    /**
+     * Queue a document to be removed from the index. Blocks while the queue is full.
+     *
+     * @param uniqueId the unique ID of the document
+     * @throws InterruptedException if interrupted while waiting for space in the queue
+     */
+    public void delete(String uniqueId) throws InterruptedException {
+        enqueue(new Update(null, uniqueId));
+    }
+
+    private void enqueue(Update update) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("The discovery indexing queue has been shut down");
+        }
+        synchronized (progressLock) {
+            queued++;
+        }
+        try {
+            queue.put(update);
+        } catch (InterruptedException e) {
+            synchronized (progressLock) {
+                queued--;
+                progressLock.notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wait until all updates queued before this call have been sent (or have failed).
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        flushing.incrementAndGet();
+        try {
+            synchronized (progressLock) {
+                long target = queued;
+                while (processed < target) {
+                    if (!sender.isAlive()) {
+                        throw new IllegalStateException("The discovery indexing queue is no longer running, "
+                                                            + (target - processed) + " updates were not sent");
+                    }
+                    progressLock.wait(1000);
+                }
+            }
+        } finally {
+            flushing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stop accepting updates, send all updates which are still queued and stop the sender thread.
+     *
+     * @throws InterruptedException if interrupted while waiting for the remaining updates to be sent
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        sender.join();
+        synchronized (this) {
+            if (!failedDocuments.isEmpty() || !failedDeletes.isEmpty()) {
+                log.error("Discovery indexing queue shut down with {} documents which could not be indexed and {} "
+                              + "documents which could not be removed: {} {}", failedDocuments.size(),
+                          failedDeletes.size(), failedDocuments.keySet(), failedDeletes);
+            }
+        }
+    }
+
+    /**
+     * @return the number of updates waiting in the queue
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of updates which have been queued but not yet sent
+     */
+    public long getPendingCount() {
+        synchronized (progressLock) {
+            return queued - processed;
+        }
+    }
+
+    /**
+     * @return the documents which could not be added to the index, by unique ID
+     */
+    public synchronized Map<String, SolrInputDocument> getFailedDocuments() {
+        return new LinkedHashMap<>(failedDocuments);
+    }
+
+    /**
+     * @return the unique IDs of the documents which could not be removed from the index
+     */
+    public synchronized Set<String> getFailedDeletes() {
+        return new LinkedHashSet<>(failedDeletes);
+    }
+
+    /**
+     * Queue all failed updates again.
+     *
+     * @return the number of updates which were queued again
+     * @throws InterruptedException if interrupted while waiting for space in the queue
+     */
+    public int retryFailed() throws InterruptedException {
+        List<SolrInputDocument> documents;
+        List<String> deletes;
+        synchronized (this) {
+            documents = new ArrayList<>(failedDocuments.values());
+            deletes = new ArrayList<>(failedDeletes);
+            failedDocuments.clear();
+            failedDeletes.clear();
+        }
+        for (String uniqueId : deletes) {
+            delete(uniqueId);
+        }
+        for (SolrInputDocument document : documents) {
+            add(document);
+        }
+        return documents.size() + deletes.size();
+    }
+
+    /**
+     * Main loop of the sender thread.
+     */
+    private void run() {
+        Update carry = null;
+        while (running || carry != null || !queue.isEmpty()) {
+            try {
+                Update first = carry != null ? carry : queue.poll(100, TimeUnit.MILLISECONDS);
+                carry = null;
+                if (first == null) {
+                    continue;
+                }
+                List<Update> batch = new ArrayList<>();
+                batch.add(first);
+                long bytes = first.size;
+                long deadline = first.queued + maxBatchAge;
+                while (batch.size() < maxBatchSize && bytes < maxBatchBytes) {
+                    // don't wait for the batch to fill up when shutting down or when someone is waiting for it
+                    long remaining = running && flushing.get() == 0 ? deadline - System.currentTimeMillis() : 0;
+                    Update next = queue.poll(Math.max(0, Math.min(remaining, 100)), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        if (remaining <= 100) {
+                            break;
+                        }
+                        continue;
+                    }
+                    if (next.isDelete() != first.isDelete()) {
+                        // keep adds and deletes in order, the next update starts a new batch
+                        carry = next;
+                        break;
+                    }
+                    batch.add(next);
+                    bytes += next.size;
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                log.warn("Discovery indexing queue interrupted, {} updates are still pending", getPendingCount());
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(List<Update> batch) throws InterruptedException {
+        try {
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                try {
+                    sendBatch(batch);
+                    return;
+                } catch (Exception e) {
+                    log.warn("Unable to send {} updates to the discovery core (attempt {} of {}): {}",
+                             batch.size(), attempt, maxAttempts, e.getMessage());
+                    if (attempt < maxAttempts) {
+                        Thread.sleep(retryDelay * attempt);
+                    }
+                }
+            }
+            // Send the updates one by one so only the ones which really fail are kept
+            for (Update update : batch) {
+                try {
+                    sendBatch(Collections.singletonList(update));
+                } catch (Exception e) {
+                    failed(update, e);
+                }
+            }
+        } finally {
+            synchronized (progressLock) {
+                processed += batch.size();
+                progressLock.notifyAll();
+            }
+        }
+    }
+
+    private void sendBatch(List<Update> batch) throws Exception {
+        SolrClient solr = solrSupplier.get();
+        if (solr == null) {
+            throw new IOException("The discovery core is not available");
+        }
+        if (batch.get(0).isDelete()) {
+            List<String> uniqueIds = new ArrayList<>(batch.size());
+            for (Update update : batch) {
+                uniqueIds.add(update.uniqueId);
+            }
+            solr.deleteById(uniqueIds, commitWithin);
+        } else {
+            List<SolrInputDocument> documents = new ArrayList<>(batch.size());
+            for (Update update : batch) {
+                documents.add(update.document);
+            }
+            solr.add(documents, commitWithin);
+        }
+    }
+
+    private synchronized void failed(Update update, Exception e) {
+        if (update.isDelete()) {
+            log.error("Unable to remove {} from the discovery core", update.uniqueId, e);
+            failedDeletes.add(update.uniqueId);
+        } else {
+            String uniqueId = String.valueOf(update.document.getFieldValue(SearchUtils.RESOURCE_UNIQUE_ID));
+            log.error("Unable to index {} in the discovery core, reindex it using \"index-discovery -i {}\"",
+                      uniqueId, update.document.getFieldValue(SearchUtils.RESOURCE_ID_FIELD), e);
+            failedDocuments.put(uniqueId, update.document);
+        }
+    }
+
+    /**
+     * Estimate the size of the given document, based on the length of its field names and values
+     *
+     * @param document the document
+     * @return the estimated size in bytes
+     */
+    protected static long estimateSize(SolrInputDocument document) {
+        long size = 0;
+        for (SolrInputField field : document) {
+            size += field.getName().length();
+            for (Object value : field) {
+                size += value instanceof CharSequence ? ((CharSequence) value).length() : 16;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A single add or delete waiting in the queue
+     */
+    private static class Update {
+        private final SolrInputDocument document;
+        private final String uniqueId;
+        private final long queued = System.currentTimeMillis();
+        private final long size;
+
+        Update(SolrInputDocument document, String uniqueId) {
+            this.document = document;
+            this.uniqueId = uniqueId;
+            this.size = document != null ? estimateSize(document) : uniqueId.length();
+        }
+
+        boolean isDelete() {
+            return document == null;
+        }
+    }
+}
@@ -70,11 +70,13 @@ import org.dspace.discovery.indexobject.IndexableCommunity;
 import org.dspace.discovery.indexobject.IndexableItem;
 import org.dspace.discovery.indexobject.factory.IndexFactory;
 import org.dspace.discovery.indexobject.factory.IndexObjectFactoryFactory;
+import org.dspace.discovery.indexobject.factory.ItemIndexFactory;
 import org.dspace.eperson.Group;
 import org.dspace.eperson.factory.EPersonServiceFactory;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -99,7 +101,7 @@ import org.springframework.stereotype.Service;
  * @author Ben Bosman (ben at atmire dot com)
  */
 @Service
-public class SolrServiceImpl implements SearchService, IndexingService {
+public class SolrServiceImpl implements SearchService, IndexingService, DisposableBean {
 
     private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(SolrServiceImpl.class);
 
@@ -114,10 +116,47 @@ public class SolrServiceImpl implements SearchService, IndexingService {
     @Autowired
     protected ConfigurationService configurationService;
 
+    /**
+     * Queue used to send documents to the search core asynchronously, only initialized when
+     * discovery.index.async.enabled is set, see {@link #getIndexingQueue()}
+     */
+    private SolrIndexingQueue indexingQueue;
+
     protected SolrServiceImpl() {
 
     }
 
+    /**
+     * Retrieve the queue used to send documents to the search core asynchronously, creating it on first use.
+     *
+     * @return the queue, or null if asynchronous indexing is disabled
+     */
+    protected synchronized SolrIndexingQueue getIndexingQueue() {
+        if (indexingQueue == null && configurationService.getBooleanProperty("discovery.index.async.enabled", false)) {
+            indexingQueue = new SolrIndexingQueue(
+                solrSearchCore::getSolr,
+                configurationService.getIntProperty("discovery.index.async.queue-size", 1000),
+                configurationService.getIntProperty("discovery.index.async.batch-size", 100),
+                configurationService.getLongProperty("discovery.index.async.batch-bytes", 10485760L),
+                configurationService.getLongProperty("discovery.index.async.max-age", 1000L),
+                configurationService.getIntProperty("discovery.index.async.commit-within", 1000),
+                configurationService.getIntProperty("discovery.index.async.attempts", 3),
+                configurationService.getLongProperty("discovery.index.async.retry-delay", 1000L));
+        }
+        return indexingQueue;
+    }
+
+    /**
+     * Send all documents which are still queued to the search core before shutting down.
+     */
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (indexingQueue != null) {
+            indexingQueue.shutdown();
+            indexingQueue = null;
+        }
+    }
+
 
 
     /**
@@ -163,7 +202,18 @@ public class SolrServiceImpl implements SearchService, IndexingService {
     protected void update(Context context, IndexFactory indexableObjectService,
                           IndexableObject indexableObject) throws IOException, SQLException, SolrServerException {
         final SolrInputDocument solrInputDocument = indexableObjectService.buildDocument(context, indexableObject);
-        indexableObjectService.writeDocument(context, indexableObject, solrInputDocument);
+        final SolrIndexingQueue queue = getIndexingQueue();
+        if (queue != null) {
+            indexableObjectService.prepareDocument(context, indexableObject, solrInputDocument);
+            try {
+                queue.add(solrInputDocument);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while queueing " + indexableObject.getUniqueIndexID(), e);
+            }
+        } else {
+            indexableObjectService.writeDocument(context, indexableObject, solrInputDocument);
+        }
     }
 
     /**
@@ -198,11 +248,22 @@ public class SolrServiceImpl implements SearchService, IndexingService {
             }
             String uniqueID = indexableObject.getUniqueIndexID();
             log.info("Try to delete uniqueID:" + uniqueID);
+            final SolrIndexingQueue queue = getIndexingQueue();
+            if (queue != null) {
+                queue.delete(uniqueID);
+                if (commit) {
+                    commit();
+                }
+                return;
+            }
             indexObjectServiceFactory.getIndexableObjectFactory(indexableObject).delete(indexableObject);
             if (commit) {
                 solrSearchCore.getSolr().commit();
             }
-        } catch (IOException | SolrServerException exception) {
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while removing " + indexableObject.getUniqueIndexID(), exception);
+        } catch (IOException | SolrServerException | SearchServiceException exception) {
             log.error(exception.getMessage(), exception);
             emailException(exception);
         }
@@ -233,13 +294,22 @@ public class SolrServiceImpl implements SearchService, IndexingService {
         throws IOException {
 
         try {
-            if (solrSearchCore.getSolr() != null) {
+            final SolrIndexingQueue queue = getIndexingQueue();
+            if (queue != null) {
+                queue.delete(searchUniqueID);
+                if (commit) {
+                    commit();
+                }
+            } else if (solrSearchCore.getSolr() != null) {
                 indexObjectServiceFactory.getIndexableObjectFactory(searchUniqueID).delete(searchUniqueID);
                 if (commit) {
                     solrSearchCore.getSolr().commit();
                 }
             }
-        } catch (SolrServerException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while removing " + searchUniqueID, e);
+        } catch (SolrServerException | SearchServiceException e) {
             log.error(e.getMessage(), e);
         }
     }
@@ -306,7 +376,7 @@ public class SolrServiceImpl implements SearchService, IndexingService {
      */
     @Override
     public void updateIndex(Context context, boolean force) {
-        updateIndex(context, force, null);
+        updateIndex(context, force, (String) null);
     }
 
     @Override
@@ -333,6 +403,183 @@ public class SolrServiceImpl implements SearchService, IndexingService {
         }
     }
 
+    @Override
+    public List<IndexingPartition> getIndexingPartitions(String type, int itemPartitions) {
+        final List<IndexingPartition> partitions = new ArrayList<>();
+        for (IndexFactory indexableObjectService : indexObjectServiceFactory.getIndexFactories()) {
+            if (type == null || StringUtils.equals(indexableObjectService.getType(), type)) {
+                if (indexableObjectService instanceof ItemIndexFactory) {
+                    partitions.addAll(IndexingPartition.split(indexableObjectService.getType(), itemPartitions));
+                } else {
+                    partitions.add(new IndexingPartition(indexableObjectService.getType()));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    @Override
+    public long updateIndex(Context context, boolean force, IndexingPartition partition)
+        throws SQLException, IOException, SearchServiceException {
+        final IndexFactory indexableObjectService = indexObjectServiceFactory
+            .getIndexFactoryByType(partition.getType());
+        if (indexableObjectService == null) {
+            throw new IllegalArgumentException("No index factory found for type " + partition.getType());
+        }
+        final Iterator<IndexableObject> indexableObjects;
+        if (partition.isRange()) {
+            if (!(indexableObjectService instanceof ItemIndexFactory)) {
+                throw new IllegalArgumentException("Objects of type " + partition.getType()
+                                                       + " cannot be split into UUID ranges");
+            }
+            indexableObjects = (Iterator) ((ItemIndexFactory) indexableObjectService)
+                .findAll(context, partition.getLowerBound(), partition.getUpperBound());
+        } else {
+            indexableObjects = indexableObjectService.findAll(context);
+        }
+
+        final int batchSize = configurationService.getIntProperty("discovery.index.batch-size", 100);
+        final List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        while (indexableObjects.hasNext()) {
+            final IndexableObject indexableObject = indexableObjects.next();
+            if (force || requiresIndexing(indexableObject.getUniqueIndexID(), indexableObject.getLastModified())) {
+                final SolrInputDocument solrInputDocument = indexableObjectService
+                    .buildDocument(context, indexableObject);
+                indexableObjectService.prepareDocument(context, indexableObject, solrInputDocument);
+                batch.add(solrInputDocument);
+                count++;
+                if (batch.size() >= batchSize) {
+                    writeDocuments(batch);
+                    log.info("Partition {}: {} objects indexed", partition, count);
+                }
+            }
+            //To prevent memory issues, discard an object from the cache after processing
+            context.uncacheEntity(indexableObject.getIndexedObject());
+        }
+        writeDocuments(batch);
+        return count;
+    }
+
+    @Override
+    public void updateIndex(Context context, java.util.Collection<IndexableObject> indexableObjects,
+                            java.util.Collection<String> uniqueIdsToDelete) throws SearchServiceException {
+        final SolrIndexingQueue queue = getIndexingQueue();
+        try {
+            // the deletes don't depend on the adds, a failure of one must not lose the other
+            if (queue != null) {
+                for (String uniqueId : uniqueIdsToDelete) {
+                    queue.delete(uniqueId);
+                }
+            } else {
+                deleteDocuments(new ArrayList<>(uniqueIdsToDelete));
+            }
+
+            final int batchSize = configurationService.getIntProperty("discovery.index.batch-size", 100);
+            final List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+            for (IndexableObject indexableObject : indexableObjects) {
+                try {
+                    final IndexFactory indexableObjectService = indexObjectServiceFactory
+                        .getIndexableObjectFactory(indexableObject);
+                    final SolrInputDocument solrInputDocument = indexableObjectService
+                        .buildDocument(context, indexableObject);
+                    indexableObjectService.prepareDocument(context, indexableObject, solrInputDocument);
+                    if (queue != null) {
+                        queue.add(solrInputDocument);
+                    } else {
+                        batch.add(solrInputDocument);
+                        if (batch.size() >= batchSize) {
+                            writeDocumentsOrEach(batch);
+                        }
+                    }
+                    log.debug("Indexed " + indexableObject.getTypeText() + ", id=" + indexableObject.getID()
+                                  + ", unique_id=" + indexableObject.getUniqueIndexID());
+                } catch (SQLException | IOException | RuntimeException e) {
+                    log.error("Failed while indexing object: " + indexableObject.getUniqueIndexID(), e);
+                }
+            }
+            writeDocumentsOrEach(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchServiceException("Interrupted while queueing documents", e);
+        }
+
+        // Queued documents are made visible by the search core itself (discovery.index.async.commit-within)
+        if (queue == null) {
+            commit();
+        }
+    }
+
+    /**
+     * Send the given documents to the search core in a single request and clear the list. If the request fails,
+     * e.g. because of a single bad document, the documents are sent one at a time, so that only the failing ones
+     * are lost (and logged).
+     *
+     * @param documents the documents to write
+     */
+    protected void writeDocumentsOrEach(List<SolrInputDocument> documents) {
+        try {
+            writeDocuments(documents);
+        } catch (IOException | SearchServiceException | RuntimeException e) {
+            log.warn("Failed to index a batch of " + documents.size() + " documents, indexing them one at a time: "
+                         + e.getMessage());
+            for (SolrInputDocument document : documents) {
+                try {
+                    solrSearchCore.getSolr().add(document);
+                } catch (IOException | SolrServerException | RuntimeException de) {
+                    log.error("Failed while indexing object: "
+                                  + document.getFieldValue(SearchUtils.RESOURCE_UNIQUE_ID), de);
+                }
+            }
+            documents.clear();
+        }
+    }
+
+    /**
+     * Delete the documents with the given unique IDs from the search core in a single request. If the request fails,
+     * the documents are deleted one at a time, and the failures are logged.
+     *
+     * @param uniqueIds the unique IDs of the documents to delete
+     */
+    protected void deleteDocuments(List<String> uniqueIds) {
+        if (uniqueIds.isEmpty() || solrSearchCore.getSolr() == null) {
+            return;
+        }
+        try {
+            solrSearchCore.getSolr().deleteById(uniqueIds);
+        } catch (IOException | SolrServerException | RuntimeException e) {
+            log.warn("Failed to unindex a batch of " + uniqueIds.size() + " documents, unindexing them one at a "
+                         + "time: " + e.getMessage());
+            for (String uniqueId : uniqueIds) {
+                try {
+                    solrSearchCore.getSolr().deleteById(uniqueId);
+                } catch (IOException | SolrServerException | RuntimeException de) {
+                    log.error("Failed while unindexing object: " + uniqueId, de);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send the given documents to the search core in a single request and clear the list.
+     *
+     * @param documents the documents to write
+     * @throws IOException            if IO error
+     * @throws SearchServiceException if the documents could not be written to the search core
+     */
+    protected void writeDocuments(List<SolrInputDocument> documents) throws IOException, SearchServiceException {
+        if (documents.isEmpty() || solrSearchCore.getSolr() == null) {
+            documents.clear();
+            return;
+        }
+        try {
+            solrSearchCore.getSolr().add(documents);
+        } catch (SolrServerException e) {
+            throw new SearchServiceException(e.getMessage(), e);
+        }
+        documents.clear();
+    }
+
     /**
      * Iterates over all documents in the Lucene index and verifies they are in
      * database, if not, they are removed.
@@ -1387,9 +1634,16 @@ public class SolrServiceImpl implements SearchService, IndexingService {
     @Override
     public void commit() throws SearchServiceException {
         try {
+            final SolrIndexingQueue queue = getIndexingQueue();
+            if (queue != null) {
+                queue.flush();
+            }
             if (solrSearchCore.getSolr() != null) {
                 solrSearchCore.getSolr().commit();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchServiceException("Interrupted while waiting for queued documents to be sent", e);
         } catch (IOException | SolrServerException e) {
             throw new SearchServiceException(e.getMessage(), e);
         }
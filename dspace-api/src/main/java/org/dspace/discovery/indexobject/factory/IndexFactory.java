@@ -58,6 +58,19 @@ public interface IndexFactory<T extends IndexableObject, S> {
     void writeDocument(Context context, T indexableObject, SolrInputDocument solrInputDocument)
             throws SQLException, IOException, SolrServerException;
 
+    /**
+     * Add the content which is normally only added while writing the document (e.g. the full text of an item) to
+     * the provided document, without writing it to the solr core. This allows the caller to send several documents
+     * to the solr core in a single request.
+     * @param context               DSpace context object
+     * @param indexableObject       The indexable object that we want to store in the search core
+     * @param solrInputDocument     Solr input document which will be completed
+     * @throws SQLException         If database error
+     * @throws IOException          If IO error
+     */
+    void prepareDocument(Context context, T indexableObject, SolrInputDocument solrInputDocument)
+            throws SQLException, IOException;
+
     /**
      * Remove the provided indexable object from the solr core
      * @param indexableObject       The indexable object that we want to remove from the search core
@@ -9,7 +9,9 @@ package org.dspace.discovery.indexobject.factory;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
 
 import org.apache.solr.common.SolrInputDocument;
 import org.dspace.content.Item;
@@ -24,6 +26,16 @@ import org.dspace.discovery.indexobject.IndexableItem;
  */
 public interface ItemIndexFactory extends DSpaceObjectIndexFactory<IndexableItem, Item> {
 
+    /**
+     * Retrieve all items (archived or withdrawn) whose UUID lies within the given range
+     * @param context       DSpace context object
+     * @param lowerBound    The lowest UUID to include (inclusive)
+     * @param upperBound    The highest UUID to include (inclusive)
+     * @return              An iterator containing all the items within the range
+     * @throws SQLException If database error
+     */
+    Iterator<IndexableItem> findAll(Context context, UUID lowerBound, UUID upperBound) throws SQLException;
+
     /**
      * Store item fields in the solr document
      * @param doc                       Solr input document which will be written to our discovery solr core
@@ -0,0 +1,77 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.dspace.core.Context;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.eperson.service.GroupService;
+
+/**
+ * Command line tool to check the cache of direct and indirect group memberships (the group2groupcache table)
+ * against the group memberships, and to repair it. The cache is maintained incrementally when groups are changed,
+ * so it should only get out of date when the database is changed by other means.
+ * <p>
+ * The missing and surplus entries are logged, the tool exits with status 1 if it found (and didn't repair) any.
+ */
+public class GroupCacheCLITool {
+
+    /**
+     * Default constructor
+     */
+    private GroupCacheCLITool() { }
+
+    public static void main(String[] argv) throws Exception {
+        Options options = new Options();
+        options.addOption("r", "repair", false, "add the missing and remove the surplus entries");
+        options.addOption("h", "help", false, "help");
+
+        CommandLineParser parser = new DefaultParser();
+        CommandLine line = null;
+        try {
+            line = parser.parse(options, argv);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("group-cache [-r]", options);
+            System.exit(1);
+        }
+        if (line.hasOption('h')) {
+            new HelpFormatter().printHelp("group-cache [-r]", options);
+            System.exit(0);
+        }
+        boolean repair = line.hasOption('r');
+
+        GroupService groupService = EPersonServiceFactory.getInstance().getGroupService();
+        Context context = new Context();
+        int errors;
+        try {
+            context.turnOffAuthorisationSystem();
+            errors = groupService.verifyGroupCache(context, repair);
+            context.complete();
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+
+        if (errors == 0) {
+            System.out.println("The group cache is up to date");
+        } else if (repair) {
+            System.out.println("Repaired " + errors + " group cache entries");
+        } else {
+            System.out.println("Found " + errors + " missing or surplus group cache entries, "
+                                   + "see the log for details. Use -r to repair them.");
+            System.exit(1);
+        }
+    }
+}
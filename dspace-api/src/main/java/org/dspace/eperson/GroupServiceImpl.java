@@ -8,7 +8,10 @@
 package org.dspace.eperson;
 
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -496,11 +499,14 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
             ePerson.getGroups().remove(group);
         }
 
-        // empty out group2groupcache table (if we do it after we delete our object we get an issue with references)
-        group2GroupCacheDAO.deleteAll(context);
+        // the groups which may have reached other groups through this group
+        Set<UUID> parents = new HashSet<>(group2GroupCacheDAO.findParentIds(context, group));
+        // remove our group2groupcache entries (if we do it after we delete our object we get an issue with
+        // references)
+        group2GroupCacheDAO.deleteByGroup(context, group);
         // Remove ourself
         groupDAO.delete(context, group);
-        rethinkGroupCache(context, false);
+        updateGroupCache(context, parents, group);
 
         log.info(LogManager.getHeader(context, "delete_group", "group_id="
             + group.getID()));
@@ -591,7 +597,7 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
         }
 
         if (group.isGroupsChanged()) {
-            rethinkGroupCache(context, true);
+            updateGroupCache(context, group);
             group.clearGroupsChanged();
         }
 
@@ -606,6 +612,141 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     }
 
 
+    /**
+     * Update the group cache AKA the group2groupcache table in the database after the member groups of the given
+     * group, or the groups it is a member of, have changed. Only the entries of the group itself and of the groups it
+     * is (or was) a direct or indirect member of are recomputed, all other entries can't be affected by the change.
+     *
+     * @param context The relevant DSpace Context.
+     * @param group   the changed group
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    protected void updateGroupCache(Context context, Group group) throws SQLException {
+        Set<UUID> affected = new HashSet<>();
+        affected.add(group.getID());
+        affected.addAll(group2GroupCacheDAO.findParentIds(context, group));
+        // a new parent group isn't in the cache yet
+        for (Group parent : group.getParentGroups()) {
+            if (affected.add(parent.getID())) {
+                affected.addAll(group2GroupCacheDAO.findParentIds(context, parent));
+            }
+        }
+        updateGroupCache(context, affected, null);
+    }
+
+    /**
+     * Recompute the group cache entries of the given groups from their current member groups, and write out the
+     * entries which were added or removed. As the other entries are not recomputed, the given groups must include
+     * all groups which are a direct or indirect parent of a changed group. If the member groups contain a cycle
+     * through one of the given groups, the cache is regenerated completely instead.
+     *
+     * @param context  The relevant DSpace Context.
+     * @param groupIDs the IDs of the groups whose entries may have changed
+     * @param deleted  a group which is being deleted and must be ignored, may be null
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    protected void updateGroupCache(Context context, Set<UUID> groupIDs, Group deleted) throws SQLException {
+        Map<Group, Set<UUID>> children = new HashMap<>();
+        for (UUID groupID : groupIDs) {
+            Group group = find(context, groupID);
+            if (group == null || group.equals(deleted)) {
+                continue;
+            }
+            Set<UUID> myChildren = getChildren(group, deleted);
+            if (myChildren.contains(groupID)) {
+                log.warn("Group {} is a member of itself, regenerating the group cache", groupID);
+                rethinkGroupCache(context, true);
+                return;
+            }
+            children.put(group, myChildren);
+        }
+
+        for (Map.Entry<Group, Set<UUID>> entry : children.entrySet()) {
+            Set<UUID> cached = new HashSet<>(group2GroupCacheDAO.findChildIds(context, entry.getKey()));
+            Set<UUID> missing = new HashSet<>(entry.getValue());
+            missing.removeAll(cached);
+            cached.removeAll(entry.getValue());
+            writeGroupCache(context, entry.getKey(), missing, cached);
+        }
+    }
+
+    /**
+     * Find all direct and indirect member groups of a group, by following the member groups.
+     *
+     * @param group   the parent group
+     * @param deleted a group which is being deleted and must be ignored, may be null
+     * @return the IDs of the member groups
+     */
+    protected Set<UUID> getChildren(Group group, Group deleted) {
+        Set<UUID> myChildren = new HashSet<>();
+        Deque<Group> toVisit = new ArrayDeque<>(group.getMemberGroups());
+        while (!toVisit.isEmpty()) {
+            Group child = toVisit.pop();
+            if (!child.equals(deleted) && myChildren.add(child.getID())) {
+                toVisit.addAll(child.getMemberGroups());
+            }
+        }
+        return myChildren;
+    }
+
+    /**
+     * Add and remove group cache entries of a parent group.
+     *
+     * @param context The relevant DSpace Context.
+     * @param parent  the parent group
+     * @param missing the IDs of the child groups to add
+     * @param surplus the IDs of the child groups to remove
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    protected void writeGroupCache(Context context, Group parent, Set<UUID> missing, Set<UUID> surplus)
+        throws SQLException {
+        if (!surplus.isEmpty()) {
+            group2GroupCacheDAO.deleteByParentAndChildren(context, parent, surplus);
+        }
+        for (UUID child : missing) {
+            Group childGroup = find(context, child);
+            if (childGroup != null) {
+                Group2GroupCache group2GroupCache = group2GroupCacheDAO.create(context, new Group2GroupCache());
+                group2GroupCache.setParent(parent);
+                group2GroupCache.setChild(childGroup);
+                group2GroupCacheDAO.save(context, group2GroupCache);
+            }
+        }
+    }
+
+    @Override
+    public int verifyGroupCache(Context context, boolean repair) throws SQLException {
+        Map<UUID, Set<UUID>> expected = getGroupClosure(context, true);
+        Map<UUID, Set<UUID>> cached = new HashMap<>();
+        for (Pair<UUID, UUID> entry : group2GroupCacheDAO.getCacheResults(context)) {
+            cached.computeIfAbsent(entry.getLeft(), parent -> new HashSet<>()).add(entry.getRight());
+        }
+
+        Set<UUID> parents = new HashSet<>(expected.keySet());
+        parents.addAll(cached.keySet());
+        int errors = 0;
+        for (UUID parent : parents) {
+            Set<UUID> missing = new HashSet<>(expected.getOrDefault(parent, Collections.emptySet()));
+            Set<UUID> surplus = new HashSet<>(cached.getOrDefault(parent, Collections.emptySet()));
+            missing.removeAll(cached.getOrDefault(parent, Collections.emptySet()));
+            surplus.removeAll(expected.getOrDefault(parent, Collections.emptySet()));
+            for (UUID child : missing) {
+                log.warn("Group cache is missing group {} as a member of group {}", child, parent);
+            }
+            for (UUID child : surplus) {
+                log.warn("Group cache wrongly contains group {} as a member of group {}", child, parent);
+            }
+            errors += missing.size() + surplus.size();
+            if (repair && (!missing.isEmpty() || !surplus.isEmpty())) {
+                Group parentGroup = find(context, parent);
+                if (parentGroup != null) {
+                    writeGroupCache(context, parentGroup, missing, surplus);
+                }
+            }
+        }
+        return errors;
+    }
+
     /**
      * Regenerate the group cache AKA the group2groupcache table in the database -
      * meant to be called when a group is added or removed from another group
@@ -616,6 +757,42 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
      */
     protected void rethinkGroupCache(Context context, boolean flushQueries) throws SQLException {
 
+        Map<UUID, Set<UUID>> parents = getGroupClosure(context, flushQueries);
+
+        // empty out group2groupcache table
+        group2GroupCacheDAO.deleteAll(context);
+
+        // write out new one
+        for (Map.Entry<UUID, Set<UUID>> parent : parents.entrySet()) {
+            UUID key = parent.getKey();
+
+            for (UUID child : parent.getValue()) {
+
+                Group parentGroup = find(context, key);
+                Group childGroup = find(context, child);
+
+
+                if (parentGroup != null && childGroup != null && group2GroupCacheDAO
+                    .find(context, parentGroup, childGroup) == null) {
+                    Group2GroupCache group2GroupCache = group2GroupCacheDAO.create(context, new Group2GroupCache());
+                    group2GroupCache.setParent(parentGroup);
+                    group2GroupCache.setChild(childGroup);
+                    group2GroupCacheDAO.save(context, group2GroupCache);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the contents of the group cache from scratch, from the group to group memberships in the database.
+     *
+     * @param context      The relevant DSpace Context.
+     * @param flushQueries flushQueries Flush all pending queries
+     * @return the IDs of all direct and indirect member groups of each parent group
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    protected Map<UUID, Set<UUID>> getGroupClosure(Context context, boolean flushQueries) throws SQLException {
+
         Map<UUID, Set<UUID>> parents = new HashMap<>();
 
         List<Pair<UUID, UUID>> group2groupResults = groupDAO.getGroup2GroupResults(context, flushQueries);
@@ -643,33 +820,11 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
         // parent groups
         // so now to establish all parent,child relationships we can iterate
         // through the parents hash
-        for (Map.Entry<UUID, Set<UUID>> parent : parents.entrySet()) {
-            Set<UUID> myChildren = getChildren(parents, parent.getKey());
-            parent.getValue().addAll(myChildren);
-        }
-
-        // empty out group2groupcache table
-        group2GroupCacheDAO.deleteAll(context);
-
-        // write out new one
-        for (Map.Entry<UUID, Set<UUID>> parent : parents.entrySet()) {
-            UUID key = parent.getKey();
-
-            for (UUID child : parent.getValue()) {
-
-                Group parentGroup = find(context, key);
-                Group childGroup = find(context, child);
-
-
-                if (parentGroup != null && childGroup != null && group2GroupCacheDAO
-                    .find(context, parentGroup, childGroup) == null) {
-                    Group2GroupCache group2GroupCache = group2GroupCacheDAO.create(context, new Group2GroupCache());
-                    group2GroupCache.setParent(parentGroup);
-                    group2GroupCache.setChild(childGroup);
-                    group2GroupCacheDAO.save(context, group2GroupCache);
-                }
-            }
+        Map<UUID, Set<UUID>> closure = new HashMap<>();
+        for (UUID parent : parents.keySet()) {
+            closure.put(parent, getChildren(parents, parent));
         }
+        return closure;
     }
 
     @Override
@@ -762,32 +917,23 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     }
 
     /**
-     * Used recursively to generate a map of ALL of the children of the given
+     * Used to generate a set of ALL of the children of the given
      * parent
      *
      * @param parents Map of parent,child relationships
      * @param parent  the parent you're interested in
-     * @return Map whose keys are all of the children of a parent
+     * @return Set of all of the children of a parent
      */
     protected Set<UUID> getChildren(Map<UUID, Set<UUID>> parents, UUID parent) {
         Set<UUID> myChildren = new HashSet<>();
+        Deque<UUID> toVisit = new ArrayDeque<>(parents.getOrDefault(parent, Collections.emptySet()));
 
-        // degenerate case, this parent has no children
-        if (!parents.containsKey(parent)) {
-            return myChildren;
-        }
-
-        // got this far, so we must have children
-        Set<UUID> children = parents.get(parent);
-
-        // now iterate over all of the children
-
-        for (UUID child : children) {
-            // add this child's ID to our return set
-            myChildren.add(child);
-
-            // and now its children
-            myChildren.addAll(getChildren(parents, child));
+        // visit every child once, so that a group which is a member of itself doesn't recurse forever
+        while (!toVisit.isEmpty()) {
+            UUID child = toVisit.pop();
+            if (myChildren.add(child)) {
+                toVisit.addAll(parents.getOrDefault(child, Collections.emptySet()));
+            }
         }
 
         return myChildren;
@@ -14,10 +14,22 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.mail.MessagingException;
 
 import org.apache.commons.cli.CommandLine;
@@ -26,6 +38,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.Logger;
 import org.dspace.content.Collection;
 import org.dspace.content.DCDate;
@@ -83,6 +96,11 @@ public class SubscribeCLITool {
      * <p>
      * For example, if today's date is 2002-10-10 (in UTC) items made available
      * during 2002-10-09 (UTC) will be included.
+     * <p>
+     * The new items of each subscribed collection are harvested once per run,
+     * and the subscribers following the same collections (with new items) in
+     * the same language share a single rendered digest. The e-mails are sent
+     * in the background by a bounded pool of senders, retrying failed sends.
      *
      * @param context The relevant DSpace Context.
      * @param test    If true, do a "dry run", i.e. don't actually send email, just log the attempt
@@ -92,46 +110,33 @@ public class SubscribeCLITool {
     public static void processDaily(Context context, boolean test) throws SQLException,
         IOException {
         // Grab the subscriptions
-
         List<Subscription> subscriptions = subscribeService.findAll(context);
 
-        EPerson currentEPerson = null;
-        List<Collection> collections = null; // List of Collections
-
-        // Go through the list collating subscriptions for each e-person
+        // Harvest each subscribed collection once, however many people follow it
+        Date midnightYesterday = getMidnightYesterday();
+        Map<UUID, List<HarvestedItemInfo>> newItems = new HashMap<>();
         for (Subscription subscription : subscriptions) {
-            // Does this row relate to the same e-person as the last?
-            if ((currentEPerson == null)
-                || (!subscription.getePerson().getID().equals(currentEPerson
-                                                                  .getID()))) {
-                // New e-person. Send mail for previous e-person
-                if (currentEPerson != null) {
-
-                    try {
-                        sendEmail(context, currentEPerson, collections, test);
-                    } catch (MessagingException me) {
-                        log.error("Failed to send subscription to eperson_id="
-                                      + currentEPerson.getID());
-                        log.error(me);
-                    }
-                }
-
-                currentEPerson = subscription.getePerson();
-                collections = new ArrayList<>();
+            Collection collection = subscription.getCollection();
+            if (!newItems.containsKey(collection.getID())) {
+                newItems.put(collection.getID(), findNewItems(context, collection, midnightYesterday));
             }
-
-            collections.add(subscription.getCollection());
         }
 
-        // Process the last person
-        if (currentEPerson != null) {
-            try {
-                sendEmail(context, currentEPerson, collections, test);
-            } catch (MessagingException me) {
-                log.error("Failed to send subscription to eperson_id="
-                              + currentEPerson.getID());
-                log.error(me);
+        Map<Digest, List<EPerson>> digests = groupByDigest(subscriptions, newItems);
+        log.info(LogManager.getHeader(context, "subscription:", "collections=" + newItems.size()
+            + ",subscriptions=" + subscriptions.size() + ",digests=" + digests.size()));
+
+        Map<Locale, Map<UUID, String>> fragments = new HashMap<>();
+        try (DigestSender sender = new DigestSender(context, test)) {
+            for (Map.Entry<Digest, List<EPerson>> digest : digests.entrySet()) {
+                String emailText = renderDigest(digest.getKey(), newItems, fragments);
+                for (EPerson eperson : digest.getValue()) {
+                    sender.send(eperson, digest.getKey().getLocale(), emailText);
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending the subscription e-mails", e);
         }
     }
 
@@ -151,133 +156,194 @@ public class SubscribeCLITool {
     public static void sendEmail(Context context, EPerson eperson,
                                  List<Collection> collections, boolean test) throws IOException, MessagingException,
         SQLException {
-        // Get a resource bundle according to the eperson language preferences
-        Locale supportedLocale = I18nUtil.getEPersonLocale(eperson);
-        ResourceBundle labels = ResourceBundle.getBundle("Messages", supportedLocale);
+        Date midnightYesterday = getMidnightYesterday();
+        Map<UUID, List<HarvestedItemInfo>> newItems = new HashMap<>();
+        List<Collection> updated = new ArrayList<>();
+        for (Collection collection : collections) {
+            List<HarvestedItemInfo> itemInfos = findNewItems(context, collection, midnightYesterday);
+            if (!itemInfos.isEmpty()) {
+                newItems.put(collection.getID(), itemInfos);
+                updated.add(collection);
+            }
+        }
 
-        // Get the start and end dates for yesterday
+        // Send an e-mail if there were any new items
+        if (!updated.isEmpty()) {
+            Locale supportedLocale = I18nUtil.getEPersonLocale(eperson);
+            String emailText = renderDigest(new Digest(supportedLocale, updated), newItems, new HashMap<>());
+            sendEmail(context, eperson.getID(), eperson.getEmail(), supportedLocale, emailText, test);
+        }
+    }
 
-        // The date should reflect the timezone as well. Otherwise we stand to lose that information
-        // in truncation and roll to an earlier date than intended.
-        Calendar cal = Calendar.getInstance(TimeZone.getDefault());
-        cal.setTime(new Date());
+    /**
+     * Group the subscribers by the digest they are to receive: the collections they follow that have new items,
+     * in the language of the subscriber. Subscribers without any new items in their collections are left out.
+     *
+     * @param subscriptions the subscriptions, ordered by e-person
+     * @param newItems      the new items of the subscribed collections, by collection ID
+     * @return the subscribers of each digest
+     */
+    static Map<Digest, List<EPerson>> groupByDigest(List<Subscription> subscriptions,
+                                                    Map<UUID, List<HarvestedItemInfo>> newItems) {
+        Map<EPerson, List<Collection>> followed = new LinkedHashMap<>();
+        for (Subscription subscription : subscriptions) {
+            Collection collection = subscription.getCollection();
+            List<HarvestedItemInfo> itemInfos = newItems.get(collection.getID());
+            if (itemInfos != null && !itemInfos.isEmpty()) {
+                followed.computeIfAbsent(subscription.getePerson(), e -> new ArrayList<>()).add(collection);
+            }
+        }
 
-        // What we actually want to pass to Harvest is "Midnight of yesterday in my current timezone"
-        // Truncation will actually pass in "Midnight of yesterday in UTC", which will be,
-        // at least in CDT, "7pm, the day before yesterday, in my current timezone".
-        cal.add(Calendar.HOUR, -24);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        Date midnightYesterday = cal.getTime();
+        Map<Digest, List<EPerson>> digests = new LinkedHashMap<>();
+        for (Map.Entry<EPerson, List<Collection>> entry : followed.entrySet()) {
+            Digest digest = new Digest(I18nUtil.getEPersonLocale(entry.getKey()), entry.getValue());
+            digests.computeIfAbsent(digest, d -> new ArrayList<>()).add(entry.getKey());
+        }
+        return digests;
+    }
 
+    /**
+     * Harvest the items of a collection which are new since the given date.
+     *
+     * @param context           DSpace context object
+     * @param collection        the collection to harvest
+     * @param midnightYesterday start of the harvest
+     * @return the new items of the collection
+     * @throws SQLException if database error
+     */
+    private static List<HarvestedItemInfo> findNewItems(Context context, Collection collection,
+                                                        Date midnightYesterday) throws SQLException {
+        try {
+            boolean includeAll = configurationService
+                .getBooleanProperty("harvest.includerestricted.subscription", true);
+
+            // we harvest all the changed item from yesterday until now
+            List<HarvestedItemInfo> itemInfos = Harvest
+                .harvest(context, collection, new DCDate(midnightYesterday).toString(), null, 0, // Limit
+                         // and
+                         // offset
+                         // zero,
+                         // get
+                         // everything
+                         0, true, // Need item objects
+                         false, // But not containers
+                         false, // Or withdrawals
+                         includeAll);
+
+            if (configurationService.getBooleanProperty("eperson.subscription.onlynew", false)) {
+                // get only the items archived yesterday
+                return filterOutModified(itemInfos);
+            } else {
+                // strip out the item archived today or
+                // not archived yesterday and modified today
+                return filterOutToday(itemInfos);
+            }
+        } catch (ParseException pe) {
+            // This should never get thrown as the Dates are auto-generated
+            return new ArrayList<>();
+        }
+    }
 
+    /**
+     * Render the text of a digest. The part of each collection is rendered once per language and shared by all the
+     * digests that include it.
+     *
+     * @param digest    the digest to render
+     * @param newItems  the new items of the subscribed collections, by collection ID
+     * @param fragments the parts already rendered, by language and collection ID
+     * @return the text of the e-mail
+     */
+    private static String renderDigest(Digest digest, Map<UUID, List<HarvestedItemInfo>> newItems,
+                                       Map<Locale, Map<UUID, String>> fragments) {
         // FIXME: text of email should be more configurable from an
         // i18n viewpoint
-        StringBuilder emailText = new StringBuilder();
-        boolean isFirst = true;
-
-        for (int i = 0; i < collections.size(); i++) {
-            Collection c = collections.get(i);
-
-            try {
-                boolean includeAll = configurationService
-                    .getBooleanProperty("harvest.includerestricted.subscription", true);
-
-                // we harvest all the changed item from yesterday until now
-                List<HarvestedItemInfo> itemInfos = Harvest
-                    .harvest(context, c, new DCDate(midnightYesterday).toString(), null, 0, // Limit
-                             // and
-                             // offset
-                             // zero,
-                             // get
-                             // everything
-                             0, true, // Need item objects
-                             false, // But not containers
-                             false, // Or withdrawals
-                             includeAll);
-
-                if (configurationService.getBooleanProperty("eperson.subscription.onlynew", false)) {
-                    // get only the items archived yesterday
-                    itemInfos = filterOutModified(itemInfos);
-                } else {
-                    // strip out the item archived today or
-                    // not archived yesterday and modified today
-                    itemInfos = filterOutToday(itemInfos);
-                }
-
-                // Only add to buffer if there are new items
-                if (itemInfos.size() > 0) {
-                    if (!isFirst) {
-                        emailText
-                            .append("\n---------------------------------------\n");
-                    } else {
-                        isFirst = false;
-                    }
-
-                    emailText.append(labels.getString("org.dspace.eperson.Subscribe.new-items")).append(" ").append(
-                        c.getName()).append(": ").append(
-                        itemInfos.size()).append("\n\n");
+        ResourceBundle labels = ResourceBundle.getBundle("Messages", digest.getLocale());
+        Map<UUID, String> rendered = fragments.computeIfAbsent(digest.getLocale(), l -> new HashMap<>());
 
-                    for (int j = 0; j < itemInfos.size(); j++) {
-                        HarvestedItemInfo hii = (HarvestedItemInfo) itemInfos
-                            .get(j);
+        StringBuilder emailText = new StringBuilder();
+        for (Collection c : digest.getCollections()) {
+            if (emailText.length() > 0) {
+                emailText.append("\n---------------------------------------\n");
+            }
+            emailText.append(rendered.computeIfAbsent(c.getID(),
+                                                      id -> renderCollection(labels, c, newItems.get(id))));
+        }
+        return emailText.toString();
+    }
 
-                        String title = hii.item.getName();
-                        emailText.append("      ").append(labels.getString("org.dspace.eperson.Subscribe.title"))
-                                 .append(" ");
+    private static String renderCollection(ResourceBundle labels, Collection c, List<HarvestedItemInfo> itemInfos) {
+        StringBuilder emailText = new StringBuilder();
+        emailText.append(labels.getString("org.dspace.eperson.Subscribe.new-items")).append(" ").append(
+            c.getName()).append(": ").append(
+            itemInfos.size()).append("\n\n");
 
-                        if (StringUtils.isNotBlank(title)) {
-                            emailText.append(title);
-                        } else {
-                            emailText.append(labels.getString("org.dspace.eperson.Subscribe.untitled"));
-                        }
+        for (HarvestedItemInfo hii : itemInfos) {
+            String title = hii.item.getName();
+            emailText.append("      ").append(labels.getString("org.dspace.eperson.Subscribe.title"))
+                     .append(" ");
 
-                        List<MetadataValue> authors = itemService
-                            .getMetadata(hii.item, MetadataSchemaEnum.DC.getName(), "contributor", Item.ANY, Item.ANY);
+            if (StringUtils.isNotBlank(title)) {
+                emailText.append(title);
+            } else {
+                emailText.append(labels.getString("org.dspace.eperson.Subscribe.untitled"));
+            }
 
-                        if (authors.size() > 0) {
-                            emailText.append("\n    ").append(labels.getString("org.dspace.eperson.Subscribe.authors"))
-                                     .append(" ").append(
-                                authors.get(0).getValue());
+            List<MetadataValue> authors = itemService
+                .getMetadata(hii.item, MetadataSchemaEnum.DC.getName(), "contributor", Item.ANY, Item.ANY);
 
-                            for (int k = 1; k < authors.size(); k++) {
-                                emailText.append("\n             ").append(
-                                    authors.get(k).getValue());
-                            }
-                        }
+            if (authors.size() > 0) {
+                emailText.append("\n    ").append(labels.getString("org.dspace.eperson.Subscribe.authors"))
+                         .append(" ").append(
+                    authors.get(0).getValue());
 
-                        emailText.append("\n         ").append(labels.getString("org.dspace.eperson.Subscribe.id"))
-                                 .append(" ").append(
-                            handleService.getCanonicalForm(hii.handle)).append(
-                            "\n\n");
-                    }
+                for (int k = 1; k < authors.size(); k++) {
+                    emailText.append("\n             ").append(
+                        authors.get(k).getValue());
                 }
-            } catch (ParseException pe) {
-                // This should never get thrown as the Dates are auto-generated
             }
+
+            emailText.append("\n         ").append(labels.getString("org.dspace.eperson.Subscribe.id"))
+                     .append(" ").append(
+                handleService.getCanonicalForm(hii.handle)).append(
+                "\n\n");
         }
+        return emailText.toString();
+    }
 
-        // Send an e-mail if there were any new items
-        if (emailText.length() > 0) {
+    private static void sendEmail(Context context, UUID epersonId, String address, Locale supportedLocale,
+                                  String emailText, boolean test) throws IOException, MessagingException {
+        if (test) {
+            log.info(LogManager.getHeader(context, "subscription:", "eperson=" + address));
+            log.info(LogManager.getHeader(context, "subscription:", "text=" + emailText));
 
-            if (test) {
-                log.info(LogManager.getHeader(context, "subscription:", "eperson=" + eperson.getEmail()));
-                log.info(LogManager.getHeader(context, "subscription:", "text=" + emailText.toString()));
+        } else {
 
-            } else {
+            Email email = Email.getEmail(I18nUtil.getEmailFilename(supportedLocale, "subscription"));
+            email.addRecipient(address);
+            email.addArgument(emailText);
+            email.send();
 
-                Email email = Email.getEmail(I18nUtil.getEmailFilename(supportedLocale, "subscription"));
-                email.addRecipient(eperson.getEmail());
-                email.addArgument(emailText.toString());
-                email.send();
+            log.info(LogManager.getHeader(context, "sent_subscription", "eperson_id=" + epersonId));
 
-                log.info(LogManager.getHeader(context, "sent_subscription", "eperson_id=" + eperson.getID()));
+        }
+    }
 
-            }
+    private static Date getMidnightYesterday() {
+        // Get the start and end dates for yesterday
 
+        // The date should reflect the timezone as well. Otherwise we stand to lose that information
+        // in truncation and roll to an earlier date than intended.
+        Calendar cal = Calendar.getInstance(TimeZone.getDefault());
+        cal.setTime(new Date());
 
-        }
+        // What we actually want to pass to Harvest is "Midnight of yesterday in my current timezone"
+        // Truncation will actually pass in "Midnight of yesterday in UTC", which will be,
+        // at least in CDT, "7pm, the day before yesterday, in my current timezone".
+        cal.add(Calendar.HOUR, -24);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        return cal.getTime();
     }
 
     /**
@@ -429,4 +495,127 @@ public class SubscribeCLITool {
 
         return filteredList;
     }
+
+    /**
+     * The content of a subscription e-mail: the updated collections followed by a subscriber, and the language to
+     * render them in. Two digests are equal if they hold the same collections, in any order, in the same language.
+     */
+    static class Digest {
+        private final Locale locale;
+        private final List<Collection> collections;
+        private final Set<UUID> collectionIds = new HashSet<>();
+
+        Digest(Locale locale, List<Collection> collections) {
+            this.locale = locale;
+            this.collections = collections;
+            for (Collection collection : collections) {
+                collectionIds.add(collection.getID());
+            }
+        }
+
+        Locale getLocale() {
+            return locale;
+        }
+
+        List<Collection> getCollections() {
+            return collections;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Digest)) {
+                return false;
+            }
+            Digest digest = (Digest) o;
+            return locale.equals(digest.locale) && collectionIds.equals(digest.collectionIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(locale, collectionIds);
+        }
+    }
+
+    /**
+     * Sends the subscription e-mails from a fixed pool of threads, so that a slow mail server does not hold up the
+     * rendering of the digests. The number of pending e-mails is bounded, and a failed send is retried after a
+     * delay before it is given up on.
+     */
+    private static class DigestSender implements AutoCloseable {
+        private final Context context;
+        private final boolean test;
+        private final int maxAttempts;
+        private final long retryDelay;
+        private final ExecutorService executor;
+        private final Semaphore pending;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        DigestSender(Context context, boolean test) {
+            this.context = context;
+            this.test = test;
+            int threads = Math.max(1, configurationService.getIntProperty("eperson.subscription.mail.threads", 4));
+            maxAttempts = Math.max(1, configurationService.getIntProperty("eperson.subscription.mail.attempts", 3));
+            retryDelay = configurationService.getLongProperty("eperson.subscription.mail.retry-delay", 30) * 1000;
+            executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+                .namingPattern("subscription-mail-%d").build());
+            // a queue without permits would block the first send forever
+            pending = new Semaphore(Math.max(1, configurationService.getIntProperty(
+                "eperson.subscription.mail.queue", threads * 10)));
+        }
+
+        void send(EPerson eperson, Locale supportedLocale, String emailText) throws InterruptedException {
+            // the sending threads have no database session, only pass them plain values
+            UUID epersonId = eperson.getID();
+            String address = eperson.getEmail();
+            pending.acquire();
+            executor.execute(() -> {
+                try {
+                    sendWithRetry(epersonId, address, supportedLocale, emailText);
+                } finally {
+                    pending.release();
+                }
+            });
+        }
+
+        private void sendWithRetry(UUID epersonId, String address, Locale supportedLocale, String emailText) {
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                try {
+                    sendEmail(context, epersonId, address, supportedLocale, emailText, test);
+                    sent.incrementAndGet();
+                    return;
+                } catch (IOException | MessagingException | RuntimeException e) {
+                    if (attempt == maxAttempts) {
+                        failed.incrementAndGet();
+                        log.error("Failed to send subscription to eperson_id=" + epersonId, e);
+                        return;
+                    }
+                    log.warn("Failed to send subscription to eperson_id=" + epersonId + " (attempt " + attempt
+                                 + " of " + maxAttempts + "), retrying: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(retryDelay * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.incrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Wait for the pending e-mails to be sent.
+         */
+        @Override
+        public void close() throws InterruptedException {
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("Waiting for the subscription e-mails to be sent");
+            }
+            log.info(LogManager.getHeader(context, "subscription:", "sent=" + sent.get() + ",failed=" + failed.get()));
+        }
+    }
 }
@@ -8,8 +8,11 @@
 package org.dspace.eperson.dao;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.dspace.core.Context;
 import org.dspace.core.GenericDAO;
 import org.dspace.eperson.Group;
@@ -34,4 +37,53 @@ public interface Group2GroupCacheDAO extends GenericDAO<Group2GroupCache> {
     public Group2GroupCache find(Context context, Group parent, Group child) throws SQLException;
 
     public void deleteAll(Context context) throws SQLException;
+
+    /**
+     * Find the IDs of all groups which are (direct or indirect) members of the given group.
+     *
+     * @param context The relevant DSpace Context.
+     * @param group   the parent group
+     * @return the IDs of the child groups
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    public List<UUID> findChildIds(Context context, Group group) throws SQLException;
+
+    /**
+     * Find the IDs of all groups which the given group is a (direct or indirect) member of.
+     *
+     * @param context The relevant DSpace Context.
+     * @param group   the child group
+     * @return the IDs of the parent groups
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    public List<UUID> findParentIds(Context context, Group group) throws SQLException;
+
+    /**
+     * Get all (parent ID, child ID) pairs in the cache.
+     *
+     * @param context The relevant DSpace Context.
+     * @return the pairs
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    public List<Pair<UUID, UUID>> getCacheResults(Context context) throws SQLException;
+
+    /**
+     * Delete the given children of a parent group from the cache.
+     *
+     * @param context  The relevant DSpace Context.
+     * @param parent   the parent group
+     * @param children the IDs of the child groups
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    public void deleteByParentAndChildren(Context context, Group parent, Collection<UUID> children)
+        throws SQLException;
+
+    /**
+     * Delete all entries in which the given group is either the parent or the child.
+     *
+     * @param context The relevant DSpace Context.
+     * @param group   the group
+     * @throws SQLException An exception that provides information on a database access error or other errors.
+     */
+    public void deleteByGroup(Context context, Group group) throws SQLException;
 }
@@ -8,14 +8,18 @@
 package org.dspace.eperson.dao.impl;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.UUID;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.dspace.core.AbstractHibernateDAO;
 import org.dspace.core.Context;
 import org.dspace.eperson.Group;
@@ -31,6 +35,12 @@ import org.dspace.eperson.dao.Group2GroupCacheDAO;
  * @author kevinvandevelde at atmire.com
  */
 public class Group2GroupCacheDAOImpl extends AbstractHibernateDAO<Group2GroupCache> implements Group2GroupCacheDAO {
+
+    /**
+     * The maximum number of IDs in a single IN clause
+     */
+    private static final int MAX_IN_CLAUSE = 1000;
+
     protected Group2GroupCacheDAOImpl() {
         super();
     }
@@ -90,4 +100,55 @@ public class Group2GroupCacheDAOImpl extends AbstractHibernateDAO<Group2GroupCac
     public void deleteAll(Context context) throws SQLException {
         createQuery(context, "delete from Group2GroupCache").executeUpdate();
     }
+
+    @Override
+    public List<UUID> findChildIds(Context context, Group group) throws SQLException {
+        Query query = createQuery(context, "SELECT g.child.id FROM Group2GroupCache g WHERE g.parent = :group");
+        query.setParameter("group", group);
+
+        @SuppressWarnings("unchecked")
+        List<UUID> results = query.getResultList();
+        return results;
+    }
+
+    @Override
+    public List<UUID> findParentIds(Context context, Group group) throws SQLException {
+        Query query = createQuery(context, "SELECT g.parent.id FROM Group2GroupCache g WHERE g.child = :group");
+        query.setParameter("group", group);
+
+        @SuppressWarnings("unchecked")
+        List<UUID> results = query.getResultList();
+        return results;
+    }
+
+    @Override
+    public List<Pair<UUID, UUID>> getCacheResults(Context context) throws SQLException {
+        Query query = createQuery(context, "SELECT new org.apache.commons.lang3.tuple.ImmutablePair(" +
+            "g.parent.id, g.child.id) FROM Group2GroupCache g");
+
+        @SuppressWarnings("unchecked")
+        List<Pair<UUID, UUID>> results = query.getResultList();
+        return results;
+    }
+
+    @Override
+    public void deleteByParentAndChildren(Context context, Group parent, Collection<UUID> children)
+        throws SQLException {
+        List<UUID> ids = new ArrayList<>(children);
+        for (int start = 0; start < ids.size(); start += MAX_IN_CLAUSE) {
+            Query query = createQuery(context, "DELETE FROM Group2GroupCache g " +
+                "WHERE g.parent = :parent AND g.child.id IN (:children)");
+            query.setParameter("parent", parent);
+            query.setParameter("children", ids.subList(start, Math.min(start + MAX_IN_CLAUSE, ids.size())));
+            query.executeUpdate();
+        }
+    }
+
+    @Override
+    public void deleteByGroup(Context context, Group group) throws SQLException {
+        Query query = createQuery(context,
+                                  "DELETE FROM Group2GroupCache g WHERE g.parent = :group OR g.child = :group");
+        query.setParameter("group", group);
+        query.executeUpdate();
+    }
 }
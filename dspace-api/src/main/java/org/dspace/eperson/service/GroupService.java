@@ -297,6 +297,17 @@ public interface GroupService extends DSpaceObjectService<Group>, DSpaceObjectLe
      */
     public void initDefaultGroupNames(Context context) throws SQLException, AuthorizeException;
 
+    /**
+     * Check the cache of direct and indirect group memberships (the group2groupcache table) against the memberships
+     * computed from scratch, and optionally repair it. Every missing or surplus entry is logged.
+     *
+     * @param context The DSpace context
+     * @param repair  whether to add the missing entries and remove the surplus entries
+     * @return the number of missing and surplus entries
+     * @throws SQLException database exception
+     */
+    int verifyGroupCache(Context context, boolean repair) throws SQLException;
+
     /**
      * Find all empty groups in DSpace
      *
@@ -48,6 +48,13 @@ import org.dspace.event.factory.EventServiceFactory;
  * significance varies by the combination of action and subject type.</li>
  * <li> - timestamp -- exact millisecond timestamp at which event was logged.</li>
  * </ul>
+ * <p>
+ * When an Item, Collection or Community is deleted, its DELETE event is followed by a REMOVE event for each container
+ * it is removed from (Collections of the Item, Communities of the Collection, parents of the Community), so the
+ * consumers know which containers have changed. The object of these REMOVE events doesn't exist anymore when they
+ * are consumed. For an Item, their detail is "LISTED: true" or "LISTED: false": whether the Item was archived, not
+ * withdrawn and discoverable when it was deleted. The MODIFY events of an Item have the same detail when it has
+ * become listed or unlisted (see {@link org.dspace.content.Item#getListedChange()}).
  *
  * @version $Revision$
  */
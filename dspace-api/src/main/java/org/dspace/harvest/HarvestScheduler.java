@@ -8,13 +8,20 @@
 package org.dspace.harvest;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.sql.SQLException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Stack;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
+import com.google.common.util.concurrent.RateLimiter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
@@ -30,6 +37,10 @@ import org.dspace.services.factory.DSpaceServicesFactory;
 
 /**
  * The class responsible for scheduling harvesting cycles are regular intervals.
+ * <P>
+ * Besides the number of collections harvested at once (<code>oai.harvester.maxThreads</code>), it limits the number
+ * of requests per second sent to each OAI-PMH source (<code>oai.harvester.maxRequestsPerSecond</code>), and the
+ * number of worker threads processing records over all running harvests (<code>oai.harvester.maxRecordThreads</code>).
  *
  * @author alexey
  */
@@ -79,6 +90,16 @@ public class HarvestScheduler implements Runnable {
 
     protected static long maxHeartbeat;
 
+    /**
+     * The request rate limiters, per host (and port) of an OAI-PMH source
+     */
+    protected static final Map<String, RateLimiter> requestLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * The budget of worker threads processing records, shared by all harvests
+     */
+    protected static Semaphore recordThreadBudget;
+
     private static final CollectionService collectionService
             = ContentServiceFactory.getInstance().getCollectionService();
     private static final HarvestedCollectionService harvestedCollectionService
@@ -103,6 +124,78 @@ public class HarvestScheduler implements Runnable {
         return interrupt;
     }
 
+    /**
+     * Wait until a request may be sent to the given OAI-PMH source, if the requests per source are limited with
+     * oai.harvester.maxRequestsPerSecond. The sources on the same host and port share the limit.
+     *
+     * @param oaiSource the address of the OAI-PMH provider
+     */
+    public static void acquireRequestPermit(String oaiSource) {
+        double rate = configurationService.getConfiguration().getDouble("oai.harvester.maxRequestsPerSecond", 0);
+        if (rate <= 0) {
+            return;
+        }
+        String host = getSourceHost(oaiSource);
+        RateLimiter limiter = requestLimiters.computeIfAbsent(host, key -> RateLimiter.create(rate));
+        if (limiter.getRate() != rate) {
+            limiter.setRate(rate);
+        }
+        limiter.acquire();
+    }
+
+    /**
+     * Get the host and port of an OAI-PMH source, which its request limit is kept for.
+     *
+     * @param oaiSource the address of the OAI-PMH provider
+     * @return the host and port, or the address if it isn't a valid URI
+     */
+    protected static String getSourceHost(String oaiSource) {
+        try {
+            String authority = new URI(oaiSource).getAuthority();
+            if (authority != null) {
+                return authority.toLowerCase(Locale.ROOT);
+            }
+        } catch (URISyntaxException e) {
+            log.debug("Not a valid OAI-PMH source address: " + oaiSource, e);
+        }
+        return oaiSource;
+    }
+
+    /**
+     * Reserve worker threads for processing the records of a harvest, as far as the budget of
+     * oai.harvester.maxRecordThreads allows. Doesn't wait for threads to be released.
+     *
+     * @param wanted the number of threads the harvest would like
+     * @return the number of reserved threads, which must be released with {@link #releaseRecordThreads(int)}
+     */
+    public static int reserveRecordThreads(int wanted) {
+        Semaphore budget = getRecordThreadBudget();
+        int reserved = 0;
+        while (reserved < wanted && budget.tryAcquire()) {
+            reserved++;
+        }
+        return reserved;
+    }
+
+    /**
+     * Release worker threads reserved with {@link #reserveRecordThreads(int)}.
+     *
+     * @param reserved the number of reserved threads
+     */
+    public static void releaseRecordThreads(int reserved) {
+        if (reserved > 0) {
+            getRecordThreadBudget().release(reserved);
+        }
+    }
+
+    protected static synchronized Semaphore getRecordThreadBudget() {
+        if (recordThreadBudget == null) {
+            recordThreadBudget = new Semaphore(configurationService.getIntProperty("oai.harvester.maxRecordThreads",
+                                                                                   8));
+        }
+        return recordThreadBudget;
+    }
+
     public static String getStatus() {
         switch (status) {
             case HARVESTER_STATUS_RUNNING:
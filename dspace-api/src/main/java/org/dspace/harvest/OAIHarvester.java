@@ -27,6 +27,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 
@@ -35,6 +42,7 @@ import ORG.oclc.oai.harvester2.verb.Identify;
 import ORG.oclc.oai.harvester2.verb.ListMetadataFormats;
 import ORG.oclc.oai.harvester2.verb.ListRecords;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.content.Bitstream;
@@ -63,6 +71,7 @@ import org.dspace.core.I18nUtil;
 import org.dspace.core.Utils;
 import org.dspace.core.factory.CoreServiceFactory;
 import org.dspace.core.service.PluginService;
+import org.dspace.eperson.EPerson;
 import org.dspace.handle.factory.HandleServiceFactory;
 import org.dspace.handle.service.HandleService;
 import org.dspace.harvest.factory.HarvestServiceFactory;
@@ -80,6 +89,12 @@ import org.xml.sax.SAXException;
 
 /**
  * This class handles OAI harvesting of externally located records into this repository.
+ * <P>
+ * The next page of a ListRecords response is fetched while the records of the current page are processed. With more
+ * than one <code>oai.harvester.recordThreads</code>, the records are crosswalked and ingested by a pool of worker
+ * threads, each with its own Context, as far as the budget of the {@link HarvestScheduler} allows. The changes are
+ * committed every <code>oai.harvester.batchSize</code> records. When the harvest fails, the records which are not
+ * committed yet are discarded, they are harvested again in the next cycle.
  *
  * @author Alexey Maslov
  */
@@ -115,8 +130,8 @@ public class OAIHarvester {
     protected ConfigurationService configurationService;
 
 
-    //  The collection this harvester instance is dealing with
-    Collection targetCollection;
+    //  The collection this harvester instance is dealing with, reloaded by the worker threads
+    volatile Collection targetCollection;
     HarvestedCollection harvestRow;
 
     // our context
@@ -136,6 +151,19 @@ public class OAIHarvester {
     private static DOMBuilder db = new DOMBuilder();
     // The point at which this thread should terminate itself
 
+    // Tells a worker thread to commit its records and stop
+    private static final QueuedRecord END_OF_QUEUE = new QueuedRecord(null, null, 0, 0);
+    // Tells a worker thread to stop, discarding the records it has not committed yet
+    private static final QueuedRecord STOP = new QueuedRecord(null, null, 0, 0);
+
+    // The records to process by the worker threads, null if they are processed in the harvesting thread
+    protected BlockingQueue<QueuedRecord> recordQueue = null;
+    protected List<Future<?>> workers = null;
+    // The number of worker threads reserved from the scheduler's budget
+    protected int reservedThreads = 0;
+    // Fetches the next page of records in the background
+    protected ExecutorService pageFetcher = null;
+
     /* Initialize the harvester with a collection object */
     public OAIHarvester(Context c, DSpaceObject dso, HarvestedCollection hc) throws HarvestingException, SQLException {
         bitstreamService = ContentServiceFactory.getInstance().getBitstreamService();
@@ -273,6 +301,7 @@ public class OAIHarvester {
         String toDate = processDate(startTime, 0);
 
         String dateGranularity;
+        Future<ListRecords> nextPage = null;
 
         try {
             // obtain the desired descriptive metadata format and verify that the OAI server actually provides it
@@ -332,7 +361,10 @@ public class OAIHarvester {
             // main loop to keep requesting more objects until we're done
             List<Element> records;
             Set<String> errorSet = new HashSet<String>();
+            int batchSize = Math.max(1, configurationService.getIntProperty("oai.harvester.batchSize", 20));
+            int uncommittedRecords = 0;
 
+            HarvestScheduler.acquireRequestPermit(oaiSource);
             ListRecords listRecords = new ListRecords(oaiSource, fromDate, toDate, oaiSetId, descMDPrefix);
             log.debug(
                 "Harvesting request parameters: listRecords " + oaiSource + " " + fromDate + " " + toDate + " " +
@@ -341,6 +373,7 @@ public class OAIHarvester {
                 log.info("HTTP Request: " + listRecords.getRequestURL());
             }
 
+            startWorkers();
             while (listRecords != null) {
                 records = new ArrayList<Element>();
                 oaiResponse = db.build(listRecords.getDocument());
@@ -375,6 +408,18 @@ public class OAIHarvester {
                     }
                 }
 
+                // fetch the next page while the records of this one are processed
+                resumptionToken = listRecords.getResumptionToken();
+                if (resumptionToken == null || resumptionToken.length() == 0) {
+                    nextPage = null;
+                } else {
+                    String token = resumptionToken;
+                    nextPage = getPageFetcher().submit(() -> {
+                        HarvestScheduler.acquireRequestPermit(oaiSource);
+                        return new ListRecords(oaiSource, token);
+                    });
+                }
+
                 // Process the obtained records
                 if (records != null && records.size() > 0) {
                     log.info("Found " + records.size() + " records to process");
@@ -392,20 +437,23 @@ public class OAIHarvester {
 
                         currentRecord++;
 
-                        processRecord(record, OREPrefix, currentRecord, totalListSize);
-                        ourContext.dispatchEvents();
-
-                        intermediateCommit();
+                        if (recordQueue != null) {
+                            // the record is detached from the page, as the crosswalks may move its elements
+                            queueRecord(new QueuedRecord((Element) record.clone(), OREPrefix, currentRecord,
+                                                         totalListSize));
+                        } else {
+                            processRecord(record, OREPrefix, currentRecord, totalListSize);
+                            if (++uncommittedRecords >= batchSize) {
+                                intermediateCommit();
+                                uncommittedRecords = 0;
+                            }
+                        }
                     }
                 }
 
                 // keep going if there are more records to process
-                resumptionToken = listRecords.getResumptionToken();
-                if (resumptionToken == null || resumptionToken.length() == 0) {
-                    listRecords = null;
-                } else {
-                    listRecords = new ListRecords(oaiSource, resumptionToken);
-                }
+                listRecords = nextPage == null ? null : getResult(nextPage);
+                nextPage = null;
                 ourContext.turnOffAuthorisationSystem();
                 try {
                     collectionService.update(ourContext, targetCollection);
@@ -419,11 +467,14 @@ public class OAIHarvester {
                     ourContext.restoreAuthSystemState();
                 }
 
-                ourContext.dispatchEvents();
                 intermediateCommit();
+                uncommittedRecords = 0;
             }
+            // the harvest is only complete when the worker threads have processed their records
+            finishWorkers();
         } catch (HarvestingException hex) {
             log.error("Harvesting error occurred while processing an OAI record: " + hex.getMessage(), hex);
+            discardUncommittedRecords();
             harvestRow.setHarvestMessage("Error occurred while processing an OAI record");
 
             // if the last status is also an error, alert the admin
@@ -432,17 +483,26 @@ public class OAIHarvester {
             }
             harvestRow.setHarvestStatus(HarvestedCollection.STATUS_OAI_ERROR);
             harvestedCollectionService.update(ourContext, harvestRow);
-            ourContext.complete();
+            intermediateCommit();
             return;
         } catch (Exception ex) {
+            discardUncommittedRecords();
             harvestRow.setHarvestMessage("Unknown error occurred while generating an OAI response");
             harvestRow.setHarvestStatus(HarvestedCollection.STATUS_UNKNOWN_ERROR);
             harvestedCollectionService.update(ourContext, harvestRow);
             alertAdmin(HarvestedCollection.STATUS_UNKNOWN_ERROR, ex);
             log.error("Error occurred while generating an OAI response: " + ex.getMessage() + " " + ex.getCause(), ex);
-            ourContext.complete();
+            intermediateCommit();
             return;
         } finally {
+            if (nextPage != null) {
+                nextPage.cancel(true);
+            }
+            if (pageFetcher != null) {
+                pageFetcher.shutdownNow();
+                pageFetcher = null;
+            }
+            stopWorkers();
             harvestedCollectionService.update(ourContext, harvestRow);
             ourContext.turnOffAuthorisationSystem();
             collectionService.update(ourContext, targetCollection);
@@ -468,12 +528,198 @@ public class OAIHarvester {
         reloadRequiredEntities();
     }
 
+    /**
+     * Roll back the records processed since the last commit, so only the status of the failed harvest is committed.
+     * The harvest date is not changed, so these records are harvested again in the next cycle.
+     */
+    private void discardUncommittedRecords() throws SQLException {
+        ourContext.rollback();
+        reloadRequiredEntities();
+    }
+
     private void reloadRequiredEntities() throws SQLException {
         //Reload our objects in our cache
         targetCollection = ourContext.reloadEntity(targetCollection);
         harvestRow = ourContext.reloadEntity(harvestRow);
     }
 
+    /**
+     * Get the executor fetching the next page of records, while the current one is processed.
+     *
+     * @return a single threaded executor
+     */
+    protected ExecutorService getPageFetcher() {
+        if (pageFetcher == null) {
+            pageFetcher = Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
+                .namingPattern("oai-harvest-fetch-%d").daemon(true).build());
+        }
+        return pageFetcher;
+    }
+
+    /**
+     * Wait for the result of a background task, a page of records or a worker thread.
+     *
+     * @param future the pending result
+     * @param <T>    the type of the result
+     * @return the result
+     * @throws Exception the exception the task failed with
+     */
+    protected <T> T getResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Start the worker threads processing the records, if more than one thread is configured and the budget of the
+     * scheduler allows it. Otherwise, the records are processed by the harvesting thread.
+     */
+    protected void startWorkers() {
+        int threads = configurationService.getIntProperty("oai.harvester.recordThreads", 1);
+        if (threads < 2) {
+            return;
+        }
+        reservedThreads = HarvestScheduler.reserveRecordThreads(threads);
+        if (reservedThreads < 2) {
+            HarvestScheduler.releaseRecordThreads(reservedThreads);
+            reservedThreads = 0;
+            return;
+        }
+        log.info("Processing the records of collection " + targetCollection.getID() + " in " + reservedThreads
+                     + " threads");
+        recordQueue = new ArrayBlockingQueue<>(reservedThreads * 4);
+        ExecutorService pool = Executors.newFixedThreadPool(reservedThreads, new BasicThreadFactory.Builder()
+            .namingPattern("oai-harvest-" + targetCollection.getID() + "-%d").build());
+        workers = new ArrayList<>();
+        EPerson currentUser = ourContext.getCurrentUser();
+        for (int i = 0; i < reservedThreads; i++) {
+            workers.add(pool.submit(() -> work(currentUser)));
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Hand a record over to the worker threads, waiting for room in the queue.
+     *
+     * @param record the record, or END_OF_QUEUE to have a worker commit its records and stop
+     * @throws Exception the exception a worker thread failed with
+     */
+    protected void queueRecord(QueuedRecord record) throws Exception {
+        checkWorkers();
+        while (!recordQueue.offer(record, 1, TimeUnit.SECONDS)) {
+            checkWorkers();
+        }
+    }
+
+    /**
+     * Check whether a worker thread failed. A worker thread only stops before the end of the queue when it fails.
+     *
+     * @throws Exception the exception a worker thread failed with
+     */
+    protected void checkWorkers() throws Exception {
+        for (Future<?> worker : workers) {
+            if (worker.isDone()) {
+                getResult(worker);
+            }
+        }
+    }
+
+    /**
+     * Wait for the worker threads to process the queued records, and release their threads to the budget of the
+     * scheduler.
+     *
+     * @throws Exception the exception a worker thread failed with
+     */
+    protected void finishWorkers() throws Exception {
+        if (recordQueue == null) {
+            return;
+        }
+        try {
+            for (Future<?> worker : workers) {
+                queueRecord(END_OF_QUEUE);
+            }
+            for (Future<?> worker : workers) {
+                getResult(worker);
+            }
+        } finally {
+            stopWorkers();
+        }
+    }
+
+    /**
+     * Stop the worker threads after the record each of them is processing, dropping the queued records, and release
+     * their threads to the budget of the scheduler. The records the workers have not committed yet are discarded.
+     */
+    protected void stopWorkers() {
+        if (recordQueue == null) {
+            return;
+        }
+        try {
+            recordQueue.clear();
+            for (Future<?> worker : workers) {
+                // a worker which already stopped doesn't take from the queue
+                if (!worker.isDone()) {
+                    recordQueue.put(STOP);
+                }
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    log.error("Worker thread of the harvest of collection " + targetCollection.getID() + " failed",
+                              e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            HarvestScheduler.releaseRecordThreads(reservedThreads);
+            reservedThreads = 0;
+            recordQueue = null;
+            workers = null;
+        }
+    }
+
+    /**
+     * Process the records from the queue in a Context of its own, until the end of the queue. The changes are
+     * committed every oai.harvester.batchSize records, and at the end of the queue. When told to stop, the changes
+     * since the last commit are discarded.
+     *
+     * @param currentUser the user of the harvest
+     * @return nothing
+     * @throws Exception if a record could not be processed. The uncommitted changes are lost.
+     */
+    protected Void work(EPerson currentUser) throws Exception {
+        int batchSize = Math.max(1, configurationService.getIntProperty("oai.harvester.batchSize", 20));
+        int uncommittedRecords = 0;
+        Context context = new Context(Context.Mode.BATCH_EDIT);
+        try {
+            context.setCurrentUser(context.reloadEntity(currentUser));
+            QueuedRecord record = recordQueue.take();
+            while (record != END_OF_QUEUE && record != STOP) {
+                processRecord(context, record.record, record.orePrefix, record.number, record.totalListSize);
+                if (++uncommittedRecords >= batchSize) {
+                    context.commit();
+                    uncommittedRecords = 0;
+                }
+                record = recordQueue.take();
+            }
+            if (record == END_OF_QUEUE) {
+                context.complete();
+            }
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+        return null;
+    }
+
     /**
      * Process an individual PMH record, making (or updating) a corresponding DSpace Item.
      *
@@ -498,24 +744,53 @@ public class OAIHarvester {
     protected void processRecord(Element record, String OREPrefix, final long currentRecord, long totalListSize)
         throws SQLException, AuthorizeException, IOException, CrosswalkException, HarvestingException,
         ParserConfigurationException, SAXException, TransformerException {
+        processRecord(ourContext, record, OREPrefix, currentRecord, totalListSize);
+    }
+
+    /**
+     * Process an individual PMH record in the given Context, making (or updating) a corresponding DSpace Item.
+     *
+     * @param context       the Context of the harvesting thread, or of a worker thread
+     * @param record        a JDOM Element containing the actual PMH record with descriptive metadata.
+     * @param OREPrefix     the metadataprefix value used by the remote PMH server to disseminate ORE.
+     * @param currentRecord current record number to log
+     * @param totalListSize The total number of records that this Harvest contains
+     * @throws SQLException                 An exception that provides information on a database access error or
+     *                                      other errors.
+     * @throws AuthorizeException           Exception indicating the current user of the context does not have
+     *                                      permission
+     *                                      to perform a particular action.
+     * @throws IOException                  A general class of exceptions produced by failed or interrupted I/O
+     *                                      operations.
+     * @throws CrosswalkException           if crosswalk error
+     * @throws HarvestingException          if harvesting error
+     * @throws ParserConfigurationException XML parsing error
+     * @throws SAXException                 if XML processing error
+     * @throws TransformerException         if XML transformer error
+     */
+    protected void processRecord(Context context, Element record, String OREPrefix, final long currentRecord,
+                                 long totalListSize)
+        throws SQLException, AuthorizeException, IOException, CrosswalkException, HarvestingException,
+        ParserConfigurationException, SAXException, TransformerException {
         WorkspaceItem wi = null;
         Date timeStart = new Date();
+        Collection collection = context.reloadEntity(targetCollection);
 
         // grab the oai identifier
         String itemOaiID = record.getChild("header", OAI_NS).getChild("identifier", OAI_NS).getText();
         Element header = record.getChild("header", OAI_NS);
 
         // look up the item corresponding to the OAI identifier
-        Item item = harvestedItemService.getItemByOAIId(ourContext, itemOaiID, targetCollection);
+        Item item = harvestedItemService.getItemByOAIId(context, itemOaiID, collection);
 
         // Make sure the item hasn't been deleted in the mean time
         if (header.getAttribute("status") != null && header.getAttribute("status").getValue().equals("deleted")) {
             log.info("Item " + itemOaiID + " has been marked as deleted on the OAI server.");
             if (item != null) {
-                collectionService.removeItem(ourContext, targetCollection, item);
+                collectionService.removeItem(context, collection, item);
             }
 
-            ourContext.restoreAuthSystemState();
+            context.restoreAuthSystemState();
             return;
         }
 
@@ -533,7 +808,7 @@ public class OAIHarvester {
         }
 
         // Ignore authorization
-        ourContext.turnOffAuthorisationSystem();
+        context.turnOffAuthorisationSystem();
 
         HarvestedItem hi;
 
@@ -542,7 +817,7 @@ public class OAIHarvester {
             log.debug("Item " + item.getHandle() + " was found locally. Using it to harvest " + itemOaiID + ".");
 
             // FIXME: check for null pointer if for some odd reason we don't have a matching hi
-            hi = harvestedItemService.find(ourContext, item);
+            hi = harvestedItemService.find(context, item);
 
             // Compare last-harvest on the item versus the last time the item was updated on the OAI provider side
             // If ours is more recent, forgo this item, since it's probably a left-over from a previous harvesting
@@ -557,11 +832,11 @@ public class OAIHarvester {
             }
 
             // Otherwise, clear and re-import the metadata and bitstreams
-            itemService.clearMetadata(ourContext, item, Item.ANY, Item.ANY, Item.ANY, Item.ANY);
+            itemService.clearMetadata(context, item, Item.ANY, Item.ANY, Item.ANY, Item.ANY);
             if (descMD.size() == 1) {
-                MDxwalk.ingest(ourContext, item, descMD.get(0), true);
+                MDxwalk.ingest(context, item, descMD.get(0), true);
             } else {
-                MDxwalk.ingest(ourContext, item, descMD, true);
+                MDxwalk.ingest(context, item, descMD, true);
             }
 
             // Import the actual bitstreams
@@ -570,35 +845,35 @@ public class OAIHarvester {
 
                 List<Bundle> allBundles = item.getBundles();
                 for (Bundle bundle : allBundles) {
-                    itemService.removeBundle(ourContext, item, bundle);
+                    itemService.removeBundle(context, item, bundle);
                 }
-                ORExwalk.ingest(ourContext, item, oreREM, true);
+                ORExwalk.ingest(context, item, oreREM, true);
             }
         } else {
             // NOTE: did not find, so we create (presumably, there will never be a case where an item already
             // exists in a harvest collection but does not have an OAI_id)
 
-            wi = workspaceItemService.create(ourContext, targetCollection, false);
+            wi = workspaceItemService.create(context, collection, false);
             item = wi.getItem();
 
-            hi = harvestedItemService.create(ourContext, item, itemOaiID);
+            hi = harvestedItemService.create(context, item, itemOaiID);
             //item.setOaiID(itemOaiID);
 
             if (descMD.size() == 1) {
-                MDxwalk.ingest(ourContext, item, descMD.get(0), true);
+                MDxwalk.ingest(context, item, descMD.get(0), true);
             } else {
-                MDxwalk.ingest(ourContext, item, descMD, true);
+                MDxwalk.ingest(context, item, descMD, true);
             }
 
             if (harvestRow.getHarvestType() == 3) {
-                ORExwalk.ingest(ourContext, item, oreREM, true);
+                ORExwalk.ingest(context, item, oreREM, true);
             }
 
             // see if a handle can be extracted for the item
             String handle = extractHandle(item);
 
             if (handle != null) {
-                DSpaceObject dso = handleService.resolveToObject(ourContext, handle);
+                DSpaceObject dso = handleService.resolveToObject(context, handle);
                 if (dso != null) {
                     throw new HarvestingException(
                         "Handle collision: attempted to re-assign handle '" + handle + "' to an incoming harvested " +
@@ -608,11 +883,11 @@ public class OAIHarvester {
             }
 
             try {
-                item = installItemService.installItem(ourContext, wi, handle);
-                //item = InstallItem.installItem(ourContext, wi);
+                item = installItemService.installItem(context, wi, handle);
+                //item = InstallItem.installItem(context, wi);
             } catch (SQLException | IOException | AuthorizeException se) {
                 // clean up the workspace item if something goes wrong before
-                workspaceItemService.deleteWrapper(ourContext, wi);
+                workspaceItemService.deleteWrapper(context, wi);
                 throw se;
             }
         }
@@ -626,7 +901,7 @@ public class OAIHarvester {
             if (OREBundles.size() > 0) {
                 OREBundle = OREBundles.get(0);
             } else {
-                OREBundle = bundleService.create(ourContext, item, "ORE");
+                OREBundle = bundleService.create(context, item, "ORE");
             }
 
             XMLOutputter outputter = new XMLOutputter();
@@ -636,18 +911,18 @@ public class OAIHarvester {
             OREBitstream = bundleService.getBitstreamByName(OREBundle, "ORE.xml");
 
             if (OREBitstream != null) {
-                bundleService.removeBitstream(ourContext, OREBundle, OREBitstream);
+                bundleService.removeBitstream(context, OREBundle, OREBitstream);
             }
 
-            OREBitstream = bitstreamService.create(ourContext, OREBundle, OREStream);
-            OREBitstream.setName(ourContext, "ORE.xml");
+            OREBitstream = bitstreamService.create(context, OREBundle, OREStream);
+            OREBitstream.setName(context, "ORE.xml");
 
-            BitstreamFormat bf = bitstreamFormatService.guessFormat(ourContext, OREBitstream);
-            bitstreamService.setFormat(ourContext, OREBitstream, bf);
-            bitstreamService.update(ourContext, OREBitstream);
+            BitstreamFormat bf = bitstreamFormatService.guessFormat(context, OREBitstream);
+            bitstreamService.setFormat(context, OREBitstream, bf);
+            bitstreamService.update(context, OREBitstream);
 
-            bundleService.addBitstream(ourContext, OREBundle, OREBitstream);
-            bundleService.update(ourContext, OREBundle);
+            bundleService.addBitstream(context, OREBundle, OREBitstream);
+            bundleService.update(context, OREBundle);
         }
 
         //item.setHarvestDate(new Date());
@@ -657,24 +932,41 @@ public class OAIHarvester {
         String provenanceMsg = "Item created via OAI harvest from source: "
             + this.harvestRow.getOaiSource() + " on " + new DCDate(hi.getHarvestDate())
             + " (GMT).  Item's OAI Record identifier: " + hi.getOaiID();
-        itemService.addMetadata(ourContext, item, "dc", "description", "provenance", "en", provenanceMsg);
+        itemService.addMetadata(context, item, "dc", "description", "provenance", "en", provenanceMsg);
 
-        itemService.update(ourContext, item);
-        harvestedItemService.update(ourContext, hi);
+        itemService.update(context, item);
+        harvestedItemService.update(context, hi);
         long timeTaken = new Date().getTime() - timeStart.getTime();
         log.info(String.format("Item %s (%s) has been ingested (item %d of %d). The whole process took: %d ms.",
                                item.getHandle(), item.getID(), currentRecord, totalListSize, timeTaken));
 
         //Clear the context cache
-        ourContext.uncacheEntity(wi);
-        ourContext.uncacheEntity(hi);
-        ourContext.uncacheEntity(item);
+        context.uncacheEntity(wi);
+        context.uncacheEntity(hi);
+        context.uncacheEntity(item);
 
         // Stop ignoring authorization
-        ourContext.restoreAuthSystemState();
+        context.restoreAuthSystemState();
     }
 
 
+    /**
+     * A record queued for the worker threads
+     */
+    protected static class QueuedRecord {
+        private final Element record;
+        private final String orePrefix;
+        private final long number;
+        private final long totalListSize;
+
+        QueuedRecord(Element record, String orePrefix, long number, long totalListSize) {
+            this.record = record;
+            this.orePrefix = orePrefix;
+            this.number = number;
+            this.totalListSize = totalListSize;
+        }
+    }
+
     /**
      * Scan an item's metadata, looking for the value "identifier.*". If it meets the parameters that identify it as
      * valid handle
@@ -773,6 +1065,7 @@ public class OAIHarvester {
      */
     private String oaiGetDateGranularity(String oaiSource)
         throws IOException, ParserConfigurationException, SAXException, TransformerException {
+        HarvestScheduler.acquireRequestPermit(oaiSource);
         Identify iden = new Identify(oaiSource);
         return iden.getDocument().getElementsByTagNameNS(OAI_NS.getURI(), "granularity").item(0).getTextContent();
     }
@@ -797,6 +1090,7 @@ public class OAIHarvester {
         String metaPrefix = null;
 
         // Query the OAI server for the metadata
+        HarvestScheduler.acquireRequestPermit(oaiSource);
         ListMetadataFormats lmf = new ListMetadataFormats(oaiSource);
 
         if (lmf != null) {
@@ -873,6 +1167,7 @@ public class OAIHarvester {
      */
     protected List<Element> getMDrecord(String oaiSource, String itemOaiId, String metadataPrefix)
         throws IOException, ParserConfigurationException, SAXException, TransformerException, HarvestingException {
+        HarvestScheduler.acquireRequestPermit(oaiSource);
         GetRecord getRecord = new GetRecord(oaiSource, itemOaiId, metadataPrefix);
         Set<String> errorSet = new HashSet<String>();
         // If the metadata is not available for this item, can the whole thing
@@ -0,0 +1,72 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai;
+
+import java.util.Date;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.dspace.core.ReloadableEntity;
+
+/**
+ * Database entity representation of the oai_item_change table: a change to an item which has to be indexed in the
+ * OAI index. The item is referred to by its ID only, since the change may be its deletion.
+ */
+@Entity
+@Table(name = "oai_item_change")
+public class OAIItemChange implements ReloadableEntity<Integer> {
+
+    @Id
+    @Column(name = "change_id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "oai_item_change_seq")
+    @SequenceGenerator(name = "oai_item_change_seq", sequenceName = "oai_item_change_seq", allocationSize = 1)
+    private Integer id;
+
+    @Column(name = "item_id", nullable = false)
+    private UUID itemId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "change_date", nullable = false)
+    private Date changeDate;
+
+    /**
+     * Protected constructor, create object using:
+     * {@link org.dspace.oai.service.OAIItemChangeService#addChanges(org.dspace.core.Context, java.util.Set)}
+     */
+    protected OAIItemChange() {
+    }
+
+    @Override
+    public Integer getID() {
+        return id;
+    }
+
+    public UUID getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(UUID itemId) {
+        this.itemId = itemId;
+    }
+
+    public Date getChangeDate() {
+        return changeDate;
+    }
+
+    public void setChangeDate(Date changeDate) {
+        this.changeDate = changeDate;
+    }
+}
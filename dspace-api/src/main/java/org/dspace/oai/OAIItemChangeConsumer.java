@@ -0,0 +1,103 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+import org.dspace.oai.service.OAIItemChangeService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Records the items changed by the events in the oai_item_change table, in the transaction of the changes, so that
+ * <code>oai import -e</code> only has to index these items.
+ * <p>
+ * Changes to the bundles and bitstreams of an item are recorded as changes to the item, since the OAI records
+ * include the bitstreams. Items mapped to or removed from a collection are recorded as changed too.
+ */
+public class OAIItemChangeConsumer implements Consumer {
+
+    private OAIItemChangeService oaiItemChangeService;
+
+    private Set<UUID> items = new HashSet<>();
+
+    @Override
+    public void initialize() throws Exception {
+        oaiItemChangeService = DSpaceServicesFactory.getInstance().getServiceManager()
+            .getServiceByName(OAIItemChangeService.class.getName(), OAIItemChangeService.class);
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        switch (event.getSubjectType()) {
+            case Constants.ITEM:
+                items.add(event.getSubjectID());
+                break;
+            case Constants.BUNDLE:
+                if (event.getEventType() != Event.DELETE) {
+                    addItems(event.getSubject(ctx));
+                }
+                break;
+            case Constants.BITSTREAM:
+                if (event.getEventType() == Event.MODIFY || event.getEventType() == Event.MODIFY_METADATA) {
+                    addItems(event.getSubject(ctx));
+                }
+                break;
+            case Constants.COLLECTION:
+                if ((event.getEventType() == Event.ADD || event.getEventType() == Event.REMOVE)
+                    && event.getObjectType() == Constants.ITEM) {
+                    items.add(event.getObjectID());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Record the items of a bundle or bitstream as changed
+     *
+     * @param object the bundle or bitstream, null if it has been deleted
+     * @throws Exception if database error
+     */
+    private void addItems(DSpaceObject object) throws Exception {
+        if (object instanceof Bitstream) {
+            for (Bundle bundle : ((Bitstream) object).getBundles()) {
+                addItems(bundle);
+            }
+        } else if (object instanceof Bundle) {
+            for (Item item : ((Bundle) object).getItems()) {
+                items.add(item.getID());
+            }
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        try {
+            if (!items.isEmpty()) {
+                oaiItemChangeService.addChanges(ctx, items);
+            }
+        } finally {
+            items = new HashSet<>();
+        }
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+}
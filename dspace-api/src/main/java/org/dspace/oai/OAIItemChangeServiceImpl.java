@@ -0,0 +1,87 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.common.collect.Lists;
+import org.dspace.core.Context;
+import org.dspace.oai.dao.OAIItemChangeDAO;
+import org.dspace.oai.service.OAIItemChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Service implementation for the OAIItemChange object.
+ * This class is responsible for all business logic calls for the OAIItemChange object and is autowired by spring.
+ * This class should never be accessed directly.
+ */
+public class OAIItemChangeServiceImpl implements OAIItemChangeService {
+
+    @Autowired(required = true)
+    protected OAIItemChangeDAO oaiItemChangeDAO;
+
+    protected OAIItemChangeServiceImpl() {
+
+    }
+
+    @Override
+    public void addChanges(Context context, Set<UUID> itemIds) throws SQLException {
+        Date now = new Date();
+        for (UUID itemId : itemIds) {
+            OAIItemChange change = new OAIItemChange();
+            change.setItemId(itemId);
+            change.setChangeDate(now);
+            oaiItemChangeDAO.create(context, change);
+        }
+    }
+
+    @Override
+    public List<OAIItemChange> findOldest(Context context, int limit) throws SQLException {
+        return oaiItemChangeDAO.findOldest(context, limit);
+    }
+
+    @Override
+    public List<OAIItemChange> findAfter(Context context, int lastId, int limit) throws SQLException {
+        return oaiItemChangeDAO.findAfter(context, lastId, limit);
+    }
+
+    @Override
+    public Integer findLastId(Context context) throws SQLException {
+        return oaiItemChangeDAO.findLastId(context);
+    }
+
+    @Override
+    public void deleteUpTo(Context context, int lastId, Set<UUID> keptItemIds) throws SQLException {
+        List<OAIItemChange> kept = new ArrayList<>();
+        for (List<UUID> batch : Lists.partition(new ArrayList<>(keptItemIds), 1000)) {
+            kept.addAll(oaiItemChangeDAO.findByItemIdsUpTo(context, lastId, batch));
+        }
+        oaiItemChangeDAO.deleteUpTo(context, lastId);
+        // the kept changes are recorded again, with their dates, rather than excluded from a single delete
+        for (OAIItemChange change : kept) {
+            OAIItemChange copy = new OAIItemChange();
+            copy.setItemId(change.getItemId());
+            copy.setChangeDate(change.getChangeDate());
+            context.uncacheEntity(change);
+            oaiItemChangeDAO.create(context, copy);
+        }
+    }
+
+    @Override
+    public void deleteByIds(Context context, List<Integer> ids) throws SQLException {
+        // some databases limit the size of an IN list to 1000
+        for (List<Integer> batch : Lists.partition(ids, 1000)) {
+            oaiItemChangeDAO.deleteByIds(context, batch);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai.dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import org.dspace.core.Context;
+import org.dspace.core.GenericDAO;
+import org.dspace.oai.OAIItemChange;
+
+/**
+ * Database Access Object interface class for the OAIItemChange object.
+ * The implementation of this class is responsible for all database calls for the OAIItemChange object and is
+ * autowired by spring
+ * This class should only be accessed from a single service and should never be exposed outside of the API
+ */
+public interface OAIItemChangeDAO extends GenericDAO<OAIItemChange> {
+
+    /**
+     * Find the oldest changes, in the order in which they were recorded
+     *
+     * @param context DSpace context
+     * @param limit   the maximum number of changes to return
+     * @return the changes
+     * @throws SQLException if database error
+     */
+    List<OAIItemChange> findOldest(Context context, int limit) throws SQLException;
+
+    /**
+     * Find the oldest changes recorded after the given change, in the order in which they were recorded
+     *
+     * @param context DSpace context
+     * @param lastId  the ID of the change to start after
+     * @param limit   the maximum number of changes to return
+     * @return the changes
+     * @throws SQLException if database error
+     */
+    List<OAIItemChange> findAfter(Context context, int lastId, int limit) throws SQLException;
+
+    /**
+     * Find the ID of the most recent change
+     *
+     * @param context DSpace context
+     * @return the ID of the change, or null if there are no changes
+     * @throws SQLException if database error
+     */
+    Integer findLastId(Context context) throws SQLException;
+
+    /**
+     * Find the changes of the given items, recorded up to the given change
+     *
+     * @param context DSpace context
+     * @param lastId  the ID of the last change to return
+     * @param itemIds the IDs of the items
+     * @return the changes
+     * @throws SQLException if database error
+     */
+    List<OAIItemChange> findByItemIdsUpTo(Context context, int lastId, List<UUID> itemIds) throws SQLException;
+
+    /**
+     * Delete the changes recorded up to the given change
+     *
+     * @param context DSpace context
+     * @param lastId  the ID of the last change to delete
+     * @return the number of deleted changes
+     * @throws SQLException if database error
+     */
+    int deleteUpTo(Context context, int lastId) throws SQLException;
+
+    /**
+     * Delete the given changes
+     *
+     * @param context DSpace context
+     * @param ids     the IDs of the changes
+     * @return the number of deleted changes
+     * @throws SQLException if database error
+     */
+    int deleteByIds(Context context, List<Integer> ids) throws SQLException;
+}
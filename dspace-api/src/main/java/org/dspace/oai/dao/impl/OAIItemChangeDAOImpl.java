@@ -0,0 +1,93 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai.dao.impl;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.dspace.core.AbstractHibernateDAO;
+import org.dspace.core.Context;
+import org.dspace.oai.OAIItemChange;
+import org.dspace.oai.OAIItemChange_;
+import org.dspace.oai.dao.OAIItemChangeDAO;
+
+/**
+ * Hibernate implementation of the Database Access Object interface class for the OAIItemChange object.
+ * This class is responsible for all database calls for the OAIItemChange object and is autowired by spring
+ * This class should never be accessed directly.
+ */
+public class OAIItemChangeDAOImpl extends AbstractHibernateDAO<OAIItemChange> implements OAIItemChangeDAO {
+
+    protected OAIItemChangeDAOImpl() {
+        super();
+    }
+
+    @Override
+    public List<OAIItemChange> findOldest(Context context, int limit) throws SQLException {
+        CriteriaBuilder criteriaBuilder = getCriteriaBuilder(context);
+        CriteriaQuery<OAIItemChange> criteriaQuery = getCriteriaQuery(criteriaBuilder, OAIItemChange.class);
+        Root<OAIItemChange> root = criteriaQuery.from(OAIItemChange.class);
+        criteriaQuery.select(root);
+        criteriaQuery.orderBy(criteriaBuilder.asc(root.get(OAIItemChange_.id)));
+        return list(context, criteriaQuery, false, OAIItemChange.class, limit, -1, false);
+    }
+
+    @Override
+    public List<OAIItemChange> findAfter(Context context, int lastId, int limit) throws SQLException {
+        CriteriaBuilder criteriaBuilder = getCriteriaBuilder(context);
+        CriteriaQuery<OAIItemChange> criteriaQuery = getCriteriaQuery(criteriaBuilder, OAIItemChange.class);
+        Root<OAIItemChange> root = criteriaQuery.from(OAIItemChange.class);
+        criteriaQuery.select(root);
+        criteriaQuery.where(criteriaBuilder.gt(root.get(OAIItemChange_.id), lastId));
+        criteriaQuery.orderBy(criteriaBuilder.asc(root.get(OAIItemChange_.id)));
+        return list(context, criteriaQuery, false, OAIItemChange.class, limit, -1, false);
+    }
+
+    @Override
+    public Integer findLastId(Context context) throws SQLException {
+        Query query = createQuery(context, "select max(id) from OAIItemChange");
+        return (Integer) query.getSingleResult();
+    }
+
+    @Override
+    public List<OAIItemChange> findByItemIdsUpTo(Context context, int lastId, List<UUID> itemIds)
+        throws SQLException {
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = createQuery(context, "from OAIItemChange where id <= :lastId and itemId in (:itemIds)");
+        query.setParameter("lastId", lastId);
+        query.setParameter("itemIds", itemIds);
+        @SuppressWarnings("unchecked")
+        List<OAIItemChange> result = query.getResultList();
+        return result;
+    }
+
+    @Override
+    public int deleteUpTo(Context context, int lastId) throws SQLException {
+        Query query = createQuery(context, "delete from OAIItemChange where id <= :lastId");
+        query.setParameter("lastId", lastId);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int deleteByIds(Context context, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Query query = createQuery(context, "delete from OAIItemChange where id in (:ids)");
+        query.setParameter("ids", ids);
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai.service;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.core.Context;
+import org.dspace.oai.OAIItemChange;
+
+/**
+ * Service interface class for the OAIItemChange object: the log of changed items which have to be indexed in the OAI
+ * index, recorded by the {@link org.dspace.oai.OAIItemChangeConsumer} and drained by the OAI import.
+ */
+public interface OAIItemChangeService {
+
+    /**
+     * Record changes to the given items, in the transaction of the context
+     *
+     * @param context DSpace context
+     * @param itemIds the IDs of the changed items
+     * @throws SQLException if database error
+     */
+    void addChanges(Context context, Set<UUID> itemIds) throws SQLException;
+
+    /**
+     * Find the oldest changes, in the order in which they were recorded. An item may be changed more than once.
+     *
+     * @param context DSpace context
+     * @param limit   the maximum number of changes to return
+     * @return the changes
+     * @throws SQLException if database error
+     */
+    List<OAIItemChange> findOldest(Context context, int limit) throws SQLException;
+
+    /**
+     * Find the oldest changes recorded after the given change, e.g. to skip the changes which could not be indexed
+     *
+     * @param context DSpace context
+     * @param lastId  the ID of the change to start after
+     * @param limit   the maximum number of changes to return
+     * @return the changes, in the order in which they were recorded
+     * @throws SQLException if database error
+     */
+    List<OAIItemChange> findAfter(Context context, int lastId, int limit) throws SQLException;
+
+    /**
+     * Find the ID of the most recent change, e.g. before indexing every item
+     *
+     * @param context DSpace context
+     * @return the ID of the change, or null if there are no changes
+     * @throws SQLException if database error
+     */
+    Integer findLastId(Context context) throws SQLException;
+
+    /**
+     * Remove the changes recorded up to the given change, once every item has been indexed. The changes of the items
+     * which could not be indexed, and the changes recorded since, are kept.
+     *
+     * @param context     DSpace context
+     * @param lastId      the ID of the last change to remove
+     * @param keptItemIds the IDs of the items which could not be indexed
+     * @throws SQLException if database error
+     */
+    void deleteUpTo(Context context, int lastId, Set<UUID> keptItemIds) throws SQLException;
+
+    /**
+     * Remove the changes with the given IDs, once they have been indexed. Changes recorded since the IDs were found
+     * are kept.
+     *
+     * @param context DSpace context
+     * @param ids     the IDs of the changes
+     * @throws SQLException if database error
+     */
+    void deleteByIds(Context context, List<Integer> ids) throws SQLException;
+}
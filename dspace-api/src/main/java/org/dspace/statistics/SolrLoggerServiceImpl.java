@@ -99,6 +99,7 @@ import org.dspace.statistics.service.SolrLoggerService;
 import org.dspace.statistics.util.LocationUtils;
 import org.dspace.statistics.util.SpiderDetector;
 import org.dspace.usage.UsageWorkflowEvent;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -111,7 +112,7 @@ import org.springframework.beans.factory.annotation.Autowired;
  * @author kevinvandevelde at atmire.com
  * @author mdiggory at atmire.com
  */
-public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBean {
+public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBean, DisposableBean {
 
     private static final Logger log = LogManager.getLogger();
 
@@ -149,6 +150,9 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
     /** Name of the current-year statistics core.  Prior-year shards will have a year suffixed. */
     private String statisticsCoreBase;
 
+    /** Writes usage events in the background, if asynchronous logging is enabled. */
+    private SolrStatisticsWriter statisticsWriter;
+
     public static enum StatisticsType {
         VIEW("view"),
         SEARCH("search"),
@@ -203,6 +207,39 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
         locationService = service;
     }
 
+    /**
+     * Get the writer which stores usage events in the background, creating it the first time asynchronous logging
+     * is used.
+     *
+     * @return the writer, or null if asynchronous logging is disabled
+     */
+    public synchronized SolrStatisticsWriter getStatisticsWriter() {
+        if (statisticsWriter == null
+            && configurationService.getBooleanProperty("solr-statistics.async.enabled", false)) {
+            statisticsWriter = new SolrStatisticsWriter(
+                this::completeSolrDoc,
+                () -> solr,
+                configurationService.getIntProperty("solr-statistics.async.queue-size", 10000),
+                configurationService.getIntProperty("solr-statistics.async.threads", 2),
+                configurationService.getIntProperty("solr-statistics.async.batch-size", 100),
+                configurationService.getLongProperty("solr-statistics.async.max-age", 1000L),
+                !configurationService.getBooleanProperty("solr-statistics.autoCommit", true));
+        }
+        return statisticsWriter;
+    }
+
+    /**
+     * Write the usage events which are still queued to the statistics core before shutting down.
+     */
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (statisticsWriter != null) {
+            statisticsWriter.shutdown(configurationService.getLongProperty("solr-statistics.async.shutdown-timeout",
+                                                                           30000L));
+            statisticsWriter = null;
+        }
+    }
+
     @Override
     public void post(DSpaceObject dspaceObject, HttpServletRequest request,
                      EPerson currentUser) {
@@ -219,10 +256,8 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
 
 
         try {
-            SolrInputDocument doc1 = getCommonSolrDoc(dspaceObject, request, currentUser);
-            if (doc1 == null) {
-                return;
-            }
+            SolrStatisticsEvent event = createEvent(dspaceObject, request, currentUser);
+            SolrInputDocument doc1 = event.getDocument();
             if (dspaceObject instanceof Bitstream) {
                 Bitstream bit = (Bitstream) dspaceObject;
                 List<Bundle> bundles = bit.getBundles();
@@ -233,14 +268,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
 
             doc1.addField("statistics_type", StatisticsType.VIEW.text());
 
-
-            solr.add(doc1);
-            // commits are executed automatically using the solr autocommit
-            boolean useAutoCommit = configurationService.getBooleanProperty("solr-statistics.autoCommit", true);
-            if (!useAutoCommit) {
-                solr.commit(false, false);
-            }
-
+            write(event, true);
         } catch (RuntimeException re) {
             throw re;
         } catch (Exception e) {
@@ -259,11 +287,8 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
         initSolrYearCores();
 
         try {
-            SolrInputDocument doc1 = getCommonSolrDoc(dspaceObject, ip, userAgent, xforwardedfor,
-                                                      currentUser);
-            if (doc1 == null) {
-                return;
-            }
+            SolrStatisticsEvent event = createEvent(dspaceObject, ip, userAgent, xforwardedfor, currentUser);
+            SolrInputDocument doc1 = event.getDocument();
             if (dspaceObject instanceof Bitstream) {
                 Bitstream bit = (Bitstream) dspaceObject;
                 List<Bundle> bundles = bit.getBundles();
@@ -274,18 +299,40 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
 
             doc1.addField("statistics_type", StatisticsType.VIEW.text());
 
-            solr.add(doc1);
-            // commits are executed automatically using the solr autocommit
-            boolean useAutoCommit = configurationService.getBooleanProperty("solr-statistics.autoCommit", true);
-            if (!useAutoCommit) {
-                solr.commit(false, false);
-            }
-
+            write(event, true);
         } catch (RuntimeException re) {
             throw re;
         } catch (Exception e) {
+            String email = null == currentUser ? "[anonymous]" : currentUser.getEmail();
             log.error("Error saving VIEW event to Solr for DSpaceObject {} by EPerson {}",
-                      dspaceObject.getID(), currentUser.getEmail(), e);
+                      dspaceObject.getID(), email, e);
+        }
+    }
+
+    /**
+     * Write a usage event to the statistics core. When asynchronous logging is enabled, the event is only queued
+     * (or dropped if the queue is full), otherwise its document is completed and sent to Solr immediately.
+     *
+     * @param event  the event
+     * @param commit whether to explicitly commit when the statistics core doesn't use autocommit
+     * @throws IOException         A general class of exceptions produced by failed or interrupted I/O operations.
+     * @throws SolrServerException Exception from the Solr server to the solrj Java client.
+     */
+    protected void write(SolrStatisticsEvent event, boolean commit) throws IOException, SolrServerException {
+        SolrStatisticsWriter writer = getStatisticsWriter();
+        if (writer != null) {
+            writer.offer(event);
+            return;
+        }
+        SolrInputDocument doc = completeSolrDoc(event);
+        if (doc == null) {
+            return;
+        }
+        solr.add(doc);
+        // commits are executed automatically using the solr autocommit
+        boolean useAutoCommit = configurationService.getBooleanProperty("solr-statistics.autoCommit", true);
+        if (commit && !useAutoCommit) {
+            solr.commit(false, false);
         }
     }
 
@@ -301,82 +348,59 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
      */
     protected SolrInputDocument getCommonSolrDoc(DSpaceObject dspaceObject, HttpServletRequest request,
                                                  EPerson currentUser) throws SQLException {
-        boolean isSpiderBot = request != null && SpiderDetector.isSpider(request);
-        if (isSpiderBot &&
-            !configurationService.getBooleanProperty("usage-statistics.logBots", true)) {
-            return null;
-        }
-
-        SolrInputDocument doc1 = new SolrInputDocument();
-        // Save our basic info that we already have
+        return completeSolrDoc(createEvent(dspaceObject, request, currentUser));
+    }
 
-        if (request != null) {
-            String ip = clientInfoService.getClientIp(request);
-            if (configurationService.getBooleanProperty("anonymize_statistics.anonymize_on_log", false)) {
-                try {
-                    doc1.addField("ip", anonymizeIp(ip));
-                } catch (UnknownHostException e) {
-                    log.warn(e.getMessage(), e);
-                }
-            } else {
-                doc1.addField("ip", ip);
-            }
+    protected SolrInputDocument getCommonSolrDoc(DSpaceObject dspaceObject, String ip, String userAgent,
+                                                 String xforwardedfor, EPerson currentUser) throws SQLException {
+        return completeSolrDoc(createEvent(dspaceObject, ip, userAgent, xforwardedfor, currentUser));
+    }
 
-            //Also store the referrer
-            if (request.getHeader("referer") != null) {
-                doc1.addField("referrer", request.getHeader("referer"));
-            }
+    /**
+     * Capture a usage event while handling the request. Only the information which needs the request or the
+     * database is collected here, the (slower) lookups are left to {@link #completeSolrDoc(SolrStatisticsEvent)}.
+     *
+     * @param dspaceObject the object used.
+     * @param request      the current request context, may be null.
+     * @param currentUser  the current session's user.
+     * @return the event
+     * @throws SQLException in case of a database exception
+     */
+    protected SolrStatisticsEvent createEvent(DSpaceObject dspaceObject, HttpServletRequest request,
+                                              EPerson currentUser) throws SQLException {
+        SolrInputDocument doc1 = createSolrDoc(dspaceObject, currentUser);
+        if (request == null) {
+            return new SolrStatisticsEvent(doc1);
+        }
+        return new SolrStatisticsEvent(doc1, clientInfoService.getClientIp(request), request.getHeader("User-Agent"),
+                                       request.getHeader("referer"), request.getRemoteAddr(),
+                                       request.getHeader("X-Forwarded-For"), request.getRemoteHost(),
+                                       request.getHeader("User-Agent"));
+    }
 
-            InetAddress ipAddress = null;
-            try {
-                String dns;
-                if (!configurationService.getBooleanProperty("anonymize_statistics.anonymize_on_log", false)) {
-                    ipAddress = InetAddress.getByName(ip);
-                    dns = ipAddress.getHostName();
-                } else {
-                    dns = configurationService.getProperty("anonymize_statistics.dns_mask", "anonymized");
-                }
-                doc1.addField("dns", dns.toLowerCase(Locale.ROOT));
-            } catch (UnknownHostException e) {
-                log.info("Failed DNS Lookup for IP:  {}", ip);
-                log.debug(e.getMessage(), e);
-            }
-            if (request.getHeader("User-Agent") != null) {
-                doc1.addField("userAgent", request.getHeader("User-Agent"));
-            }
-            doc1.addField("isBot", isSpiderBot);
-            // Save the location information if valid, save the event without
-            // location information if not valid
-            if (locationService != null && ipAddress != null) {
-                try {
-                    CityResponse location = locationService.city(ipAddress);
-                    String countryCode = location.getCountry().getIsoCode();
-                    double latitude = location.getLocation().getLatitude();
-                    double longitude = location.getLocation().getLongitude();
-                    if (!(
-                            "--".equals(countryCode)
-                            && latitude == -180
-                            && longitude == -180)
-                    ) {
-                        try {
-                            doc1.addField("continent", LocationUtils
-                                .getContinentCode(countryCode));
-                        } catch (Exception e) {
-                            log.warn("Failed to load country/continent table: {}", countryCode);
-                        }
-                        doc1.addField("countryCode", countryCode);
-                        doc1.addField("city", location.getCity().getName());
-                        doc1.addField("latitude", latitude);
-                        doc1.addField("longitude", longitude);
-                    }
-                } catch (IOException e) {
-                    log.warn("GeoIP lookup failed.", e);
-                } catch (GeoIp2Exception e) {
-                    log.info("Unable to get location of request: {}", e.getMessage());
-                }
-            }
-        }
+    /**
+     * Capture a usage event for which only the client addresses and User-Agent are known.
+     *
+     * @param dspaceObject  the object used.
+     * @param ip            the address of the client.
+     * @param userAgent     the User-Agent of the client.
+     * @param xforwardedfor the X-Forwarded-For header.
+     * @param currentUser   the current session's user.
+     * @return the event
+     * @throws SQLException in case of a database exception
+     */
+    protected SolrStatisticsEvent createEvent(DSpaceObject dspaceObject, String ip, String userAgent,
+                                              String xforwardedfor, EPerson currentUser) throws SQLException {
+        SolrInputDocument doc1 = createSolrDoc(dspaceObject, currentUser);
+        return new SolrStatisticsEvent(doc1, clientInfoService.getClientIp(ip, xforwardedfor), userAgent, null,
+                                       ip, null, null, null);
+    }
 
+    /**
+     * Create the document of a usage event with the fields about the object and user.
+     */
+    private SolrInputDocument createSolrDoc(DSpaceObject dspaceObject, EPerson currentUser) throws SQLException {
+        SolrInputDocument doc1 = new SolrInputDocument();
         if (dspaceObject != null) {
             doc1.addField("id", dspaceObject.getID().toString());
             doc1.addField("type", dspaceObject.getType());
@@ -387,22 +411,31 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
         if (currentUser != null) {
             doc1.addField("epersonid", currentUser.getID().toString());
         }
-
         return doc1;
     }
 
-    protected SolrInputDocument getCommonSolrDoc(DSpaceObject dspaceObject, String ip, String userAgent,
-                                                 String xforwardedfor, EPerson currentUser) throws SQLException {
-        boolean isSpiderBot = SpiderDetector.isSpider(ip);
+    /**
+     * Complete the document of a usage event with the information about the client: spider detection, the
+     * (anonymized) address, reverse DNS and the location. This doesn't need the request or the database, so it can
+     * be done outside of the request.
+     *
+     * @param event the event
+     * @return the completed document, or null if the event should not be logged (a spider, when these aren't
+     *         logged)
+     */
+    protected SolrInputDocument completeSolrDoc(SolrStatisticsEvent event) {
+        SolrInputDocument doc1 = event.getDocument();
+        if (!event.isClientKnown()) {
+            return doc1;
+        }
+        boolean isSpiderBot = SpiderDetector.isSpider(event.getSpiderClientIp(), event.getSpiderProxyIps(),
+                                                      event.getSpiderHostname(), event.getSpiderAgent());
         if (isSpiderBot &&
             !configurationService.getBooleanProperty("usage-statistics.logBots", true)) {
             return null;
         }
 
-        SolrInputDocument doc1 = new SolrInputDocument();
-        // Save our basic info that we already have
-
-        ip = clientInfoService.getClientIp(ip, xforwardedfor);
+        String ip = event.getIp();
         if (configurationService.getBooleanProperty("anonymize_statistics.anonymize_on_log", false)) {
             try {
                 doc1.addField("ip", anonymizeIp(ip));
@@ -413,6 +446,11 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
             doc1.addField("ip", ip);
         }
 
+        //Also store the referrer
+        if (event.getReferrer() != null) {
+            doc1.addField("referrer", event.getReferrer());
+        }
+
         InetAddress ipAddress = null;
         try {
             String dns;
@@ -427,13 +465,13 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
             log.info("Failed DNS Lookup for IP:  {}", ip);
             log.debug(e.getMessage(), e);
         }
-        if (userAgent != null) {
-            doc1.addField("userAgent", userAgent);
+        if (event.getUserAgent() != null) {
+            doc1.addField("userAgent", event.getUserAgent());
         }
         doc1.addField("isBot", isSpiderBot);
         // Save the location information if valid, save the event without
         // location information if not valid
-        if (locationService != null) {
+        if (locationService != null && ipAddress != null) {
             try {
                 CityResponse location = locationService.city(ipAddress);
                 String countryCode = location.getCountry().getIsoCode();
@@ -441,15 +479,14 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
                 double longitude = location.getLocation().getLongitude();
                 if (!(
                         "--".equals(countryCode)
-                                && latitude == -180
-                                && longitude == -180)
+                        && latitude == -180
+                        && longitude == -180)
                 ) {
                     try {
                         doc1.addField("continent", LocationUtils
-                                .getContinentCode(countryCode));
+                            .getContinentCode(countryCode));
                     } catch (Exception e) {
-                        System.out
-                                .println("COUNTRY ERROR: " + countryCode);
+                        log.warn("Failed to load country/continent table: {}", countryCode);
                     }
                     doc1.addField("countryCode", countryCode);
                     doc1.addField("city", location.getCity().getName());
@@ -463,17 +500,6 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
             }
         }
 
-        if (dspaceObject != null) {
-            doc1.addField("id", dspaceObject.getID().toString());
-            doc1.addField("type", dspaceObject.getType());
-            storeParents(doc1, dspaceObject);
-        }
-        // Save the current time
-        doc1.addField("time", DateFormatUtils.format(new Date(), DATE_FORMAT_8601));
-        if (currentUser != null) {
-            doc1.addField("epersonid", currentUser.getID().toString());
-        }
-
         return doc1;
     }
 
@@ -482,10 +508,8 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
     public void postSearch(DSpaceObject resultObject, HttpServletRequest request, EPerson currentUser,
                            List<String> queries, int rpp, String sortBy, String order, int page, DSpaceObject scope) {
         try {
-            SolrInputDocument solrDoc = getCommonSolrDoc(resultObject, request, currentUser);
-            if (solrDoc == null) {
-                return;
-            }
+            SolrStatisticsEvent event = createEvent(resultObject, request, currentUser);
+            SolrInputDocument solrDoc = event.getDocument();
             initSolrYearCores();
 
             for (String query : queries) {
@@ -519,12 +543,12 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
                 solrDoc.addField("page", page);
             }
 
-            solr.add(solrDoc);
+            write(event, false);
         } catch (RuntimeException re) {
             throw re;
         } catch (Exception e) {
-            log.error("Error saving SEARCH event to Solr by EPerson {}",
-                      currentUser.getEmail(), e);
+            String email = null == currentUser ? "[anonymous]" : currentUser.getEmail();
+            log.error("Error saving SEARCH event to Solr by EPerson {}", email, e);
         }
     }
 
@@ -532,7 +556,8 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
     public void postWorkflow(UsageWorkflowEvent usageWorkflowEvent) throws SQLException {
         initSolrYearCores();
         try {
-            SolrInputDocument solrDoc = getCommonSolrDoc(usageWorkflowEvent.getObject(), null, null);
+            SolrStatisticsEvent event = createEvent(usageWorkflowEvent.getObject(), null, null);
+            SolrInputDocument solrDoc = event.getDocument();
 
             //Log the current collection & the scope !
             solrDoc.addField("owningColl", usageWorkflowEvent.getScope().getID().toString());
@@ -568,7 +593,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
                 solrDoc.addField("actor", usageWorkflowEvent.getActor().getID().toString());
             }
 
-            solr.add(solrDoc);
+            write(event, false);
         } catch (Exception e) {
             //Log the exception, no need to send it through, the workflow shouldn't crash because of this !
             log.error("Error saving WORKFLOW event to Solr", e);
@@ -1550,6 +1575,15 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
 
     @Override
     public void commit() throws IOException, SolrServerException {
+        SolrStatisticsWriter writer = getStatisticsWriter();
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing the queued usage events", e);
+            }
+        }
         solr.commit();
     }
 
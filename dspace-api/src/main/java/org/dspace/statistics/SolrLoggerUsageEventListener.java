@@ -23,6 +23,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 /**
  * Simple SolrLoggerUsageEvent facade to separate Solr specific
  * logging implementation from DSpace.
+ * <p>
+ * When solr-statistics.async.enabled is set, the events are only captured
+ * here and written to Solr in the background, see {@link SolrStatisticsWriter}.
  *
  * @author mdiggory
  */
@@ -0,0 +1,113 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics;
+
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * A usage event captured while handling a request, which still has to be turned into a statistics document.
+ * <p>
+ * Everything which needs the request or the database (the object, its parents, the current user, ...) is already
+ * stored in the document. The client information is kept as plain strings, so spider detection, reverse DNS and
+ * GeoIP lookups can be done later, outside of the request, by
+ * {@link SolrLoggerServiceImpl#completeSolrDoc(SolrStatisticsEvent)}.
+ */
+public class SolrStatisticsEvent {
+
+    private final SolrInputDocument document;
+
+    private final boolean clientKnown;
+    private final String ip;
+    private final String userAgent;
+    private final String referrer;
+
+    private final String spiderClientIp;
+    private final String spiderProxyIps;
+    private final String spiderHostname;
+    private final String spiderAgent;
+
+    /**
+     * Create an event without client information (e.g. a workflow event)
+     *
+     * @param document the document holding the fields which are already known
+     */
+    public SolrStatisticsEvent(SolrInputDocument document) {
+        this(document, false, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create an event with client information
+     *
+     * @param document       the document holding the fields which are already known
+     * @param ip             the IP address of the client
+     * @param userAgent      the User-Agent of the client, or null
+     * @param referrer       the referrer of the request, or null
+     * @param spiderClientIp the address used to check whether the client is a spider
+     * @param spiderProxyIps the X-Forwarded-For addresses used to check whether the client is a spider, or null
+     * @param spiderHostname the host name used to check whether the client is a spider, or null
+     * @param spiderAgent    the User-Agent used to check whether the client is a spider, or null
+     */
+    public SolrStatisticsEvent(SolrInputDocument document, String ip, String userAgent, String referrer,
+                               String spiderClientIp, String spiderProxyIps, String spiderHostname,
+                               String spiderAgent) {
+        this(document, true, ip, userAgent, referrer, spiderClientIp, spiderProxyIps, spiderHostname, spiderAgent);
+    }
+
+    private SolrStatisticsEvent(SolrInputDocument document, boolean clientKnown, String ip, String userAgent,
+                                String referrer, String spiderClientIp, String spiderProxyIps,
+                                String spiderHostname, String spiderAgent) {
+        this.document = document;
+        this.clientKnown = clientKnown;
+        this.ip = ip;
+        this.userAgent = userAgent;
+        this.referrer = referrer;
+        this.spiderClientIp = spiderClientIp;
+        this.spiderProxyIps = spiderProxyIps;
+        this.spiderHostname = spiderHostname;
+        this.spiderAgent = spiderAgent;
+    }
+
+    public SolrInputDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * @return true if the event holds information about the client which caused it
+     */
+    public boolean isClientKnown() {
+        return clientKnown;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public String getReferrer() {
+        return referrer;
+    }
+
+    public String getSpiderClientIp() {
+        return spiderClientIp;
+    }
+
+    public String getSpiderProxyIps() {
+        return spiderProxyIps;
+    }
+
+    public String getSpiderHostname() {
+        return spiderHostname;
+    }
+
+    public String getSpiderAgent() {
+        return spiderAgent;
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Writes usage events to the statistics core asynchronously, so handling a request never waits for the statistics
+ * core (or for DNS and GeoIP lookups).
+ * <p>
+ * Events are put on a bounded queue. When the queue is full, new events are dropped rather than making the request
+ * wait. A pool of worker threads takes the events off the queue, turns them into documents (spider detection, reverse
+ * DNS, GeoIP) and sends them to Solr in batches. A batch is sent as soon as it is full, or when its oldest event
+ * reaches the maximum age. On shutdown, the events which are still queued are written before the workers stop.
+ * <p>
+ * The number of events which were accepted, dropped, written and lost can be retrieved for monitoring, and are
+ * logged on shutdown.
+ */
+public class SolrStatisticsWriter {
+
+    private static final Logger log = org.apache.logging.log4j.LogManager.getLogger(SolrStatisticsWriter.class);
+
+    /**
+     * A dropped event is logged once every this many drops
+     */
+    private static final long DROP_LOG_INTERVAL = 1000;
+
+    private final Function<SolrStatisticsEvent, SolrInputDocument> documentBuilder;
+    private final Supplier<SolrClient> solrSupplier;
+    private final BlockingQueue<SolrStatisticsEvent> queue;
+    private final int batchSize;
+    private final long maxBatchAge;
+    private final boolean commit;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private final Object progressLock = new Object();
+    // guarded by progressLock
+    private long processed = 0;
+
+    private volatile boolean running = true;
+
+    /**
+     * Create a new writer and start its worker threads.
+     *
+     * @param documentBuilder turns an event into the document to store, or null if the event should not be stored
+     * @param solrSupplier    supplies the client of the statistics core
+     * @param capacity        the maximum number of events waiting to be written
+     * @param threads         the number of worker threads
+     * @param batchSize       the maximum number of documents sent in a single request
+     * @param maxBatchAge     the maximum time (in milliseconds) an event waits for its batch to fill up
+     * @param commit          whether to explicitly commit after each batch
+     */
+    public SolrStatisticsWriter(Function<SolrStatisticsEvent, SolrInputDocument> documentBuilder,
+                                Supplier<SolrClient> solrSupplier, int capacity, int threads, int batchSize,
+                                long maxBatchAge, boolean commit) {
+        this.documentBuilder = documentBuilder;
+        this.solrSupplier = solrSupplier;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchAge = Math.max(0, maxBatchAge);
+        this.commit = commit;
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(this::run, "statistics-writer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queue an event to be written. Never blocks: the event is dropped when the queue is full or the writer has been
+     * shut down.
+     *
+     * @param event the event
+     * @return true if the event was queued, false if it was dropped
+     */
+    public boolean offer(SolrStatisticsEvent event) {
+        if (running && queue.offer(event)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        long drops = dropped.incrementAndGet();
+        if (drops % DROP_LOG_INTERVAL == 1) {
+            log.warn("Statistics queue is {}, {} usage events have been dropped so far (queue size {})",
+                     running ? "full" : "shut down", drops, queue.size());
+        }
+        return false;
+    }
+
+    /**
+     * Wait until all events queued before this call have been written (or have failed).
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        synchronized (progressLock) {
+            long target = accepted.get();
+            while (processed < target && isAlive()) {
+                progressLock.wait(100);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting events, write the events which are still queued and stop the worker threads.
+     *
+     * @param timeout the maximum time (in milliseconds) to wait for the queued events to be written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown(long timeout) throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + Math.max(0, timeout);
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        if (isAlive()) {
+            log.warn("Statistics writer did not finish within {} ms, {} usage events are still pending", timeout,
+                     getPendingCount());
+        }
+        log.info("Statistics writer shut down: {} usage events accepted, {} written, {} skipped, {} dropped, "
+                     + "{} failed", accepted.get(), written.get(), skipped.get(), dropped.get(), failed.get());
+    }
+
+    private boolean isAlive() {
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of events waiting in the queue
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of events which have been accepted but not yet written
+     */
+    public long getPendingCount() {
+        synchronized (progressLock) {
+            return accepted.get() - processed;
+        }
+    }
+
+    /**
+     * @return the number of events which have been accepted
+     */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * @return the number of events which were dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of documents which have been written to the statistics core
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return the number of events which were not written on purpose (e.g. spiders when these are not logged)
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * @return the number of events which could not be written
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Main loop of the worker threads.
+     */
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                SolrStatisticsEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<SolrStatisticsEvent> batch = new ArrayList<>();
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + maxBatchAge;
+                while (batch.size() < batchSize) {
+                    // don't wait for the batch to fill up when shutting down
+                    long remaining = running ? deadline - System.currentTimeMillis() : 0;
+                    SolrStatisticsEvent next = queue.poll(Math.max(0, Math.min(remaining, 100)),
+                                                          TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    } else if (remaining <= 100) {
+                        break;
+                    }
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                log.warn("Statistics writer interrupted, {} usage events are still pending", getPendingCount());
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<SolrStatisticsEvent> batch) {
+        try {
+            List<SolrInputDocument> documents = new ArrayList<>(batch.size());
+            for (SolrStatisticsEvent event : batch) {
+                try {
+                    SolrInputDocument document = documentBuilder.apply(event);
+                    if (document != null) {
+                        documents.add(document);
+                    } else {
+                        skipped.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Unable to create the statistics document of a usage event", e);
+                    failed.incrementAndGet();
+                }
+            }
+            if (documents.isEmpty()) {
+                return;
+            }
+            try {
+                SolrClient solr = solrSupplier.get();
+                if (solr == null) {
+                    throw new IOException("The statistics core is not available");
+                }
+                solr.add(documents);
+                if (commit) {
+                    solr.commit(false, false);
+                }
+                written.addAndGet(documents.size());
+            } catch (Exception e) {
+                log.error("Unable to write {} usage events to the statistics core", documents.size(), e);
+                failed.addAndGet(documents.size());
+            }
+        } finally {
+            synchronized (progressLock) {
+                processed += batch.size();
+                progressLock.notifyAll();
+            }
+        }
+    }
+}
@@ -7,205 +7,520 @@
  */
 package org.dspace.statistics.util;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.apache.commons.lang3.StringUtils;
 
 /**
- * A Spare v4 IPTable implementation that uses nested HashMaps
- * to optimize IP address matching over ranges of IP addresses.
+ * A table of IPv4 and IPv6 address ranges, optimized for checking whether an address lies within any of them.
+ * <p>
+ * The ranges are kept as intervals of numeric addresses: 32 bit values held in a {@code long} for IPv4, pairs of
+ * {@code long}s for IPv6. Before the first lookup they are sorted and overlapping or adjacent intervals are merged,
+ * so {@link #contains(String)} is a binary search which doesn't allocate any objects for IPv4 addresses. Large lists
+ * (hundreds of thousands of ranges) can be loaded quickly, as adding a range only appends it to an array.
+ * <p>
+ * Ranges may be added while the table is in use: the table is rebuilt on the next lookup. Lookups from multiple
+ * threads are safe.
  *
  * @author mdiggory at atmire.com
  */
 public class IPTable {
-    private static final Logger log = LogManager.getLogger(IPTable.class);
 
-    /* A lookup tree for IP addresses and SubnetRanges */
-    private final Map<String, Map<String, Map<String, Set<String>>>> map
-            = new HashMap<>();
+    private static final long IPV4_MAX = 0xFFFFFFFFL;
 
     /**
-     * Can be full v4 IP, subnet or range string.
+     * IPv4 ranges which have been added: start and end packed into a single long
+     */
+    private long[] ipv4 = new long[16];
+    private int ipv4Count = 0;
+
+    /**
+     * IPv6 ranges which have been added: start (high, low) and end (high, low)
+     */
+    private long[] ipv6 = new long[16];
+    private int ipv6Count = 0;
+
+    /**
+     * The sorted and merged ranges, or null if they need to be rebuilt
+     */
+    private volatile Ranges ranges = null;
+
+    /**
+     * Add an address or range of addresses. Supported notations:
      * <ul>
-     *   <li>A full address is a complete dotted-quad:  {@code "1.2.3.4".}
-     *   <li>A subnet is a dotted-triplet:  {@code "1.2.3"}.  It means an entire
-     *       Class C subnet:  "1.2.3.0-1.2.3.255".
-     *   <li>A range is two dotted-quad addresses separated by hyphen:
-     *       {@code "1.2.3.4-1.2.3.14"}.  Only the final octet may be different.
+     *   <li>A full IPv4 or IPv6 address:  {@code "1.2.3.4"}, {@code "2001:db8::1"}.
+     *   <li>A partial IPv4 address, which covers all addresses starting with the given
+     *       octets:  {@code "1.2.3"} is "1.2.3.0-1.2.3.255", {@code "18."} is "18.0.0.0-18.255.255.255".
+     *   <li>CIDR notation:  {@code "1.2.0.0/16"}, {@code "2001:db8::/32"}.
+     *   <li>An IPv4 netmask:  {@code "1.2.0.0/255.255.0.0"}.
+     *   <li>Two addresses separated by hyphen:  {@code "1.2.3.4-1.2.5.14"}.
      * </ul>
      *
-     * Any attempt at CIDR notation is ignored.
-     *
      * @param ip IP address(es)
      * @throws IPFormatException Exception Class to deal with IPFormat errors.
      */
-    public void add(String ip) throws IPFormatException {
-
-        String[] start;
-
-        String[] end;
-
-        String[] range = ip.split("-");
-
-        if (range.length >= 2) {
+    public synchronized void add(String ip) throws IPFormatException {
+        String spec = StringUtils.trimToEmpty(ip);
+        long[] address = new long[2];
+
+        if (spec.indexOf('-') > 0) {
+            String start = spec.substring(0, spec.indexOf('-')).trim();
+            String end = spec.substring(spec.indexOf('-') + 1).trim();
+            if (start.indexOf(':') < 0 && end.indexOf(':') < 0) {
+                long first = parseIPv4(start, 0, start.length());
+                long last = parseIPv4(end, 0, end.length());
+                if (first < 0 || last < 0) {
+                    throw new IPFormatException(ip + " - Ranges need to be full IPv4 Addresses");
+                }
+                if (first > last) {
+                    throw new IPFormatException(ip + " - The start of the range is after its end");
+                }
+                addIPv4(first, last);
+            } else {
+                long[] last = new long[2];
+                if (!parseIPv6(start, address) || !parseIPv6(end, last)) {
+                    throw new IPFormatException(ip + " - Ranges need to be two full IPv4 or IPv6 addresses");
+                }
+                if (compare(address[0], address[1], last[0], last[1]) > 0) {
+                    throw new IPFormatException(ip + " - The start of the range is after its end");
+                }
+                addIPv6(address[0], address[1], last[0], last[1]);
+            }
+            return;
+        }
 
-            start = range[0].trim().split("/")[0].split("\\.");
-            end = range[1].trim().split("/")[0].split("\\.");
+        String addressPart = spec;
+        String maskPart = null;
+        if (spec.indexOf('/') >= 0) {
+            addressPart = spec.substring(0, spec.indexOf('/')).trim();
+            maskPart = spec.substring(spec.indexOf('/') + 1).trim();
+        }
 
-            if (start.length != 4 || end.length != 4) {
-                throw new IPFormatException(ip + " - Ranges need to be full IPv4 Addresses");
+        if (addressPart.indexOf(':') >= 0) {
+            if (!parseIPv6(addressPart, address)) {
+                throw new IPFormatException(ip + " - Not a valid IPv6 address");
             }
+            int prefix = maskPart == null ? 128 : parsePrefix(ip, maskPart, 128);
+            long maskHigh = prefix >= 64 ? -1L : prefix == 0 ? 0L : -1L << (64 - prefix);
+            long maskLow = prefix <= 64 ? 0L : prefix == 128 ? -1L : -1L << (128 - prefix);
+            addIPv6(address[0] & maskHigh, address[1] & maskLow, address[0] | ~maskHigh, address[1] | ~maskLow);
+            return;
+        }
 
-            if (!(start[0].equals(end[0]) && start[1].equals(end[1]) && start[2].equals(end[2]))) {
-                throw new IPFormatException(ip + " - Ranges can only be across the last subnet x.y.z.0 - x.y.z.254");
+        int prefix;
+        long network;
+        if (maskPart == null) {
+            // a full or partial address, possibly ending with a dot
+            String partial = StringUtils.removeEnd(addressPart, ".");
+            int octets = StringUtils.countMatches(partial, '.') + 1;
+            if (octets > 4) {
+                throw new IPFormatException(ip + " - Not a valid IPv4 address");
             }
-
+            String full = partial + StringUtils.repeat(".0", 4 - octets);
+            network = parseIPv4(full, 0, full.length());
+            prefix = octets * 8;
         } else {
-            //need to ignore CIDR notation for the moment.
-            //ip = ip.split("\\/")[0];
-
-            String[] subnets = ip.split("\\.");
+            network = parseIPv4(addressPart, 0, addressPart.length());
+            if (maskPart.indexOf('.') >= 0) {
+                long mask = parseIPv4(maskPart, 0, maskPart.length());
+                prefix = mask < 0 ? -1 : Long.numberOfLeadingZeros(~mask & IPV4_MAX) - 32;
+                if (mask < 0 || ((IPV4_MAX << (32 - prefix)) & IPV4_MAX) != mask) {
+                    throw new IPFormatException(ip + " - The netmask needs to be contiguous");
+                }
+            } else {
+                prefix = parsePrefix(ip, maskPart, 32);
+            }
+        }
+        if (network < 0) {
+            throw new IPFormatException(ip + " - Not a valid IPv4 address");
+        }
+        long mask = (IPV4_MAX << (32 - prefix)) & IPV4_MAX;
+        addIPv4(network & mask, network | (~mask & IPV4_MAX));
+    }
 
-            if (subnets.length < 3) {
-                throw new IPFormatException(ip + " - require at least three subnet places (255.255.255.0");
+    private static int parsePrefix(String ip, String prefix, int max) throws IPFormatException {
+        try {
+            int bits = Integer.parseInt(prefix);
+            if (bits < 0 || bits > max) {
+                throw new IPFormatException(ip + " - The prefix length needs to be between 0 and " + max);
             }
+            return bits;
+        } catch (NumberFormatException e) {
+            throw new IPFormatException(ip + " - Not a valid prefix length");
+        }
+    }
 
-            start = subnets;
-            end = subnets;
+    private void addIPv4(long start, long end) {
+        if (ipv4Count == ipv4.length) {
+            ipv4 = Arrays.copyOf(ipv4, ipv4.length * 2);
         }
+        ipv4[ipv4Count++] = start << 32 | end;
+        ranges = null;
+    }
 
-        if (start.length >= 3) {
-            Map<String, Map<String, Set<String>>> first = map.get(start[0]);
+    private void addIPv6(long startHigh, long startLow, long endHigh, long endLow) {
+        if (ipv6Count * 4 == ipv6.length) {
+            ipv6 = Arrays.copyOf(ipv6, ipv6.length * 2);
+        }
+        int offset = ipv6Count++ * 4;
+        ipv6[offset] = startHigh;
+        ipv6[offset + 1] = startLow;
+        ipv6[offset + 2] = endHigh;
+        ipv6[offset + 3] = endLow;
+        ranges = null;
+    }
 
-            if (first == null) {
-                first = new HashMap<>();
-                map.put(start[0], first);
+    /**
+     * Check whether a given address is contained in this table.
+     *
+     * @param ip the IPv4 or IPv6 address to be tested
+     * @return true if {@code ip} is within any of this table's ranges.
+     * @throws IPFormatException if {@code ip} is not a single, valid address
+     */
+    public boolean contains(String ip) throws IPFormatException {
+        Ranges current = getRanges();
+        if (ip.indexOf(':') < 0) {
+            long address = parseIPv4(ip, 0, ip.length());
+            if (address < 0) {
+                throw new IPFormatException(ip + " - needs to be a single IP address");
             }
+            return current.containsIPv4(address);
+        }
+        long[] address = new long[2];
+        if (!parseIPv6(ip, address)) {
+            throw new IPFormatException(ip + " - needs to be a single IP address");
+        }
+        if (address[0] == 0 && address[1] >>> 32 == 0xFFFFL) {
+            // IPv4-mapped IPv6 address
+            return current.containsIPv4(address[1] & IPV4_MAX) || current.containsIPv6(address[0], address[1]);
+        }
+        return current.containsIPv6(address[0], address[1]);
+    }
 
-            Map<String, Set<String>> second = first.get(start[1]);
-
-            if (second == null) {
-                second = new HashMap<>();
-                first.put(start[1], second);
+    /**
+     * Convert to a Set. IPv4 ranges are expanded to the (class C) subnets and addresses they cover, e.g.
+     * {@code "1.2.3"} and {@code "1.2.4.1"}. IPv6 ranges are represented as a single address or as
+     * {@code "start-end"}.
+     *
+     * @return this table's content as a Set
+     */
+    public Set<String> toSet() {
+        Ranges current = getRanges();
+        Set<String> set = new HashSet<>();
+        for (int i = 0; i < current.ipv4Starts.length; i++) {
+            long address = current.ipv4Starts[i];
+            long end = current.ipv4Ends[i];
+            while (address <= end) {
+                if ((address & 0xFF) == 0 && address + 0xFF <= end) {
+                    set.add(formatIPv4(address >>> 8, 3));
+                    address += 0x100;
+                } else {
+                    set.add(formatIPv4(address, 4));
+                    address++;
+                }
             }
-
-            Set<String> third = second.get(start[2]);
-
-            if (third == null) {
-                third = new HashSet<>();
-                second.put(start[2], third);
+        }
+        for (int i = 0; i < current.ipv6StartHigh.length; i++) {
+            String start = formatIPv6(current.ipv6StartHigh[i], current.ipv6StartLow[i]);
+            if (current.ipv6StartHigh[i] == current.ipv6EndHigh[i]
+                && current.ipv6StartLow[i] == current.ipv6EndLow[i]) {
+                set.add(start);
+            } else {
+                set.add(start + "-" + formatIPv6(current.ipv6EndHigh[i], current.ipv6EndLow[i]));
             }
+        }
+        return set;
+    }
 
-            //now populate fourth place (* or value 0-254);
+    /**
+     * Return whether IPTable is empty (having no entries)
+     * @return true if empty, false otherwise
+     */
+    public synchronized boolean isEmpty() {
+        return ipv4Count == 0 && ipv6Count == 0;
+    }
 
-            if (start.length == 3) {
-                third.add("*");
-            }
+    /**
+     * @return the number of distinct ranges in this table, after merging overlapping and adjacent ranges
+     */
+    public int size() {
+        Ranges current = getRanges();
+        return current.ipv4Starts.length + current.ipv6StartHigh.length;
+    }
 
-            if (third.contains("*")) {
-                return;
+    private Ranges getRanges() {
+        Ranges current = ranges;
+        if (current == null) {
+            synchronized (this) {
+                if (ranges == null) {
+                    ranges = new Ranges(Arrays.copyOf(ipv4, ipv4Count), Arrays.copyOf(ipv6, ipv6Count * 4));
+                }
+                current = ranges;
             }
+        }
+        return current;
+    }
 
-            if (start.length >= 4) {
-                int s = Integer.valueOf(start[3]);
-                int e = Integer.valueOf(end[3]);
-                for (int i = s; i <= e; i++) {
-                    third.add(String.valueOf(i));
+    /**
+     * Parse a full IPv4 address in the given part of a string.
+     *
+     * @return the address, or -1 if it isn't a valid full IPv4 address
+     */
+    private static long parseIPv4(String ip, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
                 }
+            } else if (c == '.' && value >= 0 && octets < 3) {
+                address = address << 8 | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
             }
         }
+        if (value < 0 || octets != 3) {
+            return -1;
+        }
+        return address << 8 | value;
     }
 
     /**
-     * Check whether a given address is contained in this netblock.
+     * Parse an IPv6 address (optionally with an embedded IPv4 address and/or a zone index).
      *
-     * @param ip the address to be tested
-     * @return true if {@code ip} is within this table's limits.  Returns false
-     *         if {@link ip} looks like an IPv6 address.
-     * @throws IPFormatException Exception Class to deal with IPFormat errors.
+     * @param ip      the address
+     * @param address receives the high and low 64 bits of the address
+     * @return true if the address is valid
      */
-    public boolean contains(String ip) throws IPFormatException {
-
-        String[] subnets = ip.split("\\.");
-
-        // Does it look like IPv6?
-        if (subnets.length > 4 || ip.contains("::")) {
-            log.warn("Address {} assumed not to match.  IPv6 is not implemented.", ip);
-            return false;
+    private static boolean parseIPv6(String ip, long[] address) {
+        int end = ip.indexOf('%');
+        if (end < 0) {
+            end = ip.length();
         }
-
-        // Does it look like a subnet?
-        if (subnets.length < 4) {
-            throw new IPFormatException("needs to be a single IP address");
+        int start = 0;
+        if (end >= 2 && ip.charAt(0) == '[' && ip.charAt(end - 1) == ']') {
+            start = 1;
+            end--;
         }
-
-        Map<String, Map<String, Set<String>>> first = map.get(subnets[0]);
-
-        if (first == null) {
-            return false;
+        int[] words = new int[8];
+        int count = 0;
+        int compressed = -1;
+        int i = start;
+        if (end - i >= 2 && ip.charAt(i) == ':' && ip.charAt(i + 1) == ':') {
+            compressed = 0;
+            i += 2;
         }
-
-        Map<String, Set<String>> second = first.get(subnets[1]);
-
-        if (second == null) {
+        while (i < end) {
+            int next = ip.indexOf(':', i);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            if (ip.lastIndexOf('.', next - 1) >= i) {
+                // embedded IPv4 address, must be the last part
+                long ipv4 = next == end && count <= 6 ? parseIPv4(ip, i, end) : -1;
+                if (ipv4 < 0) {
+                    return false;
+                }
+                words[count++] = (int) (ipv4 >>> 16);
+                words[count++] = (int) (ipv4 & 0xFFFF);
+                i = end;
+                break;
+            }
+            if (next - i < 1 || next - i > 4 || count == 8) {
+                return false;
+            }
+            int word = 0;
+            for (int j = i; j < next; j++) {
+                int digit = Character.digit(ip.charAt(j), 16);
+                if (digit < 0) {
+                    return false;
+                }
+                word = word << 4 | digit;
+            }
+            words[count++] = word;
+            if (next == end) {
+                i = end;
+                break;
+            }
+            if (next + 1 < end && ip.charAt(next + 1) == ':') {
+                if (compressed >= 0) {
+                    return false;
+                }
+                compressed = count;
+                i = next + 2;
+            } else {
+                i = next + 1;
+                if (i == end) {
+                    return false;
+                }
+            }
+        }
+        if (compressed >= 0) {
+            if (count == 8) {
+                return false;
+            }
+            int shift = 8 - count;
+            for (int j = count - 1; j >= compressed; j--) {
+                words[j + shift] = words[j];
+                words[j] = 0;
+            }
+        } else if (count != 8) {
             return false;
         }
+        long high = 0;
+        long low = 0;
+        for (int j = 0; j < 4; j++) {
+            high = high << 16 | words[j];
+            low = low << 16 | words[j + 4];
+        }
+        address[0] = high;
+        address[1] = low;
+        return true;
+    }
 
-        Set<String> third = second.get(subnets[2]);
-
-        if (third == null) {
-            return false;
+    private static String formatIPv4(long value, int octets) {
+        StringBuilder result = new StringBuilder();
+        for (int i = octets - 1; i >= 0; i--) {
+            result.append((value >>> (i * 8)) & 0xFF);
+            if (i > 0) {
+                result.append('.');
+            }
         }
+        return result.toString();
+    }
 
-        return third.contains(subnets[3]) || third.contains("*");
+    private static String formatIPv6(long high, long low) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            long half = i < 4 ? high : low;
+            result.append(Long.toHexString((half >>> ((3 - i % 4) * 16)) & 0xFFFF));
+            if (i < 7) {
+                result.append(':');
+            }
+        }
+        return result.toString();
+    }
 
+    private static int compare(long high1, long low1, long high2, long low2) {
+        int result = Long.compareUnsigned(high1, high2);
+        return result != 0 ? result : Long.compareUnsigned(low1, low2);
     }
 
     /**
-     * Convert to a Set.
-     *
-     * @return this table's content as a Set
+     * The sorted, merged ranges of a table. Never modified once built.
      */
-    public Set<String> toSet() {
-        HashSet<String> set = new HashSet<>();
-
-        for (Map.Entry<String, Map<String, Map<String, Set<String>>>> first : map.entrySet()) {
-            String firstString = first.getKey();
-            Map<String, Map<String, Set<String>>> secondMap = first.getValue();
-
-            for (Map.Entry<String, Map<String, Set<String>>> second : secondMap.entrySet()) {
-                String secondString = second.getKey();
-                Map<String, Set<String>> thirdMap = second.getValue();
-
-                for (Map.Entry<String, Set<String>> third : thirdMap.entrySet()) {
-                    String thirdString = third.getKey();
-                    Set<String> fourthSet = third.getValue();
-
-                    if (fourthSet.contains("*")) {
-                        set.add(firstString + "." + secondString + "." + thirdString);
-                    } else {
-                        for (String fourth : fourthSet) {
-                            set.add(firstString + "." + secondString + "." + thirdString + "." + fourth);
-                        }
-                    }
+    private static final class Ranges {
+        private final long[] ipv4Starts;
+        private final long[] ipv4Ends;
+        private final long[] ipv6StartHigh;
+        private final long[] ipv6StartLow;
+        private final long[] ipv6EndHigh;
+        private final long[] ipv6EndLow;
+
+        Ranges(long[] ipv4, long[] ipv6) {
+            // Sort the packed IPv4 ranges by start (unsigned), then merge overlapping and adjacent ones
+            for (int i = 0; i < ipv4.length; i++) {
+                ipv4[i] ^= Long.MIN_VALUE;
+            }
+            Arrays.sort(ipv4);
+            long[] starts = new long[ipv4.length];
+            long[] ends = new long[ipv4.length];
+            int count = 0;
+            for (long packed : ipv4) {
+                packed ^= Long.MIN_VALUE;
+                long start = packed >>> 32;
+                long end = packed & IPV4_MAX;
+                if (count > 0 && start <= ends[count - 1] + 1) {
+                    ends[count - 1] = Math.max(ends[count - 1], end);
+                } else {
+                    starts[count] = start;
+                    ends[count] = end;
+                    count++;
+                }
+            }
+            ipv4Starts = Arrays.copyOf(starts, count);
+            ipv4Ends = Arrays.copyOf(ends, count);
 
+            // IPv6 ranges are usually few, sort them as arrays
+            List<long[]> sorted = new ArrayList<>(ipv6.length / 4);
+            for (int i = 0; i < ipv6.length; i += 4) {
+                sorted.add(Arrays.copyOfRange(ipv6, i, i + 4));
+            }
+            sorted.sort(Comparator.<long[]>comparingLong(r -> r[0] ^ Long.MIN_VALUE)
+                                  .thenComparingLong(r -> r[1] ^ Long.MIN_VALUE));
+            List<long[]> merged = new ArrayList<>(sorted.size());
+            for (long[] range : sorted) {
+                long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && (compare(range[0], range[1], last[2], last[3]) <= 0 || follows(last, range))) {
+                    if (compare(range[2], range[3], last[2], last[3]) > 0) {
+                        last[2] = range[2];
+                        last[3] = range[3];
+                    }
+                } else {
+                    merged.add(range);
                 }
             }
+            ipv6StartHigh = new long[merged.size()];
+            ipv6StartLow = new long[merged.size()];
+            ipv6EndHigh = new long[merged.size()];
+            ipv6EndLow = new long[merged.size()];
+            for (int i = 0; i < merged.size(); i++) {
+                ipv6StartHigh[i] = merged.get(i)[0];
+                ipv6StartLow[i] = merged.get(i)[1];
+                ipv6EndHigh[i] = merged.get(i)[2];
+                ipv6EndLow[i] = merged.get(i)[3];
+            }
         }
 
-        return set;
-    }
+        /**
+         * @return true if the range starts right after the end of the previous range
+         */
+        private static boolean follows(long[] previous, long[] range) {
+            if (previous[2] == -1L && previous[3] == -1L) {
+                return false;
+            }
+            long nextLow = previous[3] + 1;
+            long nextHigh = previous[3] == -1L ? previous[2] + 1 : previous[2];
+            return nextHigh == range[0] && nextLow == range[1];
+        }
 
-    /**
-     * Return whether IPTable is empty (having no entries)
-     * @return true if empty, false otherwise
-     */
-    public boolean isEmpty() {
-        return map.isEmpty();
+        boolean containsIPv4(long address) {
+            int index = Arrays.binarySearch(ipv4Starts, address);
+            if (index >= 0) {
+                return true;
+            }
+            // the range with the highest start below the address
+            index = -index - 2;
+            return index >= 0 && ipv4Ends[index] >= address;
+        }
+
+        boolean containsIPv6(long high, long low) {
+            int lowIndex = 0;
+            int highIndex = ipv6StartHigh.length - 1;
+            // find the range with the highest start not above the address
+            int found = -1;
+            while (lowIndex <= highIndex) {
+                int middle = (lowIndex + highIndex) >>> 1;
+                if (compare(ipv6StartHigh[middle], ipv6StartLow[middle], high, low) <= 0) {
+                    found = middle;
+                    lowIndex = middle + 1;
+                } else {
+                    highIndex = middle - 1;
+                }
+            }
+            return found >= 0 && compare(high, low, ipv6EndHigh[found], ipv6EndLow[found]) <= 0;
+        }
     }
 
     /**
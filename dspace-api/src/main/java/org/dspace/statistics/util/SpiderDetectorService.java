@@ -27,6 +27,12 @@ public interface SpiderDetectorService {
 
     public void loadSpiderIpAddresses();
 
+    /**
+     * Reload the agent, domain and IP address patterns from the spider files in config/spiders,
+     * without blocking the threads which are checking requests in the meantime.
+     */
+    public void reloadPatterns();
+
     public Set<String> readPatterns(File patternFile)
         throws IOException;
 
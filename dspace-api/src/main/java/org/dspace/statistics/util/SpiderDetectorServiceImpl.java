@@ -12,19 +12,24 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.configuration2.ex.ConversionException;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.dspace.service.ClientInfoService;
 import org.dspace.services.ConfigurationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -37,17 +42,18 @@ import org.springframework.beans.factory.annotation.Autowired;
  * @author Mark Diggory (mdiggory at atmire.com)
  * @author frederic at atmire.com
  */
-public class SpiderDetectorServiceImpl implements SpiderDetectorService {
+public class SpiderDetectorServiceImpl implements SpiderDetectorService, DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(SpiderDetectorServiceImpl.class);
 
     private Boolean useCaseInsensitiveMatching;
 
-    private final List<Pattern> agents
-        = Collections.synchronizedList(new ArrayList<Pattern>());
+    /**
+     * Compiled agent and domain patterns. Replaced as a whole when the spider files change, so readers never lock.
+     */
+    private volatile SpiderPatternMatcher agents = null;
 
-    private final List<Pattern> domains
-        = Collections.synchronizedList(new ArrayList<Pattern>());
+    private volatile SpiderPatternMatcher domains = null;
 
     private ConfigurationService configurationService;
     private ClientInfoService clientInfoService;
@@ -55,7 +61,28 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
     /**
      * Sparse HashTable structure to hold IP address ranges.
      */
-    private IPTable table = null;
+    private volatile IPTable table = null;
+
+    /**
+     * Signature (names, sizes and modification times) of the spider files which were loaded last
+     */
+    private volatile String loadedSignature = null;
+
+    /**
+     * Time (in milliseconds) after which the spider files are checked for changes again
+     */
+    private volatile long nextReloadCheck = 0;
+
+    /**
+     * Set while the spider files are being (re)loaded, so only one thread does so
+     */
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    /**
+     * Checks the spider files for changes and reloads them, and resolves the host names of the spider IP files, so
+     * the threads which are checking requests don't wait for the file system or for DNS
+     */
+    private ExecutorService reloader;
 
     @Autowired(required = true)
     public SpiderDetectorServiceImpl(ConfigurationService configurationService, ClientInfoService clientInfoService) {
@@ -80,35 +107,23 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
      * @return true if the client matches any spider characteristics list.
      */
     public boolean isSpider(String clientIP, String proxyIPs, String hostname, String agent) {
-        // See if any agent patterns match
-        if (null != agent) {
-            synchronized (agents) {
-                if (agents.isEmpty()) {
-                    loadPatterns("agents", agents);
-                }
-            }
-
-            if (isUseCaseInsensitiveMatching()) {
-                agent = StringUtils.lowerCase(agent);
-                hostname = StringUtils.lowerCase(hostname);
-            }
-
-            for (Pattern candidate : agents) {
-
-                // prevent matcher() invocation from a null Pattern object
-                if (null != candidate && candidate.matcher(agent).find()) {
-                    return true;
-                }
+        checkForChanges();
 
+        if (isUseCaseInsensitiveMatching()) {
+            agent = StringUtils.lowerCase(agent);
+            hostname = StringUtils.lowerCase(hostname);
+        }
 
-            }
+        // See if any agent patterns match
+        if (null != agent && getAgentMatcher().matches(agent)) {
+            return true;
         }
 
         // No.  See if any IP addresses match
         if (clientInfoService.isUseProxiesEnabled() && proxyIPs != null) {
             /* This header is a comma delimited list */
             for (String xfip : proxyIPs.split(",")) {
-                if (isSpider(xfip)) {
+                if (isSpider(xfip.trim())) {
                     return true;
                 }
             }
@@ -119,18 +134,8 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
         }
 
         // No.  See if any DNS names match
-        if (null != hostname) {
-            synchronized (domains) {
-                if (domains.isEmpty()) {
-                    loadPatterns("domains", domains);
-                }
-            }
-            for (Pattern candidate : domains) {
-                // prevent matcher() invocation from a null Pattern object
-                if (null != candidate && candidate.matcher(hostname).find()) {
-                    return true;
-                }
-            }
+        if (null != hostname && getDomainMatcher().matches(hostname)) {
+            return true;
         }
 
         // Not a known spider.
@@ -177,13 +182,11 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
      * @param directory   simple directory name (e.g. "agents").
      *                    "${dspace.dir}/config/spiders" will be prepended to yield the path to
      *                    the directory of pattern files.
-     * @param patternList patterns read from the files in {@code directory} will
-     *                    be added to this List.
+     * @return a matcher for the patterns read from the files in {@code directory}
      */
-    private void loadPatterns(String directory, List<Pattern> patternList) {
-        String dspaceHome = configurationService.getProperty("dspace.dir");
-        File spidersDir = new File(dspaceHome, "config/spiders");
-        File patternsDir = new File(spidersDir, directory);
+    private SpiderPatternMatcher loadPatterns(String directory) {
+        Set<String> patternList = new LinkedHashSet<>();
+        File patternsDir = new File(getSpidersDir(), directory);
         if (patternsDir.exists() && patternsDir.isDirectory()) {
             for (File file : patternsDir.listFiles()) {
                 Set<String> patterns;
@@ -199,7 +202,7 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
                     if (isUseCaseInsensitiveMatching()) {
                         pattern = StringUtils.lowerCase(pattern);
                     }
-                    patternList.add(Pattern.compile(pattern));
+                    patternList.add(pattern);
                 }
 
 
@@ -208,6 +211,153 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
         } else {
             log.info("No patterns loaded from {}", patternsDir.getPath());
         }
+        return new SpiderPatternMatcher(patternList);
+    }
+
+    private SpiderPatternMatcher getAgentMatcher() {
+        SpiderPatternMatcher matcher = agents;
+        if (matcher == null) {
+            synchronized (this) {
+                if (agents == null) {
+                    recordSignature();
+                    agents = loadPatterns("agents");
+                }
+                matcher = agents;
+            }
+        }
+        return matcher;
+    }
+
+    private SpiderPatternMatcher getDomainMatcher() {
+        SpiderPatternMatcher matcher = domains;
+        if (matcher == null) {
+            synchronized (this) {
+                if (domains == null) {
+                    recordSignature();
+                    domains = loadPatterns("domains");
+                }
+                matcher = domains;
+            }
+        }
+        return matcher;
+    }
+
+    private File getSpidersDir() {
+        return new File(configurationService.getProperty("dspace.dir"), "config/spiders");
+    }
+
+    /**
+     * Check the spider files for changes in the background, if the reload interval
+     * (usage-statistics.bots.reload-interval, in seconds) has passed. The files are reloaded in the background too,
+     * the threads checking requests keep using the patterns which were loaded before until the new ones are ready.
+     */
+    private void checkForChanges() {
+        long now = System.currentTimeMillis();
+        if (now < nextReloadCheck) {
+            return;
+        }
+        long interval = configurationService.getLongProperty("usage-statistics.bots.reload-interval", 60L);
+        if (interval <= 0) {
+            nextReloadCheck = Long.MAX_VALUE;
+            return;
+        }
+        nextReloadCheck = now + interval * 1000L;
+        runInBackground(this::reloadIfChanged);
+    }
+
+    /**
+     * Reload the spider files if they changed since they were loaded
+     */
+    private void reloadIfChanged() {
+        String signature = loadedSignature;
+        if (signature != null && !signature.equals(getSignature())) {
+            reloadPatterns();
+        }
+    }
+
+    /**
+     * Record the signature of the spider files before the first of them are loaded. The agents, domains and IP
+     * addresses are loaded when they are first needed, so if the files change in between, they are all reloaded.
+     */
+    private synchronized void recordSignature() {
+        if (loadedSignature == null) {
+            loadedSignature = getSignature();
+        }
+    }
+
+    private synchronized void runInBackground(Runnable task) {
+        if (reloader == null) {
+            reloader = Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
+                .namingPattern("spider-reload-%d").daemon(true).build());
+        }
+        reloader.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Error reloading the spider files:  {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Stop the background reloads
+     */
+    @Override
+    public synchronized void destroy() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+
+    /**
+     * @return a string identifying the current contents of the spider files: their names, sizes and modification
+     *         times
+     */
+    private String getSignature() {
+        StringBuilder signature = new StringBuilder();
+        appendSignature(signature, getSpidersDir());
+        appendSignature(signature, new File(getSpidersDir(), "agents"));
+        appendSignature(signature, new File(getSpidersDir(), "domains"));
+        return signature.toString();
+    }
+
+    private void appendSignature(StringBuilder signature, File directory) {
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            signature.append(file.getPath()).append(':').append(file.length()).append(':')
+                     .append(file.lastModified()).append(';');
+        }
+    }
+
+    /**
+     * Reload the agent, domain and IP address patterns from the spider files. The new patterns are built next to
+     * the current ones and then replace them, so other threads can keep checking requests while this is done. If
+     * another thread is already reloading, this returns immediately.
+     */
+    @Override
+    public void reloadPatterns() {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            String signature = getSignature();
+            SpiderPatternMatcher newAgents = loadPatterns("agents");
+            SpiderPatternMatcher newDomains = loadPatterns("domains");
+            IPTable newTable = readSpiderIpAddresses(null);
+            agents = newAgents;
+            domains = newDomains;
+            table = newTable;
+            loadedSignature = signature;
+            log.info("Loaded {} agent patterns, {} domain patterns and {} spider IP ranges", newAgents.size(),
+                     newDomains.size(), newTable.size());
+        } finally {
+            reloading.set(false);
+        }
     }
 
     /**
@@ -230,12 +380,15 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
      * @return if is spider IP
      */
     public boolean isSpider(String ip) {
-        if (table == null) {
-            loadSpiderIpAddresses();
+        checkForChanges();
+        IPTable ipTable = table;
+        if (ipTable == null) {
+            loadNumericSpiderIpAddresses();
+            ipTable = table;
         }
 
         try {
-            if (table.contains(ip)) {
+            if (ipTable.contains(ip)) {
                 return true;
             }
         } catch (Exception e) {
@@ -251,41 +404,75 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
     public synchronized void loadSpiderIpAddresses() {
 
         if (table == null) {
-            table = new IPTable();
+            recordSignature();
+            table = readSpiderIpAddresses(null);
+        }
 
-            String filePath = configurationService.getProperty("dspace.dir");
+    }
 
-            try {
-                File spidersDir = new File(filePath, "config/spiders");
-
-                if (spidersDir.exists() && spidersDir.isDirectory()) {
-                    for (File file : spidersDir.listFiles()) {
-                        if (file.isFile()) {
-                            for (String ip : readPatterns(file)) {
-                                log.debug("Loading {}", ip);
-                                if (!Character.isDigit(ip.charAt(0))) {
-                                    try {
-                                        ip = DnsLookup.forward(ip);
-                                        log.debug("Resolved to {}", ip);
-                                    } catch (IOException e) {
-                                        log.warn("Not loading {}:  {}", ip, e.getMessage());
-                                        continue;
-                                    }
+    /**
+     * Load the IP addresses of the spider files without looking up their host names, for the first request which
+     * is checked. The host names are resolved in the background, by reloading the files.
+     */
+    private synchronized void loadNumericSpiderIpAddresses() {
+        if (table == null) {
+            List<String> hostNames = new ArrayList<>();
+            recordSignature();
+            table = readSpiderIpAddresses(hostNames);
+            if (!hostNames.isEmpty()) {
+                log.info("Resolving {} spider host names in the background", hostNames.size());
+                runInBackground(this::reloadPatterns);
+            }
+        }
+    }
+
+    /**
+     * Read the IP addresses of the spider files into a new table.
+     *
+     * @param unresolved if not null, the host names in the files are added to this list instead of being looked up
+     * @return the table
+     */
+    private IPTable readSpiderIpAddresses(List<String> unresolved) {
+        IPTable newTable = new IPTable();
+
+        try {
+            File spidersDir = getSpidersDir();
+
+            if (spidersDir.exists() && spidersDir.isDirectory()) {
+                for (File file : spidersDir.listFiles()) {
+                    if (file.isFile()) {
+                        for (String ip : readPatterns(file)) {
+                            log.debug("Loading {}", ip);
+                            if (!Character.isDigit(ip.charAt(0)) && ip.indexOf(':') < 0) {
+                                if (unresolved != null) {
+                                    unresolved.add(ip);
+                                    continue;
+                                }
+                                try {
+                                    ip = DnsLookup.forward(ip);
+                                    log.debug("Resolved to {}", ip);
+                                } catch (IOException e) {
+                                    log.warn("Not loading {}:  {}", ip, e.getMessage());
+                                    continue;
                                 }
-                                table.add(ip);
                             }
-                            log.info("Loaded Spider IP file: " + file);
+                            try {
+                                newTable.add(ip);
+                            } catch (IPTable.IPFormatException e) {
+                                log.warn("Not loading {} from {}:  {}", ip, file, e.getMessage());
+                            }
                         }
+                        log.info("Loaded Spider IP file: " + file);
                     }
-                } else {
-                    log.info("No spider file loaded");
                 }
-            } catch (IOException | IPTable.IPFormatException e) {
-                log.error("Error Loading Spiders:" + e.getMessage(), e);
+            } else {
+                log.info("No spider file loaded");
             }
-
+        } catch (IOException e) {
+            log.error("Error Loading Spiders:" + e.getMessage(), e);
         }
 
+        return newTable;
     }
 
     /**
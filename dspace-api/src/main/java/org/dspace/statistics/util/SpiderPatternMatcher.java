@@ -0,0 +1,434 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable matcher which checks whether a value (a User-Agent or host name) matches any of a list of regular
+ * expressions, without trying each expression in turn.
+ * <p>
+ * For each expression, a literal string which must occur in every match is extracted (e.g. "bot/" from
+ * "^[a-z]+bot/[0-9]"). All these literals are compiled into a single Aho-Corasick automaton, so a value is scanned
+ * only once to find the expressions which could match it. Expressions which are a plain literal match as soon as the
+ * literal is found; the others are only evaluated when their literal occurs in the value. Expressions without such a
+ * literal (e.g. "a|b") are always evaluated.
+ * <p>
+ * A matcher is never modified once built, so it can be shared by any number of threads without locking. To pick up
+ * new patterns, build a new matcher and replace the old one.
+ */
+public class SpiderPatternMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SpiderPatternMatcher.class);
+
+    private static final int[] NO_OUTPUTS = new int[0];
+
+    /**
+     * The expressions found through the automaton, by index. Null if the expression is a plain literal.
+     */
+    private final Pattern[] anchored;
+
+    /**
+     * The expressions without a literal, which are always evaluated
+     */
+    private final Pattern[] unanchored;
+
+    /**
+     * The automaton: per state the sorted characters of its transitions, the target states of these transitions, its
+     * failure state, and the indexes (in anchored) of the literals which end in it or in one of its failure states.
+     */
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failures;
+    private final int[][] outputs;
+
+    private final int size;
+
+    /**
+     * Compile the given regular expressions. Invalid expressions are logged and ignored.
+     *
+     * @param expressions the regular expressions
+     */
+    public SpiderPatternMatcher(Collection<String> expressions) {
+        List<Pattern> anchoredPatterns = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        List<Pattern> unanchoredPatterns = new ArrayList<>();
+        for (String expression : expressions) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(expression);
+            } catch (PatternSyntaxException e) {
+                log.error("Ignoring invalid spider pattern {}:  {}", expression, e.getMessage());
+                continue;
+            }
+            String literal = getRequiredLiteral(expression);
+            if (literal == null || literal.isEmpty()) {
+                unanchoredPatterns.add(pattern);
+            } else {
+                // a plain literal matches as soon as it is found, no need to evaluate the expression
+                anchoredPatterns.add(literal.equals(unescape(expression)) ? null : pattern);
+                literals.add(literal);
+            }
+        }
+        this.anchored = anchoredPatterns.toArray(new Pattern[0]);
+        this.unanchored = unanchoredPatterns.toArray(new Pattern[0]);
+        this.size = anchored.length + unanchored.length;
+
+        // Build the trie of the literals
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+        for (int i = 0; i < literals.size(); i++) {
+            int state = 0;
+            for (char c : literals.get(i).toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            ends.get(state).add(i);
+        }
+
+        int states = trie.size();
+        keys = new char[states][];
+        targets = new int[states][];
+        failures = new int[states];
+        outputs = new int[states][];
+        for (int state = 0; state < states; state++) {
+            Map<Character, Integer> transitions = trie.get(state);
+            keys[state] = new char[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            int t = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                keys[state][t] = transition.getKey();
+                targets[state][t] = transition.getValue();
+                t++;
+            }
+        }
+
+        // Compute the failure states breadth first, merging the outputs of each failure state into its own
+        Deque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = toArray(ends.get(0));
+        for (int child : targets[0]) {
+            failures[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] own = toArray(ends.get(state));
+            int[] inherited = state == 0 ? NO_OUTPUTS : outputs[failures[state]];
+            outputs[state] = concat(own, inherited);
+            for (int t = 0; t < keys[state].length; t++) {
+                char c = keys[state][t];
+                int child = targets[state][t];
+                int failure = failures[state];
+                while (failure != 0 && next(failure, c) < 0) {
+                    failure = failures[failure];
+                }
+                int target = next(failure, c);
+                failures[child] = target >= 0 ? target : 0;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return the number of (valid) expressions in this matcher
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the value matches any of the expressions, i.e. whether any expression is found in it.
+     *
+     * @param value the value to check
+     * @return true if any expression is found in the value
+     */
+    public boolean matches(CharSequence value) {
+        if (value == null) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int target = next(state, c);
+            while (target < 0 && state != 0) {
+                state = failures[state];
+                target = next(state, c);
+            }
+            state = target < 0 ? 0 : target;
+            for (int index : outputs[state]) {
+                Pattern pattern = anchored[index];
+                if (pattern == null || pattern.matcher(value).find()) {
+                    return true;
+                }
+            }
+        }
+        for (Pattern pattern : unanchored) {
+            if (pattern.matcher(value).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int next(int state, char c) {
+        int t = Arrays.binarySearch(keys[state], c);
+        return t < 0 ? -1 : targets[state][t];
+    }
+
+    /**
+     * Find the longest literal string which occurs in every match of the given regular expression. The analysis is
+     * conservative: when in doubt (alternations, inline flags, quoted sections, back references) no literal is
+     * returned. Escapes of letters and digits (e.g. "\\d", "\\x41" or "\\p{Alpha}") end the literal, even
+     * when they stand for a single character.
+     *
+     * @param expression the regular expression
+     * @return the literal, or null if none could be determined
+     */
+    protected static String getRequiredLiteral(String expression) {
+        if (expression.contains("\\Q") || expression.matches(".*\\(\\?[idmsuxU-].*")) {
+            return null;
+        }
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= expression.length()) {
+                    return null;
+                }
+                char escaped = expression.charAt(i + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    // a character class, boundary or character code
+                    i = skipEscape(expression, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    best = longest(best, run);
+                } else {
+                    run.append(escaped);
+                    i += 2;
+                }
+            } else if (c == '[') {
+                i = skipClass(expression, i);
+                best = longest(best, run);
+            } else if (c == '(') {
+                i = skipGroup(expression, i);
+                if (i < 0) {
+                    return null;
+                }
+                best = longest(best, run);
+            } else if (c == '|') {
+                return null;
+            } else if (c == '?' || c == '*' || c == '{' || c == '+') {
+                if (c != '+' && run.length() > 0) {
+                    // the preceding character is optional
+                    run.setLength(run.length() - 1);
+                }
+                best = longest(best, run);
+                if (c == '{') {
+                    int end = expression.indexOf('}', i);
+                    if (end < 0) {
+                        return null;
+                    }
+                    i = end;
+                }
+                i++;
+                // skip a lazy or possessive modifier
+                if (i < expression.length() && (expression.charAt(i) == '?' || expression.charAt(i) == '+')) {
+                    i++;
+                }
+            } else if (c == '.' || c == '^' || c == '$') {
+                best = longest(best, run);
+                i++;
+            } else {
+                run.append(c);
+                i++;
+            }
+        }
+        return longest(best, run);
+    }
+
+    /**
+     * @return the expression with escaped characters unescaped, only meaningful for plain literals
+     */
+    private static String unescape(String expression) {
+        StringBuilder result = new StringBuilder(expression.length());
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '\\' && i + 1 < expression.length()
+                && !Character.isLetterOrDigit(expression.charAt(i + 1))) {
+                c = expression.charAt(++i);
+            } else if (c == '\\' || ".^$[](){}?*+|".indexOf(c) >= 0) {
+                // not a plain literal
+                return null;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static String longest(String best, StringBuilder run) {
+        String candidate = run.toString();
+        run.setLength(0);
+        return candidate.length() > best.length() ? candidate : best;
+    }
+
+    /**
+     * @return the index following the escape of a letter or digit starting at start, or -1 if the escape is a back
+     *         reference (whose length depends on the groups of the expression) or is incomplete
+     */
+    private static int skipEscape(String expression, int start) {
+        char escaped = expression.charAt(start + 1);
+        int i = start + 2;
+        switch (escaped) {
+            case 'x':
+                if (i < expression.length() && expression.charAt(i) == '{') {
+                    return skipTo(expression, i, '}');
+                }
+                i += 2;
+                break;
+            case 'u':
+                i += 4;
+                break;
+            case '0':
+                // up to three octal digits, the first of them at most 3
+                int max = i < expression.length() && expression.charAt(i) <= '3' ? 3 : 2;
+                for (int digits = 0; digits < max && i < expression.length()
+                    && expression.charAt(i) >= '0' && expression.charAt(i) <= '7'; digits++) {
+                    i++;
+                }
+                break;
+            case 'c':
+                i++;
+                break;
+            case 'p':
+            case 'P':
+            case 'N':
+                if (i < expression.length() && expression.charAt(i) == '{') {
+                    return skipTo(expression, i, '}');
+                }
+                if (escaped != 'N') {
+                    i++;
+                }
+                break;
+            case 'k':
+                return -1;
+            default:
+                if (Character.isDigit(escaped)) {
+                    return -1;
+                }
+                break;
+        }
+        return i <= expression.length() ? i : -1;
+    }
+
+    /**
+     * @return the index following the first occurrence of end after start, or -1 if there is none
+     */
+    private static int skipTo(String expression, int start, char end) {
+        int i = expression.indexOf(end, start);
+        return i < 0 ? -1 : i + 1;
+    }
+
+    /**
+     * @return the index following the character class starting at start
+     */
+    private static int skipClass(String expression, int start) {
+        int i = start + 1;
+        if (i < expression.length() && expression.charAt(i) == '^') {
+            i++;
+        }
+        if (i < expression.length() && expression.charAt(i) == ']') {
+            i++;
+        }
+        int depth = 1;
+        while (i < expression.length() && depth > 0) {
+            char c = expression.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index following the group starting at start, or -1 if the group is not closed
+     */
+    private static int skipGroup(String expression, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            } else if (c == '[') {
+                i = skipClass(expression, i);
+                continue;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return NO_OUTPUTS;
+        }
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        if (first.length == 0) {
+            return second;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -139,6 +139,42 @@ public class BitstreamStorageServiceImpl implements BitstreamStorageService, Ini
         return bitstreamId;
     }
 
+    @Override
+    public StoredContent store(InputStream is) throws IOException {
+        Bitstream holder = new StoredContentHolder();
+        holder.setInternalId(Utils.generateKey());
+        holder.setStoreNumber(incoming);
+        stores.get(incoming).put(holder, is);
+        return new StoredContent(holder);
+    }
+
+    @Override
+    public UUID store(Context context, Bitstream bitstream, StoredContent content) throws SQLException {
+        bitstream.setInternalId(content.getInternalId());
+        bitstream.setStoreNumber(content.getStoreNumber());
+        bitstream.setSizeBytes(content.getSizeBytes());
+        bitstream.setChecksum(content.getChecksum());
+        bitstream.setChecksumAlgorithm(content.getChecksumAlgorithm());
+        bitstream.setDeleted(false);
+        try {
+            //Update our bitstream but turn off the authorization system since permissions haven't been set at this
+            // point in time.
+            context.turnOffAuthorisationSystem();
+            bitstreamService.update(context, bitstream);
+        } catch (AuthorizeException e) {
+            log.error(e);
+            //Can never happen since we turn off authorization before we update
+        } finally {
+            context.restoreAuthSystemState();
+        }
+        return bitstream.getID();
+    }
+
+    @Override
+    public void discard(StoredContent content) throws IOException {
+        stores.get(content.getStoreNumber()).remove(content.getHolder());
+    }
+
     /**
      * Register a bitstream already in storage.
      *
@@ -465,4 +501,11 @@ public class BitstreamStorageServiceImpl implements BitstreamStorageService, Ini
         // Less than one hour old
         return (now - lastModified) < (1 * 60 * 1000);
     }
+
+    /**
+     * The bitstream given to the asset store when storing bits ahead of the creation of their bitstream. It is never
+     * persisted.
+     */
+    private static class StoredContentHolder extends Bitstream {
+    }
 }
@@ -52,6 +52,12 @@ public class DSBitStoreService implements BitStoreService {
     // Checksum algorithm
     private static final String CSA = "MD5";
 
+    /**
+     * Size of the buffer used to compute a checksum, large enough to read large files with few reads. The buffer is
+     * allocated on the heap for each checksum, so that it is released when the checksum has been computed.
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
     /**
      * the asset directory
      */
@@ -157,25 +163,22 @@ public class DSBitStoreService implements BitStoreService {
                 }
                 if (attrs.containsKey("checksum")) {
                     // generate checksum by reading the bytes
-                    DigestInputStream dis = null;
+                    MessageDigest digest;
                     try {
-                        FileInputStream fis = new FileInputStream(file);
-                        dis = new DigestInputStream(fis, MessageDigest.getInstance(CSA));
+                        digest = MessageDigest.getInstance(CSA);
                     } catch (NoSuchAlgorithmException e) {
                         log.warn("Caught NoSuchAlgorithmException", e);
                         throw new IOException("Invalid checksum algorithm");
                     }
-                    final int BUFFER_SIZE = 1024 * 4;
-                    final byte[] buffer = new byte[BUFFER_SIZE];
-                    while (true) {
-                        final int count = dis.read(buffer, 0, BUFFER_SIZE);
-                        if (count == -1) {
-                            break;
+                    byte[] buffer = new byte[READ_BUFFER_SIZE];
+                    try (InputStream in = new FileInputStream(file)) {
+                        int count;
+                        while ((count = in.read(buffer)) != -1) {
+                            digest.update(buffer, 0, count);
                         }
                     }
-                    attrs.put("checksum", Utils.toHex(dis.getMessageDigest().digest()));
+                    attrs.put("checksum", Utils.toHex(digest.digest()));
                     attrs.put("checksum_algorithm", CSA);
-                    dis.close();
                 }
                 if (attrs.containsKey("modified")) {
                     attrs.put("modified", String.valueOf(file.lastModified()));
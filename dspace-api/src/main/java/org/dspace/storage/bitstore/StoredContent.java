@@ -0,0 +1,53 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.dspace.content.Bitstream;
+
+/**
+ * The bits of a bitstream, stored in the asset store ahead of the creation of the bitstream with
+ * {@link org.dspace.storage.bitstore.service.BitstreamStorageService#store(java.io.InputStream)}.
+ *
+ * @see org.dspace.content.service.BitstreamService#create(org.dspace.core.Context, org.dspace.content.Bundle,
+ * StoredContent)
+ */
+public class StoredContent {
+
+    /**
+     * The bitstream given to the asset store, which is never persisted. The asset store sets its size and checksum.
+     */
+    private final Bitstream holder;
+
+    StoredContent(Bitstream holder) {
+        this.holder = holder;
+    }
+
+    Bitstream getHolder() {
+        return holder;
+    }
+
+    public String getInternalId() {
+        return holder.getInternalId();
+    }
+
+    public int getStoreNumber() {
+        return holder.getStoreNumber();
+    }
+
+    public long getSizeBytes() {
+        return holder.getSizeBytes();
+    }
+
+    public String getChecksum() {
+        return holder.getChecksum();
+    }
+
+    public String getChecksumAlgorithm() {
+        return holder.getChecksumAlgorithm();
+    }
+}
@@ -17,6 +17,7 @@ import javax.annotation.Nullable;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
+import org.dspace.storage.bitstore.StoredContent;
 
 /**
  * <P>
@@ -83,6 +84,37 @@ public interface BitstreamStorageService {
      */
     public UUID store(Context context, Bitstream bitstream, InputStream is) throws SQLException, IOException;
 
+    /**
+     * Store a stream of bits ahead of the creation of their bitstream, in the asset store for new bitstreams. It
+     * doesn't use a Context, so several threads may store bits at once. The bits are either given to a bitstream
+     * with {@link #store(Context, Bitstream, StoredContent)}, or removed with {@link #discard(StoredContent)}.
+     *
+     * @param is The stream of bits to store
+     * @return the stored bits
+     * @throws IOException If a problem occurs while storing the bits
+     */
+    public StoredContent store(InputStream is) throws IOException;
+
+    /**
+     * Give bits stored with {@link #store(InputStream)} to a new bitstream, instead of storing a stream of bits
+     * with {@link #store(Context, Bitstream, InputStream)}.
+     *
+     * @param context   The current context
+     * @param bitstream The new bitstream
+     * @param content   The stored bits
+     * @return The ID of the bitstream
+     * @throws SQLException If a problem occurs accessing the RDBMS
+     */
+    public UUID store(Context context, Bitstream bitstream, StoredContent content) throws SQLException;
+
+    /**
+     * Remove bits stored with {@link #store(InputStream)}, which are not given to a bitstream.
+     *
+     * @param content The stored bits
+     * @throws IOException If a problem occurs while removing the bits
+     */
+    public void discard(StoredContent content) throws IOException;
+
 
     /**
      * Register a bitstream already in storage.
@@ -35,6 +35,27 @@ public class DSpacePostgreSQL82Dialect extends PostgreSQL82Dialect {
         super.registerHibernateType(code, name);
     }
 
+    /**
+     * SKIP LOCKED is supported since PostgreSQL 9.5. It is used for leasing entries of the
+     * {@link org.dspace.curate.DatabaseTaskQueue}.
+     *
+     * @return true
+     */
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString() {
+        return " for update skip locked";
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString(String aliases) {
+        return getForUpdateString() + " of " + aliases + " skip locked";
+    }
+
     protected static class InternalPostgresUUIDType extends PostgresUUIDType {
 
         @Override
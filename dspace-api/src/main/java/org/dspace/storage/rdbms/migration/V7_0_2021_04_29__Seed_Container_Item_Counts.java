@@ -0,0 +1,95 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.rdbms.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.logging.log4j.Logger;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Store the item counts of the existing communities and collections in the container_item_count table, so that they
+ * don't have to be counted live until "dspace item-counts -r" is run. Only archived, discoverable and not withdrawn
+ * items are counted, and an item is counted once in a community even if it is in several of its collections (as
+ * {@link org.dspace.browse.ItemCountServiceImpl#countItems} does).
+ * <P>
+ * The collections of the sub-communities are added to the communities in a temporary table, one level of the
+ * hierarchy at a time, so that the same SQL works on every database.
+ */
+public class V7_0_2021_04_29__Seed_Container_Item_Counts extends BaseJavaMigration {
+    /**
+     * log4j category
+     */
+    private static final Logger log =
+        org.apache.logging.log4j.LogManager.getLogger(V7_0_2021_04_29__Seed_Container_Item_Counts.class);
+
+    /**
+     * The temporary table of the collections in each community, including those of its sub-communities
+     */
+    private static final String COLLECTIONS_TABLE = "container_item_count_seed";
+
+    private static final String COUNTED_ITEM = "i.in_archive = ? AND i.withdrawn = ? AND i.discoverable = ?";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE " + COLLECTIONS_TABLE +
+                                        " AS SELECT community_id, collection_id FROM community2collection");
+            int added;
+            do {
+                added = statement.executeUpdate(
+                    "INSERT INTO " + COLLECTIONS_TABLE + " (community_id, collection_id) " +
+                        "SELECT DISTINCT c2c.parent_comm_id, s.collection_id " +
+                        "FROM community2community c2c " +
+                        "JOIN " + COLLECTIONS_TABLE + " s ON s.community_id = c2c.child_comm_id " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM " + COLLECTIONS_TABLE + " e " +
+                        "WHERE e.community_id = c2c.parent_comm_id AND e.collection_id = s.collection_id)");
+            } while (added > 0);
+
+            int collections = insertCounts(connection,
+                "SELECT c.uuid, (SELECT COUNT(*) FROM collection2item c2i " +
+                    "JOIN item i ON i.uuid = c2i.item_id " +
+                    "WHERE c2i.collection_id = c.uuid AND " + COUNTED_ITEM + ") " +
+                    "FROM collection c " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM container_item_count cic WHERE cic.container_id = c.uuid)");
+            int communities = insertCounts(connection,
+                "SELECT cm.uuid, (SELECT COUNT(DISTINCT c2i.item_id) FROM " + COLLECTIONS_TABLE + " s " +
+                    "JOIN collection2item c2i ON c2i.collection_id = s.collection_id " +
+                    "JOIN item i ON i.uuid = c2i.item_id " +
+                    "WHERE s.community_id = cm.uuid AND " + COUNTED_ITEM + ") " +
+                    "FROM community cm " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM container_item_count cic WHERE cic.container_id = cm.uuid)");
+            log.info("Stored the item counts of {} collections and {} communities", collections, communities);
+
+            statement.executeUpdate("DROP TABLE " + COLLECTIONS_TABLE);
+        }
+    }
+
+    /**
+     * Insert the counts selected by the given query, which selects the container ID and its number of items
+     *
+     * @param connection Database Connection
+     * @param select     the query, with the parameters of {@link #COUNTED_ITEM}
+     * @return the number of counts inserted
+     * @throws SQLException if database error
+     */
+    private int insertCounts(Connection connection, String select) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+            "INSERT INTO container_item_count (container_id, item_count) " + select)) {
+            statement.setBoolean(1, true);
+            statement.setBoolean(2, false);
+            statement.setBoolean(3, true);
+            return statement.executeUpdate();
+        }
+    }
+}
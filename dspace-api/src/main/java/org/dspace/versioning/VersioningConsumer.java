@@ -72,7 +72,8 @@ public class VersioningConsumer implements Consumer {
                             //and browse index we need to fire a new event
                             ctx.addEvent(new Event(Event.MODIFY,
                                                    previousItem.getType(), previousItem.getID(),
-                                                   null, itemService.getIdentifiers(ctx, previousItem)));
+                                                   previousItem.getListedChange(),
+                                                   itemService.getIdentifiers(ctx, previousItem)));
                         }
                     }
                 }
@@ -0,0 +1,33 @@
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+-- ===============================================================
+-- WARNING WARNING WARNING WARNING WARNING WARNING WARNING WARNING
+--
+-- DO NOT MANUALLY RUN THIS DATABASE MIGRATION. IT WILL BE EXECUTED
+-- AUTOMATICALLY (IF NEEDED) BY "FLYWAY" WHEN YOU STARTUP DSPACE.
+-- http://flywaydb.org/
+-- ===============================================================
+
+-------------------------------------------------------------
+-- Second level cache evictions exchanged by the nodes of a cluster
+-------------------------------------------------------------
+
+CREATE SEQUENCE cache_eviction_seq;
+
+CREATE TABLE cache_eviction
+(
+    eviction_id INTEGER,
+    node_id VARCHAR(36) NOT NULL,
+    entity_type VARCHAR(256) NOT NULL,
+    entity_id VARCHAR(36),
+    eviction_date TIMESTAMP NOT NULL,
+    CONSTRAINT cache_eviction_PK PRIMARY KEY (eviction_id)
+);
+
+CREATE INDEX cache_eviction_date_idx ON cache_eviction(eviction_date);
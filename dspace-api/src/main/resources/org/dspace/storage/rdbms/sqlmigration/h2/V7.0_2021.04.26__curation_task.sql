@@ -0,0 +1,38 @@
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+-- ===============================================================
+-- WARNING WARNING WARNING WARNING WARNING WARNING WARNING WARNING
+--
+-- DO NOT MANUALLY RUN THIS DATABASE MIGRATION. IT WILL BE EXECUTED
+-- AUTOMATICALLY (IF NEEDED) BY "FLYWAY" WHEN YOU STARTUP DSPACE.
+-- http://flywaydb.org/
+
+-------------------------------------------------------------
+-- Curation task queue entries of the DatabaseTaskQueue, leased by the curation workers
+-------------------------------------------------------------
+
+CREATE SEQUENCE curation_task_seq;
+
+CREATE TABLE curation_task
+(
+    task_id INTEGER,
+    queue_name VARCHAR(256) NOT NULL,
+    eperson_id VARCHAR(256),
+    submit_time BIGINT NOT NULL,
+    tasks VARCHAR(1024) NOT NULL,
+    object_id VARCHAR(256) NOT NULL,
+    attempts INTEGER DEFAULT 0 NOT NULL,
+    lease_owner VARCHAR(256),
+    lease_expires TIMESTAMP,
+    dead_date TIMESTAMP,
+    last_error VARCHAR(2000),
+    CONSTRAINT curation_task_PK PRIMARY KEY (task_id)
+);
+
+CREATE INDEX curation_task_queue_idx ON curation_task(queue_name, lease_expires);
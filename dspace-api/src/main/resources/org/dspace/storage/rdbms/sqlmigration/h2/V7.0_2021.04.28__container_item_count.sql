@@ -0,0 +1,26 @@
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+-- ===============================================================
+-- WARNING WARNING WARNING WARNING WARNING WARNING WARNING WARNING
+--
+-- DO NOT MANUALLY RUN THIS DATABASE MIGRATION. IT WILL BE EXECUTED
+-- AUTOMATICALLY (IF NEEDED) BY "FLYWAY" WHEN YOU STARTUP DSPACE.
+-- http://flywaydb.org/
+
+-------------------------------------------------------------
+-- Number of archived, discoverable and not withdrawn items in each community and collection,
+-- maintained by the ItemCountConsumer (computed for existing content by "dspace item-counts -r")
+-------------------------------------------------------------
+
+CREATE TABLE container_item_count
+(
+    container_id UUID,
+    item_count INTEGER NOT NULL,
+    CONSTRAINT container_item_count_PK PRIMARY KEY (container_id)
+);
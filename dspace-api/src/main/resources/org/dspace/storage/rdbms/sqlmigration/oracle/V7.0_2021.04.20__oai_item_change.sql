@@ -0,0 +1,29 @@
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+-- ===============================================================
+-- WARNING WARNING WARNING WARNING WARNING WARNING WARNING WARNING
+--
+-- DO NOT MANUALLY RUN THIS DATABASE MIGRATION. IT WILL BE EXECUTED
+-- AUTOMATICALLY (IF NEEDED) BY "FLYWAY" WHEN YOU STARTUP DSPACE.
+-- http://flywaydb.org/
+-- ===============================================================
+
+-------------------------------------------------------------
+-- Log of the changed items to index in OAI, filled by the oai event consumer
+-------------------------------------------------------------
+
+CREATE SEQUENCE oai_item_change_seq;
+
+CREATE TABLE oai_item_change
+(
+    change_id NUMBER,
+    item_id RAW(16) NOT NULL,
+    change_date TIMESTAMP NOT NULL,
+    CONSTRAINT oai_item_change_PK PRIMARY KEY (change_id)
+);
@@ -8,6 +8,7 @@
 package org.dspace.app.bulkedit;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -81,6 +82,19 @@ public class DSpaceCSVTest extends AbstractUnitTest {
                        equalTo("\"Abstract with\ntwo\nnew lines\""));
             line = null;
 
+            // Test reading the same file one line at a time
+            try (DSpaceCSV streamed = new DSpaceCSV(FileUtils.openInputStream(new File(filename)), context, true)) {
+                assertThat("testDSpaceCSV Streamed headings", streamed.getHeadings(), equalTo(dcsv.getHeadings()));
+                for (DSpaceCSVLine expected : csvLines) {
+                    DSpaceCSVLine streamedLine = streamed.readCSVLine();
+                    for (String key : expected.keys()) {
+                        assertThat("testDSpaceCSV Streamed line", streamedLine.get(key), equalTo(expected.get(key)));
+                    }
+                }
+                assertThat("testDSpaceCSV Streamed end", streamed.readCSVLine(), nullValue());
+                assertThat("testDSpaceCSV Streamed lines not kept", streamed.getCSVLines().size(), equalTo(0));
+            }
+
             // Test the CSV parsing with a bad heading element value
             csv[0] = "id,collection,\"dc.title[en]\",dc.contributor.foobar[en-US],dc.description.abstract";
             // Write the string to a file
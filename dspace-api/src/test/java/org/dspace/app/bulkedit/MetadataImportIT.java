@@ -8,6 +8,7 @@
 package org.dspace.app.bulkedit;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertTrue;
 
 import java.io.BufferedWriter;
@@ -15,10 +16,13 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.collections4.IteratorUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.dspace.AbstractIntegrationTestWithDatabase;
 import org.dspace.app.launcher.ScriptLauncher;
@@ -188,6 +192,109 @@ public class MetadataImportIT extends AbstractIntegrationTestWithDatabase {
         assertEquals(itemService.getMetadata(item, "dc", "contributor", "author", Item.ANY).size(), 0);
     }
 
+    @Test
+    public void streamingMetadataImportTest() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Existing title").build();
+        context.restoreAuthSystemState();
+
+        List<String> csv = new ArrayList<>();
+        csv.add("id,collection,dc.title[*]");
+        csv.add(item.getID() + "," + collection.getHandle() + ",\"Streamed title\"");
+        for (int i = 0; i < 25; i++) {
+            csv.add("+," + collection.getHandle() + ",\"Streamed item " + i + "\"");
+        }
+        TestDSpaceRunnableHandler handler = performStreamingImportScript(csv.toArray(new String[0]), "-b", "10");
+
+        assertEquals(null, handler.getException());
+        assertTrue(handler.getInfoMessages().contains("Committed the changes up to row 20"));
+        assertEquals("Streamed title", reload(item).getName());
+        for (int i = 0; i < 25; i++) {
+            assertNotNull(findItemByName("Streamed item " + i));
+        }
+    }
+
+    @Test
+    public void streamingMetadataImportResumeTest() throws Exception {
+        context.turnOffAuthorisationSystem();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(ItemBuilder.createItem(context, collection).withTitle("Title " + i).build());
+        }
+        context.restoreAuthSystemState();
+
+        List<String> csv = new ArrayList<>();
+        csv.add("id,collection,dc.title[*]");
+        for (int i = 0; i < 5; i++) {
+            csv.add(items.get(i).getID() + "," + collection.getHandle() + ",\"New title " + i + "\"");
+        }
+        TestDSpaceRunnableHandler handler = performStreamingImportScript(csv.toArray(new String[0]),
+                                                                         "-b", "2", "-r", "3");
+
+        assertEquals(null, handler.getException());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i < 2 ? "Title " + i : "New title " + i, reload(items.get(i)).getName());
+        }
+    }
+
+    @Test
+    public void streamingMetadataImportFailureTest() throws Exception {
+        context.turnOffAuthorisationSystem();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(ItemBuilder.createItem(context, collection).withTitle("Title " + i).build());
+        }
+        context.restoreAuthSystemState();
+
+        String[] csv = {"id,collection,dc.title[*]",
+            items.get(0).getID() + "," + collection.getHandle() + ",\"New title 0\"",
+            items.get(1).getID() + "," + collection.getHandle() + ",\"New title 1\"",
+            items.get(2).getID() + "," + collection.getHandle() + ",\"New title 2\"",
+            "00000000-0000-0000-0000-000000000001," + collection.getHandle() + ",\"Unknown\""};
+        TestDSpaceRunnableHandler handler = performStreamingImportScript(csv, "-b", "2");
+
+        assertNotNull(handler.getException());
+        assertTrue(handler.getException().getMessage(), handler.getException().getMessage().contains("-r 3"));
+        // the changes to the rows after the last commit were aborted
+        assertEquals("New title 0", reload(items.get(0)).getName());
+        assertEquals("New title 1", reload(items.get(1)).getName());
+        assertEquals("Title 2", reload(items.get(2)).getName());
+    }
+
+    @Test
+    public void streamingRelationshipMetadataImportTest() throws Exception {
+        context.turnOffAuthorisationSystem();
+        EntityType publication = EntityTypeBuilder.createEntityTypeBuilder(context, "Publication").build();
+        EntityType person = EntityTypeBuilder.createEntityTypeBuilder(context, "Person").build();
+        RelationshipTypeBuilder.createRelationshipTypeBuilder(context, publication, person, "isAuthorOfPublication",
+                                                              "isPublicationOfAuthor", 0, 10, 0, 10);
+        context.restoreAuthSystemState();
+
+        String[] csv = {"id,collection,dc.title,rowName,relation.isPublicationOfAuthor,dspace.entity.type",
+            "+," + collection.getHandle() + ",\"Streamed Publication\",publication,,Publication",
+            "+," + collection.getHandle() + ",\"Streamed Other\",other,,Publication",
+            "+," + collection.getHandle() + ",\"Streamed Person\",,rowName:publication,Person"};
+        TestDSpaceRunnableHandler handler = performStreamingImportScript(csv, "-b", "1");
+
+        assertEquals(null, handler.getException());
+        Item importedPublication = findItemByName("Streamed Publication");
+        Item importedPerson = findItemByName("Streamed Person");
+        List<Relationship> relationships = relationshipService.findByItem(context, importedPerson);
+        assertEquals(1, relationships.size());
+        assertEquals(importedPublication, relationships.get(0).getLeftItem());
+        context.turnOffAuthorisationSystem();
+        itemService.delete(context, importedPerson);
+        itemService.delete(context, importedPublication);
+        itemService.delete(context, findItemByName("Streamed Other"));
+        context.restoreAuthSystemState();
+    }
+
+    private Item reload(Item item) throws SQLException {
+        // the item was changed in another Context
+        context.uncacheEntity(item);
+        return itemService.find(context, item.getID());
+    }
+
     private Item findItemByName(String name) throws SQLException {
         Item importedItem = null;
         List<Item> allItems = IteratorUtils.toList(itemService.findAll(context));
@@ -220,4 +327,30 @@ public class MetadataImportIT extends AbstractIntegrationTestWithDatabase {
             csvFile.delete();
         }
     }
+
+    /**
+     * Import mocked CSVs one line at a time, deleting the temporary files afterward.
+     */
+    private TestDSpaceRunnableHandler performStreamingImportScript(String[] csv, String... options)
+        throws Exception {
+        File csvFile = File.createTempFile("dspace-test-import", ".csv");
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile),
+                                                                            "UTF-8"))) {
+            for (String csvLine : csv) {
+                out.write(csvLine + "\n");
+            }
+        }
+        try {
+            List<String> args = new ArrayList<>(Arrays.asList("metadata-import", "-f", csvFile.getAbsolutePath(),
+                                                              "-e", eperson.getEmail(), "-s"));
+            args.addAll(Arrays.asList(options));
+            TestDSpaceRunnableHandler testDSpaceRunnableHandler = new TestDSpaceRunnableHandler();
+            ScriptLauncher.handleScript(args.toArray(new String[0]), ScriptLauncher.getConfig(kernelImpl),
+                                        testDSpaceRunnableHandler, kernelImpl);
+            return testDSpaceRunnableHandler;
+        } finally {
+            csvFile.delete();
+            new File(FilenameUtils.getBaseName(csvFile.getName()) + "-changes.txt").delete();
+        }
+    }
 }
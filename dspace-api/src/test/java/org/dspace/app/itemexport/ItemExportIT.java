@@ -0,0 +1,183 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.itemexport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.app.itemexport.factory.ItemExportServiceFactory;
+import org.dspace.app.itemexport.service.ItemExportService;
+import org.dspace.builder.BitstreamBuilder;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.ItemService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Integration tests for exporting items straight into zip files with {@link ItemExportServiceImpl}, fetching the
+ * bitstreams in several threads
+ */
+public class ItemExportIT extends AbstractIntegrationTestWithDatabase {
+
+    private final ItemExportService itemExportService = ItemExportServiceFactory.getInstance().getItemExportService();
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Collection collection;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        collection = CollectionBuilder.createCollection(context, community).build();
+        for (int i = 1; i <= 3; i++) {
+            Item item = ItemBuilder.createItem(context, collection).withTitle("Item " + i)
+                                   .withSubject("subject " + i).build();
+            BitstreamBuilder.createBitstream(context, item, IOUtils.toInputStream("First file of item " + i,
+                                                                                   StandardCharsets.UTF_8))
+                            .withName("first.txt").build();
+            BitstreamBuilder.createBitstream(context, item, IOUtils.toInputStream("Second file of item " + i,
+                                                                                   StandardCharsets.UTF_8))
+                            .withName("first.txt").build();
+            BitstreamBuilder.createBitstream(context, item, IOUtils.toInputStream("Named contents",
+                                                                                   StandardCharsets.UTF_8))
+                            .withName("contents").build();
+        }
+        context.restoreAuthSystemState();
+        context.commit();
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        itemExportService.setThreads(1);
+        itemExportService.setMaxZipSize(0);
+        super.destroy();
+    }
+
+    @Test
+    public void testStreamedZipMatchesDirectoryExport() throws Exception {
+        File exportDir = folder.newFolder("saf");
+        File dest = folder.newFolder("export");
+        context.turnOffAuthorisationSystem();
+        itemExportService.exportItem(context, itemService.findByCollection(context, collection),
+                                     exportDir.getAbsolutePath(), 1, false, false);
+        itemExportService.setThreads(3);
+        itemExportService.exportAsZipStream(context, itemService.findByCollection(context, collection),
+                                            dest.getAbsolutePath(), "streamed.zip", 1, false, false);
+        context.restoreAuthSystemState();
+
+        Map<String, String> streamed = read(new File(dest, "streamed.zip"));
+        assertEquals(read(exportDir, ""), streamed);
+        // the metadata, contents and handle files and three bitstreams per item
+        assertEquals(3 * 6, streamed.size());
+        assertEquals("Second file of item 2", streamed.get("2/1_first.txt"));
+        assertEquals("Named contents", streamed.get("2/1_contents"));
+        assertTrue(streamed.get("2/contents").contains("1_contents\tbundle:ORIGINAL"));
+        assertFalse(new File(dest, "streamed.zip_tmp").exists());
+    }
+
+    @Test
+    public void testSplitArchives() throws Exception {
+        File dest = folder.newFolder("export");
+        context.turnOffAuthorisationSystem();
+        itemExportService.setThreads(2);
+        // every archive is full after its first item
+        itemExportService.setMaxZipSize(1);
+        itemExportService.exportAsZipStream(context, itemService.findByCollection(context, collection),
+                                            dest.getAbsolutePath(), "export.zip", 1, true, false);
+        context.restoreAuthSystemState();
+
+        String[] archives = dest.list();
+        Arrays.sort(archives);
+        assertEquals(List.of("export.zip", "export_2.zip", "export_3.zip"), Arrays.asList(archives));
+        for (int i = 1; i <= 3; i++) {
+            Map<String, String> entries = read(new File(dest, archives[i - 1]));
+            // the metadata, contents and bitstreams of one item, migrated items have no handle file
+            assertEquals(5, entries.size());
+            assertTrue(entries.containsKey(i + "/contents"));
+            assertFalse(entries.containsKey(i + "/handle"));
+        }
+    }
+
+    @Test
+    public void testExcludedBitstreams() throws Exception {
+        File dest = folder.newFolder("export");
+        context.turnOffAuthorisationSystem();
+        List<Item> items = new ArrayList<>();
+        itemService.findByCollection(context, collection).forEachRemaining(items::add);
+        try (ItemExportZipWriter writer = new ItemExportZipWriter((ItemExportServiceImpl) itemExportService, dest,
+                                                                  "export.zip", 2, 0)) {
+            for (int i = 0; i < items.size(); i++) {
+                writer.addItem(context, items.get(i), String.valueOf(i + 1), false, true);
+                // nothing to fetch, so nothing waits for finish()
+                assertTrue(writer.pending.isEmpty());
+            }
+            writer.finish();
+        }
+        context.restoreAuthSystemState();
+
+        Map<String, String> entries = read(new File(dest, "export.zip"));
+        // the metadata, contents and handle files of each item
+        assertEquals(3 * 3, entries.size());
+        assertTrue(entries.get("2/contents").contains("1_contents\tbundle:ORIGINAL"));
+        assertFalse(entries.containsKey("2/first.txt"));
+    }
+
+    private Map<String, String> read(File dir, String path) throws Exception {
+        Map<String, String> entries = new TreeMap<>();
+        for (File file : dir.listFiles()) {
+            if (file.isDirectory()) {
+                entries.putAll(read(file, path + file.getName() + "/"));
+            } else {
+                entries.put(path + file.getName(), FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private Map<String, String> read(File zipFile) throws Exception {
+        Map<String, String> entries = new TreeMap<>();
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            Enumeration<? extends ZipEntry> e = zip.entries();
+            while (e.hasMoreElements()) {
+                ZipEntry entry = e.nextElement();
+                entries.put(entry.getName(), IOUtils.toString(zip.getInputStream(entry), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
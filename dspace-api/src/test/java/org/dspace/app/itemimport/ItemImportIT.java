@@ -0,0 +1,180 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.itemimport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.app.itemimport.factory.ItemImportServiceFactory;
+import org.dspace.app.itemimport.service.ItemImportService;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.BitstreamService;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Integration tests for adding items from a Simple Archive Format directory with {@link ItemImportServiceImpl},
+ * storing the bitstreams in several threads and committing in batches
+ */
+public class ItemImportIT extends AbstractIntegrationTestWithDatabase {
+
+    private final ItemImportService itemImportService = ItemImportServiceFactory.getInstance().getItemImportService();
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private final BitstreamService bitstreamService = ContentServiceFactory.getInstance().getBitstreamService();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Collection collection;
+    private File sourceDir;
+    private File mapFile;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        collection = CollectionBuilder.createCollection(context, community).build();
+        context.restoreAuthSystemState();
+        context.setCurrentUser(admin);
+        context.commit();
+
+        sourceDir = folder.newFolder("saf");
+        for (int i = 1; i <= 5; i++) {
+            File itemDir = new File(sourceDir, "item" + i);
+            itemDir.mkdir();
+            write(new File(itemDir, "dublin_core.xml"), "<dublin_core><dcvalue element=\"title\" qualifier=\"none\">"
+                + "Item " + i + "</dcvalue></dublin_core>");
+            write(new File(itemDir, "contents"), "first.txt\nsecond.txt\tbundle:ORIGINAL\n");
+            write(new File(itemDir, "first.txt"), "First file of item " + i);
+            write(new File(itemDir, "second.txt"), "Second file of item " + i);
+        }
+        mapFile = new File(folder.getRoot(), "mapfile");
+
+        itemImportService.setQuiet(true);
+        itemImportService.setThreads(3);
+        itemImportService.setBatchSize(2);
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        itemImportService.setThreads(1);
+        itemImportService.setBatchSize(0);
+        itemImportService.setResume(false);
+        itemImportService.setQuiet(false);
+        super.destroy();
+    }
+
+    @Test
+    public void testAddItemsInThreads() throws Exception {
+        addItems();
+
+        List<Item> items = importedItems();
+        assertEquals(5, items.size());
+        for (int i = 1; i <= 5; i++) {
+            Item item = items.get(i - 1);
+            assertEquals("Item " + i, itemService.getMetadataFirstValue(item, "dc", "title", null, Item.ANY));
+            List<Bitstream> bitstreams = itemService.getBundles(item, "ORIGINAL").get(0).getBitstreams();
+            assertEquals(2, bitstreams.size());
+            assertBitstream("First file of item " + i, bitstreams.get(0));
+            assertBitstream("Second file of item " + i, bitstreams.get(1));
+        }
+        assertEquals(5, Files.readAllLines(mapFile.toPath()).size());
+    }
+
+    @Test
+    public void testResumeAfterLastCommit() throws Exception {
+        File missing = new File(sourceDir, "item4/second.txt");
+        missing.delete();
+        try {
+            addItems();
+            fail("The import of item4 should fail");
+        } catch (Exception e) {
+            // the changes since the last commit are lost
+            context.abort();
+            context = new Context();
+            context.setCurrentUser(admin);
+        }
+        List<String> mapped = Files.readAllLines(mapFile.toPath());
+        assertEquals(2, mapped.size());
+        assertTrue(mapped.get(0).startsWith("item1 "));
+        assertTrue(mapped.get(1).startsWith("item2 "));
+        assertEquals(2, importedItems().size());
+
+        write(missing, "Second file of item 4");
+        itemImportService.setResume(true);
+        addItems();
+
+        assertEquals(5, Files.readAllLines(mapFile.toPath()).size());
+        List<Item> items = importedItems();
+        assertEquals(5, items.size());
+        assertBitstream("Second file of item 4",
+                        itemService.getBundles(items.get(3), "ORIGINAL").get(0).getBitstreams().get(1));
+    }
+
+    private void addItems() throws Exception {
+        context.turnOffAuthorisationSystem();
+        collection = context.reloadEntity(collection);
+        List<Collection> collections = new ArrayList<>();
+        collections.add(collection);
+        itemImportService.addItems(context, collections, sourceDir.getAbsolutePath(), mapFile.getAbsolutePath(),
+                                   false);
+        context.restoreAuthSystemState();
+        collection = context.reloadEntity(collection);
+    }
+
+    private List<Item> importedItems() throws Exception {
+        List<Item> items = new ArrayList<>();
+        Iterator<Item> iterator = itemService.findByCollection(context, context.reloadEntity(collection));
+        while (iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        items.sort((a, b) -> itemService.getMetadataFirstValue(a, "dc", "title", null, Item.ANY)
+                                        .compareTo(itemService.getMetadataFirstValue(b, "dc", "title", null,
+                                                                                     Item.ANY)));
+        return items;
+    }
+
+    private void assertBitstream(String expected, Bitstream bitstream) throws Exception {
+        assertEquals(DigestUtils.md5Hex(expected), bitstream.getChecksum());
+        assertEquals(expected.length(), bitstream.getSizeBytes());
+        try (InputStream in = bitstreamService.retrieve(context, bitstream)) {
+            assertEquals(expected, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void write(File file, String content) throws Exception {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+}
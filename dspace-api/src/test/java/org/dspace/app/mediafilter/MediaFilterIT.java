@@ -0,0 +1,199 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.mediafilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.app.mediafilter.factory.MediaFilterServiceFactory;
+import org.dspace.app.mediafilter.service.MediaFilterService;
+import org.dspace.builder.BitstreamBuilder;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.BitstreamService;
+import org.dspace.content.service.ItemService;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for filtering items in several threads with {@link MediaFilterServiceImpl}
+ */
+public class MediaFilterIT extends AbstractIntegrationTestWithDatabase {
+
+    private final MediaFilterService mediaFilterService =
+        MediaFilterServiceFactory.getInstance().getMediaFilterService();
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private final BitstreamService bitstreamService = ContentServiceFactory.getInstance().getBitstreamService();
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+
+    private Collection collection;
+    private List<Item> items;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        collection = CollectionBuilder.createCollection(context, community).build();
+        items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Item item = ItemBuilder.createItem(context, collection).withTitle("Item " + i).build();
+            String html = "<html><body><p>Text of item " + i + "</p></body></html>";
+            BitstreamBuilder.createBitstream(context, item, IOUtils.toInputStream(html, StandardCharsets.UTF_8))
+                            .withName("item" + i + ".html").withMimeType("text/plain").build();
+            items.add(item);
+        }
+        context.restoreAuthSystemState();
+        // the worker threads use Contexts of their own
+        context.commit();
+
+        mediaFilterService.setQuiet(true);
+        mediaFilterService.setThreads(3);
+        configurationService.setProperty("filter.batchSize", 3);
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        mediaFilterService.setThreads(1);
+        mediaFilterService.setQuiet(false);
+        configurationService.setProperty("filter.batchSize", null);
+        configurationService.setProperty("filter.timeout", null);
+        configurationService.setProperty("filter.maxFileSize", null);
+        super.destroy();
+    }
+
+    @Test
+    public void testFilterCollectionInThreads() throws Exception {
+        setFilters(new HTMLFilter());
+
+        mediaFilterService.applyFiltersCollection(context, collection);
+
+        assertEquals(Collections.emptyList(), mediaFilterService.getFailures());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = context.reloadEntity(items.get(i));
+            List<Bundle> bundles = itemService.getBundles(item, "TEXT");
+            assertEquals(1, bundles.size());
+            Bitstream text = bundles.get(0).getBitstreams().get(0);
+            assertEquals("item" + i + ".html.txt", text.getName());
+            try (InputStream stream = bitstreamService.retrieve(context, text)) {
+                assertTrue(IOUtils.toString(stream, StandardCharsets.UTF_8).contains("Text of item " + i));
+            }
+        }
+    }
+
+    @Test
+    public void testFailuresAreReported() throws Exception {
+        setFilters(new FailingFilter());
+
+        mediaFilterService.applyFiltersCollection(context, collection);
+
+        List<String> failures = mediaFilterService.getFailures();
+        assertEquals(items.size(), failures.size());
+        assertTrue(failures.get(0).contains("Unreadable"));
+        for (Item item : items) {
+            assertEquals(0, itemService.getBundles(context.reloadEntity(item), "FAILED").size());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        configurationService.setProperty("filter.timeout", 10);
+        configurationService.setProperty("filter." + SlowFilter.class.getName() + ".timeout", 1);
+        setFilters(new SlowFilter());
+
+        long start = System.currentTimeMillis();
+        mediaFilterService.applyFiltersItem(context, items.get(0));
+
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        List<String> failures = mediaFilterService.getFailures();
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0).contains("timed out after 1 seconds"));
+        configurationService.setProperty("filter." + SlowFilter.class.getName() + ".timeout", null);
+    }
+
+    @Test
+    public void testMaxFileSize() throws Exception {
+        configurationService.setProperty("filter.maxFileSize", 10);
+        setFilters(new HTMLFilter());
+
+        mediaFilterService.applyFiltersCollection(context, collection);
+
+        assertEquals(Collections.emptyList(), mediaFilterService.getFailures());
+        for (Item item : items) {
+            assertEquals(0, itemService.getBundles(context.reloadEntity(item), "TEXT").size());
+        }
+    }
+
+    private void setFilters(FormatFilter... filters) {
+        Map<String, List<String>> filterFormats = new HashMap<>();
+        for (FormatFilter filter : filters) {
+            filterFormats.put(filter.getClass().getName(), Arrays.asList("Text"));
+        }
+        mediaFilterService.setFilterClasses(Arrays.asList(filters));
+        mediaFilterService.setFilterFormats(filterFormats);
+    }
+
+    /**
+     * A filter which fails on every bitstream
+     */
+    public static class FailingFilter extends HTMLFilter {
+        @Override
+        public String getBundleName() {
+            return "FAILED";
+        }
+
+        @Override
+        public InputStream getDestinationStream(Item currentItem, InputStream source, boolean verbose)
+            throws Exception {
+            throw new IOException("Unreadable");
+        }
+    }
+
+    /**
+     * A filter which takes a minute for every bitstream, unless it is interrupted
+     */
+    public static class SlowFilter extends HTMLFilter {
+        @Override
+        public String getBundleName() {
+            return "SLOW";
+        }
+
+        @Override
+        public InputStream getDestinationStream(Item currentItem, InputStream source, boolean verbose)
+            throws Exception {
+            Thread.sleep(60000);
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.UUID;
+
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AuthorizationDecisionCache}
+ */
+public class AuthorizationDecisionCacheTest {
+
+    private AuthorizationDecisionCache cache;
+    private Context context;
+    private EPerson eperson;
+    private Item item;
+    private Bundle bundle;
+    private Bitstream bitstream;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new AuthorizationDecisionCache(100, 60);
+        context = mock(Context.class);
+        when(context.getSpecialGroupUuids()).thenReturn(Collections.emptySet());
+        eperson = mock(EPerson.class);
+        when(eperson.getID()).thenReturn(UUID.randomUUID());
+        item = mock(Item.class);
+        when(item.getID()).thenReturn(UUID.randomUUID());
+        bundle = mock(Bundle.class);
+        when(bundle.getID()).thenReturn(UUID.randomUUID());
+        when(bundle.getItems()).thenReturn(Collections.singletonList(item));
+        bitstream = mock(Bitstream.class);
+        when(bitstream.getID()).thenReturn(UUID.randomUUID());
+        when(bitstream.getBundles()).thenReturn(Collections.singletonList(bundle));
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        assertNull(cache.get(null));
+        assertNull(cache.get(key(item, Constants.READ, null)));
+
+        cache.put(key(item, Constants.READ, null), item, true, Long.MAX_VALUE);
+        cache.put(key(item, Constants.WRITE, eperson), item, false, Long.MAX_VALUE);
+
+        assertTrue(cache.get(key(item, Constants.READ, null)));
+        assertFalse(cache.get(key(item, Constants.WRITE, eperson)));
+        assertNull(cache.get(key(item, Constants.WRITE, null)));
+        assertNull(cache.get(cache.getKey(context, item, Constants.READ, null, false)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testSpecialGroupsArePartOfTheKey() throws Exception {
+        cache.put(key(item, Constants.READ, null), item, false, Long.MAX_VALUE);
+        cache.put(key(item, Constants.READ, eperson), item, false, Long.MAX_VALUE);
+
+        when(context.getSpecialGroupUuids()).thenReturn(new HashSet<>(Arrays.asList(UUID.randomUUID())));
+        assertNull(cache.get(key(item, Constants.READ, null)));
+        // special groups only apply to the current user
+        assertFalse(cache.get(key(item, Constants.READ, eperson)));
+    }
+
+    @Test
+    public void testNoKeyWithPendingChanges() throws Exception {
+        when(context.hasEvents()).thenReturn(true);
+        assertNull(key(item, Constants.READ, null));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        AuthorizationDecisionCache disabled = new AuthorizationDecisionCache(0, 60);
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.getKey(context, item, Constants.READ, null, true));
+        disabled.invalidateAll();
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    public void testInvalidateObjects() throws Exception {
+        Item other = mock(Item.class);
+        when(other.getID()).thenReturn(UUID.randomUUID());
+        cache.put(key(item, Constants.READ, null), item, true, Long.MAX_VALUE);
+        cache.put(key(bitstream, Constants.READ, null), bitstream, true, Long.MAX_VALUE);
+        cache.put(key(other, Constants.READ, null), other, true, Long.MAX_VALUE);
+
+        // changing the item also affects its bitstreams
+        cache.invalidateObjects(Collections.singleton(item.getID()));
+        assertNull(cache.get(key(item, Constants.READ, null)));
+        assertNull(cache.get(key(bitstream, Constants.READ, null)));
+        assertTrue(cache.get(key(other, Constants.READ, null)));
+
+        // decisions about the item are not cached until the change has settled
+        cache.put(key(item, Constants.READ, null), item, true, Long.MAX_VALUE);
+        cache.put(key(bitstream, Constants.READ, null), bitstream, true, Long.MAX_VALUE);
+        assertNull(cache.get(key(item, Constants.READ, null)));
+        assertNull(cache.get(key(bitstream, Constants.READ, null)));
+    }
+
+    @Test
+    public void testInvalidateEPersons() throws Exception {
+        cache.put(key(item, Constants.READ, null), item, true, Long.MAX_VALUE);
+        cache.put(key(item, Constants.READ, eperson), item, true, Long.MAX_VALUE);
+
+        cache.invalidateEPersons(Collections.singleton(eperson.getID()));
+        assertTrue(cache.get(key(item, Constants.READ, null)));
+        assertNull(cache.get(key(item, Constants.READ, eperson)));
+    }
+
+    @Test
+    public void testDecisionMadeDuringInvalidationIsNotCached() throws Exception {
+        Item other = mock(Item.class);
+        when(other.getID()).thenReturn(UUID.randomUUID());
+        AuthorizationDecisionCache.Key before = key(other, Constants.READ, null);
+        cache.invalidateObjects(Collections.singleton(item.getID()));
+        cache.put(before, other, true, Long.MAX_VALUE);
+        assertNull(cache.get(key(other, Constants.READ, null)));
+
+        cache.put(key(other, Constants.READ, null), other, true, Long.MAX_VALUE);
+        assertNotNull(cache.get(key(other, Constants.READ, null)));
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        cache.put(key(item, Constants.READ, null), item, true, Long.MAX_VALUE);
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        cache.put(key(item, Constants.READ, null), item, true, Long.MAX_VALUE);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPolicyDatesLimitValidity() throws Exception {
+        long now = System.currentTimeMillis();
+        ResourcePolicy embargo = mock(ResourcePolicy.class);
+        when(embargo.getStartDate()).thenReturn(new Date(now + 3600000));
+        ResourcePolicy expired = mock(ResourcePolicy.class);
+        when(expired.getEndDate()).thenReturn(new Date(now - 3600000));
+
+        assertEquals(Long.MAX_VALUE, cache.limitValidity(expired, Long.MAX_VALUE));
+        assertEquals(now + 3600000, cache.limitValidity(embargo, Long.MAX_VALUE));
+        assertEquals(now + 1000, cache.limitValidity(embargo, now + 1000));
+
+        // a decision which is no longer valid is not returned
+        cache.put(key(item, Constants.READ, null), item, false, now - 1);
+        assertNull(cache.get(key(item, Constants.READ, null)));
+    }
+
+    private AuthorizationDecisionCache.Key key(DSpaceObject object, int action, EPerson user) {
+        return cache.getKey(context, object, action, user, true);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import org.dspace.authorize.dao.ResourcePolicyDAO;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.eperson.Group;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for the removal of the shared authorization decisions by the bulk deletes of
+ * {@link ResourcePolicyServiceImpl}
+ */
+public class ResourcePolicyServiceImplTest {
+
+    private ResourcePolicyServiceImpl resourcePolicyService;
+    private ResourcePolicyDAO resourcePolicyDAO;
+    private AuthorizationDecisionCache cache;
+    private Context context;
+    private EPerson eperson;
+    private EPerson otherEPerson;
+    private Item item;
+
+    @Before
+    public void setUp() throws Exception {
+        resourcePolicyDAO = mock(ResourcePolicyDAO.class);
+        cache = spy(new AuthorizationDecisionCache(100, 60));
+        resourcePolicyService = new ResourcePolicyServiceImpl();
+        ReflectionTestUtils.setField(resourcePolicyService, "resourcePolicyDAO", resourcePolicyDAO);
+        ReflectionTestUtils.setField(resourcePolicyService, "authorizationDecisionCache", cache);
+
+        context = mock(Context.class);
+        when(context.getSpecialGroupUuids()).thenReturn(Collections.emptySet());
+        eperson = mock(EPerson.class);
+        when(eperson.getID()).thenReturn(UUID.randomUUID());
+        otherEPerson = mock(EPerson.class);
+        when(otherEPerson.getID()).thenReturn(UUID.randomUUID());
+        item = mock(Item.class);
+        when(item.getID()).thenReturn(UUID.randomUUID());
+    }
+
+    @Test
+    public void testRemoveAllEPersonPoliciesInvalidatesDecisions() throws Exception {
+        AuthorizationDecisionCache.Key key = cache.getKey(context, item, Constants.READ, eperson, false);
+        cache.put(key, item, true, Long.MAX_VALUE);
+        assertTrue(cache.get(key));
+
+        resourcePolicyService.removeAllEPersonPolicies(context, eperson);
+
+        verify(resourcePolicyDAO).deleteByEPerson(context, eperson);
+        assertNull(cache.get(key));
+        // and again once the deletes are committed
+        ArgumentCaptor<Runnable> afterCommit = ArgumentCaptor.forClass(Runnable.class);
+        verify(context).runAfterCommit(afterCommit.capture());
+        afterCommit.getValue().run();
+        verify(cache, times(2)).invalidateEPersons(Collections.singleton(eperson.getID()));
+    }
+
+    @Test
+    public void testRemoveGroupPoliciesInvalidatesDecisions() throws Exception {
+        Group group = mock(Group.class);
+        AuthorizationDecisionCache.Key key = cache.getKey(context, item, Constants.READ, eperson, false);
+        cache.put(key, item, true, Long.MAX_VALUE);
+        AuthorizationDecisionCache.Key otherKey = cache.getKey(context, item, Constants.READ, otherEPerson, false);
+        cache.put(otherKey, item, true, Long.MAX_VALUE);
+
+        resourcePolicyService.removeGroupPolicies(context, group);
+
+        verify(resourcePolicyDAO).deleteByGroup(context, group);
+        // the members of the group aren't known, every decision is removed
+        assertNull(cache.get(key));
+        assertNull(cache.get(otherKey));
+        ArgumentCaptor<Runnable> afterCommit = ArgumentCaptor.forClass(Runnable.class);
+        verify(context).runAfterCommit(afterCommit.capture());
+        afterCommit.getValue().run();
+        verify(cache, times(2)).invalidateAll();
+    }
+}
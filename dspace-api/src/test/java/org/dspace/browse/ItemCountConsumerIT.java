@@ -0,0 +1,204 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.browse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.browse.service.ItemCountService;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.ItemService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for maintaining the item counts of the communities and collections with
+ * {@link ItemCountConsumer}
+ */
+public class ItemCountConsumerIT extends AbstractIntegrationTestWithDatabase {
+
+    private final ItemCountService itemCountService = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName(ItemCountService.class.getName(), ItemCountService.class);
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private final CollectionService collectionService = ContentServiceFactory.getInstance().getCollectionService();
+
+    private Community community;
+    private Community subCommunity;
+    private Collection collection;
+    private Collection otherCollection;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        community = CommunityBuilder.createCommunity(context).build();
+        subCommunity = CommunityBuilder.createSubCommunity(context, community).build();
+        collection = CollectionBuilder.createCollection(context, subCommunity).build();
+        otherCollection = CollectionBuilder.createCollection(context, community).build();
+        context.restoreAuthSystemState();
+        // as computed by "item-counts -r" for the existing containers
+        for (DSpaceObject container : Arrays.asList(community, subCommunity, collection, otherCollection)) {
+            itemCountService.update(context, container);
+        }
+    }
+
+    @Test
+    public void testInstalledItemsAreCounted() throws Exception {
+        context.turnOffAuthorisationSystem();
+        ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        ItemBuilder.createItem(context, collection).withTitle("Other item").build();
+        ItemBuilder.createItem(context, otherCollection).withTitle("Item elsewhere").build();
+        ItemBuilder.createItem(context, collection).withTitle("Private item").makeUnDiscoverable().build();
+        ItemBuilder.createItem(context, collection).withTitle("Withdrawn item").withdrawn().build();
+        context.restoreAuthSystemState();
+
+        assertCounts(2, 1, 2, 3);
+    }
+
+    @Test
+    public void testCountsAreChangedNotRecounted() throws Exception {
+        // a wrong count stays wrong by the same amount: the consumer only adds the changes to it
+        itemCountService.addToCount(context, community.getID(), 10);
+        context.turnOffAuthorisationSystem();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        assertCounts(1, 0, 1, 11);
+
+        itemService.withdraw(context, item);
+        context.dispatchEvents();
+        context.restoreAuthSystemState();
+        assertCounts(0, 0, 0, 10);
+    }
+
+    @Test
+    public void testNegativeCountsAreRepaired() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        ItemBuilder.createItem(context, collection).withTitle("Other item").build();
+        context.restoreAuthSystemState();
+        // the count drifted below the number of items
+        itemCountService.addToCount(context, collection.getID(), -2);
+        assertEquals(Integer.valueOf(0), itemCountService.getStoredCount(context, collection));
+
+        context.turnOffAuthorisationSystem();
+        itemService.withdraw(context, item);
+        context.dispatchEvents();
+        context.restoreAuthSystemState();
+        assertCounts(1, 0, 1, 1);
+    }
+
+    @Test
+    public void testMissingCountsAreLeftAlone() throws Exception {
+        itemCountService.delete(context, Collections.singleton(otherCollection.getID()));
+        context.turnOffAuthorisationSystem();
+        ItemBuilder.createItem(context, otherCollection).withTitle("Item").build();
+        context.restoreAuthSystemState();
+
+        assertNull(itemCountService.getStoredCount(context, otherCollection));
+        assertEquals(1, itemCountService.getCount(context, otherCollection));
+        assertEquals(Integer.valueOf(1), itemCountService.getStoredCount(context, community));
+    }
+
+    @Test
+    public void testCreatedContainersAreCounted() throws Exception {
+        context.turnOffAuthorisationSystem();
+        ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        Community newCommunity = CommunityBuilder.createSubCommunity(context, community).build();
+        Collection newCollection = CollectionBuilder.createCollection(context, newCommunity).build();
+        ItemBuilder.createItem(context, newCollection).withTitle("New item").build();
+        context.restoreAuthSystemState();
+
+        assertEquals(Integer.valueOf(1), itemCountService.getStoredCount(context, newCollection));
+        assertEquals(Integer.valueOf(1), itemCountService.getStoredCount(context, newCommunity));
+        assertCounts(1, 0, 1, 2);
+    }
+
+    @Test
+    public void testWithdrawnAndReinstatedItemsAreCounted() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        assertCounts(1, 0, 1, 1);
+
+        itemService.withdraw(context, item);
+        context.dispatchEvents();
+        assertCounts(0, 0, 0, 0);
+
+        itemService.reinstate(context, item);
+        context.dispatchEvents();
+        assertCounts(1, 0, 1, 1);
+
+        item.setDiscoverable(false);
+        itemService.update(context, item);
+        context.dispatchEvents();
+        context.restoreAuthSystemState();
+        assertCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    public void testMappedAndMovedItemsAreCounted() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+
+        collectionService.addItem(context, otherCollection, item);
+        context.dispatchEvents();
+        // counted once in the community holding both collections
+        assertCounts(1, 1, 1, 1);
+
+        collectionService.removeItem(context, otherCollection, item);
+        context.dispatchEvents();
+        assertCounts(1, 0, 1, 1);
+
+        itemService.move(context, item, collection, otherCollection);
+        context.dispatchEvents();
+        context.restoreAuthSystemState();
+        assertCounts(0, 1, 0, 1);
+    }
+
+    @Test
+    public void testDeletedItemsAndContainersAreCounted() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        ItemBuilder.createItem(context, otherCollection).withTitle("Other item").build();
+        assertCounts(1, 1, 1, 2);
+
+        itemService.delete(context, item);
+        context.dispatchEvents();
+        assertCounts(0, 1, 0, 1);
+
+        ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        assertCounts(1, 1, 1, 2);
+        collectionService.delete(context, collection);
+        context.dispatchEvents();
+        context.restoreAuthSystemState();
+        assertNull(itemCountService.getStoredCount(context, collection));
+        assertEquals(Integer.valueOf(0), itemCountService.getStoredCount(context, subCommunity));
+        assertEquals(Integer.valueOf(1), itemCountService.getStoredCount(context, community));
+    }
+
+    private void assertCounts(int collectionCount, int otherCollectionCount, int subCommunityCount,
+                              int communityCount) throws Exception {
+        assertEquals(Integer.valueOf(collectionCount), itemCountService.getStoredCount(context, collection));
+        assertEquals(Integer.valueOf(otherCollectionCount),
+                     itemCountService.getStoredCount(context, otherCollection));
+        assertEquals(Integer.valueOf(subCommunityCount), itemCountService.getStoredCount(context, subCommunity));
+        assertEquals(Integer.valueOf(communityCount), itemCountService.getStoredCount(context, community));
+    }
+}
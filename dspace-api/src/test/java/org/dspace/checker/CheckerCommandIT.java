@@ -0,0 +1,150 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.BitstreamBuilder;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.checker.factory.CheckerServiceFactory;
+import org.dspace.checker.service.ChecksumHistoryService;
+import org.dspace.checker.service.MostRecentChecksumService;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for checking bitstreams in several threads with {@link CheckerCommand}
+ */
+public class CheckerCommandIT extends AbstractIntegrationTestWithDatabase {
+
+    private final MostRecentChecksumService checksumService =
+        CheckerServiceFactory.getInstance().getMostRecentChecksumService();
+    private final ChecksumHistoryService checksumHistoryService =
+        CheckerServiceFactory.getInstance().getChecksumHistoryService();
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+
+    private List<Bitstream> bitstreams;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        Item item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        bitstreams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bitstreams.add(BitstreamBuilder.createBitstream(context, item,
+                                                            IOUtils.toInputStream("Bitstream " + i,
+                                                                                  StandardCharsets.UTF_8))
+                                           .withName("bitstream" + i + ".txt").build());
+        }
+        context.restoreAuthSystemState();
+        checksumService.updateMissingBitstreams(context);
+        // the records have to be older than the start of the run
+        Thread.sleep(10);
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        configurationService.setProperty("checker.batch-size", null);
+        configurationService.setProperty("checker.max-bytes-per-second", null);
+        // the bitstreams can't be expunged with check results
+        for (Bitstream bitstream : bitstreams) {
+            bitstream = context.reloadEntity(bitstream);
+            checksumHistoryService.deleteByBitstream(context, bitstream);
+            checksumService.deleteByBitstream(context, bitstream);
+        }
+        context.commit();
+        super.destroy();
+    }
+
+    @Test
+    public void testCheckInThreads() throws Exception {
+        configurationService.setProperty("checker.batch-size", 3);
+        MostRecentChecksum corrupted = checksumService.findByBitstream(context, bitstreams.get(4));
+        corrupted.setExpectedChecksum("corrupted");
+        checksumService.update(context, corrupted);
+
+        Map<UUID, List<ChecksumResultCode>> results = check(4);
+
+        for (int i = 0; i < bitstreams.size(); i++) {
+            ChecksumResultCode expected = i == 4 ? ChecksumResultCode.CHECKSUM_NO_MATCH
+                : ChecksumResultCode.CHECKSUM_MATCH;
+            // every bitstream is checked once, although the dispatcher selects the oldest records
+            assertEquals(List.of(expected), results.get(bitstreams.get(i).getID()));
+            MostRecentChecksum info = checksumService.findByBitstream(context, context.reloadEntity(bitstreams.get(i)));
+            assertEquals(expected, info.getChecksumResult().getResultCode());
+        }
+        for (List<ChecksumResultCode> codes : results.values()) {
+            assertEquals(1, codes.size());
+        }
+    }
+
+    @Test
+    public void testThrottle() throws Exception {
+        long size = 0;
+        for (Bitstream bitstream : bitstreams) {
+            size += bitstream.getSizeBytes();
+        }
+        // two seconds worth of bytes, the first bitstream is read without waiting
+        configurationService.setProperty("checker.max-bytes-per-second", size / 2);
+
+        long start = System.currentTimeMillis();
+        Map<UUID, List<ChecksumResultCode>> results = check(2);
+
+        assertTrue(System.currentTimeMillis() - start >= 1500);
+        for (Bitstream bitstream : bitstreams) {
+            assertEquals(List.of(ChecksumResultCode.CHECKSUM_MATCH), results.get(bitstream.getID()));
+        }
+    }
+
+    /**
+     * Check all bitstreams once, with a SimpleDispatcher
+     *
+     * @param threads the number of threads computing the checksums
+     * @return the result codes collected per bitstream
+     */
+    private Map<UUID, List<ChecksumResultCode>> check(int threads) throws Exception {
+        Map<UUID, List<ChecksumResultCode>> results = new HashMap<>();
+        Date processStart = new Date();
+        CheckerCommand checker = new CheckerCommand(context);
+        checker.setThreads(threads);
+        checker.setReportVerbose(true);
+        checker.setProcessStartDate(processStart);
+        checker.setDispatcher(new SimpleDispatcher(context, processStart, false));
+        checker.setCollector((c, info) -> results.computeIfAbsent(info.getBitstream().getID(),
+                                                                 id -> new ArrayList<>())
+                                                 .add(info.getChecksumResult().getResultCode()));
+        checker.process();
+        return results;
+    }
+}
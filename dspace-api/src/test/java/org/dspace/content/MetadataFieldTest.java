@@ -10,6 +10,7 @@ package org.dspace.content;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -398,4 +399,90 @@ public class MetadataFieldTest extends AbstractUnitTest {
         assertThat("testFind 1", found.getID(), equalTo(mf.getID()));
     }
 
+    /**
+     * Test of getRegistrySnapshot method, of class MetadataFieldService.
+     */
+    @Test
+    public void testGetRegistrySnapshot() throws Exception {
+        MetadataRegistrySnapshot registry = metadataFieldService.getRegistrySnapshot(context);
+        assertThat("testGetRegistrySnapshot 0", registry.getFieldId("dc.contributor.author"), equalTo(mf.getID()));
+        assertThat("testGetRegistrySnapshot 1", registry.getSchemaId("dc"), equalTo(dcSchema.getID()));
+        assertThat("testGetRegistrySnapshot 2", registry.getFieldId("dc", "nonexisting", null), nullValue());
+        assertThat("testGetRegistrySnapshot 3", registry.getFieldCount(),
+                   equalTo(metadataFieldService.findAll(context).size()));
+        // loaded once
+        assertThat("testGetRegistrySnapshot 4", metadataFieldService.getRegistrySnapshot(context),
+                   sameInstance(registry));
+    }
+
+    /**
+     * Test that the registry snapshot is replaced when changes to the registry are committed.
+     */
+    @Test
+    public void testRegistrySnapshotRefresh() throws Exception {
+        // Allow full Admin perms
+        when(authorizeServiceSpy.isAdmin(context)).thenReturn(true);
+
+        MetadataRegistrySnapshot registry = metadataFieldService.getRegistrySnapshot(context);
+        MetadataField m = metadataFieldService.create(context, dcSchema, "elem4", "qual4", null);
+        // not committed yet
+        assertThat("testRegistrySnapshotRefresh 0", metadataFieldService.getRegistrySnapshot(context),
+                   sameInstance(registry));
+        assertThat("testRegistrySnapshotRefresh 1",
+                   metadataFieldService.findByElement(context, "dc", "elem4", "qual4"), equalTo(m));
+        context.commit();
+        m = context.reloadEntity(m);
+        assertThat("testRegistrySnapshotRefresh 2",
+                   metadataFieldService.getRegistrySnapshot(context).getFieldId("dc.elem4.qual4"),
+                   equalTo(m.getID()));
+
+        m.setQualifier("qual5");
+        metadataFieldService.update(context, m);
+        context.commit();
+        m = context.reloadEntity(m);
+        registry = metadataFieldService.getRegistrySnapshot(context);
+        assertThat("testRegistrySnapshotRefresh 3", registry.getFieldId("dc.elem4.qual4"), nullValue());
+        assertThat("testRegistrySnapshotRefresh 4", registry.getFieldId("dc.elem4.qual5"), equalTo(m.getID()));
+        assertThat("testRegistrySnapshotRefresh 5",
+                   metadataFieldService.findByElement(context, "dc", "elem4", "qual5"), equalTo(m));
+
+        metadataFieldService.delete(context, m);
+        context.commit();
+        assertThat("testRegistrySnapshotRefresh 6",
+                   metadataFieldService.getRegistrySnapshot(context).getFieldId("dc.elem4.qual5"), nullValue());
+    }
+
+    /**
+     * Test that lookups don't trust a registry snapshot which is out of date, and that changes which aren't
+     * committed don't end up in the snapshot shared by all contexts.
+     */
+    @Test
+    public void testFindByElementWithUncommittedChange() throws Exception {
+        // Allow full Admin perms
+        when(authorizeServiceSpy.isAdmin(context)).thenReturn(true);
+
+        MetadataField m = metadataFieldService.create(context, dcSchema, "elem6", null, null);
+        context.commit();
+        m = context.reloadEntity(m);
+        assertThat("testFindByElementWithUncommittedChange 0",
+                   metadataFieldService.getRegistrySnapshot(context).getFieldId("dc.elem6"), equalTo(m.getID()));
+
+        // changed without going through the service, and not committed
+        m.setElement("elem7");
+        MetadataField found = metadataFieldService.findByElement(context, "dc", "elem6", null);
+        assertThat("testFindByElementWithUncommittedChange 1", found, nullValue());
+
+        // a snapshot loaded now only holds the committed registry
+        metadataFieldService.clearRegistrySnapshot();
+        MetadataRegistrySnapshot registry = metadataFieldService.getRegistrySnapshot(context);
+        assertThat("testFindByElementWithUncommittedChange 2", registry.getFieldId("dc.elem7"), nullValue());
+        assertThat("testFindByElementWithUncommittedChange 3", registry.getFieldId("dc.elem6"),
+                   equalTo(m.getID()));
+
+        context.rollback();
+        m = context.reloadEntity(m);
+        metadataFieldService.delete(context, m);
+        context.commit();
+    }
+
 }
@@ -0,0 +1,200 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.CommunityService;
+import org.dspace.content.service.MetadataFieldService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit Tests for the metadata lookups using {@link MetadataIndex}
+ */
+public class MetadataIndexTest extends AbstractUnitTest {
+
+    private final CommunityService communityService = ContentServiceFactory.getInstance().getCommunityService();
+    private final CollectionService collectionService = ContentServiceFactory.getInstance().getCollectionService();
+    private final MetadataFieldService metadataFieldService =
+        ContentServiceFactory.getInstance().getMetadataFieldService();
+
+    private Community owningCommunity;
+    private Collection collection;
+
+    @Before
+    @Override
+    public void init() {
+        super.init();
+        try {
+            context.turnOffAuthorisationSystem();
+            owningCommunity = communityService.create(null, context);
+            collection = collectionService.create(context, owningCommunity);
+            context.restoreAuthSystemState();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() {
+        try {
+            context.turnOffAuthorisationSystem();
+            collectionService.delete(context, collection);
+            communityService.delete(context, owningCommunity);
+            context.restoreAuthSystemState();
+        } catch (Exception e) {
+            // ignore
+        }
+        super.destroy();
+    }
+
+    @Test
+    public void testGetMetadataMatchesLinearScan() throws Exception {
+        collectionService.addMetadata(context, collection, "dc", "description", null, null, "description");
+        collectionService.addMetadata(context, collection, "dc", "description", "abstract", "en", "abstract en");
+        collectionService.addMetadata(context, collection, "dc", "subject", null, "en", "subject en");
+        collectionService.addMetadata(context, collection, "dc", "description", "abstract", null, "abstract");
+        collectionService.addMetadata(context, collection, "dc", "subject", null, "nl", "subject nl");
+        collectionService.addMetadata(context, collection, "dc", "description", null, "en", "description en");
+        assertLinearScan();
+
+        // the index follows changes to the metadata
+        collectionService.clearMetadata(context, collection, "dc", "description", "abstract", Item.ANY);
+        collectionService.addMetadata(context, collection, "dc", "description", "tableofcontents", null, "toc");
+        assertLinearScan();
+        assertEquals("toc", collectionService.getMetadataFirstValue(collection, "dc", "description",
+                                                                    "tableofcontents", Item.ANY));
+        assertEquals(0, collectionService.getMetadata(collection, "dc", "description", "abstract", Item.ANY).size());
+
+        // and to the order of the values after an update
+        context.turnOffAuthorisationSystem();
+        collectionService.update(context, collection);
+        context.restoreAuthSystemState();
+        assertLinearScan();
+    }
+
+    @Test
+    public void testGetMetadataAfterSameSizeChanges() throws Exception {
+        collectionService.addMetadata(context, collection, "dc", "description", null, null, "description");
+        collectionService.addMetadata(context, collection, "dc", "subject", null, null, "subject");
+        collectionService.addMetadata(context, collection, "dc", "description", "abstract", null, "abstract");
+        assertLinearScan();
+        List<MetadataValue> metadata = collection.getMetadata();
+
+        // a value is replaced in place
+        MetadataValue subject = metadata.get(1);
+        metadata.set(1, metadata.get(2));
+        metadata.set(2, subject);
+        assertLinearScan();
+
+        // a value is removed and added again at the end
+        MetadataValue description = metadata.get(0);
+        metadata.remove(description);
+        metadata.add(description);
+        assertLinearScan();
+
+        // the values are reordered
+        Collections.reverse(metadata);
+        assertLinearScan();
+
+        // the field of a value is changed
+        description.setMetadataField(metadataFieldService.findByElement(context, "dc", "title", null));
+        assertLinearScan();
+        assertEquals("description", collectionService.getMetadataFirstValue(collection, "dc", "title", null,
+                                                                            Item.ANY));
+        assertEquals(0, collectionService.getMetadata(collection, "dc", "description", null, Item.ANY).size());
+
+        // the value itself is changed
+        subject.setValue("other subject");
+        assertEquals("other subject", collectionService.getMetadataFirstValue(collection, "dc", "subject", null,
+                                                                              Item.ANY));
+    }
+
+    @Test
+    public void testManyLookupsOnLargeObject() throws Exception {
+        String[][] fields = {
+            {"description", null}, {"description", "abstract"}, {"description", "provenance"},
+            {"description", "sponsorship"}, {"description", "tableofcontents"}, {"description", "uri"},
+            {"subject", null}, {"subject", "classification"}, {"subject", "ddc"}, {"subject", "other"},
+            {"identifier", null}, {"identifier", "other"}, {"identifier", "uri"}, {"relation", null},
+            {"relation", "haspart"}, {"relation", "ispartof"}, {"relation", "uri"}, {"rights", null},
+            {"coverage", "spatial"}, {"coverage", "temporal"},
+        };
+        int valuesPerField = 250;
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < valuesPerField; i++) {
+            values.add("Value " + i);
+        }
+        for (String[] field : fields) {
+            collectionService.addMetadata(context, collection, "dc", field[0], field[1], null, values);
+        }
+        assertTrue(collection.getMetadata().size() >= fields.length * valuesPerField);
+
+        long startTime = System.currentTimeMillis();
+
+        int amount = 50000;
+        for (int i = 0; i < amount; i++) {
+            String[] field = fields[i % fields.length];
+            collectionService.getMetadataFirstValue(collection, "dc", field[0], field[1], Item.ANY);
+        }
+        long endTime = System.currentTimeMillis();
+
+        long duration = (endTime - startTime);
+
+        double maxDurationPerCall = 0.05;
+        double maxDuration = maxDurationPerCall * amount;
+        // Every call compared the fields of all 5000 values before the index was added
+        assertTrue("Duration (" + duration + ") should be smaller than " + maxDuration +
+                       " for " + amount + " lookups." +
+                       " Max of " + maxDurationPerCall + " ms per operation exceeded: " +
+                       (((double) duration) / amount) + " ms.", duration < maxDuration);
+    }
+
+    private void assertLinearScan() {
+        String[][] queries = {
+            {"dc", "description", null, null},
+            {"dc", "description", null, Item.ANY},
+            {"dc", "description", "", Item.ANY},
+            {"dc", "description", "abstract", Item.ANY},
+            {"dc", "description", "abstract", "en"},
+            {"dc", "description", Item.ANY, Item.ANY},
+            {"dc", "description", Item.ANY, "en"},
+            {"dc", "subject", null, Item.ANY},
+            {"dc", "subject", null, "nl"},
+            {"dc", Item.ANY, Item.ANY, Item.ANY},
+            {"dc", Item.ANY, null, "en"},
+            {Item.ANY, "description", Item.ANY, Item.ANY},
+            {Item.ANY, Item.ANY, Item.ANY, Item.ANY},
+            {"dcterms", "description", Item.ANY, Item.ANY},
+            {"dc", "title", null, Item.ANY},
+        };
+        CollectionServiceImpl service = (CollectionServiceImpl) collectionService;
+        for (String[] query : queries) {
+            List<MetadataValue> expected = new ArrayList<>();
+            for (MetadataValue value : collection.getMetadata()) {
+                if (service.match(query[0], query[1], query[2], query[3], value)) {
+                    expected.add(value);
+                }
+            }
+            assertEquals(String.join(".", String.valueOf(query[0]), String.valueOf(query[1]),
+                                     String.valueOf(query[2]), String.valueOf(query[3])),
+                         expected, collectionService.getMetadata(collection, query[0], query[1], query[2], query[3]));
+        }
+    }
+}
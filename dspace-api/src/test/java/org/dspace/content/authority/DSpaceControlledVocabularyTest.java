@@ -7,11 +7,16 @@
  */
 package org.dspace.content.authority;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.commons.io.FileUtils;
 import org.dspace.AbstractDSpaceTest;
 import org.dspace.content.Collection;
 import org.dspace.core.factory.CoreServiceFactory;
@@ -19,7 +24,9 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit tests for DSpaceControlledVocabulary.
@@ -27,6 +34,9 @@ import org.junit.Test;
  * @author mwood
  */
 public class DSpaceControlledVocabularyTest extends AbstractDSpaceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public DSpaceControlledVocabularyTest() {
     }
 
@@ -90,6 +100,82 @@ public class DSpaceControlledVocabularyTest extends AbstractDSpaceTest {
         assertEquals("the farm::north 40", result.values[0].value);
     }
 
+    /**
+     * Test of getMatches method with a hierarchical text, of class DSpaceControlledVocabulary.
+     */
+    @Test
+    public void testGetMatchesHierarchy() throws ClassNotFoundException {
+        DSpaceControlledVocabulary instance = getFarmVocabulary();
+        Choices result = instance.getMatches("FARM::40", 0, 10, null);
+        assertEquals(2, result.total);
+        assertEquals("the farm::north 40", result.values[0].value);
+        assertEquals("the farm::south 40", result.values[1].value);
+
+        result = instance.getMatches("the farm::40", 1, 10, null);
+        assertEquals(2, result.total);
+        assertEquals(1, result.values.length);
+        assertEquals("s40", result.values[0].authority);
+
+        result = instance.getMatches("40::farm", 0, 10, null);
+        assertEquals(0, result.total);
+    }
+
+    /**
+     * Test of getBestMatch method, of class DSpaceControlledVocabulary.
+     */
+    @Test
+    public void testGetBestMatchByLabel() throws ClassNotFoundException {
+        DSpaceControlledVocabulary instance = getFarmVocabulary();
+        Choices result = instance.getBestMatch("the farm::south 40", null);
+        assertEquals(1, result.values.length);
+        assertEquals("s40", result.values[0].authority);
+
+        result = instance.getBestMatch("south", null);
+        assertEquals(0, result.values.length);
+    }
+
+    /**
+     * Test of getTopChoices and getParentChoice methods, of class DSpaceControlledVocabulary.
+     */
+    @Test
+    public void testHierarchy() throws ClassNotFoundException {
+        DSpaceControlledVocabulary instance = getFarmVocabulary();
+        Choices result = instance.getTopChoices("farm", 0, 10, null);
+        assertEquals(2, result.total);
+        assertEquals("north 40", result.values[0].label);
+        assertEquals("false", result.values[1].extras.get("hasChildren"));
+        assertNull(instance.getParentChoice("farm", "s40", null));
+        assertEquals("the farm::south 40", instance.getValue("s40", null));
+        assertNull(instance.getChoice("missing", null));
+    }
+
+    /**
+     * Test that only the ASCII letters of the labels are folded, like the XPath translate() of the former lookups.
+     */
+    @Test
+    public void testFindContainingFoldsAsciiLettersOfLabels() throws IOException {
+        File file = folder.newFile("places.xml");
+        FileUtils.writeStringToFile(file, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<node label='Places'><isComposedBy>"
+            + "<node id='e' label='École'/><node id='o' label='Müller ÖSTERREICH'/>"
+            + "</isComposedBy></node>", StandardCharsets.UTF_8);
+        ControlledVocabularyIndex index = ControlledVocabularyIndex.get(file, "::");
+
+        assertArrayEquals(new int[] {1}, index.findContaining(new String[] {"COLE"}));
+        assertArrayEquals(new int[] {2}, index.findContaining(new String[] {"MÜLLER"}));
+        assertArrayEquals(new int[] {2}, index.findContaining(new String[] {"places", "sterreich"}));
+        assertArrayEquals(new int[0], index.findContaining(new String[] {"école"}));
+        assertArrayEquals(new int[0], index.findContaining(new String[] {"École"}));
+        assertArrayEquals(new int[0], index.findContaining(new String[] {"Österreich"}));
+    }
+
+    private DSpaceControlledVocabulary getFarmVocabulary() throws ClassNotFoundException {
+        DSpaceControlledVocabulary instance = (DSpaceControlledVocabulary) CoreServiceFactory.getInstance()
+            .getPluginService().getNamedPlugin(Class.forName("org.dspace.content.authority.ChoiceAuthority"), "farm");
+        assertNotNull(instance);
+        return instance;
+    }
+
     /**
      * Test of getBestMatch method, of class DSpaceControlledVocabulary.
      */
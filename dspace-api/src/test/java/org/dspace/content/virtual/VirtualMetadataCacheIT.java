@@ -0,0 +1,208 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.virtual;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.EntityTypeBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.builder.RelationshipBuilder;
+import org.dspace.builder.RelationshipTypeBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.EntityType;
+import org.dspace.content.Item;
+import org.dspace.content.RelationshipMetadataService;
+import org.dspace.content.RelationshipMetadataValue;
+import org.dspace.content.RelationshipType;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Constants;
+import org.dspace.event.Event;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.hibernate.Hibernate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for resolving the virtual metadata of items with many relationships, and for caching it in the
+ * {@link VirtualMetadataCache}
+ */
+public class VirtualMetadataCacheIT extends AbstractIntegrationTestWithDatabase {
+
+    private static final int AUTHORS = 12;
+
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+    private final RelationshipMetadataService relationshipMetadataService =
+        ContentServiceFactory.getInstance().getRelationshipMetadataService();
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private final VirtualMetadataCache virtualMetadataCache = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName(VirtualMetadataCache.class.getName(), VirtualMetadataCache.class);
+
+    private Item publication;
+    private final List<Item> authors = new ArrayList<>();
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        EntityType publicationType = EntityTypeBuilder.createEntityTypeBuilder(context, "Publication").build();
+        EntityType authorType = EntityTypeBuilder.createEntityTypeBuilder(context, "Person").build();
+        RelationshipType isAuthorOfPublication = RelationshipTypeBuilder
+            .createRelationshipTypeBuilder(context, publicationType, authorType, "isAuthorOfPublication",
+                                           "isPublicationOfAuthor", null, null, null, null).build();
+
+        publication = ItemBuilder.createItem(context, collection).withEntityType("Publication").build();
+        for (int i = 0; i < AUTHORS; i++) {
+            Item author = ItemBuilder.createItem(context, collection).withEntityType("Person")
+                                     .withPersonIdentifierLastName("familyName" + i)
+                                     .withPersonIdentifierFirstName("firstName" + i).build();
+            RelationshipBuilder.createRelationshipBuilder(context, publication, author, isAuthorOfPublication)
+                               .build();
+            authors.add(author);
+        }
+        context.restoreAuthSystemState();
+        context.commit();
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        configurationService.setProperty("relationship.virtual-metadata.cache.enabled", null);
+        virtualMetadataCache.afterPropertiesSet();
+        super.destroy();
+    }
+
+    @Test
+    public void testVirtualMetadataOfManyRelationships() throws Exception {
+        uncacheItems();
+        publication = context.reloadEntity(publication);
+
+        List<RelationshipMetadataValue> values = relationshipMetadataService.getRelationshipMetadata(publication,
+                                                                                                     true);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            expected.add("familyName" + i + ", firstName" + i);
+        }
+        assertEquals(expected, getAuthorNames(values));
+        assertEquals(2 * AUTHORS, values.size());
+    }
+
+    @Test
+    public void testLoadMetadata() throws Exception {
+        uncacheItems();
+        List<Item> reloaded = new ArrayList<>();
+        for (Item author : authors) {
+            reloaded.add(context.reloadEntity(author));
+        }
+        assertFalse(Hibernate.isInitialized(reloaded.get(0).getMetadata()));
+
+        itemService.loadMetadata(context, reloaded);
+
+        for (Item author : reloaded) {
+            assertTrue(Hibernate.isInitialized(author.getMetadata()));
+            assertEquals(1, itemService.getMetadata(author, "person", "familyName", null, Item.ANY).size());
+        }
+    }
+
+    @Test
+    public void testCachedVirtualMetadata() throws Exception {
+        enableCache();
+
+        List<RelationshipMetadataValue> values = relationshipMetadataService.getRelationshipMetadata(publication,
+                                                                                                     true);
+        assertEquals(1, virtualMetadataCache.size());
+
+        List<RelationshipMetadataValue> cached = relationshipMetadataService.getRelationshipMetadata(publication,
+                                                                                                     true);
+        assertEquals(values.size(), cached.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(values.get(i).getMetadataField(), cached.get(i).getMetadataField());
+            assertEquals(values.get(i).getValue(), cached.get(i).getValue());
+            assertEquals(values.get(i).getAuthority(), cached.get(i).getAuthority());
+            assertEquals(values.get(i).getPlace(), cached.get(i).getPlace());
+            assertEquals(values.get(i).isUseForPlace(), cached.get(i).isUseForPlace());
+            assertEquals(values.get(i).getDSpaceObject(), cached.get(i).getDSpaceObject());
+        }
+    }
+
+    @Test
+    public void testUpdatingRelatedItemInvalidatesCache() throws Exception {
+        enableCache();
+        relationshipMetadataService.getRelationshipMetadata(publication, true);
+        relationshipMetadataService.getRelationshipMetadata(authors.get(0), true);
+        assertEquals(2, virtualMetadataCache.size());
+
+        context.turnOffAuthorisationSystem();
+        Item author = authors.get(AUTHORS - 1);
+        itemService.clearMetadata(context, author, "person", "familyName", null, Item.ANY);
+        itemService.addMetadata(context, author, "person", "familyName", null, null, "changed");
+        itemService.update(context, author);
+        context.restoreAuthSystemState();
+
+        // the publication depends on the changed author, the other author doesn't
+        assertEquals(1, virtualMetadataCache.size());
+        assertEquals(1, virtualMetadataCache.get(authors.get(0).getID(), true).size());
+
+        // no entries are cached for the publication until the change is settled
+        List<RelationshipMetadataValue> values = relationshipMetadataService.getRelationshipMetadata(publication,
+                                                                                                     true);
+        assertEquals("changed, firstName" + (AUTHORS - 1), getAuthorNames(values).get(AUTHORS - 1));
+        assertEquals(1, virtualMetadataCache.size());
+    }
+
+    @Test
+    public void testConsumerInvalidatesCache() throws Exception {
+        enableCache();
+        relationshipMetadataService.getRelationshipMetadata(publication, true);
+        assertEquals(1, virtualMetadataCache.size());
+
+        VirtualMetadataCacheConsumer consumer = new VirtualMetadataCacheConsumer();
+        consumer.initialize();
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, authors.get(0).getID(), null));
+        consumer.end(context);
+
+        assertEquals(0, virtualMetadataCache.size());
+    }
+
+    private void uncacheItems() throws Exception {
+        context.uncacheEntity(publication);
+        for (Item author : authors) {
+            context.uncacheEntity(author);
+        }
+    }
+
+    private void enableCache() {
+        configurationService.setProperty("relationship.virtual-metadata.cache.enabled", true);
+        virtualMetadataCache.afterPropertiesSet();
+    }
+
+    private List<String> getAuthorNames(List<RelationshipMetadataValue> values) {
+        List<String> names = new ArrayList<>();
+        for (RelationshipMetadataValue value : values) {
+            if ("author".equals(value.getMetadataField().getQualifier())) {
+                names.add(value.getValue());
+            }
+        }
+        return names;
+    }
+}
@@ -23,6 +23,7 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dspace.AbstractUnitTest;
 import org.dspace.authorize.AuthorizeException;
@@ -315,6 +316,33 @@ public class ContextTest extends AbstractUnitTest {
         cleanupContext(instance);
     }
 
+    /**
+     * Test of runAfterCommit method, of class Context.
+     */
+    @Test
+    public void testRunAfterCommit() throws SQLException {
+        Context instance = new Context();
+        AtomicInteger runs = new AtomicInteger();
+        Runnable action = runs::incrementAndGet;
+
+        // added twice, run once, and only after the commit
+        instance.runAfterCommit(action);
+        instance.runAfterCommit(action);
+        assertEquals("Action should wait for the commit", 0, runs.get());
+        instance.commit();
+        assertEquals("Action should run once after the commit", 1, runs.get());
+        instance.commit();
+        assertEquals("Action should not run again", 1, runs.get());
+
+        // dropped by a rollback
+        instance.runAfterCommit(action);
+        instance.rollback();
+        instance.commit();
+        assertEquals("Action should be dropped by the rollback", 1, runs.get());
+
+        cleanupContext(instance);
+    }
+
     /**
      * Test of abort method, of class Context.
      */
@@ -0,0 +1,197 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.GroupBuilder;
+import org.dspace.content.Community;
+import org.dspace.content.MetadataField;
+import org.dspace.content.MetadataSchema;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.MetadataFieldService;
+import org.dspace.content.service.MetadataSchemaService;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.eperson.Group;
+import org.dspace.event.Event;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Integration tests for exchanging second level cache evictions with {@link ClusterCacheService}, between several
+ * nodes running in this JVM which share the test database
+ */
+public class ClusterCacheServiceIT extends AbstractIntegrationTestWithDatabase {
+
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+    private final MetadataFieldService metadataFieldService =
+        ContentServiceFactory.getInstance().getMetadataFieldService();
+    private final MetadataSchemaService metadataSchemaService =
+        ContentServiceFactory.getInstance().getMetadataSchemaService();
+    private final SessionFactory sessionFactory = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName("sessionFactory", SessionFactory.class);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private Community community;
+    private Group group;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        community = CommunityBuilder.createCommunity(context).build();
+        group = GroupBuilder.createGroup(context).build();
+        context.restoreAuthSystemState();
+        context.commit();
+
+        configurationService.setProperty("cache.cluster.enabled", true);
+        configurationService.setProperty("cache.cluster.poll-interval", 100);
+        for (int i = 0; i < 3; i++) {
+            Node node = new Node();
+            DSpaceServicesFactory.getInstance().getServiceManager().getApplicationContext()
+                                 .getAutowireCapableBeanFactory().autowireBean(node);
+            DatabaseCacheEvictionTransport transport = new DatabaseCacheEvictionTransport();
+            DSpaceServicesFactory.getInstance().getServiceManager().getApplicationContext()
+                                 .getAutowireCapableBeanFactory().autowireBean(transport);
+            node.setTransport(transport);
+            node.afterPropertiesSet();
+            nodes.add(node);
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        for (Node node : nodes) {
+            node.stop();
+        }
+        configurationService.setProperty("cache.cluster.enabled", null);
+        configurationService.setProperty("cache.cluster.poll-interval", null);
+        super.destroy();
+    }
+
+    @Test
+    public void testEvictionsReachTheOtherNodes() throws Exception {
+        ClusterCacheConsumer consumer = new ClusterCacheConsumer();
+        consumer.clusterCacheService = nodes.get(0);
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.COMMUNITY, community.getID(), null));
+        consumer.consume(context, new Event(Event.ADD, Constants.GROUP, group.getID(), Constants.EPERSON,
+                                            admin.getID(), null));
+        // items don't change the cached collections
+        consumer.consume(context, new Event(Event.ADD, Constants.COLLECTION, UUID.randomUUID(), Constants.ITEM,
+                                            UUID.randomUUID(), null));
+        consumer.end(context);
+        context.commit();
+
+        List<CacheEviction> expected = new ArrayList<>();
+        expected.add(new CacheEviction(Community.class, community.getID()));
+        expected.add(new CacheEviction(Group.class, group.getID()));
+        expected.add(new CacheEviction(EPerson.class, admin.getID()));
+
+        awaitReceived(nodes.get(1), expected.size());
+        awaitReceived(nodes.get(2), expected.size());
+        // a few more polls don't receive them again
+        Thread.sleep(500);
+        assertEquals(expected, nodes.get(1).received);
+        assertEquals(expected, nodes.get(2).received);
+        assertTrue(nodes.get(0).received.isEmpty());
+    }
+
+    @Test
+    public void testEvictFromSecondLevelCache() throws Exception {
+        // loading the field from the database puts it in the second level cache
+        MetadataField field = metadataFieldService.findByElement(context, "dc", "title", null);
+        context.uncacheEntity(field);
+        field = metadataFieldService.find(context, field.getID());
+        context.commit();
+        assertTrue(sessionFactory.getCache().containsEntity(MetadataField.class, field.getID()));
+
+        List<CacheEviction> evictions = new ArrayList<>();
+        evictions.add(new CacheEviction(MetadataField.class, field.getID()));
+        nodes.get(0).broadcast(context, evictions);
+        context.commit();
+
+        awaitReceived(nodes.get(1), 1);
+        assertFalse(sessionFactory.getCache().containsEntity(MetadataField.class, field.getID()));
+    }
+
+    @Test
+    public void testMetadataSchemaChangesAreBroadcast() throws Exception {
+        // the schema changes don't fire events, the service broadcasts them itself
+        Object clusterCacheService = ReflectionTestUtils.getField(metadataSchemaService, "clusterCacheService");
+        ReflectionTestUtils.setField(metadataSchemaService, "clusterCacheService", nodes.get(0));
+        MetadataSchema schema;
+        try {
+            context.turnOffAuthorisationSystem();
+            schema = metadataSchemaService.create(context, "cluster", "http://example.org/cluster");
+            schema.setNamespace("http://example.org/cluster/2");
+            metadataSchemaService.update(context, schema);
+            metadataSchemaService.delete(context, schema);
+            context.restoreAuthSystemState();
+            context.commit();
+        } finally {
+            ReflectionTestUtils.setField(metadataSchemaService, "clusterCacheService", clusterCacheService);
+        }
+
+        CacheEviction eviction = new CacheEviction(MetadataSchema.class, schema.getID());
+        awaitReceived(nodes.get(1), 3);
+        assertEquals(List.of(eviction, eviction, eviction), nodes.get(1).received);
+    }
+
+    @Test
+    public void testUncommittedEvictionsAreNotReceived() throws Exception {
+        List<CacheEviction> evictions = new ArrayList<>();
+        evictions.add(new CacheEviction(Community.class, community.getID()));
+        nodes.get(0).broadcast(context, evictions);
+        Thread.sleep(500);
+        assertTrue(nodes.get(1).received.isEmpty());
+
+        context.abort();
+        context = new Context();
+        Thread.sleep(500);
+        assertTrue(nodes.get(1).received.isEmpty());
+    }
+
+    private void awaitReceived(Node node, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && node.received.size() < count; i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * A node recording the evictions it receives
+     */
+    private static class Node extends ClusterCacheService {
+        private final List<CacheEviction> received = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void evict(Collection<CacheEviction> evictions) {
+            received.addAll(evictions);
+            super.evict(evictions);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.core.Context;
+import org.dspace.core.factory.CoreServiceFactory;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for curating the items of a container in parallel with the {@link Curator}
+ */
+public class CuratorParallelIT extends AbstractIntegrationTestWithDatabase {
+
+    private static final String TASK_NAME = "noop";
+    private static final String RECORDING_TASK_NAME = "parallelrecording";
+
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+    private String[] tasks;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        tasks = configurationService.getArrayProperty("plugin.named.org.dspace.curate.CurationTask");
+        configurationService.addPropertyValue("plugin.named.org.dspace.curate.CurationTask",
+                                              ParallelRecordingTask.class.getName() + " = " + RECORDING_TASK_NAME);
+        CoreServiceFactory.getInstance().getPluginService().clearNamedPluginClasses();
+        ParallelRecordingTask.threads.clear();
+        ParallelRecordingTask.contexts.clear();
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        configurationService.setProperty("plugin.named.org.dspace.curate.CurationTask", tasks);
+        CoreServiceFactory.getInstance().getPluginService().clearNamedPluginClasses();
+        super.destroy();
+    }
+
+    @Test
+    public void testCurateCommunityInParallel() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Community subCommunity = CommunityBuilder.createSubCommunity(context, community).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        Collection subCollection = CollectionBuilder.createCollection(context, subCommunity).build();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(ItemBuilder.createItem(context, i % 2 == 0 ? collection : subCollection)
+                                 .withTitle("Item " + i).build());
+        }
+        context.restoreAuthSystemState();
+        // the items are curated in contexts of their own
+        context.commit();
+
+        StringBuilder report = new StringBuilder();
+        Curator curator = new Curator();
+        curator.setReporter(report);
+        curator.setThreads(4);
+        curator.addTask(TASK_NAME);
+        curator.curate(context, community);
+
+        assertEquals(Curator.CURATE_SUCCESS, curator.getStatus(TASK_NAME));
+        for (Item item : items) {
+            assertTrue(report.toString().contains("No operation performed on " + item.getHandle()));
+        }
+    }
+
+    @Test
+    public void testCurateCollectionWithLimit() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(ItemBuilder.createItem(context, collection).withTitle("Item " + i).build());
+        }
+        context.restoreAuthSystemState();
+        context.commit();
+
+        StringBuilder report = new StringBuilder();
+        Curator curator = new Curator();
+        curator.setReporter(report);
+        curator.setThreads(2);
+        curator.setItemsPerSecond(100);
+        curator.addTask(TASK_NAME);
+        curator.curate(context, collection);
+
+        assertEquals(Curator.CURATE_SUCCESS, curator.getStatus(TASK_NAME));
+        for (Item item : items) {
+            assertTrue(report.toString().contains("No operation performed on " + item.getHandle()));
+        }
+    }
+
+    @Test
+    public void testFailedItemFailsTheTask() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        Collection otherCollection = CollectionBuilder.createCollection(context, community).build();
+        Item failing = ItemBuilder.createItem(context, collection).withTitle("Failing item").build();
+        for (int i = 0; i < 10; i++) {
+            ItemBuilder.createItem(context, i % 2 == 0 ? collection : otherCollection)
+                       .withTitle("Item " + i).build();
+        }
+        context.restoreAuthSystemState();
+        context.commit();
+
+        Curator curator = new Curator();
+        curator.setThreads(4);
+        curator.addTask(RECORDING_TASK_NAME);
+        // the collections are curated after the failing item, successfully
+        curator.curate(context, community);
+
+        assertEquals(Curator.CURATE_FAIL, curator.getStatus(RECORDING_TASK_NAME));
+        assertEquals("Failed " + failing.getHandle(), curator.getResult(RECORDING_TASK_NAME));
+    }
+
+    @Test
+    public void testItemsAreCuratedInWorkerThreads() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            items.add(ItemBuilder.createItem(context, collection).withTitle("Item " + i).build());
+        }
+        context.restoreAuthSystemState();
+        context.commit();
+
+        Curator curator = new Curator();
+        curator.setThreads(3);
+        curator.addTask(RECORDING_TASK_NAME);
+        curator.curate(context, collection);
+
+        assertEquals(Curator.CURATE_SUCCESS, curator.getStatus(RECORDING_TASK_NAME));
+        assertEquals(items.size(), ParallelRecordingTask.threads.size());
+        Set<Context> contexts = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Item item : items) {
+            assertTrue(ParallelRecordingTask.threads.get(item.getID())
+                                                    .startsWith("curation-" + RECORDING_TASK_NAME + "-"));
+            Context itemContext = ParallelRecordingTask.contexts.get(item.getID());
+            assertNotSame(context, itemContext);
+            contexts.add(itemContext);
+        }
+        // a context of its own for each item
+        assertEquals(items.size(), contexts.size());
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.app.scripts.handler.impl.TestDSpaceRunnableHandler;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.core.factory.CoreServiceFactory;
+import org.dspace.scripts.DSpaceRunnable;
+import org.dspace.scripts.configuration.ScriptConfiguration;
+import org.dspace.scripts.factory.ScriptServiceFactory;
+import org.dspace.scripts.service.ScriptService;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for the {@link DatabaseTaskQueue} and the worker mode of the {@link Curation} script
+ */
+public class DatabaseTaskQueueIT extends AbstractIntegrationTestWithDatabase {
+
+    private static final String ERROR_TASK_NAME = "error";
+
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+    private String[] tasks;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        tasks = configurationService.getArrayProperty("plugin.named.org.dspace.curate.CurationTask");
+        configurationService.addPropertyValue("plugin.named.org.dspace.curate.CurationTask",
+                                              ErrorTask.class.getName() + " = " + ERROR_TASK_NAME);
+        CoreServiceFactory.getInstance().getPluginService().clearNamedPluginClasses();
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        configurationService.setProperty("curate.taskqueue.retry-delay", null);
+        configurationService.setProperty("curate.taskqueue.max-attempts", null);
+        configurationService.setProperty("plugin.single.org.dspace.curate.TaskQueue", null);
+        configurationService.setProperty("plugin.named.org.dspace.curate.CurationTask", tasks);
+        CoreServiceFactory.getInstance().getPluginService().clearNamedPluginClasses();
+        super.destroy();
+    }
+
+    @Test
+    public void testConcurrentLeases() throws Exception {
+        DatabaseTaskQueue queue = new DatabaseTaskQueue();
+        queue.enqueue("leases", entry("123456789/1"));
+        queue.enqueue("leases", entry("123456789/2"));
+        assertTrue(ArrayUtils.contains(queue.queueNames(), "leases"));
+
+        List<TaskQueueLease> first = queue.lease("leases", "worker-1", 1);
+        List<TaskQueueLease> second = queue.lease("leases", "worker-2", 1);
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertNotEquals(first.get(0).getEntry().getObjectId(), second.get(0).getEntry().getObjectId());
+        assertEquals(Arrays.asList("noop"), first.get(0).getEntry().getTaskNames());
+        assertTrue(queue.lease("leases", "worker-3", 1).isEmpty());
+
+        queue.complete(first.get(0));
+        queue.complete(second.get(0));
+        assertFalse(ArrayUtils.contains(queue.queueNames(), "leases"));
+    }
+
+    @Test
+    public void testRetryAndDeadLetter() throws Exception {
+        configurationService.setProperty("curate.taskqueue.retry-delay", 0);
+        configurationService.setProperty("curate.taskqueue.max-attempts", 2);
+        DatabaseTaskQueue queue = new DatabaseTaskQueue();
+        queue.enqueue("retries", entry("123456789/3"));
+
+        TaskQueueLease lease = queue.lease("retries", "worker-1", 1).get(0);
+        assertEquals(1, lease.getAttempt());
+        assertNotNull(queue.fail(lease, "first failure"));
+
+        lease = queue.lease("retries", "worker-2", 1).get(0);
+        assertEquals(2, lease.getAttempt());
+        // given up on
+        assertNull(queue.fail(lease, "second failure"));
+
+        assertTrue(queue.lease("retries", "worker-1", 1).isEmpty());
+        List<TaskQueueEntry> dead = queue.findDead("retries");
+        assertEquals(1, dead.size());
+        assertEquals("123456789/3", dead.get(0).getObjectId());
+    }
+
+    @Test
+    public void testDequeueAndRelease() throws Exception {
+        DatabaseTaskQueue queue = new DatabaseTaskQueue();
+        queue.enqueue("tickets", entry("123456789/4"));
+        queue.enqueue("tickets", entry("123456789/5"));
+
+        Set<TaskQueueEntry> entries = queue.dequeue("tickets", 1L);
+        assertEquals(2, entries.size());
+        queue.release("tickets", 1L, false);
+
+        assertEquals(2, queue.dequeue("tickets", 2L).size());
+        queue.release("tickets", 2L, true);
+        assertTrue(queue.dequeue("tickets", 3L).isEmpty());
+    }
+
+    @Test
+    public void testWorkers() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        context.restoreAuthSystemState();
+
+        configurationService.setProperty("plugin.single.org.dspace.curate.TaskQueue",
+                                         DatabaseTaskQueue.class.getName());
+        DatabaseTaskQueue queue = new DatabaseTaskQueue();
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue("workers", entry(collection.getHandle()));
+        }
+        queue.enqueue("workers", entry(community.getHandle()));
+
+        TestDSpaceRunnableHandler testDSpaceRunnableHandler = runWorkers("workers");
+
+        assertEquals(Collections.emptyList(), testDSpaceRunnableHandler.getErrorMessages());
+        assertTrue(queue.lease("workers", "worker-1", -1).isEmpty());
+        assertTrue(queue.findDead("workers").isEmpty());
+    }
+
+    @Test
+    public void testWorkersRetryTaskErrors() throws Exception {
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        context.restoreAuthSystemState();
+
+        configurationService.setProperty("curate.taskqueue.retry-delay", 0);
+        configurationService.setProperty("curate.taskqueue.max-attempts", 2);
+        configurationService.setProperty("plugin.single.org.dspace.curate.TaskQueue",
+                                         DatabaseTaskQueue.class.getName());
+        DatabaseTaskQueue queue = new DatabaseTaskQueue();
+        queue.enqueue("errors", new TaskQueueEntry(admin.getEmail(), System.currentTimeMillis(),
+                                                   Arrays.asList("noop", ERROR_TASK_NAME), collection.getHandle()));
+
+        TestDSpaceRunnableHandler testDSpaceRunnableHandler = runWorkers("errors");
+
+        // the task returned an error without throwing an exception: the entry is retried, then given up on
+        List<String> errors = testDSpaceRunnableHandler.getErrorMessages();
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0).contains(ERROR_TASK_NAME + ": " + ErrorTask.RESULT));
+        assertTrue(queue.lease("errors", "worker-1", -1).isEmpty());
+        List<TaskQueueEntry> dead = queue.findDead("errors");
+        assertEquals(1, dead.size());
+        assertEquals(collection.getHandle(), dead.get(0).getObjectId());
+    }
+
+    private TestDSpaceRunnableHandler runWorkers(String queueName) throws Exception {
+        String[] args = new String[] {"curate", "-e", admin.getEmail(), "-q", queueName, "-w", "3"};
+        TestDSpaceRunnableHandler testDSpaceRunnableHandler = new TestDSpaceRunnableHandler();
+        ScriptService scriptService = ScriptServiceFactory.getInstance().getScriptService();
+        ScriptConfiguration scriptConfiguration = scriptService.getScriptConfiguration(args[0]);
+        DSpaceRunnable script = scriptService.createDSpaceRunnableForScriptConfiguration(scriptConfiguration);
+        script.initialize(args, testDSpaceRunnableHandler, null);
+        script.run();
+        return testDSpaceRunnableHandler;
+    }
+
+    private TaskQueueEntry entry(String handle) {
+        return new TaskQueueEntry(admin.getEmail(), System.currentTimeMillis(), Arrays.asList("noop"), handle);
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.io.IOException;
+
+import org.dspace.content.DSpaceObject;
+
+/**
+ * Returns an error without throwing an exception, like a task which could not reach the service it depends on.
+ */
+public class ErrorTask
+    extends AbstractCurationTask {
+    static final String RESULT = "Service unavailable";
+
+    @Override
+    public int perform(DSpaceObject dso)
+            throws IOException {
+        setResult(RESULT);
+        return Curator.CURATE_ERROR;
+    }
+}
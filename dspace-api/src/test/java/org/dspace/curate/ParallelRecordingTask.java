@@ -0,0 +1,48 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.core.Context;
+
+/**
+ * Records the thread and the context each item is curated in, for inspection. The items titled "Failing item" fail.
+ */
+public class ParallelRecordingTask
+    extends AbstractCurationTask {
+    static final Map<UUID, String> threads = new ConcurrentHashMap<>();
+    static final Map<UUID, Context> contexts = new ConcurrentHashMap<>();
+
+    @Override
+    public int perform(DSpaceObject dso)
+            throws IOException {
+        if (!(dso instanceof Item)) {
+            setResult("Curated container " + dso.getHandle());
+            return Curator.CURATE_SUCCESS;
+        }
+        threads.put(dso.getID(), Thread.currentThread().getName());
+        try {
+            contexts.put(dso.getID(), Curator.curationContext());
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if ("Failing item".equals(itemService.getMetadataFirstValue((Item) dso, "dc", "title", null, Item.ANY))) {
+            setResult("Failed " + dso.getHandle());
+            return Curator.CURATE_FAIL;
+        }
+        setResult("Curated " + dso.getHandle());
+        return Curator.CURATE_SUCCESS;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link IndexingPartition}
+ */
+public class IndexingPartitionTest {
+
+    @Test
+    public void testSplitRoundsUpToPowerOfTwo() {
+        assertEquals(1, IndexingPartition.split("Item", 0).size());
+        assertEquals(1, IndexingPartition.split("Item", 1).size());
+        assertEquals(2, IndexingPartition.split("Item", 2).size());
+        assertEquals(64, IndexingPartition.split("Item", 50).size());
+        assertEquals(IndexingPartition.MAX_PARTITIONS,
+                     IndexingPartition.split("Item", Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testSinglePartitionIsNotARange() {
+        IndexingPartition partition = IndexingPartition.split("Item", 1).get(0);
+        assertFalse(partition.isRange());
+        assertEquals("Item", partition.toString());
+    }
+
+    @Test
+    public void testParseRoundTrip() {
+        for (IndexingPartition partition : IndexingPartition.split("Item", 16)) {
+            assertEquals(partition, IndexingPartition.parse(partition.toString()));
+        }
+        assertEquals(new IndexingPartition("Collection"), IndexingPartition.parse(" Collection "));
+        assertEquals(new IndexingPartition("Item", 5, 64), IndexingPartition.parse("Item:5/64"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalidCount() {
+        IndexingPartition.parse("Item:1/3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalidIndex() {
+        IndexingPartition.parse("Item:4/4");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseNotANumber() {
+        IndexingPartition.parse("Item:a/4");
+    }
+
+    @Test
+    public void testRangesAreContiguous() {
+        List<IndexingPartition> partitions = IndexingPartition.split("Item", 8);
+        assertEquals(new UUID(0L, 0L), partitions.get(0).getLowerBound());
+        assertEquals(new UUID(-1L, -1L), partitions.get(partitions.size() - 1).getUpperBound());
+        for (int i = 1; i < partitions.size(); i++) {
+            UUID previousUpper = partitions.get(i - 1).getUpperBound();
+            UUID lower = partitions.get(i).getLowerBound();
+            assertEquals(previousUpper.getMostSignificantBits() + 1, lower.getMostSignificantBits());
+        }
+    }
+
+    @Test
+    public void testEachUUIDInExactlyOnePartition() {
+        List<IndexingPartition> partitions = IndexingPartition.split("Item", 16);
+        for (int i = 0; i < 10000; i++) {
+            UUID uuid = UUID.randomUUID();
+            int matches = 0;
+            for (IndexingPartition partition : partitions) {
+                if (partition.contains(uuid)) {
+                    matches++;
+                    // the bounds must hold for both signed and unsigned UUID comparison
+                    assertTrue(compareUnsigned(partition.getLowerBound(), uuid) <= 0);
+                    assertTrue(compareUnsigned(uuid, partition.getUpperBound()) <= 0);
+                    assertTrue(partition.getLowerBound().compareTo(uuid) <= 0);
+                    assertTrue(uuid.compareTo(partition.getUpperBound()) <= 0);
+                }
+            }
+            assertEquals(1, matches);
+        }
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        if (result == 0) {
+            result = Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+/**
+ * Unit tests for {@link SolrIndexingQueue}
+ */
+public class SolrIndexingQueueTest {
+
+    private SolrClient solr;
+    private SolrIndexingQueue queue;
+
+    @Before
+    public void setUp() {
+        solr = mock(SolrClient.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void testDocumentsAreSentInBatches() throws Exception {
+        queue = new SolrIndexingQueue(() -> solr, 100, 10, Long.MAX_VALUE, 60000, -1, 1, 0);
+        for (int i = 0; i < 25; i++) {
+            queue.add(document(i));
+        }
+        queue.shutdown();
+
+        verify(solr, times(2)).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 10), anyInt());
+        verify(solr, times(1)).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 5), anyInt());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testBatchIsSentWhenMaxBytesReached() throws Exception {
+        long size = SolrIndexingQueue.estimateSize(document(0));
+        queue = new SolrIndexingQueue(() -> solr, 100, 100, size * 2, 60000, -1, 1, 0);
+        for (int i = 0; i < 4; i++) {
+            queue.add(document(i));
+        }
+        queue.shutdown();
+
+        verify(solr, times(2)).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 2), anyInt());
+    }
+
+    @Test
+    public void testFlushWaitsForMaxAge() throws Exception {
+        queue = new SolrIndexingQueue(() -> solr, 100, 100, Long.MAX_VALUE, 50, -1, 1, 0);
+        queue.add(document(0));
+        queue.flush();
+
+        verify(solr).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 1), anyInt());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testAddsAndDeletesKeepTheirOrder() throws Exception {
+        queue = new SolrIndexingQueue(() -> solr, 100, 100, Long.MAX_VALUE, 60000, 1000, 1, 0);
+        queue.add(document(0));
+        queue.delete("Item-0");
+        queue.add(document(1));
+        queue.shutdown();
+
+        InOrder order = inOrder(solr);
+        order.verify(solr).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 1), anyInt());
+        order.verify(solr).deleteById(argThat((List<String> ids) -> ids.contains("Item-0")), anyInt());
+        order.verify(solr).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 1), anyInt());
+    }
+
+    @Test
+    public void testFailedDocumentsAreIsolatedAndCanBeRetried() throws Exception {
+        doThrow(new SolrServerException("Solr unavailable")).when(solr)
+            .add(argThat((Collection<SolrInputDocument> docs) -> docs.size() > 1 || docs.stream().anyMatch(
+                doc -> "Item-1".equals(doc.getFieldValue(SearchUtils.RESOURCE_UNIQUE_ID)))), anyInt());
+        queue = new SolrIndexingQueue(() -> solr, 100, 100, Long.MAX_VALUE, 60000, -1, 2, 0);
+        for (int i = 0; i < 3; i++) {
+            queue.add(document(i));
+        }
+        queue.shutdown();
+
+        assertEquals(1, queue.getFailedDocuments().size());
+        assertTrue(queue.getFailedDocuments().containsKey("Item-1"));
+        // twice as a batch, then once per document
+        verify(solr, times(5)).add(anyList(), anyInt());
+    }
+
+    @Test
+    public void testUnavailableSolrKeepsDocuments() throws Exception {
+        queue = new SolrIndexingQueue(() -> null, 100, 100, Long.MAX_VALUE, 60000, -1, 1, 0);
+        queue.add(document(0));
+        queue.delete("Item-1");
+        queue.shutdown();
+
+        assertEquals(1, queue.getFailedDocuments().size());
+        assertEquals(1, queue.getFailedDeletes().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAfterShutdown() throws Exception {
+        queue = new SolrIndexingQueue(() -> solr, 100, 100, Long.MAX_VALUE, 60000, -1, 1, 0);
+        queue.shutdown();
+        queue.add(document(0));
+    }
+
+    private SolrInputDocument document(int id) {
+        SolrInputDocument document = new SolrInputDocument();
+        document.addField(SearchUtils.RESOURCE_UNIQUE_ID, "Item-" + id);
+        document.addField(SearchUtils.RESOURCE_ID_FIELD, String.valueOf(id));
+        document.addField("dc.title", "Title " + id);
+        return document;
+    }
+}
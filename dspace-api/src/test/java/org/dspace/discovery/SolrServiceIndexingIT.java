@@ -0,0 +1,121 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.discovery.indexobject.IndexableItem;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for the batched indexing of the changed objects by {@link SolrServiceImpl}
+ */
+public class SolrServiceIndexingIT extends AbstractIntegrationTestWithDatabase {
+
+    private final IndexingService indexer = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName(IndexingService.class.getName(), IndexingService.class);
+
+    private MockSolrSearchCore searchCore;
+    private SolrClient solr;
+
+    private Item item;
+    private Item badItem;
+    private Item otherItem;
+    private Item deletedItem;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        searchCore = DSpaceServicesFactory.getInstance().getServiceManager()
+                                          .getServiceByName(null, MockSolrSearchCore.class);
+        solr = searchCore.getSolr();
+
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        badItem = ItemBuilder.createItem(context, collection).withTitle("Bad item").build();
+        otherItem = ItemBuilder.createItem(context, collection).withTitle("Other item").build();
+        deletedItem = ItemBuilder.createItem(context, collection).withTitle("Deleted item").build();
+        context.restoreAuthSystemState();
+
+        for (Item i : Arrays.asList(item, badItem, otherItem)) {
+            indexer.unIndexContent(context, new IndexableItem(i).getUniqueIndexID(), true);
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        searchCore.solr = solr;
+        super.destroy();
+    }
+
+    @Test
+    public void testBadDocumentDoesNotLoseTheBatch() throws Exception {
+        String badId = new IndexableItem(badItem).getUniqueIndexID();
+        SolrClient failing = spy(solr);
+        // the search core rejects the bad document, and any request which includes it
+        doAnswer(invocation -> {
+            java.util.Collection<SolrInputDocument> documents = invocation.getArgument(0);
+            for (SolrInputDocument document : documents) {
+                if (badId.equals(document.getFieldValue(SearchUtils.RESOURCE_UNIQUE_ID))) {
+                    throw new SolrServerException("bad document");
+                }
+            }
+            return invocation.callRealMethod();
+        }).when(failing).add(anyCollection());
+        doAnswer(invocation -> {
+            SolrInputDocument document = invocation.getArgument(0);
+            if (badId.equals(document.getFieldValue(SearchUtils.RESOURCE_UNIQUE_ID))) {
+                throw new SolrServerException("bad document");
+            }
+            return invocation.callRealMethod();
+        }).when(failing).add(any(SolrInputDocument.class));
+        searchCore.solr = failing;
+
+        List<IndexableObject> changed = Arrays.asList(new IndexableItem(item), new IndexableItem(badItem),
+                                                      new IndexableItem(otherItem));
+        indexer.updateIndex(context, changed,
+                            Collections.singletonList(new IndexableItem(deletedItem).getUniqueIndexID()));
+
+        assertIndexed(item, 1);
+        assertIndexed(badItem, 0);
+        assertIndexed(otherItem, 1);
+        assertIndexed(deletedItem, 0);
+    }
+
+    private void assertIndexed(Item indexed, long expected) throws Exception {
+        SolrQuery query = new SolrQuery(SearchUtils.RESOURCE_UNIQUE_ID + ":\""
+                                            + new IndexableItem(indexed).getUniqueIndexID() + "\"");
+        assertEquals(expected, solr.query(query).getResults().getNumFound());
+    }
+}
@@ -569,6 +569,71 @@ public class GroupTest extends AbstractUnitTest {
         assertFalse(groupService.isParentOf(context, topGroup, level1Group));
     }
 
+    @Test
+    public void removeMemberGroupWithOtherParent() throws SQLException, AuthorizeException, IOException {
+        Group otherGroup = createGroup("otherGroup");
+        try {
+            context.turnOffAuthorisationSystem();
+            groupService.addMember(context, otherGroup, level1Group);
+            groupService.update(context, otherGroup);
+
+            groupService.removeMember(context, topGroup, level1Group);
+            groupService.update(context, topGroup);
+
+            assertFalse(groupService.isParentOf(context, topGroup, level1Group));
+            assertFalse(groupService.isParentOf(context, topGroup, level2Group));
+            assertTrue(groupService.isParentOf(context, otherGroup, level1Group));
+            assertTrue(groupService.isParentOf(context, otherGroup, level2Group));
+            assertThat(groupService.verifyGroupCache(context, false), equalTo(0));
+        } finally {
+            groupService.delete(context, otherGroup);
+            context.restoreAuthSystemState();
+        }
+        assertFalse(groupService.isParentOf(context, otherGroup, level2Group));
+        assertThat(groupService.verifyGroupCache(context, false), equalTo(0));
+    }
+
+    @Test
+    public void deleteIntermediateGroup() throws SQLException, AuthorizeException, IOException {
+        context.turnOffAuthorisationSystem();
+        groupService.delete(context, level1Group);
+        level1Group = null;
+        context.restoreAuthSystemState();
+
+        assertFalse(groupService.isParentOf(context, topGroup, level2Group));
+        assertThat(groupService.verifyGroupCache(context, false), equalTo(0));
+    }
+
+    @Test
+    public void addMemberGroupCycle() throws SQLException, AuthorizeException {
+        context.turnOffAuthorisationSystem();
+        groupService.addMember(context, level2Group, topGroup);
+        groupService.update(context, level2Group);
+        assertTrue(groupService.isParentOf(context, level2Group, level1Group));
+        assertTrue(groupService.isParentOf(context, level1Group, topGroup));
+        assertThat(groupService.verifyGroupCache(context, false), equalTo(0));
+
+        groupService.removeMember(context, level2Group, topGroup);
+        groupService.update(context, level2Group);
+        context.restoreAuthSystemState();
+        assertFalse(groupService.isParentOf(context, level2Group, level1Group));
+        assertFalse(groupService.isParentOf(context, level1Group, topGroup));
+        assertTrue(groupService.isParentOf(context, topGroup, level2Group));
+        assertThat(groupService.verifyGroupCache(context, false), equalTo(0));
+    }
+
+    @Test
+    public void verifyGroupCacheRepair() throws SQLException {
+        ((GroupServiceImpl) groupService).group2GroupCacheDAO.deleteByGroup(context, level1Group);
+        assertFalse(groupService.isParentOf(context, topGroup, level1Group));
+
+        assertThat(groupService.verifyGroupCache(context, false), equalTo(2));
+        assertThat(groupService.verifyGroupCache(context, true), equalTo(2));
+        assertThat(groupService.verifyGroupCache(context, false), equalTo(0));
+        assertTrue(groupService.isParentOf(context, topGroup, level1Group));
+        assertTrue(groupService.isParentOf(context, level1Group, level2Group));
+    }
+
     @Test
     public void allMemberGroups() throws SQLException, AuthorizeException, EPersonDeletionException, IOException {
         EPerson ePerson = createEPersonAndAddToGroup("allMemberGroups@dspace.org", level1Group);
@@ -0,0 +1,103 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.EPersonBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.eperson.service.SubscribeService;
+import org.dspace.search.HarvestedItemInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for the grouping of subscribers into digests by {@link SubscribeCLITool}
+ */
+public class SubscribeCLIToolIT extends AbstractIntegrationTestWithDatabase {
+
+    private final SubscribeService subscribeService = EPersonServiceFactory.getInstance().getSubscribeService();
+
+    private Collection collectionA;
+    private Collection collectionB;
+    private EPerson subscriberAB;
+    private EPerson subscriberBA;
+    private EPerson subscriberB;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        collectionA = CollectionBuilder.createCollection(context, community).withName("Collection A").build();
+        collectionB = CollectionBuilder.createCollection(context, community).withName("Collection B").build();
+        subscriberAB = EPersonBuilder.createEPerson(context).withEmail("ab@example.com").build();
+        subscriberBA = EPersonBuilder.createEPerson(context).withEmail("ba@example.com").build();
+        subscriberB = EPersonBuilder.createEPerson(context).withEmail("b@example.com").build();
+        subscribeService.subscribe(context, subscriberAB, collectionA);
+        subscribeService.subscribe(context, subscriberAB, collectionB);
+        subscribeService.subscribe(context, subscriberBA, collectionB);
+        subscribeService.subscribe(context, subscriberBA, collectionA);
+        subscribeService.subscribe(context, subscriberB, collectionB);
+        context.restoreAuthSystemState();
+    }
+
+    @Test
+    public void testSubscribersWithoutNewItemsAreLeftOut() throws Exception {
+        Map<UUID, List<HarvestedItemInfo>> newItems = new HashMap<>();
+        newItems.put(collectionA.getID(), Arrays.asList(new HarvestedItemInfo()));
+        newItems.put(collectionB.getID(), new ArrayList<>());
+
+        Map<SubscribeCLITool.Digest, List<EPerson>> digests =
+            SubscribeCLITool.groupByDigest(subscribeService.findAll(context), newItems);
+
+        assertEquals(1, digests.size());
+        SubscribeCLITool.Digest digest = digests.keySet().iterator().next();
+        assertEquals(Arrays.asList(collectionA), digest.getCollections());
+        List<EPerson> subscribers = digests.get(digest);
+        assertEquals(2, subscribers.size());
+        assertTrue(subscribers.contains(subscriberAB));
+        assertTrue(subscribers.contains(subscriberBA));
+    }
+
+    @Test
+    public void testSubscribersOfTheSameCollectionsShareADigest() throws Exception {
+        Map<UUID, List<HarvestedItemInfo>> newItems = new HashMap<>();
+        newItems.put(collectionA.getID(), Arrays.asList(new HarvestedItemInfo()));
+        newItems.put(collectionB.getID(), Arrays.asList(new HarvestedItemInfo()));
+
+        Map<SubscribeCLITool.Digest, List<EPerson>> digests =
+            SubscribeCLITool.groupByDigest(subscribeService.findAll(context), newItems);
+
+        assertEquals(2, digests.size());
+        for (Map.Entry<SubscribeCLITool.Digest, List<EPerson>> digest : digests.entrySet()) {
+            if (digest.getKey().getCollections().size() == 2) {
+                assertEquals(2, digest.getValue().size());
+                assertTrue(digest.getValue().contains(subscriberAB));
+                assertTrue(digest.getValue().contains(subscriberBA));
+            } else {
+                assertEquals(Arrays.asList(collectionB), digest.getKey().getCollections());
+                assertEquals(Arrays.asList(subscriberB), digest.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.harvest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.ItemService;
+import org.dspace.harvest.factory.HarvestServiceFactory;
+import org.dspace.harvest.service.HarvestedCollectionService;
+import org.dspace.harvest.service.HarvestedItemService;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for harvesting with {@link OAIHarvester} from a local stub OAI-PMH server, which serves the
+ * canned responses in the org/dspace/harvest test resources. The records are listed in two pages.
+ */
+public class OAIHarvesterIT extends AbstractIntegrationTestWithDatabase {
+
+    private final HarvestedCollectionService harvestedCollectionService =
+        HarvestServiceFactory.getInstance().getHarvestedCollectionService();
+    private final HarvestedItemService harvestedItemService =
+        HarvestServiceFactory.getInstance().getHarvestedItemService();
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private final ConfigurationService configurationService =
+        DSpaceServicesFactory.getInstance().getConfigurationService();
+
+    private HttpServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private Collection collection;
+    private HarvestedCollection harvestedCollection;
+    // serve a second page whose last record can't be processed
+    private boolean brokenSecondPage = false;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/oai/request", this::respond);
+        server.start();
+
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        collection = CollectionBuilder.createCollection(context, community).build();
+        harvestedCollection = harvestedCollectionService.create(context, collection);
+        harvestedCollection.setHarvestParams(HarvestedCollection.TYPE_DMD, "http://localhost:" +
+            server.getAddress().getPort() + "/oai/request", "all", "dc");
+        harvestedCollectionService.update(context, harvestedCollection);
+        context.restoreAuthSystemState();
+        context.setCurrentUser(admin);
+        context.commit();
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        server.stop(0);
+        configurationService.setProperty("oai.harvester.recordThreads", null);
+        configurationService.setProperty("oai.harvester.batchSize", null);
+        configurationService.setProperty("oai.harvester.maxRequestsPerSecond", null);
+        super.destroy();
+    }
+
+    @Test
+    public void testHarvestInThreads() throws Exception {
+        configurationService.setProperty("oai.harvester.recordThreads", 3);
+        configurationService.setProperty("oai.harvester.batchSize", 2);
+
+        harvest();
+
+        assertEquals(HarvestedCollection.STATUS_READY, harvestedCollection.getHarvestStatus());
+        assertEquals(List.of("Record 1", "Record 2", "Record 3", "Record 4", "Record 5"), harvestedTitles());
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(harvestedItemService.getItemByOAIId(context, "oai:stub:" + i, collection).isArchived());
+        }
+        assertEquals(List.of("ListRecords", "ListRecords?resumptionToken=page-2"), listRequests());
+    }
+
+    @Test
+    public void testHarvestAgainInHarvestingThread() throws Exception {
+        harvest();
+        harvest();
+
+        // the records were harvested after their datestamp, so the items are kept as they are
+        assertEquals(HarvestedCollection.STATUS_READY, harvestedCollection.getHarvestStatus());
+        assertEquals(List.of("Record 1", "Record 2", "Record 3", "Record 4", "Record 5"), harvestedTitles());
+    }
+
+    @Test
+    public void testFailedHarvestDiscardsUncommittedRecords() throws Exception {
+        brokenSecondPage = true;
+
+        harvest();
+
+        // the first page was committed, record 4 was processed but not committed when record 5 failed
+        assertEquals(HarvestedCollection.STATUS_UNKNOWN_ERROR, harvestedCollection.getHarvestStatus());
+        assertEquals(List.of("Record 1", "Record 2", "Record 3"), harvestedTitles());
+        assertNull(harvestedItemService.getItemByOAIId(context, "oai:stub:4", collection));
+
+        // the harvest date was not changed, so the next cycle harvests record 4 again
+        brokenSecondPage = false;
+        harvest();
+
+        assertEquals(HarvestedCollection.STATUS_READY, harvestedCollection.getHarvestStatus());
+        assertEquals(List.of("Record 1", "Record 2", "Record 3", "Record 4", "Record 5"), harvestedTitles());
+    }
+
+    @Test
+    public void testRequestsPerSecond() throws Exception {
+        // Identify, twice ListMetadataFormats and two pages of ListRecords, the first request doesn't wait
+        configurationService.setProperty("oai.harvester.maxRequestsPerSecond", 2);
+
+        long start = System.currentTimeMillis();
+        harvest();
+
+        assertEquals(HarvestedCollection.STATUS_READY, harvestedCollection.getHarvestStatus());
+        assertEquals(5, requests.size());
+        assertTrue(System.currentTimeMillis() - start >= 1500);
+    }
+
+    private void harvest() throws Exception {
+        harvestedCollection = context.reloadEntity(harvestedCollection);
+        collection = context.reloadEntity(collection);
+        new OAIHarvester(context, collection, harvestedCollection).runHarvest();
+        harvestedCollection = context.reloadEntity(harvestedCollection);
+        collection = context.reloadEntity(collection);
+    }
+
+    private List<String> harvestedTitles() throws Exception {
+        List<String> titles = new ArrayList<>();
+        Iterator<Item> items = itemService.findByCollection(context, collection);
+        while (items.hasNext()) {
+            titles.add(itemService.getMetadataFirstValue(items.next(), "dc", "title", null, Item.ANY));
+        }
+        titles.sort(null);
+        return titles;
+    }
+
+    private List<String> listRequests() {
+        List<String> listRequests = new ArrayList<>();
+        synchronized (requests) {
+            for (String request : requests) {
+                if (request.contains("verb=ListRecords")) {
+                    listRequests.add(request.contains("resumptionToken") ? "ListRecords?resumptionToken="
+                        + request.substring(request.lastIndexOf('=') + 1) : "ListRecords");
+                }
+            }
+        }
+        return listRequests;
+    }
+
+    /**
+     * Serve the canned response for the verb of a request
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String verb = query.replaceAll(".*verb=([A-Za-z]+).*", "$1");
+        requests.add(query);
+        String resource;
+        if ("ListRecords".equals(verb)) {
+            if (!query.contains("resumptionToken=page-2")) {
+                resource = "listRecords-1.xml";
+            } else {
+                resource = brokenSecondPage ? "listRecords-2-broken.xml" : "listRecords-2.xml";
+            }
+        } else {
+            resource = Character.toLowerCase(verb.charAt(0)) + verb.substring(1) + ".xml";
+        }
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            byte[] body = IOUtils.toByteArray(in);
+            exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.oai;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.BitstreamBuilder;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.event.Event;
+import org.dspace.oai.service.OAIItemChangeService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for recording the changed items with {@link OAIItemChangeConsumer}
+ */
+public class OAIItemChangeConsumerIT extends AbstractIntegrationTestWithDatabase {
+
+    private final OAIItemChangeService oaiItemChangeService = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName(OAIItemChangeService.class.getName(), OAIItemChangeService.class);
+
+    private OAIItemChangeConsumer consumer;
+    private Collection collection;
+    private Item item;
+    private Item otherItem;
+    private Bitstream bitstream;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        collection = CollectionBuilder.createCollection(context, community).build();
+        item = ItemBuilder.createItem(context, collection).withTitle("Item").build();
+        otherItem = ItemBuilder.createItem(context, collection).withTitle("Other item").build();
+        bitstream = BitstreamBuilder.createBitstream(context, item, IOUtils.toInputStream("text",
+                                                                                         StandardCharsets.UTF_8))
+                                    .build();
+        context.restoreAuthSystemState();
+        // the builders' events are not consumed by the oai consumer
+        clearChanges();
+
+        consumer = new OAIItemChangeConsumer();
+        consumer.initialize();
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        clearChanges();
+        super.destroy();
+    }
+
+    @Test
+    public void testChangedItemsAreRecorded() throws Exception {
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        consumer.consume(context, new Event(Event.MODIFY, Constants.BITSTREAM, bitstream.getID(), null));
+        consumer.consume(context, new Event(Event.REMOVE, Constants.COLLECTION, collection.getID(),
+                                            Constants.ITEM, otherItem.getID(), null));
+        consumer.end(context);
+
+        assertEquals(sorted(item.getID(), otherItem.getID()), changedItems());
+    }
+
+    @Test
+    public void testIndexedChangesAreRemoved() throws Exception {
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        consumer.end(context);
+        List<OAIItemChange> indexed = oaiItemChangeService.findOldest(context, 10);
+
+        // the item is changed again while the first change is indexed
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        consumer.consume(context, new Event(Event.DELETE, Constants.ITEM, otherItem.getID(), null));
+        consumer.end(context);
+        assertEquals(3, oaiItemChangeService.findOldest(context, 10).size());
+        assertEquals(1, oaiItemChangeService.findOldest(context, 1).size());
+
+        List<Integer> indexedIds = new ArrayList<>();
+        for (OAIItemChange change : indexed) {
+            indexedIds.add(change.getID());
+        }
+        oaiItemChangeService.deleteByIds(context, indexedIds);
+
+        assertEquals(sorted(item.getID(), otherItem.getID()), changedItems());
+    }
+
+    @Test
+    public void testChangesRecordedDuringFullImportAreKept() throws Exception {
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        consumer.end(context);
+        Integer lastChange = oaiItemChangeService.findLastId(context);
+
+        // the other item is changed while every item is indexed
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, otherItem.getID(), null));
+        consumer.end(context);
+        oaiItemChangeService.deleteUpTo(context, lastChange, Collections.emptySet());
+
+        assertEquals(sorted(otherItem.getID()), changedItems());
+    }
+
+    @Test
+    public void testChangesOfItemsNotIndexedByFullImportAreKept() throws Exception {
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, otherItem.getID(), null));
+        consumer.end(context);
+        Integer lastChange = oaiItemChangeService.findLastId(context);
+
+        // the other item could not be indexed
+        oaiItemChangeService.deleteUpTo(context, lastChange, Collections.singleton(otherItem.getID()));
+
+        assertEquals(sorted(otherItem.getID()), changedItems());
+    }
+
+    @Test
+    public void testFindAfterSkipsEarlierChanges() throws Exception {
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        consumer.end(context);
+        Integer lastChange = oaiItemChangeService.findLastId(context);
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, otherItem.getID(), null));
+        consumer.end(context);
+
+        List<OAIItemChange> changes = oaiItemChangeService.findAfter(context, lastChange, 10);
+        assertEquals(1, changes.size());
+        assertEquals(otherItem.getID(), changes.get(0).getItemId());
+    }
+
+    private void clearChanges() throws Exception {
+        Integer lastChange = oaiItemChangeService.findLastId(context);
+        if (lastChange != null) {
+            oaiItemChangeService.deleteUpTo(context, lastChange, Collections.emptySet());
+        }
+    }
+
+    private List<UUID> changedItems() throws Exception {
+        List<UUID> changed = new ArrayList<>();
+        for (OAIItemChange change : oaiItemChangeService.findOldest(context, 10)) {
+            changed.add(change.getItemId());
+        }
+        changed.sort(null);
+        return changed;
+    }
+
+    private List<UUID> sorted(UUID... ids) {
+        List<UUID> list = new ArrayList<>(Arrays.asList(ids));
+        list.sort(null);
+        return list;
+    }
+}
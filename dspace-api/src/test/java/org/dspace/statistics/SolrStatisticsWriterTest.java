@@ -0,0 +1,137 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SolrStatisticsWriter}
+ */
+public class SolrStatisticsWriterTest {
+
+    private SolrClient solr;
+    private SolrStatisticsWriter writer;
+
+    @Before
+    public void setUp() {
+        solr = mock(SolrClient.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (writer != null) {
+            writer.shutdown(10000);
+        }
+    }
+
+    @Test
+    public void testEventsAreWrittenInBatches() throws Exception {
+        writer = new SolrStatisticsWriter(SolrStatisticsEvent::getDocument, () -> solr, 100, 1, 10, 60000, false);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(writer.offer(event(i)));
+        }
+        writer.shutdown(10000);
+
+        verify(solr, times(2)).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 10));
+        verify(solr, times(1)).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 5));
+        assertEquals(25, writer.getWrittenCount());
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    public void testFlushWaitsForMaxAge() throws Exception {
+        writer = new SolrStatisticsWriter(SolrStatisticsEvent::getDocument, () -> solr, 100, 2, 100, 50, true);
+        writer.offer(event(0));
+        writer.flush();
+
+        verify(solr).add(argThat((Collection<SolrInputDocument> docs) -> docs.size() == 1));
+        verify(solr).commit(false, false);
+        assertEquals(1, writer.getWrittenCount());
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<SolrStatisticsEvent, SolrInputDocument> slowBuilder = event -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return event.getDocument();
+        };
+        writer = new SolrStatisticsWriter(slowBuilder, () -> solr, 2, 1, 1, 0, false);
+
+        // the first event keeps the only worker busy, the next two fill the queue
+        assertTrue(writer.offer(event(0)));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(writer.offer(event(1)));
+        assertTrue(writer.offer(event(2)));
+        assertFalse(writer.offer(event(3)));
+        assertEquals(2, writer.getQueueSize());
+        assertEquals(1, writer.getDroppedCount());
+
+        release.countDown();
+        writer.shutdown(10000);
+        assertEquals(3, writer.getWrittenCount());
+    }
+
+    @Test
+    public void testSkippedAndFailedEventsAreCounted() throws Exception {
+        doThrow(new SolrServerException("Solr unavailable")).when(solr).add(anyCollection());
+        writer = new SolrStatisticsWriter(event -> "0".equals(event.getDocument().getFieldValue("id")) ? null
+                                              : event.getDocument(), () -> solr, 100, 1, 100, 60000, false);
+        for (int i = 0; i < 3; i++) {
+            writer.offer(event(i));
+        }
+        writer.shutdown(10000);
+
+        assertEquals(1, writer.getSkippedCount());
+        assertEquals(2, writer.getFailedCount());
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    public void testEventsAreDroppedAfterShutdown() throws Exception {
+        writer = new SolrStatisticsWriter(SolrStatisticsEvent::getDocument, () -> solr, 100, 1, 100, 60000, false);
+        writer.shutdown(10000);
+
+        assertFalse(writer.offer(event(0)));
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    private SolrStatisticsEvent event(int id) {
+        SolrInputDocument document = new SolrInputDocument();
+        document.addField("id", String.valueOf(id));
+        document.addField("statistics_type", "view");
+        return new SolrStatisticsEvent(document);
+    }
+}
@@ -10,6 +10,7 @@ package org.dspace.statistics.util;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Set;
 
@@ -148,6 +149,130 @@ public class IPTableTest {
         assertFalse("Nonsense string should raise an exception.", contains);
     }
 
+    /**
+     * Test of add method with CIDR, netmask and hyphenated ranges.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testAddRanges() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("10.0.0.0/8");
+        instance.add("172.16.0.0/255.240.0.0");
+        instance.add("18.");
+        instance.add("192.168.1.10-192.168.1.20");
+
+        assertTrue(instance.contains("10.255.255.255"));
+        assertFalse(instance.contains("11.0.0.0"));
+        assertTrue(instance.contains("172.31.0.1"));
+        assertFalse(instance.contains("172.32.0.1"));
+        assertTrue(instance.contains("18.7.22.69"));
+        assertFalse(instance.contains("180.7.22.69"));
+        assertTrue(instance.contains("192.168.1.10"));
+        assertTrue(instance.contains("192.168.1.20"));
+        assertFalse(instance.contains("192.168.1.9"));
+        assertFalse(instance.contains("192.168.1.21"));
+        assertEquals(4, instance.size());
+    }
+
+    /**
+     * Test of add method with malformed ranges.
+     */
+    @Test
+    public void testAddBadFormat() {
+        IPTable instance = new IPTable();
+        for (String bad : new String[] {"axolotl", "1.2.3.256", "1.2.3.4.5", "10.0.0.0/33", "10.0.0.0/255.0.255.0",
+            "1.2.3.9-1.2.3.1", "2001:db8::/129", "2001:db8:::1"}) {
+            try {
+                instance.add(bad);
+                fail(bad + " should raise an exception");
+            } catch (IPFormatException e) {
+                // expected
+            }
+        }
+        assertTrue(instance.isEmpty());
+    }
+
+    /**
+     * Test of contains method with IPv6 addresses and ranges.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testContainsIPv6() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("2001:db8::/32");
+        instance.add("fe80::1");
+        instance.add("::ffff:192.0.2.0/120");
+
+        assertTrue(instance.contains("2001:db8:0:0:0:0:0:1"));
+        assertTrue(instance.contains("2001:DB8:FFFF:FFFF:FFFF:FFFF:FFFF:FFFF"));
+        assertFalse(instance.contains("2001:db9::"));
+        assertTrue(instance.contains("fe80::1"));
+        assertTrue(instance.contains("fe80::1%eth0"));
+        assertFalse(instance.contains("fe80::2"));
+        assertTrue(instance.contains("::ffff:192.0.2.128"));
+        assertFalse(instance.contains("192.0.2.128"));
+        assertFalse(instance.contains(LOCALHOST));
+    }
+
+    /**
+     * Test that IPv4 ranges also match IPv4-mapped IPv6 addresses.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testContainsIPv4Mapped() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("192.168.1");
+        assertTrue(instance.contains("::ffff:192.168.1.1"));
+        assertTrue(instance.contains("::ffff:c0a8:101"));
+        assertFalse(instance.contains("::ffff:192.168.2.1"));
+        assertFalse(instance.contains("::192.168.1.1"));
+    }
+
+    /**
+     * Test that overlapping and adjacent ranges are merged.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testMerge() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("10.0.0.0-10.0.0.9");
+        instance.add("10.0.0.10-10.0.0.19");
+        instance.add("10.0.0.5-10.0.0.7");
+        instance.add("10.0.1.0/24");
+        instance.add("2001:db8::-2001:db8::ffff");
+        instance.add("2001:db8::1:0/112");
+        instance.add("255.255.255.255");
+        instance.add("255.255.255.254");
+        assertEquals(4, instance.size());
+        assertTrue(instance.contains("10.0.0.15"));
+        assertFalse(instance.contains("10.0.0.20"));
+        assertTrue(instance.contains("2001:db8::1:ffff"));
+        assertFalse(instance.contains("2001:db8::2:0"));
+        assertTrue(instance.contains("255.255.255.255"));
+
+        // ranges added after the first lookup are found too
+        instance.add("10.0.0.20");
+        assertTrue(instance.contains("10.0.0.20"));
+        assertEquals(4, instance.size());
+    }
+
+    /**
+     * Test of contains method with many ranges.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testManyRanges() throws Exception {
+        IPTable instance = new IPTable();
+        // every other class C network
+        for (int i = 0; i < 100000; i++) {
+            instance.add((i >> 15) + "." + (i >> 7 & 0xFF) + "." + ((i & 0x7F) << 1) + ".0/24");
+        }
+        assertEquals(100000, instance.size());
+        assertTrue(instance.contains("2.34.56.78"));
+        assertFalse(instance.contains("2.34.57.78"));
+        assertFalse(instance.contains("200.0.0.1"));
+    }
+
     /**
      * Test of toSet method, of class IPTable.
      */
@@ -8,8 +8,13 @@
 package org.dspace.statistics.util;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
 import org.dspace.AbstractDSpaceTest;
 import org.dspace.core.factory.CoreServiceFactory;
 import org.dspace.service.ClientInfoService;
@@ -18,6 +23,7 @@ import org.dspace.services.factory.DSpaceServicesFactory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * @author mwood
@@ -323,6 +329,69 @@ public class SpiderDetectorServiceImplTest extends AbstractDSpaceTest {
     }
 
 
+    /**
+     * Test that changed spider files are picked up by {@link SpiderDetectorService#reloadPatterns()}
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReloadPatterns() throws Exception {
+        String candidate = "SomeNewHarvester/1.0";
+        assertFalse("'" + candidate + "' matched agent patterns",
+                    spiderDetectorService.isSpider(NOT_A_BOT_ADDRESS, null, null, candidate));
+
+        File agentFile = new File(configurationService.getProperty("dspace.dir"),
+                                  "config/spiders/agents/reload-test");
+        try {
+            FileUtils.writeStringToFile(agentFile, "SomeNewHarvester\\/[0-9]\n", StandardCharsets.UTF_8);
+            spiderDetectorService.reloadPatterns();
+            assertTrue("'" + candidate + "' did not match the reloaded agent patterns",
+                       spiderDetectorService.isSpider(NOT_A_BOT_ADDRESS, null, null, candidate));
+        } finally {
+            FileUtils.deleteQuietly(agentFile);
+        }
+
+        spiderDetectorService.reloadPatterns();
+        assertFalse("'" + candidate + "' matched agent patterns after its file was removed",
+                    spiderDetectorService.isSpider(NOT_A_BOT_ADDRESS, null, null, candidate));
+    }
+
+    /**
+     * Test that spider files which change after they were first loaded, but before the first background check, are
+     * reloaded by that check
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReloadChangesAfterFirstLoad() throws Exception {
+        String candidate = "SomeNewHarvester/1.0";
+        // no background check yet
+        ReflectionTestUtils.setField(spiderDetectorService, "nextReloadCheck", Long.MAX_VALUE);
+        assertFalse("'" + candidate + "' matched agent patterns",
+                    spiderDetectorService.isSpider(NOT_A_BOT_ADDRESS, null, null, candidate));
+        assertNotNull("The signature of the loaded files wasn't recorded",
+                      ReflectionTestUtils.getField(spiderDetectorService, "loadedSignature"));
+
+        File agentFile = new File(configurationService.getProperty("dspace.dir"),
+                                  "config/spiders/agents/reload-test");
+        try {
+            FileUtils.writeStringToFile(agentFile, "SomeNewHarvester\\/[0-9]\n", StandardCharsets.UTF_8);
+            ReflectionTestUtils.setField(spiderDetectorService, "nextReloadCheck", 0L);
+            boolean reloaded = false;
+            for (int i = 0; i < 50 && !reloaded; i++) {
+                // the first call starts the check, the files are reloaded in the background
+                reloaded = spiderDetectorService.isSpider(NOT_A_BOT_ADDRESS, null, null, candidate);
+                if (!reloaded) {
+                    Thread.sleep(100);
+                }
+            }
+            assertTrue("'" + candidate + "' did not match the reloaded agent patterns", reloaded);
+        } finally {
+            FileUtils.deleteQuietly(agentFile);
+            ((SpiderDetectorServiceImpl) spiderDetectorService).destroy();
+        }
+    }
+
     /**
      * Method to make sure the SpiderDetector is using CaseSensitive matching again after each test
      *
@@ -0,0 +1,163 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SpiderPatternMatcher}
+ */
+public class SpiderPatternMatcherTest {
+
+    private static final List<String> USER_AGENTS = Arrays.asList(
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 "
+            + "Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10.15; rv:89.0) Gecko/20100101 Firefox/89.0",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+            + "Version/14.1.1 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+        "Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm)",
+        "msnbot/2.0b (+http://search.msn.com/msnbot.htm)",
+        "Wget/1.20.3 (linux-gnu)",
+        "curl/7.68.0",
+        "python-requests/2.25.1",
+        "Java/1.8.0_292",
+        "LOCKSS cache",
+        "Mozilla/5.0 (compatible; YandexBot/3.0; +http://yandex.com/bots)",
+        "facebookexternalhit/1.1 (+http://www.facebook.com/externalhit_uatext.php)",
+        "Mozilla/5.0 (compatible; PRTG Network Monitor (www.paessler.com); Windows)",
+        "Offline Navigator",
+        "Offline+Navigator",
+        "Zotero/5.0",
+        "");
+
+    @Test
+    public void testRequiredLiteral() {
+        assertEquals("Googlebot", SpiderPatternMatcher.getRequiredLiteral("Googlebot"));
+        assertEquals("Brutus/AET", SpiderPatternMatcher.getRequiredLiteral("Brutus\\/AET"));
+        assertEquals("Navigator", SpiderPatternMatcher.getRequiredLiteral("Offline(\\s|\\+)Navigator"));
+        assertEquals("bot/", SpiderPatternMatcher.getRequiredLiteral("^[a-z]+bot/[0-9]"));
+        assertEquals("Fetch", SpiderPatternMatcher.getRequiredLiteral("Fetchs?er"));
+        assertEquals("crawl", SpiderPatternMatcher.getRequiredLiteral("(?<!no)crawl"));
+        assertEquals("ab", SpiderPatternMatcher.getRequiredLiteral("ab+c"));
+        assertEquals("", SpiderPatternMatcher.getRequiredLiteral("[a-z]+\\d"));
+        assertNull(SpiderPatternMatcher.getRequiredLiteral("bot|crawler"));
+        assertNull(SpiderPatternMatcher.getRequiredLiteral("(?i)googlebot"));
+    }
+
+    @Test
+    public void testRequiredLiteralWithEscapes() {
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\x41bot"));
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\x{1F916}bot"));
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\u0041bot"));
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\0101bot"));
+        assertEquals("9bot", SpiderPatternMatcher.getRequiredLiteral("\\0419bot"));
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\cAbot"));
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\p{Alpha}bot"));
+        assertEquals("bot", SpiderPatternMatcher.getRequiredLiteral("\\pLbot"));
+        assertNull(SpiderPatternMatcher.getRequiredLiteral("(a)\\1bot"));
+        assertNull(SpiderPatternMatcher.getRequiredLiteral("(?<name>a)\\k<name>bot"));
+    }
+
+    @Test
+    public void testMatchesWithEscapes() {
+        SpiderPatternMatcher matcher = new SpiderPatternMatcher(Arrays.asList(
+            "\\x41Bot", "\\u0043ar", "x\\0103y", "(ab)\\1z", "(?<c>cd)\\k<c>w"));
+        assertEquals(5, matcher.size());
+        assertTrue(matcher.matches("ABot"));
+        assertFalse(matcher.matches("41Bot"));
+        assertTrue(matcher.matches("Car"));
+        assertFalse(matcher.matches("u0043ar"));
+        assertTrue(matcher.matches("xCy"));
+        assertFalse(matcher.matches("x103y"));
+        assertTrue(matcher.matches("ababz"));
+        assertFalse(matcher.matches("ab1z"));
+        assertTrue(matcher.matches("cdcdw"));
+        assertFalse(matcher.matches("cdk<c>w"));
+    }
+
+    @Test
+    public void testMatches() {
+        SpiderPatternMatcher matcher = new SpiderPatternMatcher(Arrays.asList(
+            "Googlebot", "^Wget\\/[0-9]", "Offline(\\s|\\+)Navigator", "spider|crawler", "[a-z]+bot\\/2"));
+        assertEquals(5, matcher.size());
+        assertTrue(matcher.matches("Mozilla/5.0 (compatible; Googlebot/2.1)"));
+        assertTrue(matcher.matches("Wget/1.20.3 (linux-gnu)"));
+        assertFalse(matcher.matches("GNU Wget/1.20.3"));
+        assertTrue(matcher.matches("Offline+Navigator"));
+        assertFalse(matcher.matches("Offline-Navigator"));
+        assertTrue(matcher.matches("a web crawler"));
+        assertTrue(matcher.matches("msnbot/2.0b"));
+        assertFalse(matcher.matches("MSNBot/2.0b"));
+        assertFalse(matcher.matches("Mozilla/5.0 Firefox/89.0"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void testOverlappingLiterals() {
+        SpiderPatternMatcher matcher = new SpiderPatternMatcher(Arrays.asList("abcd", "bce", "c\\d"));
+        assertTrue(matcher.matches("xabce"));
+        assertTrue(matcher.matches("abc1"));
+        assertFalse(matcher.matches("abcx"));
+    }
+
+    @Test
+    public void testInvalidPatternsAreIgnored() {
+        SpiderPatternMatcher matcher = new SpiderPatternMatcher(Arrays.asList("valid", "(invalid"));
+        assertEquals(1, matcher.size());
+        assertTrue(matcher.matches("a valid agent"));
+    }
+
+    @Test
+    public void testMatchesLikeLinearScanOfShippedAgents() throws Exception {
+        String dspaceDir = System.getProperty("dspace.dir");
+        assumeTrue(dspaceDir != null);
+        File agentsDir = new File(dspaceDir, "config/spiders/agents");
+        File[] files = agentsDir.listFiles();
+        assumeTrue(files != null && files.length > 0);
+
+        List<String> expressions = new ArrayList<>();
+        for (File file : files) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.startsWith("#") && !line.trim().isEmpty()) {
+                    expressions.add(line.trim());
+                }
+            }
+        }
+        List<Pattern> patterns = new ArrayList<>();
+        for (String expression : expressions) {
+            patterns.add(Pattern.compile(expression));
+        }
+        SpiderPatternMatcher matcher = new SpiderPatternMatcher(expressions);
+        assertEquals(expressions.size(), matcher.size());
+
+        List<String> agents = new ArrayList<>(USER_AGENTS);
+        for (String agent : USER_AGENTS) {
+            agents.add(agent.toLowerCase(Locale.ROOT));
+        }
+        for (String agent : agents) {
+            boolean expected = patterns.stream().anyMatch(pattern -> pattern.matcher(agent).find());
+            assertEquals("Unexpected result for " + agent, expected, matcher.matches(agent));
+        }
+    }
+}
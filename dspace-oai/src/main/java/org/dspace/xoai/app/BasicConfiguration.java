@@ -34,6 +34,8 @@ import org.dspace.xoai.services.impl.cache.DSpaceEmptyCacheService;
 import org.dspace.xoai.services.impl.cache.DSpaceXOAICacheService;
 import org.dspace.xoai.services.impl.cache.DSpaceXOAIItemCacheService;
 import org.dspace.xoai.services.impl.cache.DSpaceXOAILastCompilationCacheService;
+import org.dspace.xoai.services.impl.cache.SegmentStoreXOAICacheService;
+import org.dspace.xoai.services.impl.cache.SegmentStoreXOAIItemCacheService;
 import org.dspace.xoai.services.impl.config.DSpaceConfigurationService;
 import org.dspace.xoai.services.impl.context.DSpaceContextService;
 import org.dspace.xoai.services.impl.context.DSpaceXOAIManagerResolver;
@@ -77,6 +79,9 @@ public class BasicConfiguration {
     public XOAICacheService xoaiCacheService() {
         if (configurationService().getBooleanProperty("oai", "cache.enabled", true)) {
             try {
+                if (useSegmentStore()) {
+                    return new SegmentStoreXOAICacheService(xoaiManagerResolver().getManager());
+                }
                 return new DSpaceXOAICacheService(xoaiManagerResolver().getManager());
             } catch (XOAIManagerResolverException e) {
                 log.error("Not able to start XOAI normal cache service.", e);
@@ -94,9 +99,16 @@ public class BasicConfiguration {
 
     @Bean
     public XOAIItemCacheService xoaiItemCacheService() {
+        if (useSegmentStore()) {
+            return new SegmentStoreXOAIItemCacheService();
+        }
         return new DSpaceXOAIItemCacheService();
     }
 
+    private boolean useSegmentStore() {
+        return "segment".equals(configurationService().getProperty("oai", "cache.store"));
+    }
+
 
     @Bean
     public ResourceResolver resourceResolver() {
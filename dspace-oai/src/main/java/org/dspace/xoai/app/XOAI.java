@@ -18,10 +18,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.stream.XMLStreamException;
 
 import com.lyncode.xoai.dataprovider.exceptions.ConfigurationException;
@@ -32,6 +41,7 @@ import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrClient;
@@ -54,6 +64,8 @@ import org.dspace.content.factory.ContentServiceFactory;
 import org.dspace.content.service.ItemService;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
+import org.dspace.oai.OAIItemChange;
+import org.dspace.oai.service.OAIItemChangeService;
 import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
 import org.dspace.util.SolrUtils;
@@ -63,7 +75,10 @@ import org.dspace.xoai.services.api.CollectionsService;
 import org.dspace.xoai.services.api.cache.XOAICacheService;
 import org.dspace.xoai.services.api.cache.XOAIItemCacheService;
 import org.dspace.xoai.services.api.cache.XOAILastCompilationCacheService;
+import org.dspace.xoai.services.api.config.XOAIManagerResolver;
+import org.dspace.xoai.services.api.config.XOAIManagerResolverException;
 import org.dspace.xoai.services.api.solr.SolrServerResolver;
+import org.dspace.xoai.services.impl.resources.PrecomputedRecords;
 import org.dspace.xoai.solr.DSpaceSolrSearch;
 import org.dspace.xoai.solr.exceptions.DSpaceSolrException;
 import org.dspace.xoai.solr.exceptions.DSpaceSolrIndexerException;
@@ -81,6 +96,7 @@ public class XOAI {
     private boolean optimize;
     private final boolean verbose;
     private boolean clean;
+    private boolean changesOnly;
 
     @Autowired
     private SolrServerResolver solrServerResolver;
@@ -90,16 +106,19 @@ public class XOAI {
     private XOAIItemCacheService xoaiItemCacheService;
     @Autowired
     private CollectionsService collectionsService;
+    @Autowired
+    private XOAIManagerResolver xoaiManagerResolver;
 
     private final AuthorizeService authorizeService;
     private final ItemService itemService;
+    private final OAIItemChangeService oaiItemChangeService;
 
     private final static ConfigurationService configurationService = DSpaceServicesFactory
             .getInstance().getConfigurationService();
 
     private List<XOAIExtensionItemCompilePlugin> extensionPlugins;
 
-    private List<String> getFileFormats(Item item) {
+    private List<String> getFileFormats(Context context, Item item) {
         List<String> formats = new ArrayList<>();
         try {
             for (Bundle b : itemService.getBundles(item, "ORIGINAL")) {
@@ -116,14 +135,28 @@ public class XOAI {
     }
 
     public XOAI(Context context, boolean optimize, boolean clean, boolean verbose) {
+        this(context, optimize, clean, false, verbose);
+    }
+
+    /**
+     * @param context     the context to index with
+     * @param optimize    optimize the index at the end
+     * @param clean       clear the index and index all items
+     * @param changesOnly index only the items recorded in the log of changes by the oai event consumer
+     * @param verbose     verbose output
+     */
+    public XOAI(Context context, boolean optimize, boolean clean, boolean changesOnly, boolean verbose) {
         this.context = context;
         this.optimize = optimize;
         this.clean = clean;
+        this.changesOnly = changesOnly;
         this.verbose = verbose;
 
         // Load necessary DSpace services
         this.authorizeService = AuthorizeServiceFactory.getInstance().getAuthorizeService();
         this.itemService = ContentServiceFactory.getInstance().getItemService();
+        this.oaiItemChangeService = new DSpace().getServiceManager()
+                .getServiceByName(OAIItemChangeService.class.getName(), OAIItemChangeService.class);
         this.extensionPlugins = new DSpace().getServiceManager()
                 .getServicesByType(XOAIExtensionItemCompilePlugin.class);
     }
@@ -135,6 +168,8 @@ public class XOAI {
         // Load necessary DSpace services
         this.authorizeService = AuthorizeServiceFactory.getInstance().getAuthorizeService();
         this.itemService = ContentServiceFactory.getInstance().getItemService();
+        this.oaiItemChangeService = new DSpace().getServiceManager()
+                .getServiceByName(OAIItemChangeService.class.getName(), OAIItemChangeService.class);
         this.extensionPlugins = new DSpace().getServiceManager()
                 .getServicesByType(XOAIExtensionItemCompilePlugin.class);
     }
@@ -148,10 +183,18 @@ public class XOAI {
         try {
 
             if (clean) {
+                // the changes recorded while indexing are kept for the next incremental import
+                Integer lastChange = oaiItemChangeService.findLastId(context);
+                Set<UUID> failed = new HashSet<>();
                 clearIndex();
                 System.out.println("Using full import.");
-                result = this.indexAll();
+                result = this.indexAll(failed);
+                removeChangesUpTo(lastChange, failed);
+            } else if (changesOnly) {
+                result = this.indexChanges();
             } else {
+                Integer lastChange = oaiItemChangeService.findLastId(context);
+                Set<UUID> failed = new HashSet<>();
                 SolrQuery solrParams = new SolrQuery("*:*")
                     .addField("item.lastmodified")
                     .addSort("item.lastmodified", ORDER.desc).setRows(1);
@@ -159,11 +202,12 @@ public class XOAI {
                 SolrDocumentList results = DSpaceSolrSearch.query(solrServerResolver.getServer(), solrParams);
                 if (results.getNumFound() == 0) {
                     System.out.println("There are no indexed documents, using full import.");
-                    result = this.indexAll();
+                    result = this.indexAll(failed);
                 } else {
-                    result = this.index((Date) results.get(0).getFieldValue("item.lastmodified"));
+                    result = this.index((Date) results.get(0).getFieldValue("item.lastmodified"), failed);
                 }
-
+                // the changes recorded before the import have been indexed too
+                removeChangesUpTo(lastChange, failed);
             }
             solrServerResolver.getServer().commit();
 
@@ -177,12 +221,203 @@ public class XOAI {
             // Set last compilation date
             xoaiLastCompilationCacheService.put(new Date());
             return result;
-        } catch (DSpaceSolrException | SolrServerException | IOException ex) {
+        } catch (DSpaceSolrException | SolrServerException | IOException | SQLException ex) {
+            throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Index the items recorded in the log of changes, in batches of <code>oai.import.batch.size</code> changes
+     * compiled in <code>oai.import.threads</code> threads, and remove the indexed changes from the log. The changes
+     * of the items which could not be indexed are kept, to be indexed by the next import. The items whose visibility
+     * changed because an embargo started or ended are indexed too, since that isn't an event.
+     *
+     * @return the number of indexed (or removed) items
+     * @throws DSpaceSolrIndexerException if the items could not be indexed
+     */
+    private int indexChanges() throws DSpaceSolrIndexerException {
+        System.out.println("Incremental import of the changed items.");
+        int batchSize = configurationService.getIntProperty("oai.import.batch.size", 1000);
+        int threads = Math.max(1, configurationService.getIntProperty("oai.import.threads", 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+            .namingPattern("oai-import-%d").daemon(true).build());
+        try {
+            SolrClient server = solrServerResolver.getServer();
+            int total = 0;
+            int kept = 0;
+            List<OAIItemChange> changes = oaiItemChangeService.findOldest(context, batchSize);
+            while (!changes.isEmpty()) {
+                Set<UUID> ids = new LinkedHashSet<>();
+                for (OAIItemChange change : changes) {
+                    ids.add(change.getItemId());
+                }
+                Set<UUID> failed = new HashSet<>();
+                total += indexItems(new ArrayList<>(ids), null, executor, threads, failed);
+                server.commit();
+                List<Integer> indexed = new ArrayList<>();
+                for (OAIItemChange change : changes) {
+                    if (!failed.contains(change.getItemId())) {
+                        indexed.add(change.getID());
+                    }
+                }
+                removeChanges(indexed);
+                kept += changes.size() - indexed.size();
+                System.out.println(total + " items imported so far...");
+                // the kept changes are skipped until the next import
+                int lastId = changes.get(changes.size() - 1).getID();
+                changes = oaiItemChangeService.findAfter(context, lastId, batchSize);
+            }
+
+            Map<UUID, Date> possiblyChanged = getItemsWithPossibleChanges();
+            total += indexItems(new ArrayList<>(possiblyChanged.keySet()), possiblyChanged, executor, threads,
+                                new HashSet<>());
+            System.out.println("Total: " + total + " items");
+            if (kept > 0) {
+                System.out.println(kept + " changes of items which could not be indexed are kept");
+            }
+            return total;
+        } catch (SQLException | SolrServerException | IOException ex) {
             throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Index the items with the given IDs, and remove the items which no longer exist, or are no longer archived or
+     * withdrawn, from the index. Each thread compiles part of the items with a context of its own.
+     *
+     * @param ids            the IDs of the items
+     * @param lastModified   the last modification dates of items in the index, to skip the items whose most recent
+     *                       modification date didn't change since; null to index every item
+     * @param executor       the executor of the threads
+     * @param threads        the number of threads
+     * @param failed         the IDs of the items which could not be indexed, to add to
+     * @return the number of indexed (or removed) items
+     */
+    private int indexItems(List<UUID> ids, Map<UUID, Date> lastModified, ExecutorService executor, int threads,
+                           Set<UUID> failed)
+        throws DSpaceSolrIndexerException, SolrServerException, IOException, SQLException {
+        List<CompiledItems> results = new ArrayList<>();
+        if (threads == 1 || ids.size() < 2) {
+            results.add(compileItems(context, ids, lastModified));
+        } else {
+            List<Future<CompiledItems>> futures = new ArrayList<>();
+            int partSize = (ids.size() + threads - 1) / threads;
+            for (int from = 0; from < ids.size(); from += partSize) {
+                List<UUID> part = ids.subList(from, Math.min(ids.size(), from + partSize));
+                futures.add(executor.submit(() -> {
+                    Context partContext = new Context(Context.Mode.READ_ONLY);
+                    try {
+                        return compileItems(partContext, part, lastModified);
+                    } finally {
+                        partContext.abort();
+                    }
+                }));
+            }
+            try {
+                for (Future<CompiledItems> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
+            }
+        }
+
+        SolrClient server = solrServerResolver.getServer();
+        int indexed = 0;
+        for (CompiledItems result : results) {
+            if (!result.documents.isEmpty()) {
+                server.add(result.documents);
+            }
+            for (UUID removed : result.removed) {
+                server.deleteByQuery("item.id:" + removed);
+            }
+            indexed += result.documents.size() + result.removed.size();
+            failed.addAll(result.failed);
         }
+        return indexed;
     }
 
-    private int index(Date last) throws DSpaceSolrIndexerException, IOException {
+    /**
+     * Compile the Solr documents of items
+     *
+     * @param context      the context to compile them with
+     * @param ids          the IDs of the items
+     * @param lastModified the last modification dates of items in the index, or null
+     * @return the documents, the IDs of the items to remove from the index and the IDs of the items which could not
+     *         be indexed
+     */
+    private CompiledItems compileItems(Context context, List<UUID> ids, Map<UUID, Date> lastModified)
+        throws SQLException {
+        CompiledItems result = new CompiledItems();
+        for (UUID id : ids) {
+            Item item = itemService.find(context, id);
+            if (item == null || !(item.isArchived() || item.isWithdrawn())) {
+                result.removed.add(id);
+                continue;
+            }
+            try {
+                if (item.getHandle() == null) {
+                    log.warn("Skipped item without handle: " + item.getID());
+                    result.failed.add(id);
+                } else if (lastModified == null || lastModified.get(id) == null
+                    || this.getMostRecentModificationDate(context, item).after(lastModified.get(id))) {
+                    result.documents.add(this.index(context, item));
+                }
+            } catch (SQLException | IOException | XMLStreamException | WritingXmlException ex) {
+                log.error(ex.getMessage(), ex);
+                result.failed.add(id);
+            }
+            //Uncache the item to keep memory consumption low
+            context.uncacheEntity(item);
+        }
+        return result;
+    }
+
+    /**
+     * The Solr documents compiled by {@link #compileItems(Context, List, Map)}
+     */
+    private static class CompiledItems {
+        private final List<SolrInputDocument> documents = new ArrayList<>();
+        private final List<UUID> removed = new ArrayList<>();
+        private final List<UUID> failed = new ArrayList<>();
+    }
+
+    /**
+     * Remove changes from the log of changes, once they have been indexed. The changes recorded since are kept.
+     *
+     * @param ids the IDs of the changes
+     * @throws SQLException if database error
+     */
+    private void removeChanges(List<Integer> ids) throws SQLException {
+        Context.Mode mode = context.getCurrentMode();
+        context.setMode(Context.Mode.READ_WRITE);
+        oaiItemChangeService.deleteByIds(context, ids);
+        context.commit();
+        context.setMode(mode);
+    }
+
+    /**
+     * Remove the changes recorded up to the given change from the log of changes, once every item has been indexed.
+     * The changes of the items which could not be indexed, and the changes recorded since, are kept.
+     *
+     * @param lastId the ID of the last change recorded before indexing, or null if there were no changes
+     * @param failed the IDs of the items which could not be indexed
+     * @throws SQLException if database error
+     */
+    private void removeChangesUpTo(Integer lastId, Set<UUID> failed) throws SQLException {
+        if (lastId == null) {
+            return;
+        }
+        Context.Mode mode = context.getCurrentMode();
+        context.setMode(Context.Mode.READ_WRITE);
+        oaiItemChangeService.deleteUpTo(context, lastId, failed);
+        context.commit();
+        context.setMode(mode);
+    }
+
+    private int index(Date last, Set<UUID> failed) throws DSpaceSolrIndexerException, IOException {
         System.out
             .println("Incremental import. Searching for documents modified after: "
                          + last.toString());
@@ -196,8 +431,8 @@ public class XOAI {
             Iterator<Item> nonDiscoverableChangedItems = itemService
                     .findInArchiveOrWithdrawnNonDiscoverableModifiedSince(context, last);
             Iterator<Item> possiblyChangedItems = getItemsWithPossibleChangesBefore(last);
-            return this.index(discoverableChangedItems) + this.index(nonDiscoverableChangedItems)
-                    + this.index(possiblyChangedItems);
+            return this.index(discoverableChangedItems, failed) + this.index(nonDiscoverableChangedItems, failed)
+                    + this.index(possiblyChangedItems, failed);
         } catch (SQLException ex) {
             throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
         }
@@ -217,23 +452,46 @@ public class XOAI {
      */
     private Iterator<Item> getItemsWithPossibleChangesBefore(Date last) throws DSpaceSolrIndexerException, IOException {
         try {
-            SolrQuery params = new SolrQuery("item.willChangeStatus:true").addField("item.id");
-            SolrDocumentList documents = DSpaceSolrSearch.query(solrServerResolver.getServer(), params);
             List<Item> items = new LinkedList<>();
-            for (int i = 0; i < documents.getNumFound(); i++) {
-                Item item = itemService.find(context,
-                        UUID.fromString((String) documents.get(i).getFieldValue("item.id")));
-                if (item.getLastModified().before(last)) {
+            for (UUID id : getItemsWithPossibleChanges().keySet()) {
+                Item item = itemService.find(context, id);
+                if (item != null && item.getLastModified().before(last)) {
                     items.add(item);
                 }
             }
             return items.iterator();
-        } catch (SolrServerException | SQLException | DSpaceSolrException ex) {
+        } catch (SQLException ex) {
             throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
         }
     }
 
-    private int indexAll() throws DSpaceSolrIndexerException {
+    /**
+     * Get all items in the index which are viable to change visibility due to an embargo.
+     *
+     * @return the last modification dates in the index of these items, by item ID
+     * @throws DSpaceSolrIndexerException
+     */
+    private Map<UUID, Date> getItemsWithPossibleChanges() throws DSpaceSolrIndexerException, IOException {
+        try {
+            SolrQuery params = new SolrQuery("item.willChangeStatus:true")
+                .addField("item.id").addField("item.lastmodified");
+            SolrDocumentList documents = DSpaceSolrSearch.query(solrServerResolver.getServer(), params);
+            if (documents.getNumFound() > documents.size()) {
+                params.setRows((int) documents.getNumFound());
+                documents = DSpaceSolrSearch.query(solrServerResolver.getServer(), params);
+            }
+            Map<UUID, Date> items = new HashMap<>();
+            for (int i = 0; i < documents.size(); i++) {
+                items.put(UUID.fromString((String) documents.get(i).getFieldValue("item.id")),
+                          (Date) documents.get(i).getFieldValue("item.lastmodified"));
+            }
+            return items;
+        } catch (SolrServerException | DSpaceSolrException ex) {
+            throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
+        }
+    }
+
+    private int indexAll(Set<UUID> failed) throws DSpaceSolrIndexerException {
         System.out.println("Full import");
         try {
             // Index both in_archive items AND withdrawn items. Withdrawn items
@@ -243,7 +501,7 @@ public class XOAI {
                     null);
             Iterator<Item> nonDiscoverableItems = itemService
                     .findInArchiveOrWithdrawnNonDiscoverableModifiedSince(context, null);
-            return this.index(discoverableItems) + this.index(nonDiscoverableItems);
+            return this.index(discoverableItems, failed) + this.index(nonDiscoverableItems, failed);
         } catch (SQLException ex) {
             throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
         }
@@ -287,7 +545,7 @@ public class XOAI {
         }
     }
 
-    private int index(Iterator<Item> iterator)
+    private int index(Iterator<Item> iterator, Set<UUID> failed)
         throws DSpaceSolrIndexerException {
         try {
             int i = 0;
@@ -295,18 +553,20 @@ public class XOAI {
             SolrClient server = solrServerResolver.getServer();
             ArrayList<SolrInputDocument> list = new ArrayList<>();
             while (iterator.hasNext()) {
+                Item item = iterator.next();
                 try {
-                    Item item = iterator.next();
                     if (item.getHandle() == null) {
                         log.warn("Skipped item without handle: " + item.getID());
+                        failed.add(item.getID());
                     } else {
-                        list.add(this.index(item));
+                        list.add(this.index(context, item));
                     }
                     //Uncache the item to keep memory consumption low
                     context.uncacheEntity(item);
 
                 } catch (SQLException | IOException | XMLStreamException | WritingXmlException ex) {
                     log.error(ex.getMessage(), ex);
+                    failed.add(item.getID());
                 }
                 i++;
                 if (i % 1000 == 0 && batchSize != 1000) {
@@ -343,7 +603,7 @@ public class XOAI {
      * @return date
      * @throws SQLException
      */
-    private Date getMostRecentModificationDate(Item item) throws SQLException {
+    private Date getMostRecentModificationDate(Context context, Item item) throws SQLException {
         List<Date> dates = new LinkedList<>();
         List<ResourcePolicy> policies = authorizeService.getPoliciesActionFilter(context, item, Constants.READ);
         for (ResourcePolicy policy : policies) {
@@ -369,7 +629,7 @@ public class XOAI {
         return lastChange;
     }
 
-    private SolrInputDocument index(Item item)
+    private SolrInputDocument index(Context context, Item item)
             throws SQLException, IOException, XMLStreamException, WritingXmlException {
         SolrInputDocument doc = new SolrInputDocument();
         doc.addField("item.id", item.getID().toString());
@@ -377,7 +637,7 @@ public class XOAI {
         String handle = item.getHandle();
         doc.addField("item.handle", handle);
 
-        boolean isEmbargoed = !this.isPublic(item);
+        boolean isEmbargoed = !this.isPublic(context, item);
         boolean isCurrentlyVisible = this.checkIfVisibleInOAI(item);
         boolean isIndexed = this.checkIfIndexed(item);
 
@@ -401,7 +661,7 @@ public class XOAI {
         // if the visibility of the item will change in the future due to an
         // embargo, mark it as such.
 
-        doc.addField("item.willChangeStatus", willChangeStatus(item));
+        doc.addField("item.willChangeStatus", willChangeStatus(context, item));
 
         /*
          * Mark an item as deleted not only if it is withdrawn, but also if it
@@ -424,7 +684,7 @@ public class XOAI {
          * most recent of those which have already passed.
          */
         doc.addField("item.lastmodified", SolrUtils.getDateFormatter()
-                .format(this.getMostRecentModificationDate(item)));
+                .format(this.getMostRecentModificationDate(context, item)));
 
         if (item.getSubmitter() != null) {
             doc.addField("item.submitter", item.getSubmitter().getEmail());
@@ -451,7 +711,7 @@ public class XOAI {
             }
         }
 
-        for (String f : getFileFormats(item)) {
+        for (String f : getFileFormats(context, item)) {
             doc.addField("metadata.dc.format.mimetype", f);
         }
 
@@ -473,7 +733,21 @@ public class XOAI {
         metadata.write(xmlContext);
         xmlContext.getWriter().flush();
         xmlContext.getWriter().close();
-        doc.addField("item.compile", out.toString());
+        String compiled = out.toString();
+        doc.addField("item.compile", compiled);
+
+        List<String> precomputedFormats = Arrays.asList(
+            configurationService.getArrayProperty("oai.import.precompute.formats"));
+        if (!precomputedFormats.isEmpty()) {
+            try {
+                for (String record : PrecomputedRecords.precompute(xoaiManagerResolver.getManager(), compiled,
+                                                                   precomputedFormats)) {
+                    doc.addField(PrecomputedRecords.FIELD, record);
+                }
+            } catch (XOAIManagerResolverException e) {
+                throw new IOException(e);
+            }
+        }
 
         if (verbose) {
             println(String.format("Item %s with handle %s indexed",
@@ -483,7 +757,7 @@ public class XOAI {
         return doc;
     }
 
-    private boolean willChangeStatus(Item item) throws SQLException {
+    private boolean willChangeStatus(Context context, Item item) throws SQLException {
         List<ResourcePolicy> policies = authorizeService.getPoliciesActionFilter(context, item, Constants.READ);
         for (ResourcePolicy policy : policies) {
             if ((policy.getGroup() != null) && (policy.getGroup().getName().equals("Anonymous"))) {
@@ -499,7 +773,7 @@ public class XOAI {
         return false;
     }
 
-    private boolean isPublic(Item item) {
+    private boolean isPublic(Context context, Item item) {
         boolean pub = false;
         try {
             // Check if READ access allowed on this Item
@@ -571,6 +845,8 @@ public class XOAI {
             CommandLineParser parser = new DefaultParser();
             Options options = new Options();
             options.addOption("c", "clear", false, "Clear index before indexing");
+            options.addOption("e", "changes", false,
+                              "Index only the items changed since the last import, as recorded by the oai consumer");
             options.addOption("o", "optimize", false,
                               "Optimize index at the end");
             options.addOption("v", "verbose", false, "Verbose output");
@@ -610,6 +886,7 @@ public class XOAI {
                     XOAI indexer = new XOAI(ctx,
                                             line.hasOption('o'),
                                             line.hasOption('c'),
+                                            line.hasOption('e'),
                                             line.hasOption('v'));
 
                     applicationContext.getAutowireCapableBeanFactory().autowireBean(indexer);
@@ -699,6 +976,8 @@ public class XOAI {
             System.out.println("> Parameters:");
             System.out.println("     -o Optimize index after indexing (" + COMMAND_IMPORT + " only)");
             System.out.println("     -c Clear index (" + COMMAND_IMPORT + " only)");
+            System.out.println("     -e Index only the items recorded as changed by the oai event consumer ("
+                                   + COMMAND_IMPORT + " only)");
             System.out.println("     -v Verbose output");
             System.out.println("     -h Shows this text");
         } else {
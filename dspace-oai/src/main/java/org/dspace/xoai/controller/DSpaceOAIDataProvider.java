@@ -38,6 +38,7 @@ import org.dspace.xoai.services.api.context.ContextServiceException;
 import org.dspace.xoai.services.api.xoai.IdentifyResolver;
 import org.dspace.xoai.services.api.xoai.ItemRepositoryResolver;
 import org.dspace.xoai.services.api.xoai.SetRepositoryResolver;
+import org.dspace.xoai.services.impl.resources.PrecomputedRecords;
 import org.dspace.xoai.services.impl.xoai.DSpaceResumptionTokenFormatter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -109,14 +110,19 @@ public class DSpaceOAIDataProvider {
 
             String identification = xoaiContext + parameters.requestID();
 
-            if (cacheService.isActive()) {
-                if (!cacheService.hasCache(identification)) {
-                    cacheService.store(identification, dataProvider.handle(parameters));
-                }
+            PrecomputedRecords.begin();
+            try {
+                if (cacheService.isActive()) {
+                    if (!cacheService.hasCache(identification)) {
+                        cacheService.store(identification, dataProvider.handle(parameters));
+                    }
 
-                cacheService.handle(identification, out);
-            } else {
-                dataProvider.handle(parameters, out);
+                    cacheService.handle(identification, out);
+                } else {
+                    dataProvider.handle(parameters, out);
+                }
+            } finally {
+                PrecomputedRecords.end();
             }
 
 
@@ -17,6 +17,7 @@ import com.lyncode.xoai.dataprovider.core.ReferenceSet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.common.SolrDocument;
+import org.dspace.xoai.services.impl.resources.PrecomputedRecords;
 
 /**
  * @author Lyncode Development Team (dspace at lyncode dot com)
@@ -56,6 +57,8 @@ public class DSpaceSolrItem extends DSpaceItem {
         }
 
         deleted = (Boolean) doc.getFieldValue("item.deleted");
+
+        PrecomputedRecords.register(unparsedMD, doc.getFieldValues(PrecomputedRecords.FIELD));
     }
 
     @Override
@@ -18,37 +18,26 @@ import org.dspace.xoai.exceptions.InvalidMetadataFieldException;
 import org.dspace.xoai.services.api.FieldResolver;
 
 public class DSpaceFieldResolver implements FieldResolver {
-    private MetadataFieldCache metadataFieldCache = null;
-
     private static final MetadataFieldService metadataFieldService
         = ContentServiceFactory.getInstance().getMetadataFieldService();
 
     @Override
     public int getFieldID(Context context, String field) throws InvalidMetadataFieldException, SQLException {
-        if (metadataFieldCache == null) {
-            metadataFieldCache = new MetadataFieldCache();
-        }
-        if (!metadataFieldCache.hasField(field)) {
-            String[] pieces = field.split(Pattern.quote("."));
-            if (pieces.length > 1) {
-                String schema = pieces[0];
-                String element = pieces[1];
-                String qualifier = null;
-                if (pieces.length > 2) {
-                    qualifier = pieces[2];
-                }
-
-                MetadataField metadataField = metadataFieldService.findByElement(context, schema, element, qualifier);
-                if (null != metadataField) {
-                    metadataFieldCache.add(field, metadataField.getID());
-                } else {
-                    throw new InvalidMetadataFieldException();
-                }
+        String[] pieces = field.split(Pattern.quote("."));
+        if (pieces.length > 1) {
+            String schema = pieces[0];
+            String element = pieces[1];
+            String qualifier = null;
+            if (pieces.length > 2) {
+                qualifier = pieces[2];
+            }
 
-            } else {
-                throw new InvalidMetadataFieldException();
+            // looked up in the snapshot of the registry kept by the service
+            MetadataField metadataField = metadataFieldService.findByElement(context, schema, element, qualifier);
+            if (null != metadataField) {
+                return metadataField.getID();
             }
         }
-        return metadataFieldCache.getField(field);
+        throw new InvalidMetadataFieldException();
     }
 }
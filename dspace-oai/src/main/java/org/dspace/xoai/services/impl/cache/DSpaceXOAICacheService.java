@@ -8,6 +8,7 @@
 package org.dspace.xoai.services.impl.cache;
 
 import static com.lyncode.xoai.dataprovider.core.Granularity.Second;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.io.FileUtils.deleteDirectory;
 import static org.apache.commons.io.IOUtils.copy;
 import static org.apache.commons.io.IOUtils.write;
@@ -49,7 +50,7 @@ public class DSpaceXOAICacheService implements XOAICacheService {
         return baseDir;
     }
 
-    private static String getStaticHead(XOAIManager manager, Date date) {
+    protected static String getStaticHead(XOAIManager manager, Date date) {
         if (staticHead == null) {
             staticHead = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
                 + ((manager.hasStyleSheet()) ? ("<?xml-stylesheet type=\"text/xsl\" href=\""
@@ -63,7 +64,7 @@ public class DSpaceXOAICacheService implements XOAICacheService {
         return staticHead + "<responseDate>" + DateUtils.format(date) + "</responseDate>";
     }
 
-    private final XOAIManager manager;
+    protected final XOAIManager manager;
 
     public DSpaceXOAICacheService(XOAIManager manager) {
         this.manager = manager;
@@ -92,13 +93,24 @@ public class DSpaceXOAICacheService implements XOAICacheService {
     @Override
     public void handle(String requestID, OutputStream out) throws IOException {
         InputStream in = new FileInputStream(this.getCacheFile(requestID));
-        write(getStaticHead(manager, new Date()), out);
+        write(getStaticHead(manager, new Date()), out, UTF_8);
         copy(in, out);
         in.close();
     }
 
     @Override
     public void store(String requestID, OAIPMH response) throws IOException {
+        FileUtils.write(this.getCacheFile(requestID), serialize(response), UTF_8);
+    }
+
+    /**
+     * Write the response without its header, which is written again by {@link #handle(String, OutputStream)}
+     *
+     * @param response the response to cache
+     * @return the body of the response
+     * @throws IOException if the response can't be written
+     */
+    protected String serialize(OAIPMH response) throws IOException {
         ByteArrayOutputStream output = new ByteArrayOutputStream();
         try {
             XmlOutputContext context = XmlOutputContext.emptyContext(output, Second);
@@ -106,7 +118,7 @@ public class DSpaceXOAICacheService implements XOAICacheService {
             context.getWriter().flush();
             context.getWriter().close();
 
-            String xoaiResponse = output.toString();
+            String xoaiResponse = output.toString(UTF_8);
 
             // Cutting the header (to allow one to change the response time)
             String end = "</responseDate>";
@@ -115,7 +127,7 @@ public class DSpaceXOAICacheService implements XOAICacheService {
                 xoaiResponse = xoaiResponse.substring(pos + (end.length()));
             }
 
-            FileUtils.write(this.getCacheFile(requestID), xoaiResponse);
+            return xoaiResponse;
         } catch (XMLStreamException e) {
             throw new IOException(e);
         } catch (WritingXmlException e) {
@@ -0,0 +1,616 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only store of compressed entries, kept in a few large segment files instead of one file per entry.
+ * <p>
+ * Every entry is appended to the newest segment as a record of its key and its deflated value, deleting an entry
+ * appends a record without value. The location of the latest record of every key is kept in memory, and is rebuilt
+ * from the record headers when the store is opened. The older segments are read through memory mapped buffers.
+ * Once the overwritten and deleted records take up more room than the live ones, the live records are copied to new
+ * segments and the old segments are removed.
+ * <p>
+ * The webapp and the oai command line may use the same directory at the same time: the changes are serialized with
+ * a lock file, and before every operation the newest segment is checked for the changes of the other processes.
+ */
+public class SegmentStore {
+    private static final Logger log = LogManager.getLogger(SegmentStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LOCK_FILE = "segments.lock";
+    /**
+     * Key length, value length and CRC32 of the value. A header of zeros marks the end of a segment.
+     */
+    private static final int HEADER_SIZE = 12;
+    private static final int DELETED = -1;
+    /**
+     * The segments have to fit in a single mapped buffer
+     */
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private static final Map<File, SegmentStore> stores = new HashMap<>();
+
+    private final File dir;
+    private final long segmentSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Location> index = new HashMap<>();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private volatile Segment active;
+    private long nextNumber;
+    private long liveBytes;
+    private long deadBytes;
+
+    private SegmentStore(File dir, long segmentSize) {
+        this.dir = dir;
+        this.segmentSize = Math.min(segmentSize, MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open the store in the given directory. The store is shared by all the callers in this JVM.
+     *
+     * @param dir         the directory of the segments, created when needed
+     * @param segmentSize the size in bytes from which a new segment is started
+     * @return the store
+     * @throws IOException if the segments can't be read
+     */
+    public static SegmentStore open(File dir, long segmentSize) throws IOException {
+        File canonical = dir.getCanonicalFile();
+        synchronized (stores) {
+            SegmentStore store = stores.get(canonical);
+            if (store == null) {
+                store = new SegmentStore(canonical, segmentSize);
+                store.writeLocked(store::load);
+                stores.put(canonical, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Close the segments of this store. A later {@link #open(File, long)} reads them again.
+     */
+    public void close() {
+        synchronized (stores) {
+            stores.remove(dir);
+        }
+        lock.writeLock().lock();
+        try {
+            closeSegments();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) throws IOException {
+        refresh();
+        lock.readLock().lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read an entry
+     *
+     * @param key the key of the entry
+     * @return the uncompressed value, or null if there is no entry for the key
+     * @throws IOException if the entry can't be read or is corrupt
+     */
+    public InputStream get(String key) throws IOException {
+        refresh();
+        Location location;
+        ByteBuffer value;
+        lock.readLock().lock();
+        try {
+            location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            value = segments.get(location.segment).read(location.offset, location.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (crc(value) != location.crc) {
+            throw new IOException("Corrupt entry " + key + " in " + dir);
+        }
+        return new InflaterInputStream(new ByteBufferInputStream(value));
+    }
+
+    public void put(String key, byte[] value) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(value.length / 4 + 64);
+        Deflater deflater = new Deflater();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(value);
+        } finally {
+            deflater.end();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(compressed.toByteArray());
+        int crc = crc(buffer);
+        writeLocked(() -> {
+            refreshLocked();
+            append(key.getBytes(UTF_8), buffer, crc);
+            compactIfNeeded();
+        });
+    }
+
+    public void delete(String key) throws IOException {
+        writeLocked(() -> {
+            refreshLocked();
+            if (index.containsKey(key)) {
+                append(key.getBytes(UTF_8), null, 0);
+                compactIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Remove all entries, by removing the segment files.
+     *
+     * @throws IOException if a new segment can't be started
+     */
+    public void deleteAll() throws IOException {
+        writeLocked(() -> {
+            closeSegments();
+            for (long number : listSegments()) {
+                // never reuse the name of a segment another process may still know
+                nextNumber = Math.max(nextNumber, number + 1);
+                File file = segmentFile(number);
+                if (!file.delete() && file.exists()) {
+                    log.warn("Unable to delete OAI cache segment " + file);
+                }
+            }
+            index.clear();
+            liveBytes = 0;
+            deadBytes = 0;
+            active = openSegment(nextNumber);
+        });
+    }
+
+    /**
+     * Copy the live entries to new segments and remove the old segments.
+     *
+     * @throws IOException if the segments can't be read or written
+     */
+    public void compact() throws IOException {
+        writeLocked(() -> {
+            refreshLocked();
+            compactLocked();
+        });
+    }
+
+    public int size() throws IOException {
+        refresh();
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeLocked(IOAction action) throws IOException {
+        lock.writeLock().lock();
+        try {
+            dir.mkdirs();
+            try (FileChannel channel = FileChannel.open(new File(dir, LOCK_FILE).toPath(), CREATE, WRITE);
+                 FileLock fileLock = channel.lock()) {
+                action.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read the segments again if another process changed them since the last operation
+     */
+    private void refresh() throws IOException {
+        Segment segment = active;
+        boolean changed;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(segment.file.toPath(), BasicFileAttributes.class);
+            changed = attributes.size() != segment.size || !Objects.equals(attributes.fileKey(), segment.fileKey);
+        } catch (NoSuchFileException e) {
+            changed = true;
+        }
+        if (changed) {
+            writeLocked(this::refreshLocked);
+        }
+    }
+
+    private void refreshLocked() throws IOException {
+        Segment segment = active;
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(segment.file.toPath(), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // cleared or compacted
+            load();
+            return;
+        }
+        if (!Objects.equals(attributes.fileKey(), segment.fileKey) || attributes.size() < segment.size) {
+            load();
+        } else if (attributes.size() > segment.size) {
+            if (!scan(segment, segment.size, false)) {
+                load();
+                return;
+            }
+            if (segment.sealed) {
+                for (long number : listSegments()) {
+                    if (number > segment.number && !scan(openSegment(number), 0, false)) {
+                        load();
+                        return;
+                    }
+                }
+                for (Segment older : segments.headMap(segments.lastKey()).values()) {
+                    older.map();
+                }
+                active = segments.lastEntry().getValue();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        closeSegments();
+        index.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+        List<Long> numbers = listSegments();
+        for (int i = 0; i < numbers.size(); i++) {
+            boolean newest = i == numbers.size() - 1;
+            Segment segment = openSegment(numbers.get(i));
+            scan(segment, 0, newest);
+            if (!newest) {
+                segment.map();
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(nextNumber);
+        }
+        active = segments.lastEntry().getValue();
+    }
+
+    /**
+     * Add the records of a segment to the index
+     *
+     * @param segment the segment
+     * @param from    the offset of the first record to read
+     * @param recover whether to remove a partially written record at the end of the segment
+     * @return whether all records could be read
+     */
+    private boolean scan(Segment segment, long from, boolean recover) throws IOException {
+        long end = segment.channel.size();
+        if (end > from) {
+            MappedByteBuffer buffer = segment.channel.map(FileChannel.MapMode.READ_ONLY, from, end - from);
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int keyLength = buffer.getInt();
+                int valueLength = buffer.getInt();
+                int crc = buffer.getInt();
+                if (keyLength == 0 && valueLength == 0) {
+                    segment.sealed = true;
+                    deadBytes += HEADER_SIZE;
+                    continue;
+                }
+                int stored = Math.max(valueLength, 0);
+                if (keyLength < 0 || valueLength < DELETED || buffer.remaining() < (long) keyLength + stored) {
+                    buffer.position(start);
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                buffer.get(key);
+                ByteBuffer value = buffer.slice();
+                value.limit(stored);
+                if (recover && valueLength != DELETED && crc(value) != crc) {
+                    buffer.position(start);
+                    break;
+                }
+                buffer.position(buffer.position() + stored);
+                int recordLength = HEADER_SIZE + keyLength + stored;
+                if (valueLength == DELETED) {
+                    remove(new String(key, UTF_8), recordLength);
+                } else {
+                    add(new String(key, UTF_8), new Location(segment.number, from + start + HEADER_SIZE + keyLength,
+                                                             valueLength, crc, recordLength));
+                }
+            }
+            if (buffer.hasRemaining()) {
+                if (!recover) {
+                    return false;
+                }
+                // left by a process which stopped while writing, the lock file is ours
+                end = from + buffer.position();
+                log.warn("Truncating the partially written record at " + end + " of OAI cache segment "
+                             + segment.file);
+                segment.channel.truncate(end);
+            }
+        }
+        segment.size = end;
+        return true;
+    }
+
+    private void append(byte[] key, ByteBuffer value, int crc) throws IOException {
+        int valueLength = value == null ? DELETED : value.remaining();
+        int recordLength = HEADER_SIZE + key.length + Math.max(valueLength, 0);
+        Segment segment = active;
+        if (segment.sealed || (segment.size > 0 && segment.size + recordLength > segmentSize)) {
+            segment = roll();
+        }
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(key.length).putInt(valueLength).putInt(crc).put(key);
+        if (value != null) {
+            record.put(value.duplicate());
+        }
+        record.flip();
+        long offset = segment.size;
+        segment.write(record, offset);
+        if (value == null) {
+            remove(new String(key, UTF_8), recordLength);
+        } else {
+            add(new String(key, UTF_8), new Location(segment.number, offset + HEADER_SIZE + key.length, valueLength,
+                                                     crc, recordLength));
+        }
+    }
+
+    /**
+     * Seal the newest segment and start a new one. The end marker tells the other processes to look for the new
+     * segment.
+     */
+    private Segment roll() throws IOException {
+        Segment segment = active;
+        if (!segment.sealed) {
+            segment.write(ByteBuffer.allocate(HEADER_SIZE), segment.size);
+            segment.sealed = true;
+            deadBytes += HEADER_SIZE;
+        }
+        segment.map();
+        active = openSegment(nextNumber);
+        return active;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (deadBytes > liveBytes && deadBytes >= segmentSize) {
+            compactLocked();
+        }
+    }
+
+    private void compactLocked() throws IOException {
+        long start = System.currentTimeMillis();
+        long first = roll().number;
+        List<Map.Entry<String, Location>> live = new ArrayList<>(index.entrySet());
+        // keep the order in which the entries were written
+        live.sort(Comparator.comparing((Map.Entry<String, Location> entry) -> entry.getValue().segment)
+                            .thenComparing(entry -> entry.getValue().offset));
+        for (Map.Entry<String, Location> entry : live) {
+            Location location = entry.getValue();
+            ByteBuffer value = segments.get(location.segment).read(location.offset, location.length);
+            append(entry.getKey().getBytes(UTF_8), value, location.crc);
+        }
+        Iterator<Segment> old = segments.headMap(first).values().iterator();
+        while (old.hasNext()) {
+            Segment segment = old.next();
+            segment.close();
+            if (!segment.file.delete()) {
+                log.warn("Unable to delete compacted OAI cache segment " + segment.file);
+            }
+            old.remove();
+        }
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.size;
+        }
+        deadBytes = total - liveBytes;
+        log.info("Compacted " + live.size() + " OAI cache entries in " + dir + " in "
+                     + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void add(String key, Location location) {
+        Location old = index.put(key, location);
+        if (old != null) {
+            liveBytes -= old.recordLength;
+            deadBytes += old.recordLength;
+        }
+        liveBytes += location.recordLength;
+    }
+
+    private void remove(String key, int recordLength) {
+        Location old = index.remove(key);
+        if (old != null) {
+            liveBytes -= old.recordLength;
+            deadBytes += old.recordLength;
+        }
+        deadBytes += recordLength;
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        Segment segment = new Segment(number, segmentFile(number));
+        segments.put(number, segment);
+        nextNumber = Math.max(nextNumber, number + 1);
+        return segment;
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private File segmentFile(long number) {
+        return new File(dir, number + SEGMENT_SUFFIX);
+    }
+
+    private List<Long> listSegments() {
+        List<Long> numbers = new ArrayList<>();
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        numbers.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        log.debug("Ignoring " + name + " in " + dir);
+                    }
+                }
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private static class Location {
+        private final long segment;
+        private final long offset;
+        private final int length;
+        private final int crc;
+        private final int recordLength;
+
+        private Location(long segment, long offset, int length, int crc, int recordLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+            this.recordLength = recordLength;
+        }
+    }
+
+    private static class Segment {
+        private final long number;
+        private final File file;
+        private final FileChannel channel;
+        private final Object fileKey;
+        private volatile long size;
+        private boolean sealed;
+        private MappedByteBuffer mapped;
+
+        private Segment(long number, File file) throws IOException {
+            this.number = number;
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), CREATE, READ, WRITE);
+            this.fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        }
+
+        private void map() throws IOException {
+            if (mapped == null) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+
+        private ByteBuffer read(long offset, int length) throws IOException {
+            if (mapped != null) {
+                ByteBuffer buffer = mapped.duplicate();
+                buffer.position((int) offset);
+                buffer.limit((int) offset + length);
+                return buffer.slice();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of OAI cache segment " + file);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private void write(ByteBuffer buffer, long offset) throws IOException {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            size = position;
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Unable to close OAI cache segment " + file, e);
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
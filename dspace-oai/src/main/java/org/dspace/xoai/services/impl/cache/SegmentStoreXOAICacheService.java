@@ -0,0 +1,96 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.IOUtils.copy;
+import static org.apache.commons.io.IOUtils.write;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+
+import com.lyncode.xoai.dataprovider.core.XOAIManager;
+import com.lyncode.xoai.dataprovider.xml.oaipmh.OAIPMH;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.xoai.services.api.config.ConfigurationService;
+
+/**
+ * Cache of the OAI responses kept in a {@link SegmentStore}, instead of one file per request.
+ */
+public class SegmentStoreXOAICacheService extends DSpaceXOAICacheService {
+    private static final Logger log = LogManager.getLogger(SegmentStoreXOAICacheService.class);
+
+    private static final String REQUEST_DIR = File.separator + "request-segments";
+
+    private SegmentStore store;
+
+    public SegmentStoreXOAICacheService(XOAIManager manager) {
+        super(manager);
+    }
+
+    private synchronized SegmentStore getStore() throws IOException {
+        if (store == null) {
+            store = SegmentStore.open(new File(configurationService.getProperty("oai.cache.dir") + REQUEST_DIR),
+                                      getSegmentSize(configurationService));
+        }
+        return store;
+    }
+
+    /**
+     * @param configurationService the configuration
+     * @return the configured size of the segments in bytes
+     */
+    static long getSegmentSize(ConfigurationService configurationService) {
+        return NumberUtils.toLong(configurationService.getProperty("oai", "cache.segment.size"), 64) * 1024 * 1024;
+    }
+
+    @Override
+    public boolean hasCache(String requestID) {
+        try {
+            return getStore().contains(requestID);
+        } catch (IOException e) {
+            log.error("Unable to read the OAI response cache", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void handle(String requestID, OutputStream out) throws IOException {
+        try (InputStream in = getStore().get(requestID)) {
+            if (in == null) {
+                throw new IOException("No cached OAI response for " + requestID);
+            }
+            write(getStaticHead(manager, new Date()), out, UTF_8);
+            copy(in, out);
+        }
+    }
+
+    @Override
+    public void store(String requestID, OAIPMH response) throws IOException {
+        getStore().put(requestID, serialize(response).getBytes(UTF_8));
+    }
+
+    @Override
+    public void delete(String requestID) {
+        try {
+            getStore().delete(requestID);
+        } catch (IOException e) {
+            log.error("Unable to delete the cached OAI response for " + requestID, e);
+        }
+    }
+
+    @Override
+    public void deleteAll() throws IOException {
+        getStore().deleteAll();
+    }
+}
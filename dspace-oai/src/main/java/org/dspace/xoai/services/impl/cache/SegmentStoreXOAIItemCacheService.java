@@ -0,0 +1,99 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.cache;
+
+import static com.lyncode.xoai.dataprovider.core.Granularity.Second;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.stream.XMLStreamException;
+
+import com.lyncode.xoai.dataprovider.exceptions.WritingXmlException;
+import com.lyncode.xoai.dataprovider.xml.XmlOutputContext;
+import com.lyncode.xoai.dataprovider.xml.xoai.Metadata;
+import com.lyncode.xoai.dataprovider.xml.xoai.XOAIParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.content.Item;
+import org.dspace.xoai.services.api.cache.XOAIItemCacheService;
+import org.dspace.xoai.services.api.config.ConfigurationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Cache of the compiled item metadata kept in a {@link SegmentStore}, instead of one file per item.
+ */
+public class SegmentStoreXOAIItemCacheService implements XOAIItemCacheService {
+    private static final Logger log = LogManager.getLogger(SegmentStoreXOAIItemCacheService.class);
+
+    private static final String ITEMDIR = File.separator + "item-segments";
+
+    @Autowired
+    ConfigurationService configurationService;
+
+    private SegmentStore store;
+
+    private synchronized SegmentStore getStore() throws IOException {
+        if (store == null) {
+            store = SegmentStore.open(new File(configurationService.getProperty("oai", "cache.dir") + ITEMDIR),
+                                      SegmentStoreXOAICacheService.getSegmentSize(configurationService));
+        }
+        return store;
+    }
+
+    @Override
+    public boolean hasCache(Item item) {
+        try {
+            return getStore().contains(item.getHandle());
+        } catch (IOException e) {
+            log.error("Unable to read the compiled OAI items", e);
+            return false;
+        }
+    }
+
+    @Override
+    public Metadata get(Item item) throws IOException {
+        try (InputStream input = getStore().get(item.getHandle())) {
+            if (input == null) {
+                throw new IOException("Item " + item.getHandle() + " has not been compiled");
+            }
+            return XOAIParser.parse(input);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void put(Item item, Metadata metadata) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            XmlOutputContext context = XmlOutputContext.emptyContext(output, Second);
+            metadata.write(context);
+            context.getWriter().flush();
+            context.getWriter().close();
+        } catch (XMLStreamException | WritingXmlException e) {
+            throw new IOException(e);
+        }
+        getStore().put(item.getHandle(), output.toByteArray());
+    }
+
+    @Override
+    public void delete(Item item) {
+        try {
+            getStore().delete(item.getHandle());
+        } catch (IOException e) {
+            log.error("Unable to delete the compiled OAI item " + item.getHandle(), e);
+        }
+    }
+
+    @Override
+    public void deleteAll() throws IOException {
+        getStore().deleteAll();
+    }
+}
@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.CRC32;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -18,6 +19,7 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamSource;
 
 import com.lyncode.xoai.dataprovider.services.api.ResourceResolver;
+import org.apache.commons.io.IOUtils;
 import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
 
@@ -26,11 +28,13 @@ public class DSpaceResourceResolver implements ResourceResolver {
             .newInstance("net.sf.saxon.TransformerFactoryImpl", null);
 
     private final String basePath;
+    private final boolean precompute;
 
     public DSpaceResourceResolver() {
         ConfigurationService configurationService
                 = DSpaceServicesFactory.getInstance().getConfigurationService();
         basePath = configurationService.getProperty("oai.config.dir");
+        precompute = configurationService.getArrayProperty("oai.import.precompute.formats").length > 0;
     }
 
     @Override
@@ -48,6 +52,15 @@ public class DSpaceResourceResolver implements ResourceResolver {
         // XSLT-files (like <xsl:import href="utils.xsl"/>)
         String systemId = basePath + "/" + path;
         mySrc.setSystemId(systemId);
+        if (precompute) {
+            // the records precomputed with another version of the stylesheet don't match the id
+            CRC32 crc = new CRC32();
+            try (InputStream stylesheet = getResource(path)) {
+                crc.update(IOUtils.toByteArray(stylesheet));
+            }
+            return new PrecomputedTransformer(path + "@" + Long.toHexString(crc.getValue()),
+                                              transformerFactory.newTemplates(mySrc));
+        }
         return transformerFactory.newTransformer(mySrc);
     }
 }
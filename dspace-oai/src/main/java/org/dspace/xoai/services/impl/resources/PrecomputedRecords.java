@@ -0,0 +1,192 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.resources;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+
+import com.lyncode.xoai.dataprovider.core.XOAIContext;
+import com.lyncode.xoai.dataprovider.core.XOAIManager;
+import com.lyncode.xoai.dataprovider.data.internal.MetadataFormat;
+import com.lyncode.xoai.util.XSLPipeline;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Records of the configured metadata formats, precomputed by "oai import" and stored in the
+ * {@link #FIELD} field of the items, so that the OAI requests don't run the crosswalks of these formats.
+ * <p>
+ * Every stored record holds the id of a {@link PrecomputedTransformer}, the input it was run on (the compiled item,
+ * or the output of the transformer of a context) and its output. While a request is handled, the records of the
+ * items read from the index are collected, and the transformers write the collected output for the same input
+ * instead of running their stylesheet. Records of stylesheets which changed since the item was indexed are not
+ * used.
+ */
+public class PrecomputedRecords {
+    private static final Logger log = LogManager.getLogger(PrecomputedRecords.class);
+
+    public static final String FIELD = "item.precomputed";
+
+    /**
+     * Input of the transformers run on the compiled item
+     */
+    private static final String COMPILED = "";
+    private static final String SEPARATOR = "\n";
+
+    private static final ThreadLocal<Map<Key, String>> records = new ThreadLocal<>();
+
+    private PrecomputedRecords() {
+    }
+
+    /**
+     * Start collecting the records of the items read by the current thread
+     */
+    public static void begin() {
+        records.set(new HashMap<>());
+    }
+
+    /**
+     * Stop collecting records and forget the collected ones
+     */
+    public static void end() {
+        records.remove();
+    }
+
+    static boolean isActive() {
+        return records.get() != null;
+    }
+
+    static String lookup(String transformer, String input) {
+        Map<Key, String> map = records.get();
+        return map == null ? null : map.get(new Key(transformer, input));
+    }
+
+    /**
+     * Collect the stored records of an item, when the current thread handles a request
+     *
+     * @param compiled the compiled metadata of the item
+     * @param values   the values of the {@link #FIELD} field of the item, or null
+     */
+    public static void register(String compiled, Collection<Object> values) {
+        Map<Key, String> map = records.get();
+        if (map == null || compiled == null || values == null) {
+            return;
+        }
+        List<String[]> stored = new ArrayList<>();
+        for (Object value : values) {
+            String[] record = ((String) value).split(SEPARATOR, 3);
+            if (record.length == 3) {
+                stored.add(record);
+            }
+        }
+        // the outputs of the context transformers are the inputs of the format transformers
+        Map<String, String> inputs = new HashMap<>();
+        inputs.put(COMPILED, compiled);
+        for (String[] record : stored) {
+            if (COMPILED.equals(record[1])) {
+                map.put(new Key(record[0], compiled), record[2]);
+                inputs.put(record[0], record[2]);
+            }
+        }
+        for (String[] record : stored) {
+            String input = inputs.get(record[1]);
+            if (!COMPILED.equals(record[1]) && input != null) {
+                map.put(new Key(record[0], input), record[2]);
+            }
+        }
+    }
+
+    /**
+     * Run the crosswalks of the given formats on a compiled item, in every context
+     *
+     * @param manager  the XOAI configuration
+     * @param compiled the compiled metadata of the item
+     * @param prefixes the prefixes of the formats to precompute
+     * @return the values of the {@link #FIELD} field of the item
+     */
+    public static List<String> precompute(XOAIManager manager, String compiled, Collection<String> prefixes) {
+        List<String> values = new ArrayList<>();
+        Map<String, String> outputs = new HashMap<>();
+        for (XOAIContext context : manager.getContextManager().getContexts()) {
+            String inputId = COMPILED;
+            String input = compiled;
+            if (context.getTransformer().hasTransformer()) {
+                Transformer transformer = context.getTransformer().getXslTransformer().getValue();
+                if (!(transformer instanceof PrecomputedTransformer)) {
+                    continue;
+                }
+                inputId = ((PrecomputedTransformer) transformer).getId();
+                input = precompute(values, outputs, (PrecomputedTransformer) transformer, COMPILED, compiled);
+                if (input == null) {
+                    continue;
+                }
+            }
+            for (MetadataFormat format : context.getFormats()) {
+                Transformer transformer = format.getTransformer();
+                if (prefixes.contains(format.getPrefix()) && transformer instanceof PrecomputedTransformer) {
+                    precompute(values, outputs, (PrecomputedTransformer) transformer, inputId, input);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String precompute(List<String> values, Map<String, String> outputs,
+                                     PrecomputedTransformer transformer, String inputId, String input) {
+        String key = transformer.getId() + SEPARATOR + inputId;
+        if (outputs.containsKey(key)) {
+            return outputs.get(key);
+        }
+        String output = null;
+        try {
+            // the same pipeline as the one of the OAI requests
+            output = IOUtils.toString(new XSLPipeline(new ByteArrayInputStream(input.getBytes(UTF_8)), true)
+                                          .apply(transformer).getTransformed(), UTF_8);
+            values.add(key + SEPARATOR + output);
+        } catch (TransformerException | IOException e) {
+            log.warn("Unable to precompute the output of " + transformer.getId(), e);
+        }
+        outputs.put(key, output);
+        return output;
+    }
+
+    private static class Key {
+        private final String transformer;
+        private final String input;
+
+        private Key(String transformer, String input) {
+            this.transformer = transformer;
+            this.input = input;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return transformer.equals(key.transformer) && input.equals(key.input);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(transformer, input);
+        }
+    }
+}
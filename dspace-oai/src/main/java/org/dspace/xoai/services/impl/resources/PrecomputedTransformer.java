@@ -0,0 +1,156 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.resources;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Transformer of a crosswalk which writes the output precomputed by "oai import" for the records being served (see
+ * {@link PrecomputedRecords}), and runs the stylesheet for any other input.
+ * <p>
+ * The stylesheet is run by a new transformer of the compiled stylesheet every time, so that this transformer can be
+ * shared by several threads.
+ */
+public class PrecomputedTransformer extends Transformer {
+    private final String id;
+    private final Templates templates;
+    private final Properties outputProperties = new Properties();
+    private final Map<String, Object> parameters = new ConcurrentHashMap<>();
+    private volatile URIResolver uriResolver;
+    private volatile ErrorListener errorListener;
+
+    /**
+     * @param id        identifies the stylesheet and its version in the precomputed records
+     * @param templates the compiled stylesheet
+     */
+    public PrecomputedTransformer(String id, Templates templates) {
+        this.id = id;
+        this.templates = templates;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void transform(Source source, Result result) throws TransformerException {
+        if (PrecomputedRecords.isActive() && source instanceof StreamSource && result instanceof StreamResult
+            && ((StreamSource) source).getInputStream() != null
+            && ((StreamResult) result).getOutputStream() != null) {
+            byte[] input;
+            try {
+                input = IOUtils.toByteArray(((StreamSource) source).getInputStream());
+                String output = PrecomputedRecords.lookup(id, new String(input, UTF_8));
+                if (output != null) {
+                    ((StreamResult) result).getOutputStream().write(output.getBytes(UTF_8));
+                    return;
+                }
+            } catch (IOException e) {
+                throw new TransformerException(e);
+            }
+            source = new StreamSource(new ByteArrayInputStream(input), source.getSystemId());
+        }
+        newTransformer().transform(source, result);
+    }
+
+    private Transformer newTransformer() throws TransformerException {
+        Transformer transformer = templates.newTransformer();
+        transformer.setOutputProperties(getOutputProperties());
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            transformer.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        if (uriResolver != null) {
+            transformer.setURIResolver(uriResolver);
+        }
+        if (errorListener != null) {
+            transformer.setErrorListener(errorListener);
+        }
+        return transformer;
+    }
+
+    @Override
+    public void setParameter(String name, Object value) {
+        parameters.put(name, value);
+    }
+
+    @Override
+    public Object getParameter(String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public void clearParameters() {
+        parameters.clear();
+    }
+
+    @Override
+    public void setURIResolver(URIResolver resolver) {
+        this.uriResolver = resolver;
+    }
+
+    @Override
+    public URIResolver getURIResolver() {
+        return uriResolver;
+    }
+
+    @Override
+    public void setOutputProperties(Properties properties) {
+        synchronized (outputProperties) {
+            outputProperties.clear();
+            if (properties != null) {
+                outputProperties.putAll(properties);
+            }
+        }
+    }
+
+    @Override
+    public Properties getOutputProperties() {
+        Properties properties = templates.getOutputProperties();
+        synchronized (outputProperties) {
+            properties.putAll(outputProperties);
+        }
+        return properties;
+    }
+
+    @Override
+    public void setOutputProperty(String name, String value) {
+        outputProperties.setProperty(name, value);
+    }
+
+    @Override
+    public String getOutputProperty(String name) {
+        return getOutputProperties().getProperty(name);
+    }
+
+    @Override
+    public void setErrorListener(ErrorListener listener) {
+        this.errorListener = listener;
+    }
+
+    @Override
+    public ErrorListener getErrorListener() {
+        return errorListener;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.tests.unit.services.impl.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import org.apache.commons.io.IOUtils;
+import org.dspace.xoai.services.impl.cache.SegmentStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentStoreTest {
+    private static final long SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private SegmentStore store;
+
+    @Before
+    public void open() throws IOException {
+        dir = folder.newFolder("segments");
+        store = SegmentStore.open(dir, SEGMENT_SIZE);
+    }
+
+    @After
+    public void close() {
+        store.close();
+    }
+
+    @Test
+    public void entriesAreReadBackAfterReopening() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            store.put("key" + i, value(i, "first"));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            store.put("key" + i, value(i, "second"));
+        }
+        store.delete("key1");
+        assertThat(store.getSegmentCount() > 1, is(true));
+
+        store.close();
+        store = SegmentStore.open(dir, SEGMENT_SIZE);
+
+        assertThat(store.size(), is(99));
+        assertThat(store.contains("key1"), is(false));
+        assertThat(store.get("key1"), is(nullValue()));
+        assertThat(read("key2"), is(new String(value(2, "second"), UTF_8)));
+        assertThat(read("key3"), is(new String(value(3, "first"), UTF_8)));
+    }
+
+    @Test
+    public void overwrittenEntriesAreCompacted() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                store.put("key" + i, value(i, "round " + round));
+            }
+        }
+        int segments = store.getSegmentCount();
+        store.compact();
+
+        assertThat(store.getSegmentCount() < segments, is(true));
+        assertThat(dir.list((d, name) -> name.endsWith(".seg")).length, is(store.getSegmentCount()));
+        assertThat(store.size(), is(50));
+        assertThat(read("key7"), is(new String(value(7, "round 19"), UTF_8)));
+    }
+
+    @Test
+    public void deleteAllRemovesTheSegments() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            store.put("key" + i, value(i, "value"));
+        }
+        store.deleteAll();
+
+        assertThat(store.size(), is(0));
+        assertThat(store.getSegmentCount(), is(1));
+        store.put("key1", value(1, "new"));
+        assertThat(read("key1"), is(new String(value(1, "new"), UTF_8)));
+    }
+
+    @Test
+    public void partiallyWrittenRecordIsDropped() throws Exception {
+        store.put("key1", value(1, "value"));
+        store.put("key2", value(2, "value"));
+        store.close();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".seg"));
+        try (RandomAccessFile file = new RandomAccessFile(files[0], "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        store = SegmentStore.open(dir, SEGMENT_SIZE);
+
+        assertThat(store.size(), is(1));
+        assertThat(read("key1"), is(new String(value(1, "value"), UTF_8)));
+        store.put("key2", value(2, "again"));
+        assertThat(read("key2"), is(new String(value(2, "again"), UTF_8)));
+    }
+
+    private byte[] value(int i, String text) {
+        StringBuilder value = new StringBuilder("<metadata>");
+        for (int j = 0; j < 20; j++) {
+            value.append("<field name=\"").append(j).append("\">").append(text).append(' ').append(i)
+                 .append("</field>");
+        }
+        return value.append("</metadata>").toString().getBytes(UTF_8);
+    }
+
+    private String read(String key) throws IOException {
+        try (InputStream in = store.get(key)) {
+            return IOUtils.toString(in, UTF_8);
+        }
+    }
+}
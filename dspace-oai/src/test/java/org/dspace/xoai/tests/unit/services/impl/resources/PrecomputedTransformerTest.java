@@ -0,0 +1,81 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.tests.unit.services.impl.resources;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import com.lyncode.xoai.util.XSLPipeline;
+import org.apache.commons.io.IOUtils;
+import org.dspace.xoai.services.impl.resources.PrecomputedRecords;
+import org.dspace.xoai.services.impl.resources.PrecomputedTransformer;
+import org.junit.After;
+import org.junit.Test;
+
+public class PrecomputedTransformerTest {
+    private static final String COMPILED = "<item><title>Title</title></item>";
+    private static final String TITLE_XSL =
+        "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+            + "<xsl:template match=\"/\"><title><xsl:value-of select=\"/item/title\"/></title></xsl:template>"
+            + "</xsl:stylesheet>";
+
+    private final TransformerFactory factory = TransformerFactory.newInstance();
+
+    @After
+    public void end() {
+        PrecomputedRecords.end();
+    }
+
+    @Test
+    public void stylesheetIsRunOutsideOfRequests() throws Exception {
+        assertThat(transform(COMPILED, transformer("title@1")), is("<title>Title</title>"));
+    }
+
+    @Test
+    public void precomputedRecordIsWrittenForTheSameInput() throws Exception {
+        PrecomputedRecords.begin();
+        PrecomputedRecords.register(COMPILED, Arrays.asList("title@1\n\n<title>Precomputed</title>",
+                                                            "title@0\n\n<title>Old stylesheet</title>"));
+        Transformer transformer = transformer("title@1");
+
+        assertThat(transform(COMPILED, transformer), is("<title>Precomputed</title>"));
+        assertThat(transform("<item><title>Other</title></item>", transformer), is("<title>Other</title>"));
+    }
+
+    @Test
+    public void contextOutputIsTheInputOfTheFormat() throws Exception {
+        PrecomputedRecords.begin();
+        PrecomputedRecords.register(COMPILED, Arrays.asList("format@1\ncontext@1\n<title>Precomputed</title>",
+                                                            "context@1\n\n<item><title>Context</title></item>"));
+
+        assertThat(transform(COMPILED, transformer("context@1"), transformer("format@1")),
+                   is("<title>Precomputed</title>"));
+        // without the context transformer the format transformer gets the compiled item
+        assertThat(transform(COMPILED, transformer("format@1")), is("<title>Title</title>"));
+    }
+
+    private Transformer transformer(String id) throws Exception {
+        return new PrecomputedTransformer(id, factory.newTemplates(new StreamSource(new StringReader(TITLE_XSL))));
+    }
+
+    private String transform(String input, Transformer... transformers) throws Exception {
+        XSLPipeline pipeline = new XSLPipeline(new ByteArrayInputStream(input.getBytes(UTF_8)), true);
+        for (Transformer transformer : transformers) {
+            pipeline = pipeline.apply(transformer);
+        }
+        return IOUtils.toString(pipeline.getTransformed(), UTF_8);
+    }
+}
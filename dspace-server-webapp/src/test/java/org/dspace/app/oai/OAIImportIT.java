@@ -0,0 +1,158 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.oai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrDocumentList;
+import org.dspace.app.rest.test.AbstractControllerIntegrationTest;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.handle.factory.HandleServiceFactory;
+import org.dspace.handle.service.HandleService;
+import org.dspace.oai.OAIItemChange;
+import org.dspace.oai.service.OAIItemChangeService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.dspace.solr.MockSolrServer;
+import org.dspace.xoai.app.XOAI;
+import org.dspace.xoai.services.api.solr.SolrServerResolver;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Integration tests for the incremental OAI import of the items in the log of changes ("oai import -e")
+ */
+@TestPropertySource(properties = {"oai.enabled = true"})
+public class OAIImportIT extends AbstractControllerIntegrationTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private final OAIItemChangeService oaiItemChangeService = DSpaceServicesFactory.getInstance().getServiceManager()
+        .getServiceByName(OAIItemChangeService.class.getName(), OAIItemChangeService.class);
+
+    private final HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+
+    private MockSolrServer oaiSolr;
+    private Item changedItem;
+    private Item otherItem;
+
+    @Before
+    public void createItems() throws Exception {
+        // XOAI is provided by the 'dspace-oai' module, skip these tests without it
+        try {
+            Class.forName("org.dspace.app.configuration.OAIWebConfig");
+        } catch (ClassNotFoundException ce) {
+            Assume.assumeNoException(ce);
+        }
+        oaiSolr = new MockSolrServer("oai");
+
+        context.turnOffAuthorisationSystem();
+        Community community = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, community).build();
+        changedItem = ItemBuilder.createItem(context, collection).withTitle("Changed item").build();
+        otherItem = ItemBuilder.createItem(context, collection).withTitle("Other item").build();
+        context.restoreAuthSystemState();
+        clearChanges();
+    }
+
+    @After
+    public void clearIndex() throws Exception {
+        if (oaiSolr != null) {
+            oaiSolr.reset();
+            oaiSolr.destroy();
+        }
+        clearChanges();
+    }
+
+    @Test
+    public void testChangedItemsAreIndexed() throws Exception {
+        oaiItemChangeService.addChanges(context, Collections.singleton(changedItem.getID()));
+        context.commit();
+
+        assertEquals(1, createIndexer().index());
+
+        SolrDocumentList documents = oaiSolr.getSolrServer().query(new SolrQuery("*:*")).getResults();
+        assertEquals(1, documents.getNumFound());
+        assertEquals(changedItem.getID().toString(), documents.get(0).getFieldValue("item.id"));
+        assertNull(oaiItemChangeService.findLastId(context));
+    }
+
+    @Test
+    public void testDeletedItemsAreRemoved() throws Exception {
+        oaiItemChangeService.addChanges(context, Collections.singleton(changedItem.getID()));
+        oaiItemChangeService.addChanges(context, Collections.singleton(otherItem.getID()));
+        context.commit();
+        assertEquals(2, createIndexer().index());
+
+        ItemBuilder.deleteItem(otherItem.getID());
+        oaiItemChangeService.addChanges(context, Collections.singleton(otherItem.getID()));
+        context.commit();
+
+        assertEquals(1, createIndexer().index());
+
+        SolrDocumentList documents = oaiSolr.getSolrServer().query(new SolrQuery("*:*")).getResults();
+        assertEquals(1, documents.getNumFound());
+        assertEquals(changedItem.getID().toString(), documents.get(0).getFieldValue("item.id"));
+        assertNull(oaiItemChangeService.findLastId(context));
+    }
+
+    @Test
+    public void testChangesOfItemsNotIndexedAreKept() throws Exception {
+        // an item without handle can't be indexed
+        context.turnOffAuthorisationSystem();
+        handleService.unbindHandle(context, otherItem);
+        context.restoreAuthSystemState();
+        oaiItemChangeService.addChanges(context, Collections.singleton(changedItem.getID()));
+        oaiItemChangeService.addChanges(context, Collections.singleton(otherItem.getID()));
+        context.commit();
+
+        assertEquals(1, createIndexer().index());
+
+        SolrDocumentList documents = oaiSolr.getSolrServer().query(new SolrQuery("*:*")).getResults();
+        assertEquals(1, documents.getNumFound());
+        assertEquals(changedItem.getID().toString(), documents.get(0).getFieldValue("item.id"));
+        List<OAIItemChange> changes = oaiItemChangeService.findOldest(context, 10);
+        assertEquals(1, changes.size());
+        assertEquals(otherItem.getID(), changes.get(0).getItemId());
+    }
+
+    /**
+     * @return an indexer of the changed items, writing to the mock OAI core
+     */
+    private XOAI createIndexer() {
+        XOAI indexer = new XOAI(context, false, false, true, false);
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(indexer);
+        SolrServerResolver solrServerResolver = () -> oaiSolr.getSolrServer();
+        ReflectionTestUtils.setField(indexer, "solrServerResolver", solrServerResolver);
+        return indexer;
+    }
+
+    private void clearChanges() throws Exception {
+        Integer lastChange = oaiItemChangeService.findLastId(context);
+        if (lastChange != null) {
+            oaiItemChangeService.deleteUpTo(context, lastChange, Collections.emptySet());
+            context.commit();
+        }
+    }
+}